@@ -0,0 +1,100 @@
+#!/usr/bin/env bash
+# Compares the startup time of the container variants: jvm (Dockerfile), aot (Dockerfile.aot, Spring AOT and class
+# data sharing) and native (Dockerfile.native, GraalVM native image).
+# Every run starts a fresh container against the same PostgreSQL and records the time from docker run until
+# /actuator/health answers UP, the startup time the application logs and the resident memory once ready.
+# Usage: ./measure-startup.sh [runs] [variant...]   e.g. ./measure-startup.sh 10 jvm aot
+# Set BUILD=false to measure images built before.
+set -euo pipefail
+
+RUNS=${1:-5}
+shift || true
+VARIANTS=("$@")
+if [ ${#VARIANTS[@]} -eq 0 ]; then
+  VARIANTS=(jvm aot native)
+fi
+BUILD=${BUILD:-true}
+NETWORK=device-startup-net
+POSTGRES=device-startup-postgres
+APP=device-startup-app
+PORT=${PORT:-18080}
+
+dockerfile() {
+  case $1 in
+    jvm) echo Dockerfile ;;
+    aot) echo Dockerfile.aot ;;
+    native) echo Dockerfile.native ;;
+    *) echo "Unknown variant $1, expected jvm, aot or native" >&2; exit 1 ;;
+  esac
+}
+
+now_millis() {
+  date +%s%3N
+}
+
+median() {
+  sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }'
+}
+
+cleanup() {
+  docker rm -f "$APP" "$POSTGRES" >/dev/null 2>&1 || true
+  docker network rm "$NETWORK" >/dev/null 2>&1 || true
+}
+trap cleanup EXIT
+
+# one run of a variant: wall clock millis until healthy, logged startup seconds, resident memory
+run_once() {
+  local image=$1 start ready
+  start=$(now_millis)
+  docker run -d --name "$APP" --network "$NETWORK" -p "$PORT:8080" \
+    -e DB_URL="jdbc:postgresql://$POSTGRES:5432/postgres" \
+    -e DB_USER=device-user -e DB_PASS=device-password "$image" >/dev/null
+  until curl -sf "http://localhost:$PORT/actuator/health" | grep -q '"status":"UP"'; do
+    if [ "$(docker inspect -f '{{.State.Running}}' "$APP")" != "true" ]; then
+      docker logs "$APP" >&2
+      echo "$image exited before it was healthy" >&2
+      exit 1
+    fi
+    sleep 0.05
+  done
+  ready=$(now_millis)
+  local started memory
+  started=$(docker logs "$APP" 2>&1 | sed -n 's/.*Started DeviceApiMsApplication in \([0-9.]*\) seconds.*/\1/p')
+  memory=$(docker stats --no-stream --format '{{.MemUsage}}' "$APP" | cut -d/ -f1 | tr -d ' ')
+  docker rm -f "$APP" >/dev/null
+  echo "$((ready - start)) $started $memory"
+}
+
+cleanup
+docker network create "$NETWORK" >/dev/null
+docker run -d --name "$POSTGRES" --network "$NETWORK" \
+  -e POSTGRES_DB=postgres -e POSTGRES_USER=device-user -e POSTGRES_PASSWORD=device-password \
+  postgres:latest >/dev/null
+until docker exec "$POSTGRES" pg_isready -U device-user -d postgres >/dev/null 2>&1; do
+  sleep 0.5
+done
+
+results=()
+for variant in "${VARIANTS[@]}"; do
+  image=device-api-image:$variant
+  if [ "$BUILD" = "true" ]; then
+    docker build -f "$(dockerfile "$variant")" -t "$image" .
+  fi
+  # the first run migrates the schema and warms the database, it is not counted
+  run_once "$image" >/dev/null
+  for run in $(seq "$RUNS"); do
+    result=$(run_once "$image")
+    read -r millis started memory <<<"$result"
+    echo "$variant run $run: healthy after ${millis} ms, started in ${started} s, ${memory}"
+    results+=("$variant $millis $started $memory")
+  done
+done
+
+echo
+printf '%-8s %18s %18s %18s %14s\n' variant "healthy min (ms)" "healthy p50 (ms)" "healthy max (ms)" "started p50 (s)"
+for variant in "${VARIANTS[@]}"; do
+  millis=$(printf '%s\n' "${results[@]}" | awk -v variant="$variant" '$1 == variant { print $2 }' | sort -n)
+  started=$(printf '%s\n' "${results[@]}" | awk -v variant="$variant" '$1 == variant { print $3 }' | median)
+  printf '%-8s %18s %18s %18s %14s\n' "$variant" "$(head -1 <<<"$millis")" "$(median <<<"$millis")" \
+    "$(tail -1 <<<"$millis")" "$started"
+done
@@ -0,0 +1,24 @@
+package com.piotr.network.deviceapims.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.piotr.network.deviceapims.config.JacksonConfiguration;
+import com.piotr.network.deviceapims.generated.model.TopologyNodeResponse;
+import com.piotr.network.deviceapims.mapper.TopologyNodeResponseSerializer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+final class BenchmarkObjectMapper {
+
+    private BenchmarkObjectMapper() {
+    }
+
+    /**
+     * ObjectMapper configured like the application one, without starting a Spring context
+     * @return ObjectMapper
+     */
+    static ObjectMapper create() {
+        var builder = new Jackson2ObjectMapperBuilder();
+        new JacksonConfiguration().topologyNestingDepthCustomizer().customize(builder);
+        builder.serializerByType(TopologyNodeResponse.class, new TopologyNodeResponseSerializer());
+        return builder.build();
+    }
+}
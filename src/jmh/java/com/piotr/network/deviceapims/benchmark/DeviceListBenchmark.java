@@ -0,0 +1,59 @@
+package com.piotr.network.deviceapims.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.piotr.network.deviceapims.cache.DeviceLookupCache;
+import com.piotr.network.deviceapims.generated.model.DeviceResponse;
+import com.piotr.network.deviceapims.index.MacAddressFilter;
+import com.piotr.network.deviceapims.index.TopologyIndex;
+import com.piotr.network.deviceapims.mapper.DeviceMapper;
+import com.piotr.network.deviceapims.service.DeviceService;
+import com.piotr.network.deviceapims.service.DeviceServiceImpl;
+import com.piotr.network.deviceapims.snapshot.ChangeSequence;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /devices without the database: the sorted rows are already in memory, so this measures the service
+ * mapping and the response serialization
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class DeviceListBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private final ObjectMapper objectMapper = BenchmarkObjectMapper.create();
+    private DeviceService deviceService;
+    private List<DeviceResponse> devices;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var deviceRepository = SyntheticTopology.of(TopologyShape.BALANCED, size).repository();
+        deviceService = new DeviceServiceImpl(deviceRepository, new DeviceMapper(),
+                new TopologyIndex(deviceRepository, false), event -> { },
+                new DeviceLookupCache(false, 0, Duration.ZERO, Duration.ZERO, new SimpleMeterRegistry()),
+                new MacAddressFilter(deviceRepository, false, 0, 0.01), new ChangeSequence(new InMemoryChangeCounter(), 1000));
+        devices = deviceService.getDevices();
+    }
+
+    @Benchmark
+    public List<DeviceResponse> getDevices() {
+        return deviceService.getDevices();
+    }
+
+    @Benchmark
+    public void serializeDevices() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), devices);
+    }
+}
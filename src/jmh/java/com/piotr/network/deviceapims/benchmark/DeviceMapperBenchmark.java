@@ -0,0 +1,60 @@
+package com.piotr.network.deviceapims.benchmark;
+
+import com.piotr.network.deviceapims.entity.DeviceEntity;
+import com.piotr.network.deviceapims.mapper.DeviceMapper;
+import com.piotr.network.deviceapims.repository.DeviceRow;
+import com.piotr.network.deviceapims.repository.DeviceTopologyRow;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-device conversions done by DeviceMapper for every listing and topology response
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class DeviceMapperBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private final DeviceMapper deviceMapper = new DeviceMapper();
+    private List<DeviceEntity> entities;
+    private List<DeviceRow> deviceRows;
+    private List<DeviceTopologyRow> topologyRows;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var topology = SyntheticTopology.of(TopologyShape.BALANCED, size);
+        entities = topology.entities();
+        deviceRows = topology.deviceRows();
+        topologyRows = topology.topologyRows();
+    }
+
+    @Benchmark
+    public void mapDeviceEntityToRegisterDeviceResponse(Blackhole blackhole) {
+        for (var entity : entities) {
+            blackhole.consume(deviceMapper.mapDeviceEntityToRegisterDeviceResponse(entity));
+        }
+    }
+
+    @Benchmark
+    public void mapDeviceRowToDeviceResponse(Blackhole blackhole) {
+        for (var row : deviceRows) {
+            blackhole.consume(deviceMapper.mapDeviceRowToDeviceResponse(row));
+        }
+    }
+
+    @Benchmark
+    public void mapTopologyRowToTopologyNodeResponse(Blackhole blackhole) {
+        for (var row : topologyRows) {
+            blackhole.consume(deviceMapper.mapTopologyRowToTopologyNodeResponse(row));
+        }
+    }
+}
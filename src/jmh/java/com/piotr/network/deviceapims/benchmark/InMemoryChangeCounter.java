@@ -0,0 +1,26 @@
+package com.piotr.network.deviceapims.benchmark;
+
+import com.piotr.network.deviceapims.repository.ChangeCounterRepository;
+
+/**
+ * Change counter kept in memory, for benchmarks that build the service without a database
+ */
+final class InMemoryChangeCounter extends ChangeCounterRepository {
+
+    private long lastValue;
+
+    InMemoryChangeCounter() {
+        super(null);
+    }
+
+    @Override
+    public synchronized long advance(int count) {
+        lastValue += count;
+        return lastValue;
+    }
+
+    @Override
+    public synchronized long findLastValue() {
+        return lastValue;
+    }
+}
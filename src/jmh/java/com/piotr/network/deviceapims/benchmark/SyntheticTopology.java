@@ -0,0 +1,185 @@
+package com.piotr.network.deviceapims.benchmark;
+
+import com.piotr.network.deviceapims.entity.DeviceEntity;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+import com.piotr.network.deviceapims.generated.model.TopologyNodeResponse;
+import com.piotr.network.deviceapims.repository.DeviceRepository;
+import com.piotr.network.deviceapims.repository.DeviceRow;
+import com.piotr.network.deviceapims.repository.DeviceTopologyRow;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Deterministic device graph used as benchmark input; the same shape and size always yield the same devices.
+ * Device i has MAC address i + 1 and id (0, i); its uplink always has a lower number.
+ * Roots are gateways, devices with children are switches and leaves are access points.
+ */
+public final class SyntheticTopology {
+
+    static final int DEEP_CHAIN_LENGTH = 10_000;
+    static final int BALANCED_FAN_OUT = 8;
+
+    private static final int NO_UPLINK = -1;
+
+    private final int[] uplinks;
+    private final int[] depths;
+    private final DeviceType[] deviceTypes;
+
+    private SyntheticTopology(int[] uplinks) {
+        int size = uplinks.length;
+        this.uplinks = uplinks;
+        this.depths = new int[size];
+        this.deviceTypes = new DeviceType[size];
+        boolean[] hasChildren = new boolean[size];
+        for (int device = 0; device < size; device++) {
+            if (uplinks[device] != NO_UPLINK) {
+                depths[device] = depths[uplinks[device]] + 1;
+                hasChildren[uplinks[device]] = true;
+            }
+        }
+        for (int device = 0; device < size; device++) {
+            deviceTypes[device] = depths[device] == 0 ? DeviceType.GATEWAY
+                    : hasChildren[device] ? DeviceType.SWITCH : DeviceType.ACCESS_POINT;
+        }
+    }
+
+    /**
+     * Generates a topology
+     * @param shape the topology shape
+     * @param size the number of devices
+     * @return SyntheticTopology
+     */
+    public static SyntheticTopology of(TopologyShape shape, int size) {
+        int[] uplinks = new int[size];
+        for (int device = 0; device < size; device++) {
+            uplinks[device] = switch (shape) {
+                case WIDE -> device == 0 ? NO_UPLINK : 0;
+                case DEEP -> device % DEEP_CHAIN_LENGTH == 0 ? NO_UPLINK : device - 1;
+                case BALANCED -> device == 0 ? NO_UPLINK : (device - 1) / BALANCED_FAN_OUT;
+            };
+        }
+        return new SyntheticTopology(uplinks);
+    }
+
+    public int size() {
+        return uplinks.length;
+    }
+
+    /**
+     * Rows as returned by the recursive topology query, ordered by depth, then MAC address
+     * @return the List of topology rows
+     */
+    public List<DeviceTopologyRow> topologyRows() {
+        return IntStream.range(0, size()).boxed()
+                .sorted(Comparator.comparingInt((Integer device) -> depths[device]).thenComparingInt(device -> device))
+                .map(device -> (DeviceTopologyRow) new TopologyRow(macAddress(device).toLong(),
+                        uplinks[device] != NO_UPLINK ? macAddress(uplinks[device]).toLong() : null, depths[device]))
+                .toList();
+    }
+
+    /**
+     * Rows as returned by the sorted device listing query, ordered by device type, then MAC address
+     * @return the List of device rows
+     */
+    public List<DeviceRow> deviceRows() {
+        return IntStream.range(0, size()).boxed()
+                .sorted(Comparator.comparingInt((Integer device) -> DeviceEntity.typeRankOf(deviceTypes[device]))
+                        .thenComparingInt(device -> device))
+                .map(device -> (DeviceRow) new Row(macAddress(device), deviceTypes[device]))
+                .toList();
+    }
+
+    /**
+     * Detached entities with their uplinks set
+     * @return the List of entities in device number order
+     */
+    public List<DeviceEntity> entities() {
+        List<DeviceEntity> entities = new ArrayList<>(size());
+        for (int device = 0; device < size(); device++) {
+            var entity = new DeviceEntity();
+            entity.setId(id(device));
+            entity.setDeviceType(deviceTypes[device]);
+            entity.setMacAddress(macAddress(device));
+            entity.setUplinkDevice(uplinks[device] != NO_UPLINK ? entities.get(uplinks[device]) : null);
+            entities.add(entity);
+        }
+        return entities;
+    }
+
+    /**
+     * The topology as response objects
+     * @return the List of root data transfer objects
+     */
+    public List<TopologyNodeResponse> tree() {
+        var nodes = new TopologyNodeResponse[size()];
+        List<TopologyNodeResponse> roots = new ArrayList<>();
+        for (int device = 0; device < size(); device++) {
+            nodes[device] = new TopologyNodeResponse(macAddress(device).toString()).children(new ArrayList<>());
+            if (uplinks[device] == NO_UPLINK) {
+                roots.add(nodes[device]);
+            } else {
+                nodes[uplinks[device]].getChildren().add(nodes[device]);
+            }
+        }
+        return roots;
+    }
+
+    /**
+     * Repository answering the topology and device listing queries from this topology
+     * @return DeviceRepository
+     */
+    public DeviceRepository repository() {
+        var topologyRows = topologyRows();
+        var deviceRows = deviceRows();
+        return (DeviceRepository) Proxy.newProxyInstance(DeviceRepository.class.getClassLoader(),
+                new Class<?>[]{DeviceRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findTopologyForest" -> topologyRows;
+                    case "findDevicesSorted" -> deviceRows;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static UUID id(int device) {
+        return new UUID(0, device);
+    }
+
+    private static MacAddress macAddress(int device) {
+        return MacAddress.of(device + 1L);
+    }
+
+    private record TopologyRow(Long macAddress, Long uplinkMacAddress, Integer depth) implements DeviceTopologyRow {
+        @Override
+        public Long getMacAddress() {
+            return macAddress;
+        }
+
+        @Override
+        public Long getUplinkMacAddress() {
+            return uplinkMacAddress;
+        }
+
+        @Override
+        public Integer getDepth() {
+            return depth;
+        }
+    }
+
+    private record Row(MacAddress macAddress, DeviceType deviceType) implements DeviceRow {
+        @Override
+        public MacAddress getMacAddress() {
+            return macAddress;
+        }
+
+        @Override
+        public DeviceType getDeviceType() {
+            return deviceType;
+        }
+    }
+}
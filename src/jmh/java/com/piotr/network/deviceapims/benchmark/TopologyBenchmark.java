@@ -0,0 +1,63 @@
+package com.piotr.network.deviceapims.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.piotr.network.deviceapims.cache.DeviceLookupCache;
+import com.piotr.network.deviceapims.generated.model.TopologyNodeResponse;
+import com.piotr.network.deviceapims.index.MacAddressFilter;
+import com.piotr.network.deviceapims.index.TopologyIndex;
+import com.piotr.network.deviceapims.mapper.DeviceMapper;
+import com.piotr.network.deviceapims.service.DeviceService;
+import com.piotr.network.deviceapims.service.DeviceServiceImpl;
+import com.piotr.network.deviceapims.snapshot.ChangeSequence;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /devices/topology without the database: tree building from the depth ordered rows of the recursive
+ * query, and serialization of the finished tree
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class TopologyBenchmark {
+
+    @Param({"WIDE", "DEEP", "BALANCED"})
+    private TopologyShape shape;
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private final ObjectMapper objectMapper = BenchmarkObjectMapper.create();
+    private DeviceService deviceService;
+    private List<TopologyNodeResponse> tree;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var topology = SyntheticTopology.of(shape, size);
+        var deviceRepository = topology.repository();
+        deviceService = new DeviceServiceImpl(deviceRepository, new DeviceMapper(),
+                new TopologyIndex(deviceRepository, false), event -> { },
+                new DeviceLookupCache(false, 0, Duration.ZERO, Duration.ZERO, new SimpleMeterRegistry()),
+                new MacAddressFilter(deviceRepository, false, 0, 0.01), new ChangeSequence(new InMemoryChangeCounter(), 1000));
+        tree = topology.tree();
+    }
+
+    @Benchmark
+    public List<TopologyNodeResponse> buildTopologyTree() {
+        return deviceService.getTopologyNodes(null);
+    }
+
+    @Benchmark
+    public void serializeTopology() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), tree);
+    }
+}
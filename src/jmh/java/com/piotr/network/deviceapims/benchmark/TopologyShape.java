@@ -0,0 +1,13 @@
+package com.piotr.network.deviceapims.benchmark;
+
+/**
+ * Shape of a synthetic topology
+ */
+public enum TopologyShape {
+    /** One gateway with every other device attached directly to it */
+    WIDE,
+    /** Uplink chains of {@link SyntheticTopology#DEEP_CHAIN_LENGTH} devices */
+    DEEP,
+    /** Complete tree with {@link SyntheticTopology#BALANCED_FAN_OUT} children per device */
+    BALANCED
+}
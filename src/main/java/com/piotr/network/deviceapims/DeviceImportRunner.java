@@ -0,0 +1,52 @@
+package com.piotr.network.deviceapims;
+
+import com.piotr.network.deviceapims.service.DeviceImportFormat;
+import com.piotr.network.deviceapims.service.DeviceImportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Import mode of the application: imports the file given with {@code device.import.file} on startup.
+ * Run together with {@code spring.main.web-application-type=none} the application exits once the file is imported.
+ * The format is taken from {@code device.import.format}, or from the file extension when not set.
+ */
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty("device.import.file")
+public class DeviceImportRunner implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(DeviceImportRunner.class);
+
+    private final DeviceImportService deviceImportService;
+    private final Path file;
+    private final DeviceImportFormat format;
+
+    public DeviceImportRunner(DeviceImportService deviceImportService,
+                              @Value("${device.import.file}") Path file,
+                              @Value("${device.import.format:#{null}}") DeviceImportFormat format) {
+        this.deviceImportService = deviceImportService;
+        this.file = file;
+        this.format = format != null ? format : DeviceImportFormat.ofFileName(file.getFileName().toString())
+                .orElseThrow(() -> new IllegalArgumentException("Unknown import format of " + file
+                        + ", set device.import.format to CSV or NDJSON"));
+    }
+
+    @Override
+    public void run(String... args) throws IOException {
+        try (var inputStream = Files.newInputStream(file)) {
+            var result = deviceImportService.importDevices(inputStream, format);
+            log.info("Imported {} devices from {}, {} lines rejected", result.imported(), file, result.rejected());
+            result.rejections().forEach(rejection -> log.warn("Line {} rejected ({}): {}",
+                    rejection.line(), rejection.reason().getValue(), rejection.message()));
+        }
+    }
+}
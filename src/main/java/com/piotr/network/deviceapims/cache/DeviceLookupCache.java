@@ -0,0 +1,95 @@
+package com.piotr.network.deviceapims.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.event.DeviceRegisteredEvent;
+import com.piotr.network.deviceapims.event.DevicesImportedEvent;
+import com.piotr.network.deviceapims.generated.model.DeviceResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of device lookups by MAC address.
+ * Unregistered MAC addresses are cached as empty results with a shorter time to live, so repeated lookups of
+ * unknown devices do not reach the database. An entry is dropped once the registration of its MAC address
+ * is committed; a lookup still loading at that moment completes before the entry is dropped.
+ */
+@Component
+public class DeviceLookupCache {
+
+    static final String CACHE_NAME = "deviceLookup";
+
+    private final boolean enabled;
+    private final Cache<MacAddress, Optional<DeviceResponse>> cache;
+
+    public DeviceLookupCache(@Value("${device.lookup-cache.enabled:false}") boolean enabled,
+                             @Value("${device.lookup-cache.maximum-size:10000}") long maximumSize,
+                             @Value("${device.lookup-cache.ttl:10m}") Duration ttl,
+                             @Value("${device.lookup-cache.negative-ttl:5s}") Duration negativeTtl,
+                             MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new LookupExpiry(ttl.toNanos(), negativeTtl.toNanos()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Cached lookup result, loaded once per MAC address while the entry lives
+     * @param macAddress the MAC address
+     * @param loader loads the device when the MAC address is not cached
+     * @return the device, empty when not registered
+     */
+    public Optional<DeviceResponse> get(MacAddress macAddress, Function<MacAddress, Optional<DeviceResponse>> loader) {
+        return enabled ? cache.get(macAddress, loader) : loader.apply(macAddress);
+    }
+
+    /**
+     * Drops the entry of a MAC address once its registration is committed
+     * @param event the registered device
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDeviceRegistered(DeviceRegisteredEvent event) {
+        cache.invalidate(event.macAddress());
+    }
+
+    /**
+     * Drops every cached lookup once an import is committed, as any not found entry may now be registered
+     * @param event the imported devices
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDevicesImported(DevicesImportedEvent event) {
+        cache.invalidateAll();
+    }
+
+    private record LookupExpiry(long ttlNanos, long negativeTtlNanos) implements Expiry<MacAddress, Optional<DeviceResponse>> {
+        @Override
+        public long expireAfterCreate(MacAddress key, Optional<DeviceResponse> value, long currentTime) {
+            return value.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(MacAddress key, Optional<DeviceResponse> value, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(MacAddress key, Optional<DeviceResponse> value, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
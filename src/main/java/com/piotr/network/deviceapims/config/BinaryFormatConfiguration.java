@@ -0,0 +1,50 @@
+package com.piotr.network.deviceapims.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.piotr.network.deviceapims.mapper.DeviceProtobufHttpMessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binary representations of the device and topology responses, selected with the Accept header.
+ * CBOR and Smile converters are built from the application ObjectMapper builder, so they share its
+ * serializers and nesting limit; they replace the converters Spring MVC would otherwise create with defaults.
+ */
+@Configuration
+@Profile("!reactive")
+public class BinaryFormatConfiguration {
+
+    /**
+     * application/cbor
+     * @param builder the application ObjectMapper builder
+     * @return MappingJackson2CborHttpMessageConverter
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * application/x-jackson-smile
+     * @param builder the application ObjectMapper builder
+     * @return MappingJackson2SmileHttpMessageConverter
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    /**
+     * application/x-protobuf, see device_api.proto
+     * @return DeviceProtobufHttpMessageConverter
+     */
+    @Bean
+    public DeviceProtobufHttpMessageConverter protobufHttpMessageConverter() {
+        return new DeviceProtobufHttpMessageConverter();
+    }
+}
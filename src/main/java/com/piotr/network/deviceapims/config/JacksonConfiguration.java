@@ -0,0 +1,26 @@
+package com.piotr.network.deviceapims.config;
+
+import com.fasterxml.jackson.core.StreamWriteConstraints;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfiguration {
+
+    /**
+     * Every topology level nests an object and its children array, so Jackson's default limit of 1000 nested
+     * values would reject chains deeper than about 500 devices.
+     */
+    static final int MAX_NESTING_DEPTH = 100_000;
+
+    /**
+     * Raises the write nesting limit of the application ObjectMapper for deep topologies
+     * @return Jackson2ObjectMapperBuilderCustomizer
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer topologyNestingDepthCustomizer() {
+        return builder -> builder.postConfigurer(objectMapper -> objectMapper.getFactory().setStreamWriteConstraints(
+                StreamWriteConstraints.builder().maxNestingDepth(MAX_NESTING_DEPTH).build()));
+    }
+}
@@ -0,0 +1,71 @@
+package com.piotr.network.deviceapims.config;
+
+import com.piotr.network.deviceapims.repository.DeviceIndexRecord;
+import com.piotr.network.deviceapims.repository.DeviceRowRecord;
+import com.piotr.network.deviceapims.service.DeviceImportRejection;
+import com.piotr.network.deviceapims.service.DeviceImportResult;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reflection and resource hints of the native image (native profile) that Spring AOT cannot infer from the beans:
+ * every generated OpenAPI model, as models nested in responses or SSE events are bound by Jackson reflectively,
+ * the records Hibernate builds from constructor expressions and the classes and files named in configuration.
+ */
+@Configuration
+@ImportRuntimeHints(RuntimeHintsConfiguration.DeviceApiRuntimeHints.class)
+public class RuntimeHintsConfiguration {
+
+    static final String GENERATED_MODELS = "classpath*:com/piotr/network/deviceapims/generated/model/*.class";
+
+    static class DeviceApiRuntimeHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            var bindingHints = new BindingReflectionHintsRegistrar();
+            bindingHints.registerReflectionHints(hints.reflection(), generatedModels(classLoader).toArray(Class<?>[]::new));
+            bindingHints.registerReflectionHints(hints.reflection(), DeviceImportResult.class, DeviceImportRejection.class);
+            //select new ...Record(...) of DeviceRepository
+            hints.reflection().registerType(DeviceRowRecord.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            hints.reflection().registerType(DeviceIndexRecord.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            //hibernate.javax.cache.provider and its region sizes
+            hints.reflection().registerType(TypeReference.of("com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider"),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            hints.resources().registerPattern("application.conf");
+            //spring.flyway.locations, below the db/migration/* covered by Spring Boot
+            hints.resources().registerPattern("db/migration/*/*.sql");
+        }
+
+        /**
+         * Generated OpenAPI models
+         * @param classLoader the class loader of the application
+         * @return every class of the generated model package
+         */
+        static List<Class<?>> generatedModels(ClassLoader classLoader) {
+            var resolver = new PathMatchingResourcePatternResolver(classLoader);
+            var metadataReaderFactory = new CachingMetadataReaderFactory(resolver);
+            List<Class<?>> models = new ArrayList<>();
+            try {
+                for (var resource : resolver.getResources(GENERATED_MODELS)) {
+                    var className = metadataReaderFactory.getMetadataReader(resource).getClassMetadata().getClassName();
+                    models.add(ClassUtils.forName(className, classLoader));
+                }
+            } catch (IOException | ClassNotFoundException e) {
+                throw new IllegalStateException("Cannot list the generated models", e);
+            }
+            return models;
+        }
+    }
+}
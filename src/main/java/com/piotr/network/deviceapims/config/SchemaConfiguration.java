@@ -0,0 +1,34 @@
+package com.piotr.network.deviceapims.config;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Runs the Flyway migrations on startup unless {@code device.schema.migrate-on-startup} is false, e.g. when a
+ * separate job migrates the database before the pods roll out, or for the class data sharing training run of
+ * Dockerfile.aot, which starts without a database. Decided at runtime, unlike {@code spring.flyway.enabled} which
+ * an AOT processed build fixes at build time.
+ */
+@Configuration
+@Profile("!reactive")
+public class SchemaConfiguration {
+
+    /**
+     * Migrates the schema, or leaves it to be validated as it is
+     * @param migrateOnStartup whether the migrations run on startup
+     * @return FlywayMigrationStrategy
+     */
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(
+            @Value("${device.schema.migrate-on-startup:true}") boolean migrateOnStartup) {
+        return flyway -> {
+            if (migrateOnStartup) {
+                flyway.migrate();
+            }
+        };
+    }
+}
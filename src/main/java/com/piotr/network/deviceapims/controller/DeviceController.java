@@ -1,55 +1,98 @@
 package com.piotr.network.deviceapims.controller;
 
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.exception.InvalidRequestException;
 import com.piotr.network.deviceapims.generated.api.DevicesApi;
+import com.piotr.network.deviceapims.generated.model.BatchRegisterDeviceResponse;
+import com.piotr.network.deviceapims.generated.model.DevicePathResponse;
 import com.piotr.network.deviceapims.generated.model.DeviceResponse;
 import com.piotr.network.deviceapims.generated.model.RegisterDeviceRequest;
 import com.piotr.network.deviceapims.generated.model.RegisterDeviceResponse;
+import com.piotr.network.deviceapims.generated.model.RegistrationStatusResponse;
+import com.piotr.network.deviceapims.generated.model.TopologyChangesResponse;
 import com.piotr.network.deviceapims.generated.model.TopologyNodeResponse;
+import com.piotr.network.deviceapims.metrics.DeviceMetrics;
+import com.piotr.network.deviceapims.registration.RegistrationQueue;
 import com.piotr.network.deviceapims.service.DeviceService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.util.List;
+import java.util.UUID;
 
 @RestController
+@Profile("!reactive")
 @Validated
 public class DeviceController implements DevicesApi {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final DeviceService deviceService;
-    public DeviceController(DeviceService deviceService) {
+    private final DeviceMetrics deviceMetrics;
+    private final RegistrationQueue registrationQueue;
+    public DeviceController(DeviceService deviceService, DeviceMetrics deviceMetrics, RegistrationQueue registrationQueue) {
         this.deviceService = deviceService;
+        this.deviceMetrics = deviceMetrics;
+        this.registrationQueue = registrationQueue;
     }
 
     /**
      * Get device topology
+     * @param depth number of levels to return below the roots
      * @return List of TopologyNodeResponse
      */
     @Override
-    public ResponseEntity<List<TopologyNodeResponse>> devicesTopologyGet() {
-        var result = deviceService.getTopologyNodes();
+    public ResponseEntity<List<TopologyNodeResponse>> devicesTopologyGet(Integer depth) {
+        var result = deviceService.getTopologyNodes(depth);
+        deviceMetrics.recordTopology("devicesTopologyGet", result);
         return ResponseEntity.ok(result);
     }
 
     /**
      * Get devices Topology by Mac Address
      * @param macAddress the data transfer object containing user input for processing
+     * @param depth number of levels to return below the device
      * @return TopologyNodeResponse
      */
     @Override
-    public ResponseEntity<TopologyNodeResponse> devicesTopologyMacAddressGet(String macAddress) {
-        var result = deviceService.getTopologyNodeByMac(macAddress);
+    public ResponseEntity<TopologyNodeResponse> devicesTopologyMacAddressGet(String macAddress, Integer depth) {
+        var result = deviceService.getTopologyNodeByMac(parseMacAddress(macAddress), depth);
+        deviceMetrics.recordTopology("devicesTopologyMacAddressGet", List.of(result));
         return ResponseEntity.ok(result);
     }
 
     /**
-     * Get All Devices
+     * Get Topology Changes
+     * @param since topology version of the last change known to the client
+     * @return TopologyChangesResponse
+     */
+    @Override
+    public ResponseEntity<TopologyChangesResponse> getTopologyChanges(Long since) {
+        return ResponseEntity.ok(deviceService.getTopologyChanges(since));
+    }
+
+    /**
+     * Get All Devices, or a single page of them when limit or cursor is given
+     * @param limit the page size
+     * @param cursor the cursor returned with the previous page
      * @return List of DeviceResponse
      */
     @Override
-    public ResponseEntity<List<DeviceResponse>> getAllDevices() {
-        var  result = deviceService.getDevices();
-        return ResponseEntity.ok(result);
+    public ResponseEntity<List<DeviceResponse>> getAllDevices(Integer limit, String cursor) {
+        if (limit == null && cursor == null) {
+            var  result = deviceService.getDevices();
+            return ResponseEntity.ok(result);
+        }
+        var page = deviceService.getDevicesPage(limit, cursor);
+        var response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.devices());
     }
 
     /**
@@ -59,18 +102,86 @@ public class DeviceController implements DevicesApi {
      */
     @Override
     public ResponseEntity<DeviceResponse> getDeviceByMac(String macAddress) {
-        var result = deviceService.getDeviceByMac(macAddress);
+        var result = deviceService.getDeviceByMac(parseMacAddress(macAddress));
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Get Device Path
+     * @param macAddress the data transfer object containing user input for processing
+     * @return DevicePathResponse
+     */
+    @Override
+    public ResponseEntity<DevicePathResponse> getDevicePath(String macAddress) {
+        var result = deviceService.getDevicePath(parseMacAddress(macAddress));
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Get Path Between Devices
+     * @param from MAC address of the first device
+     * @param to MAC address of the second device
+     * @return DevicePathResponse
+     */
+    @Override
+    public ResponseEntity<DevicePathResponse> getPathBetweenDevices(String from, String to) {
+        var result = deviceService.getPathBetweenDevices(parseMacAddress(from), parseMacAddress(to));
         return ResponseEntity.ok(result);
     }
 
     /**
-     * Register Device
+     * Get Registration Status
+     * @param trackingId the tracking id of a queued registration
+     * @return RegistrationStatusResponse
+     */
+    @Override
+    public ResponseEntity<RegistrationStatusResponse> getRegistrationStatus(UUID trackingId) {
+        var result = registrationQueue.getStatus(trackingId)
+                .orElseThrow(() -> new InvalidRequestException(HttpStatus.NOT_FOUND, "Registration " + trackingId + " not found"));
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Register Device, or queue it with 202 and the location of its status in asynchronous mode
      * @param registerDeviceRequest the data transfer object containing user input for processing
      * @return RegisterDeviceResponse
      */
     @Override
     public ResponseEntity<RegisterDeviceResponse> registerDevice(RegisterDeviceRequest registerDeviceRequest) {
+        if (registrationQueue.isEnabled()) {
+            var trackingId = registrationQueue.submit(registerDeviceRequest);
+            var location = ServletUriComponentsBuilder.fromCurrentContextPath()
+                    .path("/devices/registrations/{trackingId}")
+                    .buildAndExpand(trackingId)
+                    .toUri();
+            return ResponseEntity.accepted().location(location).build();
+        }
         var result = deviceService.registerDevice(registerDeviceRequest);
         return ResponseEntity.status(201).body(result);
     }
+
+    /**
+     * Register Devices
+     * @param registerDeviceRequest the list of data transfer objects containing user input for processing
+     * @return BatchRegisterDeviceResponse
+     */
+    @Override
+    public ResponseEntity<BatchRegisterDeviceResponse> registerDevices(List<RegisterDeviceRequest> registerDeviceRequest) {
+        var result = deviceService.registerDevices(registerDeviceRequest);
+        deviceMetrics.recordRejectedRegistrations(result);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Parses a MAC address received in the path, answering 400 for one the API pattern let through
+     * @param macAddress the MAC address text
+     * @return MacAddress
+     */
+    static MacAddress parseMacAddress(String macAddress) {
+        try {
+            return MacAddress.parse(macAddress);
+        } catch (IllegalArgumentException exception) {
+            throw new InvalidRequestException(HttpStatus.BAD_REQUEST, exception.getMessage());
+        }
+    }
 }
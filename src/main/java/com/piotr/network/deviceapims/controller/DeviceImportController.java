@@ -0,0 +1,48 @@
+package com.piotr.network.deviceapims.controller;
+
+import com.piotr.network.deviceapims.service.DeviceImportFormat;
+import com.piotr.network.deviceapims.service.DeviceImportResult;
+import com.piotr.network.deviceapims.service.DeviceImportService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+
+/**
+ * Bulk import of an inventory file, outside of the generated API as the request body is read as a stream
+ * instead of being bound to a model.
+ * Selected with {@code Content-Type: text/csv} or {@code Content-Type: application/x-ndjson}.
+ */
+@RestController
+@Profile("!reactive")
+public class DeviceImportController {
+
+    private final DeviceImportService deviceImportService;
+    public DeviceImportController(DeviceImportService deviceImportService) {
+        this.deviceImportService = deviceImportService;
+    }
+
+    /**
+     * Import Devices from comma separated values
+     * @param body the request body
+     * @return DeviceImportResult
+     */
+    @PostMapping(value = "/devices/import", consumes = "text/csv", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<DeviceImportResult> importDevicesCsv(InputStream body) {
+        return ResponseEntity.ok(deviceImportService.importDevices(body, DeviceImportFormat.CSV));
+    }
+
+    /**
+     * Import Devices from newline delimited JSON
+     * @param body the request body
+     * @return DeviceImportResult
+     */
+    @PostMapping(value = "/devices/import", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<DeviceImportResult> importDevicesNdjson(InputStream body) {
+        return ResponseEntity.ok(deviceImportService.importDevices(body, DeviceImportFormat.NDJSON));
+    }
+}
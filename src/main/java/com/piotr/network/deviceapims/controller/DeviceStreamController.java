@@ -0,0 +1,91 @@
+package com.piotr.network.deviceapims.controller;
+
+import com.piotr.network.deviceapims.event.TopologyEventBroadcaster;
+import com.piotr.network.deviceapims.service.DeviceStreamingService;
+import jakarta.validation.constraints.Min;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Streaming variants of the device list and topology operations of {@link DeviceController}.
+ * Selected with the {@code stream=true} query parameter (chunked JSON array)
+ * or with {@code Accept: application/x-ndjson} (one value per line),
+ * and the Server-Sent Events feed of topology changes.
+ */
+@RestController
+@Profile("!reactive")
+@Validated
+public class DeviceStreamController {
+
+    private final DeviceStreamingService deviceStreamingService;
+    private final TopologyEventBroadcaster topologyEventBroadcaster;
+    public DeviceStreamController(DeviceStreamingService deviceStreamingService,
+                                  TopologyEventBroadcaster topologyEventBroadcaster) {
+        this.deviceStreamingService = deviceStreamingService;
+        this.topologyEventBroadcaster = topologyEventBroadcaster;
+    }
+
+    /**
+     * Stream All Devices as a JSON array
+     * @return StreamingResponseBody
+     */
+    @GetMapping(value = "/devices", params = "stream=true", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllDevices() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> deviceStreamingService.writeDevices(outputStream, false));
+    }
+
+    /**
+     * Stream All Devices as newline delimited JSON
+     * @return StreamingResponseBody
+     */
+    @GetMapping(value = "/devices", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllDevicesNdjson() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> deviceStreamingService.writeDevices(outputStream, true));
+    }
+
+    /**
+     * Stream device topology as a JSON array
+     * @param depth number of levels to write below the roots
+     * @return StreamingResponseBody
+     */
+    @GetMapping(value = "/devices/topology", params = "stream=true", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTopology(@Min(0) @RequestParam(name = "depth", required = false) Integer depth) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> deviceStreamingService.writeTopology(outputStream, false, depth));
+    }
+
+    /**
+     * Stream device topology as newline delimited JSON, one root tree per line
+     * @param depth number of levels to write below the roots
+     * @return StreamingResponseBody
+     */
+    @GetMapping(value = "/devices/topology", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTopologyNdjson(@Min(0) @RequestParam(name = "depth", required = false) Integer depth) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> deviceStreamingService.writeTopology(outputStream, true, depth));
+    }
+
+    /**
+     * Subscribe to topology changes: a subscribed event with the current topology version first,
+     * then a deviceRegistered event per committed registration, or a resync event when events were dropped
+     * and the topology has to be reloaded; idle streams get heartbeat comments
+     * @return SseEmitter
+     */
+    @GetMapping(value = "/devices/topology/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter topologyEvents() {
+        return topologyEventBroadcaster.subscribe();
+    }
+}
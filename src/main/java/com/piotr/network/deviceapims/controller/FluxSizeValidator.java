@@ -0,0 +1,20 @@
+package com.piotr.network.deviceapims.controller;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+import jakarta.validation.constraints.Size;
+import reactor.core.publisher.Flux;
+
+/**
+ * Accepts {@link Size} on a {@link Flux} request body of the generated reactive API, which Hibernate Validator has
+ * no validator for and would reject every request with. The size of a stream is unknown until it is consumed,
+ * so it is checked by the handler once collected, see {@link ReactiveDeviceController#registerDevices}.
+ * Registered through {@code META-INF/services/jakarta.validation.ConstraintValidator}.
+ */
+public class FluxSizeValidator implements ConstraintValidator<Size, Flux<?>> {
+
+    @Override
+    public boolean isValid(Flux<?> value, ConstraintValidatorContext context) {
+        return true;
+    }
+}
@@ -0,0 +1,193 @@
+package com.piotr.network.deviceapims.controller;
+
+import com.piotr.network.deviceapims.exception.InvalidRequestException;
+import com.piotr.network.deviceapims.generated.model.BatchRegisterDeviceResponse;
+import com.piotr.network.deviceapims.generated.model.DevicePathResponse;
+import com.piotr.network.deviceapims.generated.model.DeviceResponse;
+import com.piotr.network.deviceapims.generated.model.RegisterDeviceRequest;
+import com.piotr.network.deviceapims.generated.model.RegisterDeviceResponse;
+import com.piotr.network.deviceapims.generated.model.RegistrationStatusResponse;
+import com.piotr.network.deviceapims.generated.model.TopologyChangesResponse;
+import com.piotr.network.deviceapims.generated.model.TopologyNodeResponse;
+import com.piotr.network.deviceapims.generated.reactive.api.DevicesApi;
+import com.piotr.network.deviceapims.metrics.DeviceMetrics;
+import com.piotr.network.deviceapims.service.ReactiveDeviceService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * WebFlux implementation of the device API, active with the {@code reactive} profile in place of
+ * {@link DeviceController}
+ */
+@RestController
+@Validated
+@Profile("reactive")
+public class ReactiveDeviceController implements DevicesApi {
+
+    //maxItems of the batch request body in the API
+    private static final int MAX_BATCH_SIZE = 10000;
+
+    private final ReactiveDeviceService deviceService;
+    private final DeviceMetrics deviceMetrics;
+    public ReactiveDeviceController(ReactiveDeviceService deviceService, DeviceMetrics deviceMetrics) {
+        this.deviceService = deviceService;
+        this.deviceMetrics = deviceMetrics;
+    }
+
+    /**
+     * Get device topology
+     * @param depth number of levels to return below the roots
+     * @param exchange the current exchange
+     * @return Flux of TopologyNodeResponse
+     */
+    @Override
+    public Mono<ResponseEntity<Flux<TopologyNodeResponse>>> devicesTopologyGet(Integer depth, ServerWebExchange exchange) {
+        return deviceService.getTopologyNodes(depth)
+                .doOnNext(roots -> deviceMetrics.recordTopology("devicesTopologyGet", roots))
+                .map(roots -> ResponseEntity.ok(Flux.fromIterable(roots)));
+    }
+
+    /**
+     * Get devices Topology by Mac Address
+     * @param macAddress the data transfer object containing user input for processing
+     * @param depth number of levels to return below the device
+     * @param exchange the current exchange
+     * @return TopologyNodeResponse
+     */
+    @Override
+    public Mono<ResponseEntity<TopologyNodeResponse>> devicesTopologyMacAddressGet(String macAddress, Integer depth,
+                                                                                   ServerWebExchange exchange) {
+        return Mono.fromCallable(() -> DeviceController.parseMacAddress(macAddress))
+                .flatMap(mac -> deviceService.getTopologyNodeByMac(mac, depth))
+                .doOnNext(node -> deviceMetrics.recordTopology("devicesTopologyMacAddressGet", List.of(node)))
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Get Topology Changes
+     * @param since topology version of the last change known to the client
+     * @param exchange the current exchange
+     * @return TopologyChangesResponse
+     */
+    @Override
+    public Mono<ResponseEntity<TopologyChangesResponse>> getTopologyChanges(Long since, ServerWebExchange exchange) {
+        return deviceService.getTopologyChanges(since)
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Get All Devices, or a single page of them when limit or cursor is given
+     * @param limit the page size
+     * @param cursor the cursor returned with the previous page
+     * @param exchange the current exchange
+     * @return Flux of DeviceResponse
+     */
+    @Override
+    public Mono<ResponseEntity<Flux<DeviceResponse>>> getAllDevices(Integer limit, String cursor, ServerWebExchange exchange) {
+        if (limit == null && cursor == null) {
+            return Mono.just(ResponseEntity.ok(deviceService.getDevices()));
+        }
+        return deviceService.getDevicesPage(limit, cursor).map(page -> {
+            var response = ResponseEntity.ok();
+            if (page.nextCursor() != null) {
+                response.header(DeviceController.NEXT_CURSOR_HEADER, page.nextCursor());
+            }
+            return response.body(Flux.fromIterable(page.devices()));
+        });
+    }
+
+    /**
+     * Get Device By Mac
+     * @param macAddress the data transfer object containing user input for processing
+     * @param exchange the current exchange
+     * @return DeviceResponse
+     */
+    @Override
+    public Mono<ResponseEntity<DeviceResponse>> getDeviceByMac(String macAddress, ServerWebExchange exchange) {
+        return Mono.fromCallable(() -> DeviceController.parseMacAddress(macAddress))
+                .flatMap(deviceService::getDeviceByMac)
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Get Device Path
+     * @param macAddress the data transfer object containing user input for processing
+     * @param exchange the current exchange
+     * @return DevicePathResponse
+     */
+    @Override
+    public Mono<ResponseEntity<DevicePathResponse>> getDevicePath(String macAddress, ServerWebExchange exchange) {
+        return Mono.fromCallable(() -> DeviceController.parseMacAddress(macAddress))
+                .flatMap(deviceService::getDevicePath)
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Get Path Between Devices
+     * @param from MAC address of the first device
+     * @param to MAC address of the second device
+     * @param exchange the current exchange
+     * @return DevicePathResponse
+     */
+    @Override
+    public Mono<ResponseEntity<DevicePathResponse>> getPathBetweenDevices(String from, String to, ServerWebExchange exchange) {
+        return Mono.defer(() -> deviceService.getPathBetweenDevices(
+                        DeviceController.parseMacAddress(from), DeviceController.parseMacAddress(to)))
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Get Registration Status; registrations are never queued on the reactive stack
+     * @param trackingId the tracking id of a queued registration
+     * @param exchange the current exchange
+     * @return RegistrationStatusResponse
+     */
+    @Override
+    public Mono<ResponseEntity<RegistrationStatusResponse>> getRegistrationStatus(UUID trackingId, ServerWebExchange exchange) {
+        return Mono.error(new InvalidRequestException(HttpStatus.NOT_FOUND, "Registration " + trackingId + " not found"));
+    }
+
+    /**
+     * Register Device
+     * @param registerDeviceRequest the data transfer object containing user input for processing
+     * @param exchange the current exchange
+     * @return RegisterDeviceResponse
+     */
+    @Override
+    public Mono<ResponseEntity<RegisterDeviceResponse>> registerDevice(Mono<RegisterDeviceRequest> registerDeviceRequest,
+                                                                       ServerWebExchange exchange) {
+        return registerDeviceRequest
+                .flatMap(deviceService::registerDevice)
+                .map(result -> ResponseEntity.status(201).body(result));
+    }
+
+    /**
+     * Register Devices; the size of the list is checked once it is collected, as the API bounds of a request body
+     * stream cannot be validated up front
+     * @param registerDeviceRequest the data transfer objects containing user input for processing
+     * @param exchange the current exchange
+     * @return BatchRegisterDeviceResponse
+     */
+    @Override
+    public Mono<ResponseEntity<BatchRegisterDeviceResponse>> registerDevices(Flux<RegisterDeviceRequest> registerDeviceRequest,
+                                                                             ServerWebExchange exchange) {
+        return registerDeviceRequest
+                .take(MAX_BATCH_SIZE + 1L)
+                .collectList()
+                .filter(dtos -> !dtos.isEmpty() && dtos.size() <= MAX_BATCH_SIZE)
+                .switchIfEmpty(Mono.error(() -> new InvalidRequestException(HttpStatus.BAD_REQUEST,
+                        "registerDevices.registerDeviceRequest: size must be between 1 and " + MAX_BATCH_SIZE)))
+                .flatMap(deviceService::registerDevices)
+                .doOnNext(deviceMetrics::recordRejectedRegistrations)
+                .map(ResponseEntity::ok);
+    }
+}
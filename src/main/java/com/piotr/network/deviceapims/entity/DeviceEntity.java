@@ -2,27 +2,76 @@ package com.piotr.network.deviceapims.entity;
 
 import com.piotr.network.deviceapims.generated.model.DeviceType;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.hibernate.annotations.UuidGenerator;
+import org.hibernate.type.SqlTypes;
 
 import java.util.List;
 import java.util.UUID;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_device_entity_type_rank_mac_address", columnList = "type_rank, mac_address"),
+        @Index(name = "idx_device_entity_path", columnList = "path"),
+        @Index(name = "idx_device_entity_change_seq", columnList = "change_seq"),
+        @Index(name = "idx_device_entity_uplink_id", columnList = "uplink_id")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = DeviceEntity.CACHE_REGION)
+@NaturalIdCache(region = DeviceEntity.NATURAL_ID_CACHE_REGION)
 @Data
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 public class DeviceEntity {
+
+    public static final String CACHE_REGION = "device";
+    public static final String NATURAL_ID_CACHE_REGION = "device-natural-id";
+
+    /**
+     * Levels encoded in {@link #path}; deeper devices keep the path of their ancestor at the last encoded level,
+     * which keeps every path within the size of a PostgreSQL B-tree index entry
+     */
+    public static final int MAX_PATH_LEVELS = 200;
+
     @Id
     @UuidGenerator
     private UUID id;
 
+    //a VARCHAR column on every database, as created by the migrations, instead of a native enum type where the dialect has one
     @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
     private DeviceType deviceType;
 
-    @Column(unique = true)
+    //Position of the device type in listings (gateway -> switch -> access point), derived from deviceType
+    @Column(nullable = false)
+    @Setter(AccessLevel.NONE)
+    private int typeRank;
+
+    @NaturalId
+    @Column(unique = true, nullable = false)
+    @Convert(converter = MacAddressConverter.class)
     @EqualsAndHashCode.Include
-    private String macAddress;
+    private MacAddress macAddress;
+
+    //Materialized path: MAC addresses of the ancestors and the device itself, 12 hex digits each, root first
+    @Column(nullable = false, length = MAX_PATH_LEVELS * MacAddress.HEX_LENGTH)
+    @Setter(AccessLevel.NONE)
+    private String path;
+
+    //Number of uplinks between the device and its root
+    @Column(nullable = false)
+    @Setter(AccessLevel.NONE)
+    private int depth;
+
+    //Topology version of the last registration or re-link of the device, assigned by ChangeSequence
+    private Long changeSeq;
 
     //Parent
     @ManyToOne(fetch = FetchType.LAZY)
@@ -32,4 +81,49 @@ public class DeviceEntity {
     @OneToMany(mappedBy = "uplinkDevice", fetch = FetchType.LAZY)
     private List<DeviceEntity> downlinkDevices;
 
+    /**
+     * Listing position of a device type
+     * @param deviceType the device type
+     * @return 1 for gateways, 2 for switches, 3 for access points
+     */
+    public static int typeRankOf(DeviceType deviceType) {
+        return switch (deviceType) {
+            case GATEWAY -> 1;
+            case SWITCH -> 2;
+            case ACCESS_POINT -> 3;
+        };
+    }
+
+    /**
+     * Materialized path of a device
+     * @param uplinkPath path of the uplink, null for a root device
+     * @param depth number of uplinks between the device and its root
+     * @param macAddress MAC address of the device
+     * @return the path
+     */
+    public static String pathOf(String uplinkPath, int depth, MacAddress macAddress) {
+        if (uplinkPath == null) {
+            return macAddress.toHex();
+        }
+        return depth < MAX_PATH_LEVELS ? uplinkPath + macAddress.toHex() : uplinkPath;
+    }
+
+    @PrePersist
+    void onPersist() {
+        updateTypeRank();
+        updatePath();
+    }
+
+    @PreUpdate
+    void updateTypeRank() {
+        typeRank = deviceType != null ? typeRankOf(deviceType) : 0;
+    }
+
+    /**
+     * Derives path and depth from the uplink, which is persisted before its children
+     */
+    private void updatePath() {
+        depth = uplinkDevice != null ? uplinkDevice.getDepth() + 1 : 0;
+        path = pathOf(uplinkDevice != null ? uplinkDevice.getPath() : null, depth, macAddress);
+    }
 }
@@ -0,0 +1,34 @@
+package com.piotr.network.deviceapims.entity;
+
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.util.UUID;
+
+/**
+ * R2DBC mapping of the {@link DeviceEntity} table, used by the reactive stack.
+ * Type rank, path and depth are derived the same way as for {@link DeviceEntity};
+ * the MAC addresses are the raw packed BIGINT column values.
+ * @param id the device id, assigned before the insert
+ * @param deviceType the device type
+ * @param typeRank listing position of the device type
+ * @param macAddress packed MAC address
+ * @param path materialized path of the device
+ * @param depth number of uplinks between the device and its root
+ * @param uplinkId id of the uplink, null for a root device
+ * @param changeSeq change sequence of the registration, assigned right before the insert
+ */
+@Table("device_entity")
+public record DeviceRecord(@Id UUID id, DeviceType deviceType, int typeRank, Long macAddress, String path, int depth,
+                           UUID uplinkId, Long changeSeq) {
+
+    /**
+     * Copy of the record with a change sequence
+     * @param changeSeq the change sequence
+     * @return DeviceRecord
+     */
+    public DeviceRecord withChangeSeq(long changeSeq) {
+        return new DeviceRecord(id, deviceType, typeRank, macAddress, path, depth, uplinkId, changeSeq);
+    }
+}
@@ -0,0 +1,129 @@
+package com.piotr.network.deviceapims.entity;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Canonical 48-bit MAC address packed into a long.
+ * Both {@code :} and {@code -} separated forms in either case parse to the same value,
+ * and {@link #toString()} always renders upper case octets separated by {@code :}.
+ */
+public final class MacAddress implements Comparable<MacAddress>, Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public static final long MAX_VALUE = 0xFFFF_FFFF_FFFFL;
+    public static final int HEX_LENGTH = 12;
+
+    private static final int OCTETS = 6;
+    private static final int TEXT_LENGTH = 17;
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private final long value;
+
+    private MacAddress(long value) {
+        this.value = value;
+    }
+
+    /**
+     * Creates a MAC address from its packed value
+     * @param value the 48-bit value
+     * @return MacAddress
+     */
+    public static MacAddress of(long value) {
+        if (value < 0 || value > MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid MAC address value " + value);
+        }
+        return new MacAddress(value);
+    }
+
+    /**
+     * Parses a MAC address such as {@code 00:1A:2B:3C:4D:5E} or {@code 00-1a-2b-3c-4d-5e}
+     * @param text the MAC address text
+     * @return MacAddress
+     */
+    public static MacAddress parse(String text) {
+        if (text == null || text.length() != TEXT_LENGTH) {
+            throw new IllegalArgumentException("Invalid MAC address " + text);
+        }
+        char separator = text.charAt(2);
+        if (separator != ':' && separator != '-') {
+            throw new IllegalArgumentException("Invalid MAC address " + text);
+        }
+        long value = 0;
+        for (int octet = 0; octet < OCTETS; octet++) {
+            int offset = octet * 3;
+            if (octet > 0 && text.charAt(offset - 1) != separator) {
+                throw new IllegalArgumentException("Invalid MAC address " + text);
+            }
+            value = (value << 8) | (hexDigit(text, offset) << 4) | hexDigit(text, offset + 1);
+        }
+        return new MacAddress(value);
+    }
+
+    /**
+     * The packed value
+     * @return the 48-bit value
+     */
+    public long toLong() {
+        return value;
+    }
+
+    /**
+     * Fixed width rendering without separators, e.g. {@code 001A2B3C4D5E}.
+     * Lexicographic order of the rendering matches the numeric order of the value.
+     * @return 12 upper case hexadecimal digits
+     */
+    public String toHex() {
+        char[] chars = new char[HEX_LENGTH];
+        for (int digit = 0; digit < HEX_LENGTH; digit++) {
+            chars[digit] = HEX_DIGITS[(int) (value >>> (4 * (HEX_LENGTH - 1 - digit))) & 0xF];
+        }
+        return new String(chars);
+    }
+
+    @Override
+    public String toString() {
+        char[] chars = new char[TEXT_LENGTH];
+        for (int octet = 0; octet < OCTETS; octet++) {
+            int bits = (int) (value >>> (8 * (OCTETS - 1 - octet))) & 0xFF;
+            int offset = octet * 3;
+            chars[offset] = HEX_DIGITS[bits >>> 4];
+            chars[offset + 1] = HEX_DIGITS[bits & 0xF];
+            if (octet < OCTETS - 1) {
+                chars[offset + 2] = ':';
+            }
+        }
+        return new String(chars);
+    }
+
+    @Override
+    public int compareTo(MacAddress other) {
+        return Long.compare(value, other.value);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof MacAddress macAddress && macAddress.value == value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(value);
+    }
+
+    private static long hexDigit(String text, int index) {
+        char c = text.charAt(index);
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        throw new IllegalArgumentException("Invalid MAC address " + text);
+    }
+}
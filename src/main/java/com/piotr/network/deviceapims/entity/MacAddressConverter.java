@@ -0,0 +1,21 @@
+package com.piotr.network.deviceapims.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a {@link MacAddress} as a BIGINT column
+ */
+@Converter
+public class MacAddressConverter implements AttributeConverter<MacAddress, Long> {
+
+    @Override
+    public Long convertToDatabaseColumn(MacAddress macAddress) {
+        return macAddress != null ? macAddress.toLong() : null;
+    }
+
+    @Override
+    public MacAddress convertToEntityAttribute(Long value) {
+        return value != null ? MacAddress.of(value) : null;
+    }
+}
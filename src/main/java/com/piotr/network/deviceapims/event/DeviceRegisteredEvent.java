@@ -0,0 +1,19 @@
+package com.piotr.network.deviceapims.event;
+
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+
+import java.util.UUID;
+
+/**
+ * Published by the device service once a device has been saved.
+ * Listeners interested in committed data only should use {@code @TransactionalEventListener}.
+ * @param id identifier of the registered device
+ * @param deviceType type of the registered device
+ * @param macAddress MAC address of the registered device
+ * @param uplinkMacAddress MAC address of the uplink device, null for a root device
+ * @param changeSeq change sequence recorded with the device, the topology version of the registration
+ */
+public record DeviceRegisteredEvent(UUID id, DeviceType deviceType, MacAddress macAddress, MacAddress uplinkMacAddress,
+                                    long changeSeq) {
+}
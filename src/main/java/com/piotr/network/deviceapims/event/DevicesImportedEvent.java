@@ -0,0 +1,24 @@
+package com.piotr.network.deviceapims.event;
+
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+
+import java.util.Map;
+
+/**
+ * Published by the device import once the imported devices have been written, instead of one
+ * {@link DeviceRegisteredEvent} per device. The devices carry consecutive change sequence values.
+ * Listeners interested in committed data only should use {@code @TransactionalEventListener}.
+ * @param importedByType number of imported devices per device type
+ * @param firstChangeSeq change sequence of the first imported device
+ * @param lastChangeSeq change sequence of the last imported device
+ */
+public record DevicesImportedEvent(Map<DeviceType, Integer> importedByType, long firstChangeSeq, long lastChangeSeq) {
+
+    /**
+     * Number of imported devices
+     * @return the sum over all device types
+     */
+    public int count() {
+        return importedByType.values().stream().mapToInt(Integer::intValue).sum();
+    }
+}
@@ -0,0 +1,289 @@
+package com.piotr.network.deviceapims.event;
+
+import com.piotr.network.deviceapims.generated.model.TopologyChange;
+import com.piotr.network.deviceapims.mapper.DeviceMapper;
+import com.piotr.network.deviceapims.snapshot.ChangeSequence;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes topology changes to Server-Sent Events subscribers.
+ * An idle subscriber is an open async request and a small queue, no thread is held while nothing happens.
+ * Events are queued per subscriber and written by a few sender threads, never by the committing request.
+ * When a slow subscriber's queue is full, its queued events are dropped and coalesced into a single
+ * {@code resync} event carrying the latest topology version, telling the client to reload the topology.
+ * A committed device import is announced with a {@code resync} event as well.
+ * Topology versions are the change sequence of the registrations, so a client that lost its stream can catch up
+ * with the topology changes feed from the id of the last event it received.
+ * A new stream starts with a {@code subscribed} event carrying the current topology version, which also sends the
+ * response headers right away, and idle streams get a heartbeat comment so proxies and clients keep them open.
+ * A subscriber whose write has been blocked longer than the send timeout is closed, so a client that stopped
+ * reading only holds a sender thread until the next heartbeat check.
+ */
+@Component
+@Profile("!reactive")
+public class TopologyEventBroadcaster {
+
+    static final String CHANGE_EVENT = "deviceRegistered";
+    static final String RESYNC_EVENT = "resync";
+    static final String SUBSCRIBED_EVENT = "subscribed";
+    static final String HEARTBEAT_COMMENT = "heartbeat";
+    static final String SUBSCRIBERS = "device.topology.events.subscribers";
+    static final String DROPPED = "device.topology.events.dropped";
+    static final String EVICTED = "device.topology.events.evicted";
+
+    private static final long NO_RESYNC = -1;
+    private static final long NOT_SENDING = 0;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final int queueCapacity;
+    private final Duration timeout;
+    private final Duration sendTimeout;
+    private final ExecutorService sender;
+    private final ScheduledExecutorService heartbeat;
+    private final Counter dropped;
+    private final Counter evicted;
+    private final DeviceMapper mapper;
+    private final ChangeSequence changeSequence;
+
+    public TopologyEventBroadcaster(@Value("${device.topology-events.queue-capacity:256}") int queueCapacity,
+                                    @Value("${device.topology-events.timeout:30m}") Duration timeout,
+                                    @Value("${device.topology-events.sender-threads:2}") int senderThreads,
+                                    @Value("${device.topology-events.heartbeat-interval:15s}") Duration heartbeatInterval,
+                                    @Value("${device.topology-events.send-timeout:10s}") Duration sendTimeout,
+                                    MeterRegistry meterRegistry, DeviceMapper mapper, ChangeSequence changeSequence) {
+        this.mapper = mapper;
+        this.changeSequence = changeSequence;
+        this.queueCapacity = queueCapacity;
+        this.timeout = timeout;
+        this.sendTimeout = sendTimeout;
+        var threadFactory = new CustomizableThreadFactory("topology-events-");
+        threadFactory.setDaemon(true);
+        this.sender = Executors.newFixedThreadPool(senderThreads, threadFactory);
+        var heartbeatThreadFactory = new CustomizableThreadFactory("topology-events-heartbeat-");
+        heartbeatThreadFactory.setDaemon(true);
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(heartbeatThreadFactory);
+        this.heartbeat.scheduleWithFixedDelay(this::beat, heartbeatInterval.toMillis(), heartbeatInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        Gauge.builder(SUBSCRIBERS, subscribers, Set::size)
+                .description("Open topology event streams")
+                .register(meterRegistry);
+        this.dropped = Counter.builder(DROPPED)
+                .description("Topology events coalesced into a resync for slow subscribers")
+                .register(meterRegistry);
+        this.evicted = Counter.builder(EVICTED)
+                .description("Topology event streams closed because a write was blocked past the send timeout")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a topology event stream, starting with a subscribed event carrying the current topology version.
+     * The subscriber receives changes from before the version is read, so a change committed meanwhile is sent
+     * rather than missed; its version may then not be above the one of the subscribed event.
+     * @return the emitter to return from the handler
+     */
+    public SseEmitter subscribe() {
+        var subscriber = new Subscriber(new SseEmitter(timeout.toMillis()), queueCapacity);
+        //held until the subscribed event is sent, so it goes first
+        subscriber.scheduled.set(true);
+        subscribers.add(subscriber);
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onError(error -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(subscriber.emitter::complete);
+        try {
+            long version = changeSequence.stableBound() - 1;
+            //sent before the handler returns, so it is written together with the response headers
+            subscriber.emitter.send(SseEmitter.event()
+                    .id(Long.toString(version))
+                    .name(SUBSCRIBED_EVENT)
+                    .data(version));
+        } catch (IOException | RuntimeException e) {
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+            return subscriber.emitter;
+        }
+        subscriber.scheduled.set(false);
+        if (!subscriber.queue.isEmpty() || subscriber.resyncVersion.get() != NO_RESYNC) {
+            schedule(subscriber);
+        }
+        return subscriber.emitter;
+    }
+
+    /**
+     * Number of open streams
+     * @return the subscriber count
+     */
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Queues a topology change for every subscriber once the registration is committed
+     * @param event the registered device
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDeviceRegistered(DeviceRegisteredEvent event) {
+        var change = mapper.mapDeviceRegisteredEventToTopologyChange(event);
+        for (var subscriber : subscribers) {
+            if (!subscriber.queue.offer(change)) {
+                dropped.increment(subscriber.queue.size() + 1.0);
+                subscriber.queue.clear();
+                subscriber.resyncVersion.accumulateAndGet(change.getTopologyVersion(), Math::max);
+            }
+            schedule(subscriber);
+        }
+    }
+
+    /**
+     * Sends every subscriber a resync once an import is committed instead of an event per imported device;
+     * events already queued are still sent after it
+     * @param event the imported devices
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDevicesImported(DevicesImportedEvent event) {
+        for (var subscriber : subscribers) {
+            subscriber.resyncVersion.accumulateAndGet(event.lastChangeSeq(), Math::max);
+            schedule(subscriber);
+        }
+    }
+
+    /**
+     * Closes the subscribers whose write is blocked past the send timeout and queues a heartbeat for the others
+     */
+    void beat() {
+        long now = System.nanoTime();
+        for (var subscriber : subscribers) {
+            long sendStarted = subscriber.sendStarted;
+            if (sendStarted != NOT_SENDING && now - sendStarted > sendTimeout.toNanos()) {
+                evict(subscriber);
+            } else {
+                subscriber.heartbeatDue.set(true);
+                schedule(subscriber);
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeat.shutdownNow();
+        sender.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            try {
+                sender.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.scheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Closes a subscriber that stopped reading and interrupts the sender thread blocked on its write
+     * @param subscriber the subscriber
+     */
+    private void evict(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            evicted.increment();
+            var sendingThread = subscriber.sendingThread;
+            if (sendingThread != null && subscriber.sendStarted != NOT_SENDING) {
+                sendingThread.interrupt();
+            }
+            subscriber.emitter.completeWithError(new IOException("Topology event stream blocked for more than " + sendTimeout));
+        }
+    }
+
+    /**
+     * Writes the queued events of one subscriber, or a heartbeat when there are none,
+     * dropping the subscriber when the connection is gone
+     * @param subscriber the subscriber
+     */
+    private void drain(Subscriber subscriber) {
+        subscriber.sendingThread = Thread.currentThread();
+        try {
+            boolean sent = false;
+            long resyncVersion = subscriber.resyncVersion.getAndSet(NO_RESYNC);
+            if (resyncVersion != NO_RESYNC) {
+                send(subscriber, SseEmitter.event()
+                        .id(Long.toString(resyncVersion))
+                        .name(RESYNC_EVENT)
+                        .data(resyncVersion));
+                sent = true;
+            }
+            TopologyChange change;
+            while ((change = subscriber.queue.poll()) != null) {
+                send(subscriber, SseEmitter.event()
+                        .id(Long.toString(change.getTopologyVersion()))
+                        .name(CHANGE_EVENT)
+                        .data(change));
+                sent = true;
+            }
+            if (subscriber.heartbeatDue.getAndSet(false) && !sent) {
+                send(subscriber, SseEmitter.event().comment(HEARTBEAT_COMMENT));
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+            return;
+        } finally {
+            subscriber.sendingThread = null;
+            //clears an interrupt of an eviction that raced with the end of the write
+            Thread.interrupted();
+            subscriber.scheduled.set(false);
+        }
+        if (!subscriber.queue.isEmpty() || subscriber.resyncVersion.get() != NO_RESYNC) {
+            schedule(subscriber);
+        }
+    }
+
+    private static void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        subscriber.sendStarted = System.nanoTime();
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            subscriber.sendStarted = NOT_SENDING;
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<TopologyChange> queue;
+        //latest version of the events dropped since the last resync, NO_RESYNC when none
+        private final AtomicLong resyncVersion = new AtomicLong(NO_RESYNC);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+        //System.nanoTime() when the current write started, NOT_SENDING between writes
+        private volatile long sendStarted = NOT_SENDING;
+        private volatile Thread sendingThread;
+
+        private Subscriber(SseEmitter emitter, int queueCapacity) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.piotr.network.deviceapims.exception;
+
+import com.piotr.network.deviceapims.entity.MacAddress;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Registration of a MAC address that is already registered
+ */
+public class DuplicateDeviceException extends InvalidRequestException {
+
+    public DuplicateDeviceException(MacAddress macAddress) {
+        super(HttpStatus.BAD_REQUEST, "Device with MAC " + macAddress + " already registered");
+    }
+}
@@ -1,9 +1,14 @@
 package com.piotr.network.deviceapims.exception;
 
 import com.fasterxml.jackson.databind.JsonMappingException;
+import com.piotr.network.deviceapims.generated.model.BatchRegisterDeviceStatus;
 import com.piotr.network.deviceapims.generated.model.ErrorResponse;
+import com.piotr.network.deviceapims.metrics.DeviceMetrics;
 import jakarta.validation.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -11,14 +16,22 @@ import org.springframework.validation.Errors;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
+import org.springframework.web.util.DisconnectedClientHelper;
 
 import java.util.Optional;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
     private static final String FAILED_VALIDATION = "Validation failed";
 
+    private final DeviceMetrics deviceMetrics;
+    public GlobalExceptionHandler(DeviceMetrics deviceMetrics) {
+        this.deviceMetrics = deviceMetrics;
+    }
+
     /**
      * handleBadRequest
      * @param exception thrown during processing
@@ -26,7 +39,17 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(InvalidRequestException.class)
     public ResponseEntity<ErrorResponse> handleBadRequest(InvalidRequestException exception) {
+        if (exception.getStatus() == HttpStatus.NOT_FOUND) {
+            deviceMetrics.recordNotFound();
+        } else if (exception instanceof DuplicateDeviceException) {
+            deviceMetrics.recordRejectedRegistration(BatchRegisterDeviceStatus.DUPLICATE);
+        }
         var errorResponse = new ErrorResponse(exception.getStatus().toString(), exception.getMessage());
+        if (exception instanceof RegistrationQueueFullException queueFull) {
+            return ResponseEntity.status(exception.getStatus())
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(queueFull.getRetryAfter().toSeconds()))
+                    .body(errorResponse);
+        }
         return  ResponseEntity.status(exception.getStatus()).body(errorResponse);
     }
 
@@ -103,6 +126,11 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<ErrorResponse> handleDataIntegrityViolationException (DataIntegrityViolationException exception) {
+        //the MAC address is the only unique column
+        if (exception.getCause() instanceof org.hibernate.exception.ConstraintViolationException violation
+                && violation.getKind() == org.hibernate.exception.ConstraintViolationException.ConstraintKind.UNIQUE) {
+            deviceMetrics.recordRejectedRegistration(BatchRegisterDeviceStatus.DUPLICATE);
+        }
         var errorMessage = "";
         if (exception.getMessage().contains("duplicate key")) {
             errorMessage = exception.getCause().getMessage();
@@ -114,12 +142,34 @@ public class GlobalExceptionHandler {
     }
 
     /**
-     * handleGenericException
+     * handleAsyncRequestNotUsableException: the client closed the connection, such as a topology event stream,
+     * so there is no response left to write and nothing to log
+     * @param exception thrown while writing to the closed connection
+     * @return no response
+     */
+    @ExceptionHandler(AsyncRequestNotUsableException.class)
+    public ResponseEntity<ErrorResponse> handleAsyncRequestNotUsableException(AsyncRequestNotUsableException exception) {
+        return null;
+    }
+
+    /**
+     * handleGenericException: framework exceptions keep the status they carry, such as 405 for an unsupported method;
+     * any other exception is logged, so a 400 without a matching handler can be traced back to its cause
      * @param exception thrown during processing
      * @return ErrorResponse
      */
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(Exception exception) {
+        if (exception instanceof org.springframework.web.ErrorResponse frameworkError) {
+            var status = frameworkError.getStatusCode();
+            var errorResponse = new ErrorResponse(status.toString(), exception.getMessage());
+            return ResponseEntity.status(status).body(errorResponse);
+        }
+        if (DisconnectedClientHelper.isClientDisconnectedException(exception)) {
+            //client aborted the request, as handleAsyncRequestNotUsableException
+            return null;
+        }
+        log.warn("Unhandled exception answered with 400", exception);
         var errorResponse = new ErrorResponse("400", exception.getMessage());
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
@@ -0,0 +1,20 @@
+package com.piotr.network.deviceapims.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+
+/**
+ * Asynchronous registration refused because the registration queue is full
+ */
+@Getter
+public class RegistrationQueueFullException extends InvalidRequestException {
+
+    private final Duration retryAfter;
+
+    public RegistrationQueueFullException(Duration retryAfter) {
+        super(HttpStatus.TOO_MANY_REQUESTS, "Registration queue is full, retry later");
+        this.retryAfter = retryAfter;
+    }
+}
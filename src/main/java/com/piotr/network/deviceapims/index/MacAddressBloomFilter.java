@@ -0,0 +1,79 @@
+package com.piotr.network.deviceapims.index;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of packed MAC addresses, safe for concurrent adds and reads without locking.
+ * Bit positions come from two 64-bit mixes of the address combined as h1 + i * h2 (Kirsch-Mitzenmacher).
+ * {@link #mightContain(long)} never returns false for an added address.
+ */
+final class MacAddressBloomFilter {
+
+    private static final long PHI = 0x9E37_79B9_7F4A_7C15L;
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    private MacAddressBloomFilter(long bitCount, int hashCount) {
+        this.words = new AtomicLongArray((int) ((bitCount + Long.SIZE - 1) / Long.SIZE));
+        this.bitCount = (long) words.length() * Long.SIZE;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * Creates a filter sized for the expected number of addresses
+     * @param expectedInsertions expected number of addresses
+     * @param falsePositiveRate acceptable false positive rate at the expected number of addresses
+     * @return MacAddressBloomFilter
+     */
+    static MacAddressBloomFilter create(long expectedInsertions, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid false positive rate " + falsePositiveRate);
+        }
+        long insertions = Math.max(expectedInsertions, 1);
+        long bits = (long) Math.ceil(-insertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int hashes = (int) Math.max(1, Math.round((double) bits / insertions * Math.log(2)));
+        return new MacAddressBloomFilter(Math.max(bits, Long.SIZE), hashes);
+    }
+
+    void add(long macAddress) {
+        long h1 = mix(macAddress);
+        long h2 = mix(macAddress ^ PHI) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, update) -> current | update);
+            }
+        }
+    }
+
+    boolean mightContain(long macAddress) {
+        long h1 = mix(macAddress);
+        long h2 = mix(macAddress ^ PHI) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long bitCount() {
+        return bitCount;
+    }
+
+    int hashCount() {
+        return hashCount;
+    }
+
+    //Stafford variant 13 of the MurmurHash3 finalizer
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58_476D_1CE4_E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D0_49BB_1331_11EBL;
+        return value ^ (value >>> 31);
+    }
+}
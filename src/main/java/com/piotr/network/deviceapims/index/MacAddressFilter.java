@@ -0,0 +1,91 @@
+package com.piotr.network.deviceapims.index;
+
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.event.DeviceRegisteredEvent;
+import com.piotr.network.deviceapims.event.DevicesImportedEvent;
+import com.piotr.network.deviceapims.repository.DeviceRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Optional in-memory Bloom filter of registered MAC addresses, answering "definitely not registered" without
+ * a database round trip.
+ * Registrations are added when they are saved, before their transaction commits, so a committed device is never
+ * reported as missing; a rolled back registration only leaves a false positive behind.
+ * Until the filter is loaded, and when it is disabled, every address might be registered.
+ * The false positive rate holds up to the expected number of devices and grows beyond it.
+ * The filter only sees the registrations of its own process, so it is meant for a single instance;
+ * with several instances, devices registered elsewhere would be reported as missing.
+ */
+@Component
+@Profile("!reactive")
+public class MacAddressFilter {
+
+    private final DeviceRepository deviceRepository;
+    private final MacAddressBloomFilter filter;
+    private volatile boolean ready;
+
+    public MacAddressFilter(DeviceRepository deviceRepository,
+                            @Value("${device.mac-filter.enabled:false}") boolean enabled,
+                            @Value("${device.mac-filter.expected-devices:1000000}") long expectedDevices,
+                            @Value("${device.mac-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.deviceRepository = deviceRepository;
+        this.filter = enabled ? MacAddressBloomFilter.create(expectedDevices, falsePositiveRate) : null;
+    }
+
+    /**
+     * Whether a MAC address might be registered
+     * @param macAddress the MAC address
+     * @return false only when the address is definitely not registered
+     */
+    public boolean mightContain(MacAddress macAddress) {
+        return !ready || filter.mightContain(macAddress.toLong());
+    }
+
+    /**
+     * Loads the registered MAC addresses.
+     * The filter exists before any registration can be saved, so registrations not yet committed when the scan
+     * runs have already been added by {@link #onDeviceRegistered(DeviceRegisteredEvent)}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        if (filter == null) {
+            return;
+        }
+        try (var macAddresses = deviceRepository.streamMacAddresses()) {
+            macAddresses.forEach(macAddress -> filter.add(macAddress.toLong()));
+        }
+        ready = true;
+    }
+
+    /**
+     * Adds a saved registration, before its transaction commits
+     * @param event the registered device
+     */
+    @EventListener
+    public void onDeviceRegistered(DeviceRegisteredEvent event) {
+        if (filter != null) {
+            filter.add(event.macAddress().toLong());
+        }
+    }
+
+    /**
+     * Adds the devices of an import, before its transaction commits, reading their MAC addresses back
+     * within the import transaction
+     * @param event the imported devices
+     */
+    @EventListener
+    public void onDevicesImported(DevicesImportedEvent event) {
+        if (filter == null) {
+            return;
+        }
+        try (var macAddresses = deviceRepository.streamMacAddressesByChangeSeq(event.firstChangeSeq(), event.lastChangeSeq())) {
+            macAddresses.forEach(macAddress -> filter.add(macAddress.toLong()));
+        }
+    }
+}
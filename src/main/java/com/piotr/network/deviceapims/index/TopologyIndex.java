@@ -0,0 +1,485 @@
+package com.piotr.network.deviceapims.index;
+
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.event.DeviceRegisteredEvent;
+import com.piotr.network.deviceapims.event.DevicesImportedEvent;
+import com.piotr.network.deviceapims.generated.model.DevicePathResponse;
+import com.piotr.network.deviceapims.generated.model.DeviceResponse;
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+import com.piotr.network.deviceapims.generated.model.TopologyNodeResponse;
+import com.piotr.network.deviceapims.repository.DeviceRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional in-process copy of the device graph.
+ * Every device is a node number; node attributes and the parent/children adjacency live in plain arrays,
+ * children are kept as a singly linked sibling list so adding a device never reallocates per-node collections.
+ * Packed MAC addresses resolve to node numbers through a primitive long to int hash map.
+ * Every node also keeps its depth and one ancestor jump pointer, which answer uplink paths and the nearest
+ * common uplink of two devices without walking the database.
+ * Node numbers are also kept sorted by MAC address, so listings come out in the order of the database queries
+ * however the devices were registered.
+ * The index is loaded once the application is ready and kept in sync with committed registrations.
+ */
+@Component
+@Profile("!reactive")
+public class TopologyIndex {
+
+    private static final int NO_NODE = LongIntHashMap.NO_VALUE;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final List<DeviceType> DEVICE_ORDER = List.of(
+            DeviceType.GATEWAY,
+            DeviceType.SWITCH,
+            DeviceType.ACCESS_POINT
+    );
+
+    private final DeviceRepository deviceRepository;
+    private final boolean enabled;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final LongIntHashMap nodeByMac = new LongIntHashMap(INITIAL_CAPACITY);
+    private long[] macAddresses = new long[INITIAL_CAPACITY];
+    private DeviceType[] deviceTypes = new DeviceType[INITIAL_CAPACITY];
+    private int[] parents = new int[INITIAL_CAPACITY];
+    private int[] firstChildren = new int[INITIAL_CAPACITY];
+    private int[] lastChildren = new int[INITIAL_CAPACITY];
+    private int[] nextSiblings = new int[INITIAL_CAPACITY];
+    private int[] depths = new int[INITIAL_CAPACITY];
+    private int[] jumps = new int[INITIAL_CAPACITY];
+    //node numbers sorted by MAC address
+    private int[] macOrder = new int[INITIAL_CAPACITY];
+    private int size;
+    private volatile boolean ready;
+
+    public TopologyIndex(DeviceRepository deviceRepository,
+                         @Value("${device.topology-index.enabled:false}") boolean enabled) {
+        this.deviceRepository = deviceRepository;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Whether reads can be answered from memory
+     * @return true once the index is enabled and loaded
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Loads all registered devices into the index.
+     * The write lock is taken before reading, so registrations committed meanwhile are applied right after the load.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            clear();
+            var rows = deviceRepository.findAllIndexRows();
+            for (var row : rows) {
+                addNode(row.getMacAddress(), row.getDeviceType());
+            }
+            for (var row : rows) {
+                int parent = nodeOf(row.getUplinkMacAddress());
+                if (parent != NO_NODE) {
+                    link(nodeOf(row.getMacAddress()), parent);
+                }
+            }
+            indexAncestors();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a committed registration to the index
+     * @param event the registered device
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDeviceRegistered(DeviceRegisteredEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (!ready || nodeOf(event.macAddress()) != NO_NODE) {
+                return;
+            }
+            int node = addNode(event.macAddress(), event.deviceType());
+            int parent = nodeOf(event.uplinkMacAddress());
+            if (parent != NO_NODE) {
+                link(node, parent);
+            }
+            indexAncestors(node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reloads the index once an import is committed, cheaper than linking a large import node by node
+     * @param event the imported devices
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDevicesImported(DevicesImportedEvent event) {
+        if (ready) {
+            load();
+        }
+    }
+
+    /**
+     * Looks up a single device
+     * @param macAddress MAC address of the device
+     * @return the data transfer object, empty when the device is not registered
+     */
+    public Optional<DeviceResponse> findDevice(MacAddress macAddress) {
+        lock.readLock().lock();
+        try {
+            int node = nodeOf(macAddress);
+            return node == NO_NODE ? Optional.empty() : Optional.of(toDeviceResponse(node));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lists all devices, sorted by device type, then MAC address
+     * @return the List of data transfer object
+     */
+    public List<DeviceResponse> getDevices() {
+        lock.readLock().lock();
+        try {
+            List<DeviceResponse> devices = new ArrayList<>(size);
+            for (var deviceType : DEVICE_ORDER) {
+                for (int position = 0; position < size; position++) {
+                    int node = macOrder[position];
+                    if (deviceTypes[node] == deviceType) {
+                        devices.add(toDeviceResponse(node));
+                    }
+                }
+            }
+            return devices;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Builds the topology forest, roots sorted by MAC address
+     * @param maxDepth deepest level to include, roots are at depth 0
+     * @return the List of root data transfer objects
+     */
+    public List<TopologyNodeResponse> getTopologyNodes(int maxDepth) {
+        lock.readLock().lock();
+        try {
+            List<TopologyNodeResponse> roots = new ArrayList<>();
+            for (int position = 0; position < size; position++) {
+                int node = macOrder[position];
+                if (parents[node] == NO_NODE) {
+                    roots.add(buildTree(node, maxDepth));
+                }
+            }
+            return roots;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Builds the topology subtree rooted at a device
+     * @param macAddress MAC address of the subtree root
+     * @param maxDepth deepest level to include, the subtree root is at depth 0
+     * @return the data transfer object, empty when the device is not registered
+     */
+    public Optional<TopologyNodeResponse> getTopologyNode(MacAddress macAddress, int maxDepth) {
+        lock.readLock().lock();
+        try {
+            int node = nodeOf(macAddress);
+            return node == NO_NODE ? Optional.empty() : Optional.of(buildTree(node, maxDepth));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lists a device and its uplinks up to the root of its tree
+     * @param macAddress MAC address of the device
+     * @return the path, empty when the device is not registered
+     */
+    public Optional<DevicePathResponse> getUplinkPath(MacAddress macAddress) {
+        lock.readLock().lock();
+        try {
+            int node = nodeOf(macAddress);
+            if (node == NO_NODE) {
+                return Optional.empty();
+            }
+            List<DeviceResponse> devices = new ArrayList<>(depths[node] + 1);
+            for (int current = node; current != NO_NODE; current = parents[current]) {
+                devices.add(toDeviceResponse(current));
+            }
+            return Optional.of(new DevicePathResponse(devices, devices.size() - 1));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lists the devices on the path between two devices: up from the first device to their nearest common uplink,
+     * then down to the second device. The common uplink is found in O(log depth) jumps, the path is then
+     * read in O(path length).
+     * @param from MAC address of the first device
+     * @param to MAC address of the second device
+     * @return the path, empty when a device is not registered or the devices are not connected
+     */
+    public Optional<DevicePathResponse> getPath(MacAddress from, MacAddress to) {
+        lock.readLock().lock();
+        try {
+            int fromNode = nodeOf(from);
+            int toNode = nodeOf(to);
+            if (fromNode == NO_NODE || toNode == NO_NODE) {
+                return Optional.empty();
+            }
+            int common = commonUplink(fromNode, toNode);
+            if (common == NO_NODE) {
+                return Optional.empty();
+            }
+            List<DeviceResponse> devices = new ArrayList<>(depths[fromNode] + depths[toNode] - 2 * depths[common] + 1);
+            for (int node = fromNode; node != common; node = parents[node]) {
+                devices.add(toDeviceResponse(node));
+            }
+            devices.add(toDeviceResponse(common));
+            int down = devices.size();
+            for (int node = toNode; node != common; node = parents[node]) {
+                devices.add(toDeviceResponse(node));
+            }
+            Collections.reverse(devices.subList(down, devices.size()));
+            return Optional.of(new DevicePathResponse(devices, devices.size() - 1)
+                    .commonUplinkMacAddress(MacAddress.of(macAddresses[common]).toString()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private TopologyNodeResponse buildTree(int root, int maxDepth) {
+        var rootResponse = toTopologyNodeResponse(root);
+        int[] nodeStack = new int[16];
+        int[] depthStack = new int[16];
+        TopologyNodeResponse[] responseStack = new TopologyNodeResponse[16];
+        int top = 0;
+        nodeStack[top] = root;
+        depthStack[top] = 0;
+        responseStack[top++] = rootResponse;
+        while (top > 0) {
+            int node = nodeStack[--top];
+            int depth = depthStack[top];
+            var response = responseStack[top];
+            responseStack[top] = null;
+            if (depth == maxDepth) {
+                continue;
+            }
+            for (int child = firstChildren[node]; child != NO_NODE; child = nextSiblings[child]) {
+                var childResponse = toTopologyNodeResponse(child);
+                response.getChildren().add(childResponse);
+                if (top == nodeStack.length) {
+                    nodeStack = Arrays.copyOf(nodeStack, top * 2);
+                    depthStack = Arrays.copyOf(depthStack, top * 2);
+                    responseStack = Arrays.copyOf(responseStack, top * 2);
+                }
+                nodeStack[top] = child;
+                depthStack[top] = depth + 1;
+                responseStack[top++] = childResponse;
+            }
+        }
+        return rootResponse;
+    }
+
+    private DeviceResponse toDeviceResponse(int node) {
+        return new DeviceResponse()
+                .deviceType(deviceTypes[node])
+                .macAddress(MacAddress.of(macAddresses[node]).toString());
+    }
+
+    private TopologyNodeResponse toTopologyNodeResponse(int node) {
+        return new TopologyNodeResponse(MacAddress.of(macAddresses[node]).toString()).children(new ArrayList<>());
+    }
+
+    private int nodeOf(MacAddress macAddress) {
+        return macAddress != null ? nodeByMac.get(macAddress.toLong()) : NO_NODE;
+    }
+
+    private int addNode(MacAddress macAddress, DeviceType deviceType) {
+        if (size == macAddresses.length) {
+            grow();
+        }
+        int node = size++;
+        macAddresses[node] = macAddress.toLong();
+        deviceTypes[node] = deviceType;
+        parents[node] = NO_NODE;
+        firstChildren[node] = NO_NODE;
+        lastChildren[node] = NO_NODE;
+        nextSiblings[node] = NO_NODE;
+        depths[node] = 0;
+        jumps[node] = node;
+        nodeByMac.put(macAddress.toLong(), node);
+        insertInMacOrder(node);
+        return node;
+    }
+
+    /**
+     * Inserts the last added node into the MAC address order.
+     * Loading visits devices in MAC order, so the append fast path is the common case; otherwise the position is
+     * found by binary search and the nodes after it are shifted with a single array copy.
+     */
+    private void insertInMacOrder(int node) {
+        long macAddress = macAddresses[node];
+        int position = node;
+        if (position > 0 && macAddresses[macOrder[position - 1]] > macAddress) {
+            int low = 0;
+            int high = position - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (macAddresses[macOrder[middle]] > macAddress) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            position = low;
+            System.arraycopy(macOrder, position, macOrder, position + 1, node - position);
+        }
+        macOrder[position] = node;
+    }
+
+    /**
+     * Appends a child to its parent, keeping siblings ordered by MAC address.
+     * Loading visits devices in MAC order, so the append fast path is the common case.
+     */
+    private void link(int child, int parent) {
+        parents[child] = parent;
+        int last = lastChildren[parent];
+        if (last == NO_NODE) {
+            firstChildren[parent] = child;
+            lastChildren[parent] = child;
+            return;
+        }
+        if (macAddresses[last] <= macAddresses[child]) {
+            nextSiblings[last] = child;
+            lastChildren[parent] = child;
+            return;
+        }
+        int previous = NO_NODE;
+        int current = firstChildren[parent];
+        while (macAddresses[current] <= macAddresses[child]) {
+            previous = current;
+            current = nextSiblings[current];
+        }
+        nextSiblings[child] = current;
+        if (previous == NO_NODE) {
+            firstChildren[parent] = child;
+        } else {
+            nextSiblings[previous] = child;
+        }
+    }
+
+    /**
+     * Indexes the ancestors of every node, parents before their children
+     */
+    private void indexAncestors() {
+        int[] queue = new int[size];
+        int tail = 0;
+        for (int node = 0; node < size; node++) {
+            if (parents[node] == NO_NODE) {
+                queue[tail++] = node;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int node = queue[head];
+            indexAncestors(node);
+            for (int child = firstChildren[node]; child != NO_NODE; child = nextSiblings[child]) {
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    /**
+     * Sets depth and jump pointer of a node whose parent is indexed already.
+     * Jump pointers follow the skew-binary scheme: a node jumps to its parent, or further up to its parent's jump
+     * target's jump target when both jumps span the same number of levels. Any ancestor is then reached in
+     * O(log depth) steps while a node keeps a single pointer, set once when the node is added.
+     */
+    private void indexAncestors(int node) {
+        int parent = parents[node];
+        if (parent == NO_NODE) {
+            depths[node] = 0;
+            jumps[node] = node;
+            return;
+        }
+        depths[node] = depths[parent] + 1;
+        int jump = jumps[parent];
+        jumps[node] = depths[parent] - depths[jump] == depths[jump] - depths[jumps[jump]] ? jumps[jump] : parent;
+    }
+
+    private int ancestorAt(int node, int depth) {
+        while (depths[node] > depth) {
+            node = depths[jumps[node]] >= depth ? jumps[node] : parents[node];
+        }
+        return node;
+    }
+
+    /**
+     * Nearest common uplink of two nodes, a node itself when it is an uplink of the other.
+     * Both nodes are lifted to the same depth; nodes at the same depth have jump targets at the same depth,
+     * so both jump together while the targets differ and step to their parents otherwise.
+     * @return the common uplink, NO_NODE when the nodes are in different trees
+     */
+    private int commonUplink(int first, int second) {
+        first = ancestorAt(first, depths[second]);
+        second = ancestorAt(second, depths[first]);
+        while (first != second) {
+            if (parents[first] == NO_NODE) {
+                return NO_NODE;
+            }
+            if (jumps[first] != jumps[second]) {
+                first = jumps[first];
+                second = jumps[second];
+            } else {
+                first = parents[first];
+                second = parents[second];
+            }
+        }
+        return first;
+    }
+
+    private void grow() {
+        int capacity = macAddresses.length * 2;
+        macAddresses = Arrays.copyOf(macAddresses, capacity);
+        deviceTypes = Arrays.copyOf(deviceTypes, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        firstChildren = Arrays.copyOf(firstChildren, capacity);
+        lastChildren = Arrays.copyOf(lastChildren, capacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        depths = Arrays.copyOf(depths, capacity);
+        jumps = Arrays.copyOf(jumps, capacity);
+        macOrder = Arrays.copyOf(macOrder, capacity);
+    }
+
+    private void clear() {
+        nodeByMac.clear();
+        Arrays.fill(deviceTypes, 0, size, null);
+        size = 0;
+        ready = false;
+    }
+}
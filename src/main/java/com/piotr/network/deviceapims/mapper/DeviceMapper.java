@@ -1,13 +1,23 @@
 package com.piotr.network.deviceapims.mapper;
 
 import com.piotr.network.deviceapims.entity.DeviceEntity;
+import com.piotr.network.deviceapims.entity.DeviceRecord;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.event.DeviceRegisteredEvent;
 import com.piotr.network.deviceapims.generated.model.DeviceResponse;
 import com.piotr.network.deviceapims.generated.model.RegisterDeviceRequest;
 import com.piotr.network.deviceapims.generated.model.RegisterDeviceResponse;
+import com.piotr.network.deviceapims.generated.model.TopologyChange;
 import com.piotr.network.deviceapims.generated.model.TopologyNodeResponse;
+import com.piotr.network.deviceapims.repository.DeviceChangeRecord;
+import com.piotr.network.deviceapims.repository.DeviceChangeRow;
+import com.piotr.network.deviceapims.repository.DeviceRow;
+import com.piotr.network.deviceapims.repository.DeviceTopologyRow;
+import com.piotr.network.deviceapims.repository.DeviceUplinkRow;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.UUID;
 
 @Component
 public class DeviceMapper {
@@ -23,7 +33,7 @@ public class DeviceMapper {
             return deviceEntity;
         }
         deviceEntity.setDeviceType(dto.getDeviceType());
-        deviceEntity.setMacAddress(dto.getMacAddress());
+        deviceEntity.setMacAddress(MacAddress.parse(dto.getMacAddress()));
         return deviceEntity;
     }
 
@@ -40,9 +50,9 @@ public class DeviceMapper {
         var uuid =entity.getId();
         deviceResponse.setId(uuid);
         deviceResponse.setDeviceType(entity.getDeviceType());
-        deviceResponse.setMacAddress(entity.getMacAddress());
+        deviceResponse.setMacAddress(format(entity.getMacAddress()));
         if (entity.getUplinkDevice()!=null) {
-            deviceResponse.setUplinkMacAddress(entity.getUplinkDevice().getMacAddress());
+            deviceResponse.setUplinkMacAddress(format(entity.getUplinkDevice().getMacAddress()));
         }
         return deviceResponse;
     }
@@ -58,7 +68,86 @@ public class DeviceMapper {
             return deviceResponse;
         }
         deviceResponse.setDeviceType(entity.getDeviceType());
-        deviceResponse.setMacAddress(entity.getMacAddress());
+        deviceResponse.setMacAddress(format(entity.getMacAddress()));
+        return deviceResponse;
+    }
+
+    /**
+     * mapDeviceRowToDeviceResponse
+     * @param row object to map
+     * @return DeviceResponse
+     */
+    public DeviceResponse mapDeviceRowToDeviceResponse(final DeviceRow row) {
+        DeviceResponse  deviceResponse = new DeviceResponse();
+        if (row == null) {
+            return deviceResponse;
+        }
+        deviceResponse.setDeviceType(row.getDeviceType());
+        deviceResponse.setMacAddress(format(row.getMacAddress()));
+        return deviceResponse;
+    }
+
+    /**
+     * mapDeviceUplinkRowToDeviceResponse
+     * @param row object to map
+     * @return DeviceResponse
+     */
+    public DeviceResponse mapDeviceUplinkRowToDeviceResponse(final DeviceUplinkRow row) {
+        DeviceResponse deviceResponse = new DeviceResponse();
+        if (row == null) {
+            return deviceResponse;
+        }
+        deviceResponse.setDeviceType(row.getDeviceType());
+        deviceResponse.setMacAddress(MacAddress.of(row.getMacAddress()).toString());
+        return deviceResponse;
+    }
+
+    /**
+     * mapDeviceDtoToDeviceRecord, deriving type rank, path and depth from the uplink
+     * @param dto object to map
+     * @param uplink the uplink device, null for a root device
+     * @return DeviceRecord with a new id
+     */
+    public DeviceRecord mapDeviceDtoToDeviceRecord(final RegisterDeviceRequest dto, final DeviceRecord uplink) {
+        var macAddress = MacAddress.parse(dto.getMacAddress());
+        int depth = uplink != null ? uplink.depth() + 1 : 0;
+        return new DeviceRecord(UUID.randomUUID(), dto.getDeviceType(), DeviceEntity.typeRankOf(dto.getDeviceType()),
+                macAddress.toLong(), DeviceEntity.pathOf(uplink != null ? uplink.path() : null, depth, macAddress),
+                depth, uplink != null ? uplink.id() : null, null);
+    }
+
+    /**
+     * mapDeviceRecordToRegisterDeviceResponse
+     * @param record object to map
+     * @param uplink the uplink device, null for a root device
+     * @return RegisterDeviceResponse
+     */
+    public RegisterDeviceResponse mapDeviceRecordToRegisterDeviceResponse(final DeviceRecord record, final DeviceRecord uplink) {
+        RegisterDeviceResponse deviceResponse = new RegisterDeviceResponse();
+        if (record == null) {
+            return deviceResponse;
+        }
+        deviceResponse.setId(record.id());
+        deviceResponse.setDeviceType(record.deviceType());
+        deviceResponse.setMacAddress(MacAddress.of(record.macAddress()).toString());
+        if (uplink != null) {
+            deviceResponse.setUplinkMacAddress(MacAddress.of(uplink.macAddress()).toString());
+        }
+        return deviceResponse;
+    }
+
+    /**
+     * mapDeviceRecordToDeviceResponse
+     * @param record object to map
+     * @return DeviceResponse
+     */
+    public DeviceResponse mapDeviceRecordToDeviceResponse(final DeviceRecord record) {
+        DeviceResponse deviceResponse = new DeviceResponse();
+        if (record == null) {
+            return deviceResponse;
+        }
+        deviceResponse.setDeviceType(record.deviceType());
+        deviceResponse.setMacAddress(MacAddress.of(record.macAddress()).toString());
         return deviceResponse;
     }
 
@@ -72,8 +161,80 @@ public class DeviceMapper {
         if (entity == null) {
             return node;
         }
-        node.setMacAddress(entity.getMacAddress());
+        node.setMacAddress(format(entity.getMacAddress()));
         node.setChildren(new ArrayList<>());
         return node;
     }
+
+    /**
+     * mapTopologyRowToTopologyNodeResponse
+     * @param row object to map
+     * @return TopologyNodeResponse
+     */
+    public TopologyNodeResponse mapTopologyRowToTopologyNodeResponse(final DeviceTopologyRow row) {
+        TopologyNodeResponse node = new TopologyNodeResponse();
+        if (row == null) {
+            return node;
+        }
+        node.setMacAddress(MacAddress.of(row.getMacAddress()).toString());
+        node.setChildren(new ArrayList<>());
+        return node;
+    }
+
+    /**
+     * mapDeviceChangeRowToTopologyChange
+     * @param row object to map
+     * @return TopologyChange
+     */
+    public TopologyChange mapDeviceChangeRowToTopologyChange(final DeviceChangeRow row) {
+        TopologyChange change = new TopologyChange();
+        if (row == null) {
+            return change;
+        }
+        change.setMacAddress(format(row.getMacAddress()));
+        change.setDeviceType(row.getDeviceType());
+        change.setUplinkMacAddress(format(row.getUplinkMacAddress()));
+        change.setTopologyVersion(row.getChangeSeq());
+        return change;
+    }
+
+    /**
+     * mapDeviceChangeRecordToTopologyChange
+     * @param record object to map
+     * @return TopologyChange
+     */
+    public TopologyChange mapDeviceChangeRecordToTopologyChange(final DeviceChangeRecord record) {
+        TopologyChange change = new TopologyChange();
+        if (record == null) {
+            return change;
+        }
+        change.setMacAddress(MacAddress.of(record.macAddress()).toString());
+        change.setDeviceType(record.deviceType());
+        if (record.uplinkMacAddress() != null) {
+            change.setUplinkMacAddress(MacAddress.of(record.uplinkMacAddress()).toString());
+        }
+        change.setTopologyVersion(record.changeSeq());
+        return change;
+    }
+
+    /**
+     * mapDeviceRegisteredEventToTopologyChange
+     * @param event object to map
+     * @return TopologyChange
+     */
+    public TopologyChange mapDeviceRegisteredEventToTopologyChange(final DeviceRegisteredEvent event) {
+        TopologyChange change = new TopologyChange();
+        if (event == null) {
+            return change;
+        }
+        change.setMacAddress(format(event.macAddress()));
+        change.setDeviceType(event.deviceType());
+        change.setUplinkMacAddress(format(event.uplinkMacAddress()));
+        change.setTopologyVersion(event.changeSeq());
+        return change;
+    }
+
+    private static String format(final MacAddress macAddress) {
+        return macAddress != null ? macAddress.toString() : null;
+    }
 }
@@ -0,0 +1,91 @@
+package com.piotr.network.deviceapims.mapper;
+
+import com.piotr.network.deviceapims.generated.model.DeviceResponse;
+import com.piotr.network.deviceapims.generated.model.ErrorResponse;
+import com.piotr.network.deviceapims.generated.model.TopologyNodeResponse;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Writes device, topology and error responses as {@code application/x-protobuf} with {@link DeviceProtobufWriter}.
+ * Write only: requests are always JSON.
+ */
+public class DeviceProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType APPLICATION_PROTOBUF = new MediaType("application", "x-protobuf");
+
+    public DeviceProtobufHttpMessageConverter() {
+        super(APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == DeviceResponse.class || clazz == TopologyNodeResponse.class || clazz == ErrorResponse.class;
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        if (List.class.isAssignableFrom(clazz)) {
+            var elementType = elementType(type);
+            return elementType == DeviceResponse.class || elementType == TopologyNodeResponse.class;
+        }
+        return supports(clazz);
+    }
+
+    @Override
+    protected void writeInternal(Object body, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        var out = outputMessage.getBody();
+        if (body instanceof DeviceResponse device) {
+            DeviceProtobufWriter.writeDevice(device, out);
+        } else if (body instanceof TopologyNodeResponse root) {
+            DeviceProtobufWriter.writeTopologyNode(root, out);
+        } else if (body instanceof ErrorResponse error) {
+            DeviceProtobufWriter.writeError(error, out);
+        } else if (elementType(type) == DeviceResponse.class) {
+            DeviceProtobufWriter.writeDevices(castList(body), out);
+        } else {
+            DeviceProtobufWriter.writeTopology(castList(body), out);
+        }
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    private static Class<?> elementType(@Nullable Type type) {
+        return type != null ? ResolvableType.forType(type).asCollection().resolveGeneric(0) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> castList(Object body) {
+        return (List<T>) body;
+    }
+}
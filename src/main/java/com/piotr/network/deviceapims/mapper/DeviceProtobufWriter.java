@@ -0,0 +1,209 @@
+package com.piotr.network.deviceapims.mapper;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.generated.model.DeviceResponse;
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+import com.piotr.network.deviceapims.generated.model.ErrorResponse;
+import com.piotr.network.deviceapims.generated.model.TopologyNodeResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Writes responses in the Protobuf encoding of {@code device_api.proto}, without generated message classes.
+ * MAC addresses are written as packed 48-bit varints instead of 17 character strings.
+ * A topology is flattened in pre-order into a list of nodes that point to their parent by position, so neither
+ * writing nor parsing recurses per level and long uplink chains stay within the parsers' recursion limit.
+ */
+public final class DeviceProtobufWriter {
+
+    //field numbers of device_api.proto
+    static final int DEVICE_TYPE = 1;
+    static final int DEVICE_MAC_ADDRESS = 2;
+    static final int DEVICE_LIST_DEVICES = 1;
+    static final int NODE_MAC_ADDRESS = 1;
+    static final int NODE_PARENT_INDEX = 2;
+    static final int NODE_LIST_NODES = 1;
+    static final int ERROR_CODE = 1;
+    static final int ERROR_MESSAGE = 2;
+
+    private static final int NO_PARENT = -1;
+    private static final int INITIAL_NODES = 1024;
+
+    private DeviceProtobufWriter() {
+    }
+
+    /**
+     * Writes a Device message
+     * @param device the device
+     * @param out the stream to write to, left open
+     */
+    public static void writeDevice(DeviceResponse device, OutputStream out) throws IOException {
+        var output = CodedOutputStream.newInstance(out);
+        writeDeviceFields(device, output);
+        output.flush();
+    }
+
+    /**
+     * Writes a DeviceList message
+     * @param devices the devices
+     * @param out the stream to write to, left open
+     */
+    public static void writeDevices(List<DeviceResponse> devices, OutputStream out) throws IOException {
+        var output = CodedOutputStream.newInstance(out);
+        for (var device : devices) {
+            output.writeTag(DEVICE_LIST_DEVICES, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(deviceSize(device));
+            writeDeviceFields(device, output);
+        }
+        output.flush();
+    }
+
+    /**
+     * Writes a TopologyNodeList message with the subtree root at position 0
+     * @param root the subtree root
+     * @param out the stream to write to, left open
+     */
+    public static void writeTopologyNode(TopologyNodeResponse root, OutputStream out) throws IOException {
+        writeTopology(List.of(root), out);
+    }
+
+    /**
+     * Writes a TopologyNodeList message
+     * @param roots the topology roots
+     * @param out the stream to write to, left open
+     */
+    public static void writeTopology(List<TopologyNodeResponse> roots, OutputStream out) throws IOException {
+        var nodes = FlatTopology.of(roots);
+        var output = CodedOutputStream.newInstance(out);
+        for (int node = 0; node < nodes.count; node++) {
+            long macAddress = nodes.macAddresses[node];
+            int parent = nodes.parents[node];
+            int size = 0;
+            if (macAddress != 0) {
+                size += CodedOutputStream.computeUInt64Size(NODE_MAC_ADDRESS, macAddress);
+            }
+            if (parent != NO_PARENT) {
+                size += CodedOutputStream.computeUInt32Size(NODE_PARENT_INDEX, parent);
+            }
+            output.writeTag(NODE_LIST_NODES, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(size);
+            if (macAddress != 0) {
+                output.writeUInt64(NODE_MAC_ADDRESS, macAddress);
+            }
+            if (parent != NO_PARENT) {
+                //explicit presence: position 0 is written too
+                output.writeUInt32(NODE_PARENT_INDEX, parent);
+            }
+        }
+        output.flush();
+    }
+
+    /**
+     * Writes an Error message
+     * @param error the error
+     * @param out the stream to write to, left open
+     */
+    public static void writeError(ErrorResponse error, OutputStream out) throws IOException {
+        var output = CodedOutputStream.newInstance(out);
+        if (error.getCode() != null) {
+            output.writeString(ERROR_CODE, error.getCode());
+        }
+        if (error.getMessage() != null) {
+            output.writeString(ERROR_MESSAGE, error.getMessage());
+        }
+        output.flush();
+    }
+
+    /**
+     * Protobuf number of a device type
+     * @param deviceType the device type, may be null
+     * @return the DeviceType enum number, 0 when unspecified
+     */
+    static int deviceTypeNumber(DeviceType deviceType) {
+        if (deviceType == null) {
+            return 0;
+        }
+        return switch (deviceType) {
+            case GATEWAY -> 1;
+            case SWITCH -> 2;
+            case ACCESS_POINT -> 3;
+        };
+    }
+
+    private static int deviceSize(DeviceResponse device) {
+        int size = 0;
+        int deviceType = deviceTypeNumber(device.getDeviceType());
+        if (deviceType != 0) {
+            size += CodedOutputStream.computeEnumSize(DEVICE_TYPE, deviceType);
+        }
+        long macAddress = macAddress(device.getMacAddress());
+        if (macAddress != 0) {
+            size += CodedOutputStream.computeUInt64Size(DEVICE_MAC_ADDRESS, macAddress);
+        }
+        return size;
+    }
+
+    private static void writeDeviceFields(DeviceResponse device, CodedOutputStream output) throws IOException {
+        int deviceType = deviceTypeNumber(device.getDeviceType());
+        if (deviceType != 0) {
+            output.writeEnum(DEVICE_TYPE, deviceType);
+        }
+        long macAddress = macAddress(device.getMacAddress());
+        if (macAddress != 0) {
+            output.writeUInt64(DEVICE_MAC_ADDRESS, macAddress);
+        }
+    }
+
+    private static long macAddress(String macAddress) {
+        return macAddress != null ? MacAddress.parse(macAddress).toLong() : 0;
+    }
+
+    /**
+     * Topology nodes in pre-order: packed MAC address and position of the parent, NO_PARENT for a root
+     */
+    private static final class FlatTopology {
+        private long[] macAddresses = new long[INITIAL_NODES];
+        private int[] parents = new int[INITIAL_NODES];
+        private int count;
+
+        private static FlatTopology of(List<TopologyNodeResponse> roots) {
+            var nodes = new FlatTopology();
+            Deque<Iterator<TopologyNodeResponse>> siblings = new ArrayDeque<>();
+            Deque<Integer> parents = new ArrayDeque<>();
+            siblings.push(roots.iterator());
+            parents.push(NO_PARENT);
+            while (!siblings.isEmpty()) {
+                if (!siblings.peek().hasNext()) {
+                    siblings.pop();
+                    parents.pop();
+                    continue;
+                }
+                var node = siblings.peek().next();
+                int position = nodes.add(macAddress(node.getMacAddress()), parents.peek());
+                if (node.getChildren() != null && !node.getChildren().isEmpty()) {
+                    siblings.push(node.getChildren().iterator());
+                    parents.push(position);
+                }
+            }
+            return nodes;
+        }
+
+        private int add(long macAddress, int parent) {
+            if (count == macAddresses.length) {
+                macAddresses = Arrays.copyOf(macAddresses, count * 2);
+                parents = Arrays.copyOf(parents, count * 2);
+            }
+            macAddresses[count] = macAddress;
+            parents[count] = parent;
+            return count++;
+        }
+    }
+}
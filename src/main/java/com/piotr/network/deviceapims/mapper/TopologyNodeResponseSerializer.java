@@ -0,0 +1,47 @@
+package com.piotr.network.deviceapims.mapper;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.piotr.network.deviceapims.generated.model.TopologyNodeResponse;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Writes a topology tree with an explicit stack of sibling iterators instead of recursing per level,
+ * so long uplink chains cannot exhaust the Java stack during serialization.
+ */
+@JsonComponent
+public class TopologyNodeResponseSerializer extends JsonSerializer<TopologyNodeResponse> {
+
+    @Override
+    public void serialize(TopologyNodeResponse root, JsonGenerator generator, SerializerProvider serializers)
+            throws IOException {
+        Deque<Iterator<TopologyNodeResponse>> stack = new ArrayDeque<>();
+        stack.push(writeStart(root, generator));
+        while (!stack.isEmpty()) {
+            var siblings = stack.peek();
+            if (siblings.hasNext()) {
+                stack.push(writeStart(siblings.next(), generator));
+            } else {
+                stack.pop();
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+        }
+    }
+
+    private static Iterator<TopologyNodeResponse> writeStart(TopologyNodeResponse node, JsonGenerator generator)
+            throws IOException {
+        generator.writeStartObject(node);
+        generator.writeStringField("macAddress", node.getMacAddress());
+        generator.writeArrayFieldStart("children");
+        var children = node.getChildren();
+        return children != null ? children.iterator() : List.<TopologyNodeResponse>of().iterator();
+    }
+}
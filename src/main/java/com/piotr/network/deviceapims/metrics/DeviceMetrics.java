@@ -0,0 +1,131 @@
+package com.piotr.network.deviceapims.metrics;
+
+import com.piotr.network.deviceapims.event.DeviceRegisteredEvent;
+import com.piotr.network.deviceapims.event.DevicesImportedEvent;
+import com.piotr.network.deviceapims.generated.model.BatchRegisterDeviceResponse;
+import com.piotr.network.deviceapims.generated.model.BatchRegisterDeviceStatus;
+import com.piotr.network.deviceapims.generated.model.TopologyNodeResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Business metrics of the device API: registrations, rejections, not found answers and the shape of
+ * returned topologies
+ */
+@Component
+public class DeviceMetrics {
+
+    static final String REGISTRATIONS = "device.registrations";
+    static final String REJECTED_REGISTRATIONS = "device.registrations.rejected";
+    static final String NOT_FOUND = "device.api.not.found";
+    static final String TOPOLOGY_NODES = "device.topology.nodes";
+    static final String TOPOLOGY_DEPTH = "device.topology.depth";
+
+    private final MeterRegistry meterRegistry;
+    private final Counter notFound;
+
+    public DeviceMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.notFound = Counter.builder(NOT_FOUND)
+                .description("Requests answered with 404")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Counts a registration once it is committed
+     * @param event the registered device
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDeviceRegistered(DeviceRegisteredEvent event) {
+        Counter.builder(REGISTRATIONS)
+                .description("Committed device registrations")
+                .tag("type", event.deviceType().getValue())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Counts the devices of an import once it is committed
+     * @param event the imported devices
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDevicesImported(DevicesImportedEvent event) {
+        event.importedByType().forEach((deviceType, count) -> Counter.builder(REGISTRATIONS)
+                .description("Committed device registrations")
+                .tag("type", deviceType.getValue())
+                .register(meterRegistry)
+                .increment(count));
+    }
+
+    /**
+     * Counts a rejected registration
+     * @param reason why the device was not registered
+     */
+    public void recordRejectedRegistration(BatchRegisterDeviceStatus reason) {
+        Counter.builder(REJECTED_REGISTRATIONS)
+                .description("Device registrations rejected")
+                .tag("reason", reason.getValue())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Counts the rejected items of a bulk registration
+     * @param response the bulk registration results
+     */
+    public void recordRejectedRegistrations(BatchRegisterDeviceResponse response) {
+        for (var result : response.getResults()) {
+            if (result.getStatus() != BatchRegisterDeviceStatus.REGISTERED) {
+                recordRejectedRegistration(result.getStatus());
+            }
+        }
+    }
+
+    /**
+     * Counts a request answered with 404
+     */
+    public void recordNotFound() {
+        notFound.increment();
+    }
+
+    /**
+     * Records node count and depth of a returned topology, walking it level by level
+     * @param operation the API operation that returned the topology
+     * @param roots the root nodes
+     */
+    public void recordTopology(String operation, List<TopologyNodeResponse> roots) {
+        long nodes = 0;
+        int depth = -1;
+        List<TopologyNodeResponse> level = roots;
+        while (!level.isEmpty()) {
+            depth++;
+            nodes += level.size();
+            List<TopologyNodeResponse> nextLevel = new ArrayList<>();
+            for (var node : level) {
+                if (node.getChildren() != null) {
+                    nextLevel.addAll(node.getChildren());
+                }
+            }
+            level = nextLevel;
+        }
+        DistributionSummary.builder(TOPOLOGY_NODES)
+                .description("Nodes in a topology response")
+                .baseUnit("nodes")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(nodes);
+        DistributionSummary.builder(TOPOLOGY_DEPTH)
+                .description("Levels below the roots in a topology response")
+                .baseUnit("levels")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(Math.max(depth, 0));
+    }
+}
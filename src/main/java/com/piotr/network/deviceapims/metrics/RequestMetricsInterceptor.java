@@ -0,0 +1,64 @@
+package com.piotr.network.deviceapims.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every API operation, tagged with the handler method name (the operationId of {@code DevicesApi}) and the
+ * response status, and records how many SQL statements the request ran.
+ * Streamed responses are timed until the stream is complete; their statements run on another thread
+ * and are not counted.
+ */
+public class RequestMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    static final String REQUESTS = "device.api.requests";
+    static final String QUERIES = "device.api.queries";
+
+    private static final String START_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".start";
+
+    private final MeterRegistry meterRegistry;
+
+    public RequestMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod && request.getAttribute(START_ATTRIBUTE) == null) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+            QueryCountInspector.reset();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception exception) {
+        if (!(handler instanceof HandlerMethod handlerMethod) || !(request.getAttribute(START_ATTRIBUTE) instanceof Long start)) {
+            return;
+        }
+        var operation = handlerMethod.getMethod().getName();
+        Timer.builder(REQUESTS)
+                .description("Device API operations")
+                .tag("operation", operation)
+                .tag("status", Integer.toString(response.getStatus()))
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (request.getDispatcherType() != DispatcherType.ASYNC) {
+            DistributionSummary.builder(QUERIES)
+                    .description("SQL statements per request")
+                    .baseUnit("statements")
+                    .tag("operation", operation)
+                    .register(meterRegistry)
+                    .record(QueryCountInspector.count());
+        }
+    }
+}
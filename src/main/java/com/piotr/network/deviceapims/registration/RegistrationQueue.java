@@ -0,0 +1,236 @@
+package com.piotr.network.deviceapims.registration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.exception.RegistrationQueueFullException;
+import com.piotr.network.deviceapims.generated.model.BatchRegisterDeviceResult;
+import com.piotr.network.deviceapims.generated.model.RegisterDeviceRequest;
+import com.piotr.network.deviceapims.generated.model.RegistrationStatus;
+import com.piotr.network.deviceapims.generated.model.RegistrationStatusResponse;
+import com.piotr.network.deviceapims.metrics.DeviceMetrics;
+import com.piotr.network.deviceapims.service.DeviceService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind mode of single device registrations, for registration storms such as access points booting
+ * together after a power event.
+ * Validated requests are queued in a bounded in-memory queue and answered right away with a tracking id;
+ * a single writer thread takes whatever is queued, up to the maximum batch size, and registers it as one bulk
+ * registration, so many requests share one transaction and one connection. A full queue is refused
+ * with {@link RegistrationQueueFullException} instead of waiting.
+ * Queued registrations are lost if the process dies before they are written.
+ */
+@Component
+@Profile("!reactive")
+public class RegistrationQueue {
+
+    static final String QUEUED = "device.registrations.queued";
+    static final String THROTTLED = "device.registrations.throttled";
+    static final String BATCH_SIZE = "device.registrations.write.batch";
+    static final String WRITE_FAILED = "Registration could not be written";
+
+    private static final Logger log = LoggerFactory.getLogger(RegistrationQueue.class);
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+    //longest expiry Caffeine accepts
+    private static final Duration NEVER = Duration.ofNanos(Long.MAX_VALUE);
+
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final Duration retryAfter;
+    private final BlockingQueue<QueuedRegistration> queue;
+    private final Cache<UUID, RegistrationStatusResponse> statuses;
+    private final DeviceService deviceService;
+    private final DeviceMetrics deviceMetrics;
+    private final ExecutorService writer;
+    private final Counter throttled;
+    private final DistributionSummary batchSizes;
+    private volatile boolean running;
+
+    public RegistrationQueue(@Value("${device.registration.async.enabled:false}") boolean enabled,
+                             @Value("${device.registration.async.queue-capacity:10000}") int queueCapacity,
+                             @Value("${device.registration.async.max-batch-size:500}") int maxBatchSize,
+                             @Value("${device.registration.async.status-retention:10m}") Duration statusRetention,
+                             @Value("${device.registration.async.retry-after:1s}") Duration retryAfter,
+                             DeviceService deviceService, DeviceMetrics deviceMetrics, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.retryAfter = retryAfter;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        //queued registrations are never evicted, the queue bounds them already; results are kept for the retention
+        this.statuses = Caffeine.newBuilder()
+                .expireAfter(Expiry.<UUID, RegistrationStatusResponse>writing((trackingId, status) ->
+                        status.getStatus() == RegistrationStatus.QUEUED ? NEVER : statusRetention))
+                .build();
+        this.deviceService = deviceService;
+        this.deviceMetrics = deviceMetrics;
+        var threadFactory = new CustomizableThreadFactory("registration-writer-");
+        threadFactory.setDaemon(true);
+        this.writer = Executors.newSingleThreadExecutor(threadFactory);
+        Gauge.builder(QUEUED, queue, BlockingQueue::size)
+                .description("Registrations waiting to be written")
+                .register(meterRegistry);
+        this.throttled = Counter.builder(THROTTLED)
+                .description("Registrations refused because the registration queue was full")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder(BATCH_SIZE)
+                .description("Registrations written in one transaction")
+                .baseUnit("registrations")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether single registrations are queued instead of written by the request
+     * @return true when asynchronous registration is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a registration, refusing it when the queue is full
+     * @param request the validated registration request
+     * @return the tracking id of the registration status
+     */
+    public UUID submit(RegisterDeviceRequest request) {
+        var macAddress = MacAddress.parse(request.getMacAddress());
+        if (request.getUplinkMacAddress() != null && !request.getUplinkMacAddress().isBlank()) {
+            MacAddress.parse(request.getUplinkMacAddress());
+        }
+        var trackingId = UUID.randomUUID();
+        statuses.put(trackingId, new RegistrationStatusResponse(trackingId, macAddress.toString(), RegistrationStatus.QUEUED));
+        if (!queue.offer(new QueuedRegistration(trackingId, request))) {
+            statuses.invalidate(trackingId);
+            throttled.increment();
+            throw new RegistrationQueueFullException(retryAfter);
+        }
+        return trackingId;
+    }
+
+    /**
+     * Status of a queued registration
+     * @param trackingId the tracking id returned when the registration was queued
+     * @return the status, empty when unknown or no longer retained
+     */
+    public Optional<RegistrationStatusResponse> getStatus(UUID trackingId) {
+        return Optional.ofNullable(statuses.getIfPresent(trackingId));
+    }
+
+    /**
+     * Starts the writer once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled && !running) {
+            running = true;
+            writer.execute(this::writeUntilStopped);
+        }
+    }
+
+    /**
+     * Writes the registrations queued so far, up to the maximum batch size
+     * @return the number of registrations written
+     */
+    int writeQueued() {
+        var first = queue.poll();
+        return first != null ? write(first) : 0;
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        writer.shutdown();
+        if (!writer.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            writer.shutdownNow();
+        }
+    }
+
+    /**
+     * Writer loop; once stopped, what is still queued is written before the thread ends
+     */
+    private void writeUntilStopped() {
+        while (running || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    write(first);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private int write(QueuedRegistration first) {
+        List<QueuedRegistration> batch = new ArrayList<>(maxBatchSize);
+        batch.add(first);
+        queue.drainTo(batch, maxBatchSize - 1);
+        batchSizes.record(batch.size());
+        write(batch);
+        return batch.size();
+    }
+
+    /**
+     * Registers a batch in one transaction. When the transaction fails as a whole, e.g. on a MAC address
+     * registered meanwhile by a synchronous request, its items are written one by one so only the failing
+     * item is reported as failed.
+     * @param batch the queued registrations
+     */
+    private void write(List<QueuedRegistration> batch) {
+        try {
+            var response = deviceService.registerDevices(batch.stream().map(QueuedRegistration::request).toList());
+            deviceMetrics.recordRejectedRegistrations(response);
+            for (var result : response.getResults()) {
+                var registration = batch.get(result.getIndex());
+                statuses.put(registration.trackingId(), status(registration.trackingId(), result));
+            }
+        } catch (RuntimeException e) {
+            if (batch.size() > 1) {
+                batch.forEach(registration -> write(List.of(registration)));
+                return;
+            }
+            var registration = batch.get(0);
+            //the cause may carry SQL or connection details, the client only gets a fixed message
+            log.warn("Queued registration {} failed", registration.trackingId(), e);
+            statuses.put(registration.trackingId(), new RegistrationStatusResponse(registration.trackingId(),
+                    MacAddress.parse(registration.request().getMacAddress()).toString(), RegistrationStatus.FAILED)
+                    .message(WRITE_FAILED));
+        }
+    }
+
+    private static RegistrationStatusResponse status(UUID trackingId, BatchRegisterDeviceResult result) {
+        return new RegistrationStatusResponse(trackingId, result.getMacAddress(),
+                RegistrationStatus.fromValue(result.getStatus().getValue()))
+                .id(result.getId())
+                .message(result.getMessage());
+    }
+
+    private record QueuedRegistration(UUID trackingId, RegisterDeviceRequest request) {
+    }
+}
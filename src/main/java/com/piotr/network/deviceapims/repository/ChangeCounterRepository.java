@@ -0,0 +1,68 @@
+package com.piotr.network.deviceapims.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Single-row counter of the change sequence, the last value handed out by a committed transaction.
+ * Advancing it locks the row until the transaction completes, so concurrent writers, on any instance, take their
+ * values one after the other and the committed counter never runs ahead of an uncommitted change.
+ * Runs over the JDBC connection of the current transaction, like {@link DeviceImportRepository}, so Hibernate
+ * neither flushes the session nor invalidates the second-level cache for a table it does not map.
+ * Must be called inside a transaction.
+ */
+@Repository
+@Profile("!reactive")
+public class ChangeCounterRepository {
+
+    private static final String ADVANCE = "UPDATE change_counter SET last_value = last_value + ? WHERE id = 1";
+    private static final String FIND_LAST_VALUE = "SELECT last_value FROM change_counter WHERE id = 1";
+
+    private final EntityManager entityManager;
+
+    public ChangeCounterRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Adds to the counter, holding its row lock until the current transaction completes
+     * @param count number of values to take
+     * @return the last value taken
+     */
+    public long advance(int count) {
+        return session().doReturningWork(connection -> {
+            try (var statement = connection.prepareStatement(ADVANCE)) {
+                statement.setInt(1, count);
+                statement.executeUpdate();
+            }
+            return findLastValue(connection);
+        });
+    }
+
+    /**
+     * Reads the counter without locking it
+     * @return the last value taken by a committed transaction, or by the current one
+     */
+    public long findLastValue() {
+        return session().doReturningWork(ChangeCounterRepository::findLastValue);
+    }
+
+    private Session session() {
+        return entityManager.unwrap(Session.class);
+    }
+
+    private static long findLastValue(Connection connection) throws SQLException {
+        try (var statement = connection.prepareStatement(FIND_LAST_VALUE);
+             var resultSet = statement.executeQuery()) {
+            if (!resultSet.next()) {
+                throw new IllegalStateException("Change counter row is missing");
+            }
+            return resultSet.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.piotr.network.deviceapims.repository;
+
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+
+/**
+ * Device row of the topology changes feed read by the reactive stack, with raw packed MAC addresses
+ * @param macAddress packed MAC address of the device
+ * @param deviceType type of the device
+ * @param uplinkMacAddress packed MAC address of the uplink, null for a root device
+ * @param changeSeq change sequence recorded with the device
+ */
+public record DeviceChangeRecord(Long macAddress, DeviceType deviceType, Long uplinkMacAddress, Long changeSeq) {
+}
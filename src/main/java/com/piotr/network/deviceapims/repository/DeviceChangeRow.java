@@ -0,0 +1,8 @@
+package com.piotr.network.deviceapims.repository;
+
+/**
+ * Device row of the topology changes feed.
+ */
+public interface DeviceChangeRow extends DeviceIndexRow {
+    Long getChangeSeq();
+}
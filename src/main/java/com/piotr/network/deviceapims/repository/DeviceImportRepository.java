@@ -0,0 +1,322 @@
+package com.piotr.network.deviceapims.repository;
+
+import com.piotr.network.deviceapims.entity.DeviceEntity;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Set-based writes of a device import.
+ * Rows are first staged in a temporary table dropped at commit, with {@code COPY} on PostgreSQL and with JDBC batch
+ * inserts on other databases (H2). Duplicates are then removed, and the remaining rows are inserted into the device
+ * table uplinks first, resolving every uplink, registered or imported, and deriving depth and path from it.
+ * PostgreSQL checks the uplink foreign key at the end of the statement, so one recursive statement inserts every
+ * level; H2 checks it row by row, so there one statement per level inserts the rows whose uplink is already in
+ * the device table. Rows whose uplink is missing, or only reachable through a cycle, are left in the staging table.
+ * Everything runs over the JDBC connection of the current transaction, so Hibernate does not invalidate the
+ * second-level cache; imports only insert devices, no cached device goes stale.
+ * Must be called inside a transaction.
+ */
+@Repository
+@Profile("!reactive")
+public class DeviceImportRepository {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final String STAGING_COLUMNS = """
+            (id UUID NOT NULL, line BIGINT NOT NULL, device_type VARCHAR(32) NOT NULL, type_rank INTEGER NOT NULL,
+             mac_address BIGINT NOT NULL, mac_hex VARCHAR(12) NOT NULL, uplink_mac_address BIGINT)""";
+    private static final String CREATE_POSTGRES_STAGING =
+            "CREATE TEMPORARY TABLE device_import " + STAGING_COLUMNS + " ON COMMIT DROP";
+    //TRANSACTIONAL keeps H2 from committing the open transaction before creating the table
+    private static final String CREATE_STAGING =
+            "CREATE LOCAL TEMPORARY TABLE device_import " + STAGING_COLUMNS + " ON COMMIT DROP TRANSACTIONAL";
+    private static final String COPY_STAGING =
+            "COPY device_import (id, line, device_type, type_rank, mac_address, mac_hex, uplink_mac_address) FROM STDIN";
+    private static final String INSERT_STAGING =
+            "INSERT INTO device_import (id, line, device_type, type_rank, mac_address, mac_hex, uplink_mac_address) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    //temporary tables are not analyzed by autovacuum
+    private static final List<String> PREPARE_POSTGRES_STAGING = List.of(
+            "CREATE INDEX ON device_import (mac_address)",
+            "CREATE INDEX ON device_import (uplink_mac_address)",
+            "ANALYZE device_import");
+
+    private static final String STAGED_COLUMNS = "i.id, i.line, i.device_type, i.mac_address, i.uplink_mac_address";
+    //registered already, or repeated by the file, in which case its first line is kept
+    private static final String DUPLICATE = """
+            EXISTS (SELECT 1 FROM device_entity d WHERE d.mac_address = i.mac_address)
+            OR EXISTS (SELECT 1 FROM device_import j WHERE j.mac_address = i.mac_address AND j.line < i.line)""";
+    private static final String FIND_DUPLICATES =
+            "SELECT " + STAGED_COLUMNS + " FROM device_import i WHERE " + DUPLICATE + " ORDER BY i.line LIMIT ?";
+    private static final String DELETE_DUPLICATES = "DELETE FROM device_import i WHERE " + DUPLICATE;
+    private static final String INSERT_RESOLVED = """
+            INSERT INTO device_entity (id, device_type, type_rank, mac_address, path, depth, change_seq, uplink_id)
+            WITH RECURSIVE imported (id, device_type, type_rank, mac_address, line, uplink_id, depth, path) AS (
+                SELECT i.id, i.device_type, i.type_rank, i.mac_address, i.line, u.id,
+                       CASE WHEN u.id IS NULL THEN 0 ELSE u.depth + 1 END,
+                       CAST(CASE WHEN u.id IS NULL THEN i.mac_hex
+                                 WHEN u.depth + 1 < ? THEN u.path || i.mac_hex
+                                 ELSE u.path END AS VARCHAR)
+                FROM device_import i
+                LEFT JOIN device_entity u ON u.mac_address = i.uplink_mac_address
+                WHERE i.uplink_mac_address IS NULL OR u.id IS NOT NULL
+                UNION ALL
+                SELECT c.id, c.device_type, c.type_rank, c.mac_address, c.line, p.id, p.depth + 1,
+                       CAST(CASE WHEN p.depth + 1 < ? THEN p.path || c.mac_hex ELSE p.path END AS VARCHAR)
+                FROM device_import c
+                JOIN imported p ON c.uplink_mac_address = p.mac_address
+            )
+            SELECT id, device_type, type_rank, mac_address, path, depth,
+                   CAST(? AS BIGINT) + ROW_NUMBER() OVER (ORDER BY depth, line) - 1, uplink_id
+            FROM imported
+            ORDER BY depth, line
+            """;
+    private static final String INSERT_LEVEL = """
+            INSERT INTO device_entity (id, device_type, type_rank, mac_address, path, depth, change_seq, uplink_id)
+            SELECT i.id, i.device_type, i.type_rank, i.mac_address,
+                   CASE WHEN u.id IS NULL THEN i.mac_hex
+                        WHEN u.depth + 1 < ? THEN u.path || i.mac_hex
+                        ELSE u.path END,
+                   CASE WHEN u.id IS NULL THEN 0 ELSE u.depth + 1 END,
+                   CAST(? AS BIGINT) + ROW_NUMBER() OVER (ORDER BY i.line) - 1, u.id
+            FROM device_import i
+            LEFT JOIN device_entity u ON u.mac_address = i.uplink_mac_address
+            WHERE (i.uplink_mac_address IS NULL OR u.id IS NOT NULL)
+              AND NOT EXISTS (SELECT 1 FROM device_entity d WHERE d.id = i.id)
+            ORDER BY i.line
+            """;
+    private static final String FIND_NOT_INSERTED = "SELECT " + STAGED_COLUMNS + " FROM device_import i "
+            + "WHERE NOT EXISTS (SELECT 1 FROM device_entity d WHERE d.id = i.id) ORDER BY i.line LIMIT ?";
+    private static final String COUNT_INSERTED_BY_TYPE = "SELECT i.device_type, COUNT(*) FROM device_import i "
+            + "JOIN device_entity d ON d.id = i.id GROUP BY i.device_type";
+
+    private final EntityManager entityManager;
+
+    public DeviceImportRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Creates the staging table and writes the rows to it, consuming the iterator
+     * @param rows the validated rows, read lazily
+     * @return number of staged rows
+     */
+    public int stage(Iterator<DeviceImportRow> rows) {
+        return session().doReturningWork(connection -> connection.isWrapperFor(PGConnection.class)
+                ? copy(connection, rows)
+                : insertBatches(connection, rows));
+    }
+
+    /**
+     * Lists staged rows that are already registered or repeat an earlier line
+     * @param limit maximum number of rows
+     * @return the rows, by line
+     */
+    public List<DeviceImportRow> findDuplicates(int limit) {
+        return session().doReturningWork(connection -> query(connection, FIND_DUPLICATES, limit));
+    }
+
+    /**
+     * Removes the staged rows reported by {@link #findDuplicates(int)}
+     * @return number of removed rows
+     */
+    public int deleteDuplicates() {
+        return session().doReturningWork(connection -> {
+            try (var statement = connection.prepareStatement(DELETE_DUPLICATES)) {
+                return statement.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Inserts every staged row reachable from a root or a registered device, uplinks first.
+     * Rows get consecutive change sequence values, by depth and then line.
+     * @param firstChangeSeq change sequence of the first inserted row
+     * @return number of inserted rows
+     */
+    public int insertResolved(long firstChangeSeq) {
+        return session().doReturningWork(connection -> connection.isWrapperFor(PGConnection.class)
+                ? insertRecursive(connection, firstChangeSeq)
+                : insertLevels(connection, firstChangeSeq));
+    }
+
+    /**
+     * Lists staged rows left out by {@link #insertResolved(long)}
+     * @param limit maximum number of rows
+     * @return the rows, by line
+     */
+    public List<DeviceImportRow> findNotInserted(int limit) {
+        return session().doReturningWork(connection -> query(connection, FIND_NOT_INSERTED, limit));
+    }
+
+    /**
+     * Counts the inserted rows
+     * @return number of inserted devices per device type, types without devices are left out
+     */
+    public Map<DeviceType, Integer> countInsertedByType() {
+        return session().doReturningWork(connection -> {
+            Map<DeviceType, Integer> counts = new EnumMap<>(DeviceType.class);
+            try (var statement = connection.prepareStatement(COUNT_INSERTED_BY_TYPE);
+                 var resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    counts.put(DeviceType.valueOf(resultSet.getString(1)), resultSet.getInt(2));
+                }
+            }
+            return counts;
+        });
+    }
+
+    private Session session() {
+        return entityManager.unwrap(Session.class);
+    }
+
+    private static int copy(Connection connection, Iterator<DeviceImportRow> rows) throws SQLException {
+        execute(connection, CREATE_POSTGRES_STAGING);
+        var copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STAGING);
+        int count = 0;
+        try {
+            var buffer = new StringBuilder(COPY_BUFFER_SIZE + 128);
+            while (rows.hasNext()) {
+                appendCopyLine(buffer, rows.next());
+                count++;
+                if (buffer.length() >= COPY_BUFFER_SIZE) {
+                    writeToCopy(copyIn, buffer);
+                }
+            }
+            writeToCopy(copyIn, buffer);
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+        for (var statement : PREPARE_POSTGRES_STAGING) {
+            execute(connection, statement);
+        }
+        return count;
+    }
+
+    private static int insertBatches(Connection connection, Iterator<DeviceImportRow> rows) throws SQLException {
+        execute(connection, CREATE_STAGING);
+        int count = 0;
+        try (var statement = connection.prepareStatement(INSERT_STAGING)) {
+            while (rows.hasNext()) {
+                var row = rows.next();
+                statement.setObject(1, row.id());
+                statement.setLong(2, row.line());
+                statement.setString(3, row.deviceType().name());
+                statement.setInt(4, DeviceEntity.typeRankOf(row.deviceType()));
+                statement.setLong(5, row.macAddress().toLong());
+                statement.setString(6, row.macAddress().toHex());
+                if (row.uplinkMacAddress() != null) {
+                    statement.setLong(7, row.uplinkMacAddress().toLong());
+                } else {
+                    statement.setNull(7, Types.BIGINT);
+                }
+                statement.addBatch();
+                if (++count % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+            if (count % BATCH_SIZE != 0) {
+                statement.executeBatch();
+            }
+        }
+        return count;
+    }
+
+    private static int insertRecursive(Connection connection, long firstChangeSeq) throws SQLException {
+        try (var statement = connection.prepareStatement(INSERT_RESOLVED)) {
+            statement.setInt(1, DeviceEntity.MAX_PATH_LEVELS);
+            statement.setInt(2, DeviceEntity.MAX_PATH_LEVELS);
+            statement.setLong(3, firstChangeSeq);
+            return statement.executeUpdate();
+        }
+    }
+
+    private static int insertLevels(Connection connection, long firstChangeSeq) throws SQLException {
+        int count = 0;
+        try (var statement = connection.prepareStatement(INSERT_LEVEL)) {
+            statement.setInt(1, DeviceEntity.MAX_PATH_LEVELS);
+            int inserted;
+            do {
+                statement.setLong(2, firstChangeSeq + count);
+                inserted = statement.executeUpdate();
+                count += inserted;
+            } while (inserted > 0);
+        }
+        return count;
+    }
+
+    /**
+     * Row in COPY text format: tab separated columns, \N for null; no value contains a tab, newline or backslash
+     */
+    private static void appendCopyLine(StringBuilder buffer, DeviceImportRow row) {
+        buffer.append(row.id()).append('\t')
+                .append(row.line()).append('\t')
+                .append(row.deviceType().name()).append('\t')
+                .append(DeviceEntity.typeRankOf(row.deviceType())).append('\t')
+                .append(row.macAddress().toLong()).append('\t')
+                .append(row.macAddress().toHex()).append('\t');
+        if (row.uplinkMacAddress() != null) {
+            buffer.append(row.uplinkMacAddress().toLong());
+        } else {
+            buffer.append("\\N");
+        }
+        buffer.append('\n');
+    }
+
+    private static void writeToCopy(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        var bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static List<DeviceImportRow> query(Connection connection, String sql, int limit) throws SQLException {
+        List<DeviceImportRow> rows = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, limit);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    long uplinkMacAddress = resultSet.getLong(5);
+                    rows.add(new DeviceImportRow(
+                            resultSet.getObject(1, UUID.class),
+                            resultSet.getLong(2),
+                            DeviceType.valueOf(resultSet.getString(3)),
+                            MacAddress.of(resultSet.getLong(4)),
+                            resultSet.wasNull() ? null : MacAddress.of(uplinkMacAddress)));
+                }
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,18 @@
+package com.piotr.network.deviceapims.repository;
+
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+
+import java.util.UUID;
+
+/**
+ * Validated row of a device import, staged before it is written to the device table
+ * @param id identifier the device gets once imported
+ * @param line line number of the row in the imported file
+ * @param deviceType type of the device
+ * @param macAddress MAC address of the device
+ * @param uplinkMacAddress MAC address of the uplink, registered or imported by the same file, null for a root device
+ */
+public record DeviceImportRow(UUID id, long line, DeviceType deviceType, MacAddress macAddress,
+                              MacAddress uplinkMacAddress) {
+}
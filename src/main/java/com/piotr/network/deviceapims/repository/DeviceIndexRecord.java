@@ -0,0 +1,29 @@
+package com.piotr.network.deviceapims.repository;
+
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+
+/**
+ * {@link DeviceIndexRow} built by a constructor expression, a device with the MAC address of its uplink
+ * @param macAddress MAC address of the device
+ * @param deviceType type of the device
+ * @param uplinkMacAddress MAC address of the uplink, null for a root device
+ */
+public record DeviceIndexRecord(MacAddress macAddress, DeviceType deviceType, MacAddress uplinkMacAddress)
+        implements DeviceIndexRow {
+
+    @Override
+    public MacAddress getMacAddress() {
+        return macAddress;
+    }
+
+    @Override
+    public DeviceType getDeviceType() {
+        return deviceType;
+    }
+
+    @Override
+    public MacAddress getUplinkMacAddress() {
+        return uplinkMacAddress;
+    }
+}
@@ -0,0 +1,10 @@
+package com.piotr.network.deviceapims.repository;
+
+import com.piotr.network.deviceapims.entity.MacAddress;
+
+/**
+ * Device row used to warm up the in-memory topology index.
+ */
+public interface DeviceIndexRow extends DeviceRow {
+    MacAddress getUplinkMacAddress();
+}
@@ -0,0 +1,19 @@
+package com.piotr.network.deviceapims.repository;
+
+import com.piotr.network.deviceapims.entity.DeviceEntity;
+import com.piotr.network.deviceapims.entity.MacAddress;
+
+import java.util.Optional;
+
+/**
+ * Device lookups by MAC address, the natural id of a device
+ */
+public interface DeviceNaturalIdRepository {
+
+    /**
+     * Loads a device by MAC address, resolved from the second-level cache when present
+     * @param macAddress the MAC address
+     * @return the device, empty when not registered
+     */
+    Optional<DeviceEntity> findByMacAddress(MacAddress macAddress);
+}
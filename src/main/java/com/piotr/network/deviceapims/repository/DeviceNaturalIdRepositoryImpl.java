@@ -0,0 +1,31 @@
+package com.piotr.network.deviceapims.repository;
+
+import com.piotr.network.deviceapims.entity.DeviceEntity;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Natural id load instead of a derived query: Hibernate resolves the MAC address to the id through the
+ * natural id cache and the entity through the entity cache, so repeated lookups do not reach the database.
+ * A query by MAC address would always run SQL.
+ */
+public class DeviceNaturalIdRepositoryImpl implements DeviceNaturalIdRepository {
+
+    private final EntityManager entityManager;
+
+    public DeviceNaturalIdRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<DeviceEntity> findByMacAddress(MacAddress macAddress) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(DeviceEntity.class)
+                .loadOptional(macAddress);
+    }
+}
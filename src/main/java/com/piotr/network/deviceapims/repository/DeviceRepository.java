@@ -1,14 +1,213 @@
 package com.piotr.network.deviceapims.repository;
 
 import com.piotr.network.deviceapims.entity.DeviceEntity;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface DeviceRepository extends JpaRepository<DeviceEntity, String> {
-    Optional<DeviceEntity> findByMacAddress(String macAddress);
+public interface DeviceRepository extends JpaRepository<DeviceEntity, String>, DeviceNaturalIdRepository {
     List<DeviceEntity> findByUplinkDeviceIsNull();
+    List<DeviceEntity> findByMacAddressIn(Collection<MacAddress> macAddresses);
+
+    /**
+     * Streams every registered MAC address, must be consumed inside a transaction
+     * @return the Stream of MAC addresses, to be closed by the caller
+     */
+    @Query("select d.macAddress from DeviceEntity d")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<MacAddress> streamMacAddresses();
+
+    /**
+     * Streams the MAC addresses of the devices within a range of the change sequence, must be consumed inside a transaction
+     * @param first inclusive lower bound of the change sequence
+     * @param last inclusive upper bound of the change sequence
+     * @return the Stream of MAC addresses, to be closed by the caller
+     */
+    @Query("select d.macAddress from DeviceEntity d where d.changeSeq between :first and :last")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<MacAddress> streamMacAddressesByChangeSeq(@Param("first") long first, @Param("last") long last);
+
+    /**
+     * Loads every device with its uplink MAC address, ordered by MAC address
+     * @return the List of index rows
+     */
+    @Query("select new com.piotr.network.deviceapims.repository.DeviceIndexRecord(d.macAddress, d.deviceType, u.macAddress) "
+            + "from DeviceEntity d left join d.uplinkDevice u order by d.macAddress")
+    List<DeviceIndexRow> findAllIndexRows();
+
+    /**
+     * Reads a device by MAC address without loading the entity
+     * @param macAddress the MAC address
+     * @return the device row, empty when not registered
+     */
+    @Query("select new com.piotr.network.deviceapims.repository.DeviceRowRecord(d.macAddress, d.deviceType) "
+            + "from DeviceEntity d where d.macAddress = :macAddress")
+    Optional<DeviceRow> findDeviceRowByMacAddress(@Param("macAddress") MacAddress macAddress);
+
+    /**
+     * Loads the network topology forest in a single query, ordered by depth
+     * @param maxDepth deepest level to load, roots are at depth 0
+     * @return the List of topology rows
+     */
+    @Query(value = """
+            WITH RECURSIVE topology (id, mac_address, uplink_mac_address, depth) AS (
+                SELECT d.id, d.mac_address, CAST(NULL AS BIGINT), 0
+                FROM device_entity d
+                WHERE d.uplink_id IS NULL
+                UNION ALL
+                SELECT c.id, c.mac_address, t.mac_address, t.depth + 1
+                FROM device_entity c
+                JOIN topology t ON c.uplink_id = t.id
+                WHERE t.depth < :maxDepth
+            )
+            SELECT mac_address AS "macAddress", uplink_mac_address AS "uplinkMacAddress", depth AS "depth"
+            FROM topology
+            ORDER BY depth, mac_address
+            """, nativeQuery = true)
+    List<DeviceTopologyRow> findTopologyForest(@Param("maxDepth") int maxDepth);
+
+    /**
+     * Loads the topology subtree rooted at the given device with one range scan of the path index, ordered by depth.
+     * Descendants share the path of the root as prefix; as paths only contain hexadecimal digits,
+     * they all sort between the root path and the root path followed by 'G'.
+     * Below {@link com.piotr.network.deviceapims.entity.DeviceEntity#MAX_PATH_LEVELS} paths are truncated,
+     * so for such deep roots the range can also contain devices of neighbouring subtrees; they are returned
+     * with an uplink that is not part of the result and must be left out by the caller.
+     * @param macAddress packed MAC address of the subtree root
+     * @param maxDepth deepest level to load, the subtree root is at depth 0
+     * @return the List of topology rows with depth relative to the subtree root, empty when the device is not registered
+     */
+    @Query(value = """
+            SELECT d.mac_address AS "macAddress", u.mac_address AS "uplinkMacAddress", d.depth - r.depth AS "depth"
+            FROM device_entity r
+            JOIN device_entity d ON d.path >= r.path AND d.path < r.path || 'G'
+            LEFT JOIN device_entity u ON u.id = d.uplink_id
+            WHERE r.mac_address = :macAddress
+              AND d.depth >= r.depth
+              AND d.depth - r.depth <= :maxDepth
+            ORDER BY d.depth, d.mac_address
+            """, nativeQuery = true)
+    List<DeviceTopologyRow> findTopologySubtree(@Param("macAddress") long macAddress, @Param("maxDepth") int maxDepth);
+
+    /**
+     * Loads a device and its uplinks up to the root in a single query, walking the uplink ids through the primary key
+     * @param macAddress packed MAC address of the device
+     * @return the List of uplink chain rows, the device first, empty when the device is not registered
+     */
+    @Query(value = """
+            WITH RECURSIVE chain (id, mac_address, device_type, uplink_id, hops) AS (
+                SELECT d.id, d.mac_address, d.device_type, d.uplink_id, 0
+                FROM device_entity d
+                WHERE d.mac_address = :macAddress
+                UNION ALL
+                SELECT u.id, u.mac_address, u.device_type, u.uplink_id, c.hops + 1
+                FROM device_entity u
+                JOIN chain c ON u.id = c.uplink_id
+            )
+            SELECT mac_address AS "macAddress", device_type AS "deviceType"
+            FROM chain
+            ORDER BY hops
+            """, nativeQuery = true)
+    List<DeviceUplinkRow> findUplinkChain(@Param("macAddress") long macAddress);
+
+    /**
+     * Lists devices sorted by device type, then MAC address, using the (type rank, MAC address) index
+     * @param limit maximum number of devices
+     * @return the List of device rows
+     */
+    @Query("select new com.piotr.network.deviceapims.repository.DeviceRowRecord(d.macAddress, d.deviceType) "
+            + "from DeviceEntity d order by d.typeRank, d.macAddress")
+    List<DeviceRow> findDevicesSorted(Limit limit);
+
+    /**
+     * Lists the devices following a keyset position, sorted by device type, then MAC address.
+     * The position is compared column by column rather than as a row value, which would leave the type of the
+     * MAC address parameter to the database; the leading type rank bound starts a range scan of the
+     * (type rank, MAC address) index, so the cost of a page does not depend on its position.
+     * @param typeRank type rank of the last device of the previous page
+     * @param macAddress MAC address of the last device of the previous page
+     * @param limit maximum number of devices
+     * @return the List of device rows
+     */
+    @Query("select new com.piotr.network.deviceapims.repository.DeviceRowRecord(d.macAddress, d.deviceType) "
+            + "from DeviceEntity d where d.typeRank >= :typeRank "
+            + "and (d.typeRank > :typeRank or d.macAddress > :macAddress) "
+            + "order by d.typeRank, d.macAddress")
+    List<DeviceRow> findDevicesSortedAfter(@Param("typeRank") int typeRank, @Param("macAddress") MacAddress macAddress,
+                                           Limit limit);
+
+    /**
+     * Lists the devices registered or re-linked within a range of the change sequence, in change order,
+     * using the change sequence index. Devices registered before the change sequence existed got the
+     * first values of it from the migration, uplinks first.
+     * @param since exclusive lower bound of the change sequence
+     * @param bound exclusive upper bound of the change sequence
+     * @param limit maximum number of devices
+     * @return the List of change rows
+     */
+    @Query("select d.macAddress as macAddress, d.deviceType as deviceType, u.macAddress as uplinkMacAddress, "
+            + "d.changeSeq as changeSeq "
+            + "from DeviceEntity d left join d.uplinkDevice u "
+            + "where d.changeSeq > :since and d.changeSeq < :bound "
+            + "order by d.changeSeq")
+    List<DeviceChangeRow> findChangesSince(@Param("since") long since, @Param("bound") long bound, Limit limit);
+
+    /**
+     * Streams every device sorted by device type, then MAC address.
+     * Must be consumed inside a transaction; rows are fetched from the cursor in chunks.
+     * @return the Stream of device rows, to be closed by the caller
+     */
+    @Query("select new com.piotr.network.deviceapims.repository.DeviceRowRecord(d.macAddress, d.deviceType) "
+            + "from DeviceEntity d order by d.typeRank, d.macAddress")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<DeviceRow> streamDevices();
+
+    /**
+     * Streams the whole network topology forest in depth-first pre-order, siblings sorted by MAC address.
+     * The order comes from a path of fixed width MAC segments built by the recursive query,
+     * so each row directly follows its parent or an earlier sibling's subtree.
+     * Must be consumed inside a transaction; rows are fetched from the cursor in chunks.
+     * @param maxDepth deepest level to load, roots are at depth 0
+     * @return the Stream of topology rows, to be closed by the caller
+     */
+    @Query(value = """
+            WITH RECURSIVE topology (id, mac_address, uplink_mac_address, depth, path) AS (
+                SELECT d.id, d.mac_address, CAST(NULL AS BIGINT), 0,
+                       CAST(LPAD(CAST(d.mac_address AS VARCHAR), 15, '0') AS VARCHAR)
+                FROM device_entity d
+                WHERE d.uplink_id IS NULL
+                UNION ALL
+                SELECT c.id, c.mac_address, t.mac_address, t.depth + 1,
+                       CAST(t.path || LPAD(CAST(c.mac_address AS VARCHAR), 15, '0') AS VARCHAR)
+                FROM device_entity c
+                JOIN topology t ON c.uplink_id = t.id
+                WHERE t.depth < :maxDepth
+            )
+            SELECT mac_address AS "macAddress", uplink_mac_address AS "uplinkMacAddress", depth AS "depth"
+            FROM topology
+            ORDER BY path
+            """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<DeviceTopologyRow> streamTopologyForest(@Param("maxDepth") int maxDepth);
 }
@@ -0,0 +1,12 @@
+package com.piotr.network.deviceapims.repository;
+
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+
+/**
+ * Device row without relations, used when devices are streamed to the client.
+ */
+public interface DeviceRow {
+    MacAddress getMacAddress();
+    DeviceType getDeviceType();
+}
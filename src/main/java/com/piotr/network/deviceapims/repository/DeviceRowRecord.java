@@ -0,0 +1,23 @@
+package com.piotr.network.deviceapims.repository;
+
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+
+/**
+ * {@link DeviceRow} built by a constructor expression of the device queries: a plain object instead of a
+ * managed entity or a tuple-backed proxy, so nothing is tracked by the persistence context
+ * @param macAddress MAC address of the device
+ * @param deviceType type of the device
+ */
+public record DeviceRowRecord(MacAddress macAddress, DeviceType deviceType) implements DeviceRow {
+
+    @Override
+    public MacAddress getMacAddress() {
+        return macAddress;
+    }
+
+    @Override
+    public DeviceType getDeviceType() {
+        return deviceType;
+    }
+}
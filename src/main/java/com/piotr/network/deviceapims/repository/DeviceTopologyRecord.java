@@ -0,0 +1,25 @@
+package com.piotr.network.deviceapims.repository;
+
+/**
+ * {@link DeviceTopologyRow} read by the topology queries of {@link ReactiveDeviceRepository}
+ * @param macAddress packed MAC address
+ * @param uplinkMacAddress packed MAC address of the uplink, null for a root device
+ * @param depth depth of the row in the returned tree
+ */
+public record DeviceTopologyRecord(Long macAddress, Long uplinkMacAddress, Integer depth) implements DeviceTopologyRow {
+
+    @Override
+    public Long getMacAddress() {
+        return macAddress;
+    }
+
+    @Override
+    public Long getUplinkMacAddress() {
+        return uplinkMacAddress;
+    }
+
+    @Override
+    public Integer getDepth() {
+        return depth;
+    }
+}
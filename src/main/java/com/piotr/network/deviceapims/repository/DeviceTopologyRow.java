@@ -0,0 +1,13 @@
+package com.piotr.network.deviceapims.repository;
+
+/**
+ * Flat topology row returned by the recursive topology queries of {@link DeviceRepository}.
+ * Every parent row is returned before its children.
+ * Rows are linked by the raw packed BIGINT MAC address column values rather than by id,
+ * as native queries do not return UUID columns as UUID values on every database.
+ */
+public interface DeviceTopologyRow {
+    Long getMacAddress();
+    Long getUplinkMacAddress();
+    Integer getDepth();
+}
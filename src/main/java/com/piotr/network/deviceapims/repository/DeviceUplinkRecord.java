@@ -0,0 +1,21 @@
+package com.piotr.network.deviceapims.repository;
+
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+
+/**
+ * {@link DeviceUplinkRow} read by the uplink chain query of {@link ReactiveDeviceRepository}
+ * @param macAddress packed MAC address
+ * @param deviceType the device type
+ */
+public record DeviceUplinkRecord(Long macAddress, DeviceType deviceType) implements DeviceUplinkRow {
+
+    @Override
+    public Long getMacAddress() {
+        return macAddress;
+    }
+
+    @Override
+    public DeviceType getDeviceType() {
+        return deviceType;
+    }
+}
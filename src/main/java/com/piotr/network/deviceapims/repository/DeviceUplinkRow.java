@@ -0,0 +1,12 @@
+package com.piotr.network.deviceapims.repository;
+
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+
+/**
+ * Device row of the uplink chain queries, the device first, then its uplinks up to the root.
+ * The MAC address is the raw packed BIGINT column value.
+ */
+public interface DeviceUplinkRow {
+    Long getMacAddress();
+    DeviceType getDeviceType();
+}
@@ -0,0 +1,153 @@
+package com.piotr.network.deviceapims.repository;
+
+import com.piotr.network.deviceapims.entity.DeviceRecord;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Non-blocking access to the device table for the reactive stack, the counterpart of {@link DeviceRepository}.
+ * Queries are the same SQL, so they are answered by the same indexes.
+ */
+@Repository
+public interface ReactiveDeviceRepository extends R2dbcRepository<DeviceRecord, UUID> {
+    Mono<DeviceRecord> findByMacAddress(Long macAddress);
+    Mono<Boolean> existsByMacAddress(Long macAddress);
+    Flux<DeviceRecord> findByMacAddressIn(Collection<Long> macAddresses);
+
+    /**
+     * Lists every device sorted by device type, then MAC address
+     * @return the Flux of devices
+     */
+    @Query("SELECT * FROM device_entity ORDER BY type_rank, mac_address")
+    Flux<DeviceRecord> findDevicesSorted();
+
+    /**
+     * Lists the first devices sorted by device type, then MAC address
+     * @param limit maximum number of devices
+     * @return the Flux of devices
+     */
+    @Query("SELECT * FROM device_entity ORDER BY type_rank, mac_address LIMIT :limit")
+    Flux<DeviceRecord> findDevicesSorted(@Param("limit") int limit);
+
+    /**
+     * Lists the devices following a keyset position, sorted by device type, then MAC address
+     * @param typeRank type rank of the last device of the previous page
+     * @param macAddress packed MAC address of the last device of the previous page
+     * @param limit maximum number of devices
+     * @return the Flux of devices
+     */
+    @Query("""
+            SELECT * FROM device_entity
+            WHERE (type_rank, mac_address) > (:typeRank, :macAddress)
+            ORDER BY type_rank, mac_address
+            LIMIT :limit
+            """)
+    Flux<DeviceRecord> findDevicesSortedAfter(@Param("typeRank") int typeRank, @Param("macAddress") long macAddress,
+                                              @Param("limit") int limit);
+
+    /**
+     * Lists the devices registered or re-linked within a range of the change sequence, in change order
+     * @param since exclusive lower bound of the change sequence
+     * @param bound exclusive upper bound of the change sequence
+     * @param limit maximum number of devices
+     * @return the Flux of change rows
+     */
+    @Query("""
+            SELECT d.mac_address, d.device_type, u.mac_address AS uplink_mac_address, d.change_seq
+            FROM device_entity d
+            LEFT JOIN device_entity u ON u.id = d.uplink_id
+            WHERE d.change_seq > :since AND d.change_seq < :bound
+            ORDER BY d.change_seq
+            LIMIT :limit
+            """)
+    Flux<DeviceChangeRecord> findChangesSince(@Param("since") long since, @Param("bound") long bound,
+                                              @Param("limit") int limit);
+
+    /**
+     * Streams the network topology forest, ordered by depth
+     * @param maxDepth deepest level to load, roots are at depth 0
+     * @return the Flux of topology rows
+     */
+    @Query("""
+            WITH RECURSIVE topology (id, mac_address, uplink_mac_address, depth) AS (
+                SELECT d.id, d.mac_address, CAST(NULL AS BIGINT), 0
+                FROM device_entity d
+                WHERE d.uplink_id IS NULL
+                UNION ALL
+                SELECT c.id, c.mac_address, t.mac_address, t.depth + 1
+                FROM device_entity c
+                JOIN topology t ON c.uplink_id = t.id
+                WHERE t.depth < :maxDepth
+            )
+            SELECT mac_address, uplink_mac_address, depth
+            FROM topology
+            ORDER BY depth, mac_address
+            """)
+    Flux<DeviceTopologyRecord> findTopologyForest(@Param("maxDepth") int maxDepth);
+
+    /**
+     * Streams the topology subtree rooted at the given device with one range scan of the path index, ordered by depth.
+     * As for {@link DeviceRepository#findTopologySubtree(long, int)}, rows of neighbouring subtrees below the
+     * encoded path levels must be left out by the caller.
+     * @param macAddress packed MAC address of the subtree root
+     * @param maxDepth deepest level to load, the subtree root is at depth 0
+     * @return the Flux of topology rows with depth relative to the subtree root, empty when the device is not registered
+     */
+    @Query("""
+            SELECT d.mac_address, u.mac_address AS uplink_mac_address, d.depth - r.depth AS depth
+            FROM device_entity r
+            JOIN device_entity d ON d.path >= r.path AND d.path < r.path || 'G'
+            LEFT JOIN device_entity u ON u.id = d.uplink_id
+            WHERE r.mac_address = :macAddress
+              AND d.depth >= r.depth
+              AND d.depth - r.depth <= :maxDepth
+            ORDER BY d.depth, d.mac_address
+            """)
+    Flux<DeviceTopologyRecord> findTopologySubtree(@Param("macAddress") long macAddress, @Param("maxDepth") int maxDepth);
+
+    /**
+     * Streams a device and its uplinks up to the root
+     * @param macAddress packed MAC address of the device
+     * @return the Flux of uplink chain rows, the device first, empty when the device is not registered
+     */
+    @Query("""
+            WITH RECURSIVE chain (id, mac_address, device_type, uplink_id, hops) AS (
+                SELECT d.id, d.mac_address, d.device_type, d.uplink_id, 0
+                FROM device_entity d
+                WHERE d.mac_address = :macAddress
+                UNION ALL
+                SELECT u.id, u.mac_address, u.device_type, u.uplink_id, c.hops + 1
+                FROM device_entity u
+                JOIN chain c ON u.id = c.uplink_id
+            )
+            SELECT mac_address, device_type
+            FROM chain
+            ORDER BY hops
+            """)
+    Flux<DeviceUplinkRecord> findUplinkChain(@Param("macAddress") long macAddress);
+
+    /**
+     * Adds to the change counter, holding its row lock until the current transaction completes,
+     * as {@link ChangeCounterRepository#advance(int)}
+     * @param count number of values to take
+     * @return the Mono of the number of updated rows
+     */
+    @Modifying
+    @Query("UPDATE change_counter SET last_value = last_value + :count WHERE id = 1")
+    Mono<Integer> advanceChangeCounter(@Param("count") int count);
+
+    /**
+     * Reads the change counter without locking it
+     * @return the Mono of the last value taken by a committed transaction, or by the current one
+     */
+    @Query("SELECT last_value FROM change_counter WHERE id = 1")
+    Mono<Long> findChangeCounter();
+}
@@ -0,0 +1,57 @@
+package com.piotr.network.deviceapims.service;
+
+import com.piotr.network.deviceapims.entity.DeviceEntity;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.exception.InvalidRequestException;
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+import org.springframework.http.HttpStatus;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Keyset pagination position in the device listing: the type rank and MAC address of the last returned device.
+ * Clients receive it as an opaque URL-safe token, the two keys packed into a single long.
+ */
+public record DeviceCursor(int typeRank, MacAddress macAddress) {
+
+    private static final int MAC_BITS = 48;
+
+    /**
+     * Cursor pointing after the given device
+     * @param deviceType type of the last returned device
+     * @param macAddress MAC address of the last returned device
+     * @return the cursor
+     */
+    public static DeviceCursor after(DeviceType deviceType, MacAddress macAddress) {
+        return new DeviceCursor(DeviceEntity.typeRankOf(deviceType), macAddress);
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}
+     * @param token the token received from the client
+     * @return the cursor
+     */
+    public static DeviceCursor decode(String token) {
+        try {
+            var bytes = Base64.getUrlDecoder().decode(token);
+            if (bytes.length != Long.BYTES) {
+                throw new IllegalArgumentException("Unexpected cursor length " + bytes.length);
+            }
+            long packed = ByteBuffer.wrap(bytes).getLong();
+            return new DeviceCursor((int) (packed >>> MAC_BITS), MacAddress.of(packed & MacAddress.MAX_VALUE));
+        } catch (IllegalArgumentException exception) {
+            throw new InvalidRequestException(HttpStatus.BAD_REQUEST, "Invalid cursor " + token);
+        }
+    }
+
+    /**
+     * Encodes the cursor as an opaque token
+     * @return the token
+     */
+    public String encode() {
+        long packed = ((long) typeRank << MAC_BITS) | macAddress.toLong();
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(ByteBuffer.allocate(Long.BYTES).putLong(packed).array());
+    }
+}
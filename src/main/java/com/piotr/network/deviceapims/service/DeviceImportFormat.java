@@ -0,0 +1,54 @@
+package com.piotr.network.deviceapims.service;
+
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * File formats of the device import, one device per line: (deviceType, macAddress, uplinkMacAddress)
+ */
+public enum DeviceImportFormat {
+    /**
+     * Comma separated values with an optional {@code deviceType,macAddress,uplinkMacAddress} header,
+     * the uplink column may be empty or left out
+     */
+    CSV("text/csv", ".csv"),
+    /**
+     * Newline delimited JSON, one RegisterDeviceRequest object per line
+     */
+    NDJSON(MediaType.APPLICATION_NDJSON_VALUE, ".ndjson", ".jsonl");
+
+    private final String mediaType;
+    private final String[] extensions;
+
+    DeviceImportFormat(String mediaType, String... extensions) {
+        this.mediaType = mediaType;
+        this.extensions = extensions;
+    }
+
+    /**
+     * Content type of the format
+     * @return the media type
+     */
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Format of a file, by extension
+     * @param fileName name of the file
+     * @return the format, empty when the extension is not known
+     */
+    public static Optional<DeviceImportFormat> ofFileName(String fileName) {
+        var name = fileName.toLowerCase(Locale.ROOT);
+        for (var format : values()) {
+            for (var extension : format.extensions) {
+                if (name.endsWith(extension)) {
+                    return Optional.of(format);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+}
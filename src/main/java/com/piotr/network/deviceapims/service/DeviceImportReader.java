@@ -0,0 +1,172 @@
+package com.piotr.network.deviceapims.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+import com.piotr.network.deviceapims.repository.DeviceImportRow;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Reads an imported file line by line, so only the current line is held in memory.
+ * Valid lines are returned as rows; blank lines and a CSV header are skipped, and invalid lines are handed
+ * to the rejection consumer instead of failing the import.
+ */
+final class DeviceImportReader implements Iterator<DeviceImportRow> {
+
+    private static final String CSV_HEADER = "deviceType";
+    private static final int CSV_MIN_COLUMNS = 2;
+    private static final int CSV_MAX_COLUMNS = 3;
+
+    private final BufferedReader reader;
+    private final DeviceImportFormat format;
+    private final ObjectMapper objectMapper;
+    private final Consumer<DeviceImportRejection> rejections;
+    private long line;
+    private boolean firstLine = true;
+    private boolean done;
+    private DeviceImportRow next;
+
+    DeviceImportReader(BufferedReader reader, DeviceImportFormat format, ObjectMapper objectMapper,
+                       Consumer<DeviceImportRejection> rejections) {
+        this.reader = reader;
+        this.format = format;
+        this.objectMapper = objectMapper;
+        this.rejections = rejections;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !done) {
+            advance();
+        }
+        return next != null;
+    }
+
+    @Override
+    public DeviceImportRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        var row = next;
+        next = null;
+        return row;
+    }
+
+    private void advance() {
+        String text;
+        while ((text = readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            boolean header = firstLine && format == DeviceImportFormat.CSV && isCsvHeader(text);
+            firstLine = false;
+            if (header) {
+                continue;
+            }
+            var fields = format == DeviceImportFormat.CSV ? csvFields(text) : ndjsonFields(text);
+            try {
+                next = fields.toRow(line);
+                return;
+            } catch (IllegalArgumentException e) {
+                rejections.accept(new DeviceImportRejection(line, fields.macAddress(),
+                        DeviceImportRejection.Reason.INVALID, e.getMessage()));
+            }
+        }
+        done = true;
+    }
+
+    private String readLine() {
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isCsvHeader(String text) {
+        return unquote(text.split(",", -1)[0]).equalsIgnoreCase(CSV_HEADER);
+    }
+
+    private static Fields csvFields(String text) {
+        var columns = text.split(",", -1);
+        if (columns.length < CSV_MIN_COLUMNS || columns.length > CSV_MAX_COLUMNS) {
+            return Fields.invalid("Expected deviceType,macAddress[,uplinkMacAddress]");
+        }
+        return new Fields(unquote(columns[0]), unquote(columns[1]),
+                columns.length == CSV_MAX_COLUMNS ? unquote(columns[2]) : null, null);
+    }
+
+    private Fields ndjsonFields(String text) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(text);
+        } catch (JsonProcessingException e) {
+            return Fields.invalid("Malformed JSON: " + e.getOriginalMessage());
+        }
+        if (!node.isObject()) {
+            return Fields.invalid("Expected a JSON object");
+        }
+        return new Fields(text(node, "deviceType"), text(node, "macAddress"), text(node, "uplinkMacAddress"), null);
+    }
+
+    private static String text(JsonNode node, String field) {
+        var value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static String unquote(String value) {
+        var trimmed = value.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            return trimmed.substring(1, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+
+    private static DeviceType parseDeviceType(String value) {
+        for (var deviceType : DeviceType.values()) {
+            if (deviceType.getValue().equalsIgnoreCase(value) || deviceType.name().equalsIgnoreCase(value)) {
+                return deviceType;
+            }
+        }
+        throw new IllegalArgumentException("Invalid device type " + value);
+    }
+
+    /**
+     * Raw values of a line, or the reason the line could not be split into values
+     */
+    private record Fields(String deviceType, String macAddress, String uplinkMacAddress, String error) {
+
+        private static Fields invalid(String error) {
+            return new Fields(null, null, null, error);
+        }
+
+        private DeviceImportRow toRow(long line) {
+            if (error != null) {
+                throw new IllegalArgumentException(error);
+            }
+            if (deviceType == null || deviceType.isBlank()) {
+                throw new IllegalArgumentException("deviceType is required");
+            }
+            if (macAddress == null || macAddress.isBlank()) {
+                throw new IllegalArgumentException("macAddress is required");
+            }
+            var type = parseDeviceType(deviceType);
+            var mac = MacAddress.parse(macAddress);
+            var uplinkMac = uplinkMacAddress != null && !uplinkMacAddress.isBlank() ? MacAddress.parse(uplinkMacAddress) : null;
+            if (mac.equals(uplinkMac)) {
+                throw new IllegalArgumentException("Device with MAC " + mac + " cannot be its own uplink");
+            }
+            return new DeviceImportRow(UUID.randomUUID(), line, type, mac, uplinkMac);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.piotr.network.deviceapims.service;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * A line of an imported file that was not registered
+ * @param line line number in the file, starting at 1
+ * @param macAddress MAC address of the line as written, null when missing
+ * @param reason why the line was not registered
+ * @param message description of the reason
+ */
+public record DeviceImportRejection(long line, String macAddress, Reason reason, String message) {
+
+    public enum Reason {
+        INVALID("invalid"),
+        DUPLICATE("duplicate"),
+        PARENT_NOT_FOUND("parentNotFound");
+
+        private final String value;
+
+        Reason(String value) {
+            this.value = value;
+        }
+
+        @JsonValue
+        public String getValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.piotr.network.deviceapims.service;
+
+import java.util.List;
+
+/**
+ * Outcome of a device import
+ * @param imported number of registered devices
+ * @param rejected number of lines that were not registered
+ * @param rejections the first rejected lines, by line number
+ */
+public record DeviceImportResult(int imported, int rejected, List<DeviceImportRejection> rejections) {
+}
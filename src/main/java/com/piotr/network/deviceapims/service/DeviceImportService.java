@@ -0,0 +1,8 @@
+package com.piotr.network.deviceapims.service;
+
+import java.io.InputStream;
+
+public interface DeviceImportService {
+
+    DeviceImportResult importDevices(InputStream inputStream, DeviceImportFormat format);
+}
@@ -0,0 +1,129 @@
+package com.piotr.network.deviceapims.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.piotr.network.deviceapims.event.DevicesImportedEvent;
+import com.piotr.network.deviceapims.repository.DeviceImportRepository;
+import com.piotr.network.deviceapims.repository.DeviceImportRow;
+import com.piotr.network.deviceapims.snapshot.ChangeSequence;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Imports devices from a CSV or NDJSON file in one transaction.
+ * The file is parsed and validated while it is staged in the database, so memory does not grow with its size;
+ * duplicates and uplinks are then resolved with set-based statements by {@link DeviceImportRepository}.
+ * An uplink may be registered already or listed anywhere in the file, before or after its children.
+ * Caches and indexes are updated through a single {@link DevicesImportedEvent} instead of an event per device.
+ */
+@Service
+@Profile("!reactive")
+public class DeviceImportServiceImpl implements DeviceImportService {
+    private final DeviceImportRepository deviceImportRepository;
+    private final ChangeSequence changeSequence;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final int maxReportedRejections;
+
+    @Autowired
+    public DeviceImportServiceImpl(DeviceImportRepository deviceImportRepository, ChangeSequence changeSequence,
+                                   ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper,
+                                   @Value("${device.import.max-reported-rejections:1000}") int maxReportedRejections) {
+        this.deviceImportRepository = deviceImportRepository;
+        this.changeSequence = changeSequence;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.maxReportedRejections = maxReportedRejections;
+    }
+
+    /**
+     * Registering the devices of an imported file.
+     * Invalid lines, duplicates and devices whose uplink is neither registered nor imported are reported
+     * instead of failing the import.
+     * @param inputStream the file content, UTF-8 encoded
+     * @param format the file format
+     * @return the number of imported and rejected lines, with the first rejections
+     */
+    @Override
+    @Transactional
+    public DeviceImportResult importDevices(InputStream inputStream, DeviceImportFormat format) {
+        var rejections = new Rejections(maxReportedRejections);
+        var reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        int staged = deviceImportRepository.stage(new DeviceImportReader(reader, format, objectMapper, rejections::add));
+        if (staged == 0) {
+            return rejections.result(0);
+        }
+        rejections.addAll(deviceImportRepository.findDuplicates(maxReportedRejections), DeviceImportRejection.Reason.DUPLICATE,
+                row -> "Device with MAC " + row.macAddress() + " already registered or listed on an earlier line");
+        int duplicates = deviceImportRepository.deleteDuplicates();
+        rejections.count(duplicates);
+        int resolvable = staged - duplicates;
+        if (resolvable == 0) {
+            return rejections.result(0);
+        }
+        long firstChangeSeq = changeSequence.next(resolvable);
+        int imported = deviceImportRepository.insertResolved(firstChangeSeq);
+        if (imported < resolvable) {
+            rejections.addAll(deviceImportRepository.findNotInserted(maxReportedRejections),
+                    DeviceImportRejection.Reason.PARENT_NOT_FOUND,
+                    row -> "Parent device with MAC " + row.uplinkMacAddress() + " not found");
+            rejections.count(resolvable - imported);
+        }
+        if (imported > 0) {
+            eventPublisher.publishEvent(new DevicesImportedEvent(deviceImportRepository.countInsertedByType(),
+                    firstChangeSeq, firstChangeSeq + imported - 1));
+        }
+        return rejections.result(imported);
+    }
+
+    /**
+     * Number of rejected lines and the first ones of every kind, reported by line number
+     */
+    private static final class Rejections {
+        private final int maxReported;
+        private final List<DeviceImportRejection> reported = new ArrayList<>();
+        private int rejected;
+
+        private Rejections(int maxReported) {
+            this.maxReported = maxReported;
+        }
+
+        private void add(DeviceImportRejection rejection) {
+            rejected++;
+            if (reported.size() < maxReported) {
+                reported.add(rejection);
+            }
+        }
+
+        private void addAll(List<DeviceImportRow> rows, DeviceImportRejection.Reason reason,
+                            Function<DeviceImportRow, String> message) {
+            for (var row : rows) {
+                reported.add(new DeviceImportRejection(row.line(), row.macAddress().toString(), reason, message.apply(row)));
+            }
+        }
+
+        private void count(int rows) {
+            rejected += rows;
+        }
+
+        private DeviceImportResult result(int imported) {
+            var first = reported.stream()
+                    .sorted(Comparator.comparingLong(DeviceImportRejection::line))
+                    .limit(maxReported)
+                    .toList();
+            return new DeviceImportResult(imported, rejected, first);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.piotr.network.deviceapims.service;
+
+import com.piotr.network.deviceapims.generated.model.DeviceResponse;
+
+import java.util.List;
+
+/**
+ * A page of the device listing
+ * @param devices the devices of the page
+ * @param nextCursor encoded {@link DeviceCursor} of the next page, null on the last page
+ */
+public record DevicePage(List<DeviceResponse> devices, String nextCursor) {
+}
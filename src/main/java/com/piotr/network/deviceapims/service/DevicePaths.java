@@ -0,0 +1,75 @@
+package com.piotr.network.deviceapims.service;
+
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.exception.InvalidRequestException;
+import com.piotr.network.deviceapims.generated.model.DevicePathResponse;
+import com.piotr.network.deviceapims.generated.model.DeviceResponse;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Builds path responses from uplink chains read from the database, each the device first, then its uplinks
+ * up to the root. Two chains of the same tree end with the same devices; the first of them is the nearest
+ * common uplink of both devices.
+ */
+final class DevicePaths {
+
+    private DevicePaths() {
+    }
+
+    /**
+     * Builds the uplink path of a device
+     * @param chain the device and its uplinks, not empty
+     * @return the path
+     */
+    static DevicePathResponse uplinkPath(List<DeviceResponse> chain) {
+        return new DevicePathResponse(chain, chain.size() - 1);
+    }
+
+    /**
+     * Builds the path between two devices, up from the first one to the nearest common uplink, then down to the second one
+     * @param from the first device and its uplinks, empty when not registered
+     * @param to the second device and its uplinks, empty when not registered
+     * @return the path, empty when a device is not registered or the devices are not connected
+     */
+    static Optional<DevicePathResponse> between(List<DeviceResponse> from, List<DeviceResponse> to) {
+        int fromCommon = from.size() - 1;
+        int toCommon = to.size() - 1;
+        if (fromCommon < 0 || toCommon < 0 || !sameDevice(from.get(fromCommon), to.get(toCommon))) {
+            return Optional.empty();
+        }
+        while (fromCommon > 0 && toCommon > 0 && sameDevice(from.get(fromCommon - 1), to.get(toCommon - 1))) {
+            fromCommon--;
+            toCommon--;
+        }
+        List<DeviceResponse> devices = new ArrayList<>(fromCommon + toCommon + 1);
+        devices.addAll(from.subList(0, fromCommon + 1));
+        for (int item = toCommon - 1; item >= 0; item--) {
+            devices.add(to.get(item));
+        }
+        return Optional.of(new DevicePathResponse(devices, devices.size() - 1)
+                .commonUplinkMacAddress(from.get(fromCommon).getMacAddress()));
+    }
+
+    /**
+     * Reason no path between two devices was found
+     * @param from MAC address of the first device
+     * @param to MAC address of the second device
+     * @param fromFound whether the first device is registered
+     * @param toFound whether the second device is registered
+     * @return the exception to answer with
+     */
+    static InvalidRequestException notFound(MacAddress from, MacAddress to, boolean fromFound, boolean toFound) {
+        if (!fromFound || !toFound) {
+            return new InvalidRequestException(HttpStatus.NOT_FOUND, "Device with MAC " + (fromFound ? to : from) + " not found");
+        }
+        return new InvalidRequestException(HttpStatus.NOT_FOUND, "Devices with MAC " + from + " and " + to + " are not connected");
+    }
+
+    private static boolean sameDevice(DeviceResponse first, DeviceResponse second) {
+        return first.getMacAddress().equals(second.getMacAddress());
+    }
+}
@@ -1,8 +1,12 @@
 package com.piotr.network.deviceapims.service;
 
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.generated.model.BatchRegisterDeviceResponse;
+import com.piotr.network.deviceapims.generated.model.DevicePathResponse;
 import com.piotr.network.deviceapims.generated.model.DeviceResponse;
 import com.piotr.network.deviceapims.generated.model.RegisterDeviceRequest;
 import com.piotr.network.deviceapims.generated.model.RegisterDeviceResponse;
+import com.piotr.network.deviceapims.generated.model.TopologyChangesResponse;
 import com.piotr.network.deviceapims.generated.model.TopologyNodeResponse;
 
 import java.util.List;
@@ -10,9 +14,14 @@ import java.util.List;
 
 public interface DeviceService {
 
-    List<TopologyNodeResponse> getTopologyNodes();
-    TopologyNodeResponse getTopologyNodeByMac(String macAddress);
+    List<TopologyNodeResponse> getTopologyNodes(Integer depth);
+    TopologyNodeResponse getTopologyNodeByMac(MacAddress macAddress, Integer depth);
+    TopologyChangesResponse getTopologyChanges(long since);
     List<DeviceResponse>  getDevices();
+    DevicePage getDevicesPage(Integer limit, String cursor);
     RegisterDeviceResponse registerDevice(RegisterDeviceRequest registerDeviceRequest);
-    DeviceResponse  getDeviceByMac(String macAddress);
+    BatchRegisterDeviceResponse registerDevices(List<RegisterDeviceRequest> registerDeviceRequests);
+    DeviceResponse  getDeviceByMac(MacAddress macAddress);
+    DevicePathResponse getDevicePath(MacAddress macAddress);
+    DevicePathResponse getPathBetweenDevices(MacAddress from, MacAddress to);
 }
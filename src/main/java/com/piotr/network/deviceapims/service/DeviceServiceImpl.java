@@ -1,41 +1,71 @@
 package com.piotr.network.deviceapims.service;
 
+import com.piotr.network.deviceapims.cache.DeviceLookupCache;
 import com.piotr.network.deviceapims.entity.DeviceEntity;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.event.DeviceRegisteredEvent;
+import com.piotr.network.deviceapims.exception.DuplicateDeviceException;
 import com.piotr.network.deviceapims.exception.InvalidRequestException;
 import com.piotr.network.deviceapims.generated.model.*;
+import com.piotr.network.deviceapims.index.MacAddressFilter;
+import com.piotr.network.deviceapims.index.TopologyIndex;
 import com.piotr.network.deviceapims.mapper.DeviceMapper;
 import com.piotr.network.deviceapims.repository.DeviceRepository;
+import com.piotr.network.deviceapims.snapshot.ChangeSequence;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
+@Profile("!reactive")
 public class DeviceServiceImpl implements DeviceService {
     private final DeviceRepository deviceRepository;
     private final DeviceMapper mapper;
+    private final TopologyIndex topologyIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DeviceLookupCache lookupCache;
+    private final MacAddressFilter macAddressFilter;
+    private final ChangeSequence changeSequence;
 
     @Autowired
-    public DeviceServiceImpl(DeviceRepository deviceRepository, DeviceMapper mapper) {
+    public DeviceServiceImpl(DeviceRepository deviceRepository, DeviceMapper mapper, TopologyIndex topologyIndex,
+                             ApplicationEventPublisher eventPublisher, DeviceLookupCache lookupCache,
+                             MacAddressFilter macAddressFilter, ChangeSequence changeSequence) {
         this.deviceRepository = deviceRepository;
         this.mapper = mapper;
+        this.topologyIndex = topologyIndex;
+        this.eventPublisher = eventPublisher;
+        this.lookupCache = lookupCache;
+        this.macAddressFilter = macAddressFilter;
+        this.changeSequence = changeSequence;
     }
 
-    private static final Map<DeviceType, Integer> DEVICE_ORDER = Map.of(
-            DeviceType.GATEWAY, 1,
-            DeviceType.SWITCH, 2,
-            DeviceType.ACCESS_POINT, 3
-    );
-
     private static final String NOT_FOUND = " not found";
+    private static final int NO_ITEM = -1;
+    private static final int DEFAULT_PAGE_SIZE = 100;
 
     /**
-     * Registering a device to a network deployment
+     * Registering a device to a network deployment.
+     * A duplicate MAC address is rejected by the unique constraint, the insert is flushed so it fails here
+     * and is reported as a duplicate rather than failing the commit.
+     * The uplink is always read from the database: the filter only knows the devices of this instance,
+     * and rejecting a registration for a parent registered elsewhere is not recoverable by the client.
      * @param dto the data transfer object containing user input for processing
      * @return the data transfer object
      */
@@ -43,91 +73,336 @@ public class DeviceServiceImpl implements DeviceService {
     @Transactional
     public RegisterDeviceResponse registerDevice(RegisterDeviceRequest dto) {
         var entity = mapper.mapDeviceDtoToDeviceEntity(dto);
-        var parentMac = dto.getUplinkMacAddress();
-        if (parentMac != null && !parentMac.isBlank()) {
+        var parentMac = parseUplinkMacAddress(dto.getUplinkMacAddress());
+        if (parentMac != null) {
             var parent = deviceRepository.findByMacAddress(parentMac)
                     .orElseThrow(() -> new InvalidRequestException(HttpStatus.BAD_REQUEST, "Parent device with MAC "+ parentMac + NOT_FOUND));
             entity.setUplinkDevice(parent);
         }
+        entity.setChangeSeq(changeSequence.next());
         var entityResult = deviceRepository.save(entity);
+        try {
+            deviceRepository.flush();
+        } catch (DataIntegrityViolationException exception) {
+            //the MAC address is the only unique column
+            if (exception.getCause() instanceof ConstraintViolationException violation
+                    && violation.getKind() == ConstraintViolationException.ConstraintKind.UNIQUE) {
+                throw new DuplicateDeviceException(entity.getMacAddress());
+            }
+            throw exception;
+        }
+        eventPublisher.publishEvent(new DeviceRegisteredEvent(entityResult.getId(), entityResult.getDeviceType(),
+                entityResult.getMacAddress(), parentMac, entityResult.getChangeSeq()));
         return mapper.mapDeviceEntityToRegisterDeviceResponse(entityResult);
     }
 
+    /**
+     * Registering a list of devices to a network deployment in one transaction.
+     * Already registered devices and uplinks are resolved with a single IN query, items are ordered so every uplink
+     * is inserted before its children (breadth first from the items whose uplink is already known) and the entities
+     * are written with JDBC batch inserts. Items that cannot be registered are reported instead of failing the batch.
+     * @param dtos the data transfer objects containing user input for processing
+     * @return the per-item results, in request order
+     */
+    @Override
+    @Transactional
+    public BatchRegisterDeviceResponse registerDevices(List<RegisterDeviceRequest> dtos) {
+        int count = dtos.size();
+        var entities = new DeviceEntity[count];
+        var parentMacs = new MacAddress[count];
+        Set<MacAddress> lookupMacs = new HashSet<>();
+        for (int item = 0; item < count; item++) {
+            entities[item] = mapper.mapDeviceDtoToDeviceEntity(dtos.get(item));
+            parentMacs[item] = parseUplinkMacAddress(dtos.get(item).getUplinkMacAddress());
+            if (macAddressFilter.mightContain(entities[item].getMacAddress())) {
+                lookupMacs.add(entities[item].getMacAddress());
+            }
+            //uplinks are always looked up, see registerDevice
+            if (parentMacs[item] != null) {
+                lookupMacs.add(parentMacs[item]);
+            }
+        }
+        Map<MacAddress, DeviceEntity> registered = new HashMap<>();
+        if (!lookupMacs.isEmpty()) {
+            for (var device : deviceRepository.findByMacAddressIn(lookupMacs)) {
+                registered.put(device.getMacAddress(), device);
+            }
+        }
+
+        var results = new BatchRegisterDeviceResult[count];
+        Map<MacAddress, Integer> itemByMac = new HashMap<>();
+        for (int item = 0; item < count; item++) {
+            var macAddress = entities[item].getMacAddress();
+            if (registered.containsKey(macAddress) || itemByMac.putIfAbsent(macAddress, item) != null) {
+                results[item] = rejected(item, macAddress, BatchRegisterDeviceStatus.DUPLICATE,
+                        "Device with MAC " + macAddress + " already registered");
+            }
+        }
+
+        int[] firstChildren = new int[count];
+        int[] nextSiblings = new int[count];
+        Arrays.fill(firstChildren, NO_ITEM);
+        int[] queue = new int[count];
+        int tail = 0;
+        for (int item = 0; item < count; item++) {
+            if (results[item] != null) {
+                continue;
+            }
+            var parentMac = parentMacs[item];
+            var parentItem = parentMac != null ? itemByMac.get(parentMac) : null;
+            if (parentMac == null || registered.containsKey(parentMac)) {
+                entities[item].setUplinkDevice(parentMac != null ? registered.get(parentMac) : null);
+                queue[tail++] = item;
+            } else if (parentItem != null) {
+                nextSiblings[item] = firstChildren[parentItem];
+                firstChildren[parentItem] = item;
+            }
+        }
+        List<DeviceEntity> inserts = new ArrayList<>(tail);
+        for (int head = 0; head < tail; head++) {
+            int item = queue[head];
+            inserts.add(entities[item]);
+            for (int child = firstChildren[item]; child != NO_ITEM; child = nextSiblings[child]) {
+                entities[child].setUplinkDevice(entities[item]);
+                queue[tail++] = child;
+            }
+        }
+        if (!inserts.isEmpty()) {
+            long changeSeq = changeSequence.next(inserts.size());
+            for (var entity : inserts) {
+                entity.setChangeSeq(changeSeq++);
+            }
+        }
+        deviceRepository.saveAll(inserts);
+        deviceRepository.flush();
+
+        for (int head = 0; head < tail; head++) {
+            int item = queue[head];
+            var entity = entities[item];
+            results[item] = new BatchRegisterDeviceResult()
+                    .index(item)
+                    .macAddress(entity.getMacAddress().toString())
+                    .status(BatchRegisterDeviceStatus.REGISTERED)
+                    .id(entity.getId());
+            eventPublisher.publishEvent(new DeviceRegisteredEvent(entity.getId(), entity.getDeviceType(),
+                    entity.getMacAddress(), parentMacs[item], entity.getChangeSeq()));
+        }
+        for (int item = 0; item < count; item++) {
+            if (results[item] == null) {
+                results[item] = rejected(item, entities[item].getMacAddress(), BatchRegisterDeviceStatus.PARENT_NOT_FOUND,
+                        "Parent device with MAC " + parentMacs[item] + NOT_FOUND);
+            }
+        }
+        return new BatchRegisterDeviceResponse()
+                .registered(tail)
+                .rejected(count - tail)
+                .results(Arrays.asList(results));
+    }
+
     /**
      * Retrieving all registered devices, sorted by device type
      * @return the List of data transfer object
      */
     @Override
     public List<DeviceResponse> getDevices() {
-        var allDevices = deviceRepository.findAll();
+        if (topologyIndex.isReady()) {
+            var devices = topologyIndex.getDevices();
+            if (devices.isEmpty()) {
+                throw new InvalidRequestException(HttpStatus.NOT_FOUND, "No device(s) found");
+            }
+            return devices;
+        }
+        var allDevices = deviceRepository.findDevicesSorted(Limit.unlimited());
         if  (allDevices.isEmpty()) {
             throw new InvalidRequestException(HttpStatus.NOT_FOUND, "No device(s) found");
         }
         return allDevices.stream()
-                .sorted(Comparator.comparing(
-                        DeviceEntity::getDeviceType,
-                        Comparator.comparing(DEVICE_ORDER::get)
-                ))
-                .map(mapper::mapDeviceEntityToDeviceResponse)
+                .map(mapper::mapDeviceRowToDeviceResponse)
                 .toList();
     }
 
     /**
-     * Retrieving network deployment device by MAC address
-     * @param macAddress the String object containing user input (MAC Address) for processing
+     * Retrieving a page of registered devices, sorted by device type, then MAC address.
+     * Pages are read with keyset pagination: one row more than the page size is fetched to tell whether
+     * a next page exists, and the next page starts after the last returned (type rank, MAC address).
+     * @param limit the page size, defaults to 100
+     * @param cursor the cursor returned with the previous page, null for the first page
+     * @return the page of data transfer objects
+     */
+    @Override
+    public DevicePage getDevicesPage(Integer limit, String cursor) {
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        var position = cursor != null ? DeviceCursor.decode(cursor) : null;
+        var rows = position != null
+                ? deviceRepository.findDevicesSortedAfter(position.typeRank(), position.macAddress(), Limit.of(pageSize + 1))
+                : deviceRepository.findDevicesSorted(Limit.of(pageSize + 1));
+        if (rows.isEmpty() && position == null) {
+            throw new InvalidRequestException(HttpStatus.NOT_FOUND, "No device(s) found");
+        }
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            var last = rows.get(pageSize - 1);
+            nextCursor = DeviceCursor.after(last.getDeviceType(), last.getMacAddress()).encode();
+        }
+        var devices = rows.stream()
+                .map(mapper::mapDeviceRowToDeviceResponse)
+                .toList();
+        return new DevicePage(devices, nextCursor);
+    }
+
+    /**
+     * Retrieving network deployment device by MAC address, read through the lookup cache.
+     * The device is read as a row, no entity is loaded into the persistence context.
+     * @param macAddress the MAC Address parsed from user input
+     * @return the data transfer object
+     */
+    @Override
+    public DeviceResponse getDeviceByMac(MacAddress macAddress) {
+        var device = lookupCache.get(macAddress, this::findDevice);
+        return device.orElseThrow(() -> new InvalidRequestException(HttpStatus.NOT_FOUND, "Device with MAC "+ macAddress + NOT_FOUND));
+
+    }
+
+    /**
+     * Retrieving a device and its uplinks up to the root of its topology tree, from the ancestor index of the
+     * topology index when it is loaded, otherwise with one recursive query
+     * @param macAddress the MAC Address parsed from user input
      * @return the data transfer object
      */
     @Override
-    public DeviceResponse getDeviceByMac(String macAddress) {
-        return deviceRepository.findByMacAddress(macAddress)
-                .map(mapper::mapDeviceEntityToDeviceResponse)
-                .orElseThrow(() -> new InvalidRequestException(HttpStatus.NOT_FOUND, "Device with MAC "+ macAddress + NOT_FOUND));
+    public DevicePathResponse getDevicePath(MacAddress macAddress) {
+        if (topologyIndex.isReady()) {
+            return topologyIndex.getUplinkPath(macAddress)
+                    .orElseThrow(() -> new InvalidRequestException(HttpStatus.NOT_FOUND, "Device with MAC "+ macAddress + NOT_FOUND));
+        }
+        var chain = findUplinkChain(macAddress);
+        if (chain.isEmpty()) {
+            throw new InvalidRequestException(HttpStatus.NOT_FOUND, "Device with MAC "+ macAddress + NOT_FOUND);
+        }
+        return DevicePaths.uplinkPath(chain);
+    }
 
+    /**
+     * Retrieving the devices on the path between two devices through their nearest common uplink, from the
+     * ancestor index of the topology index when it is loaded, otherwise with one recursive query per device
+     * @param from the MAC Address of the first device parsed from user input
+     * @param to the MAC Address of the second device parsed from user input
+     * @return the data transfer object
+     */
+    @Override
+    public DevicePathResponse getPathBetweenDevices(MacAddress from, MacAddress to) {
+        if (topologyIndex.isReady()) {
+            return topologyIndex.getPath(from, to)
+                    .orElseThrow(() -> DevicePaths.notFound(from, to,
+                            topologyIndex.findDevice(from).isPresent(), topologyIndex.findDevice(to).isPresent()));
+        }
+        var fromChain = findUplinkChain(from);
+        var toChain = fromChain.isEmpty() ? List.<DeviceResponse>of() : findUplinkChain(to);
+        return DevicePaths.between(fromChain, toChain)
+                .orElseThrow(() -> DevicePaths.notFound(from, to, !fromChain.isEmpty(), !toChain.isEmpty()));
     }
 
     /**
      * Retrieving all registered network device topology as tree structure
+     * @param depth number of levels to return below the roots, all levels when null
      * @return the List of data transfer object
      */
     @Override
-    @Transactional(readOnly = true)
-    public List<TopologyNodeResponse> getTopologyNodes() {
-        var rootNodeEntities = deviceRepository.findByUplinkDeviceIsNull();
-        if  (rootNodeEntities.isEmpty()) {
+    public List<TopologyNodeResponse> getTopologyNodes(Integer depth) {
+        int maxDepth = maxDepth(depth);
+        if (topologyIndex.isReady()) {
+            var roots = topologyIndex.getTopologyNodes(maxDepth);
+            if (roots.isEmpty()) {
+                throw new InvalidRequestException(HttpStatus.NOT_FOUND, "No device(s) found in network topology");
+            }
+            return roots;
+        }
+        var topologyRows = deviceRepository.findTopologyForest(maxDepth);
+        if  (topologyRows.isEmpty()) {
             throw new InvalidRequestException(HttpStatus.NOT_FOUND, "No device(s) found in network topology");
         }
-        return rootNodeEntities.stream()
-                .map(this::buildTopologyTreeResponse)
-                .toList();
+        var assembler = TopologyAssembler.forest(mapper);
+        topologyRows.forEach(assembler::add);
+        return assembler.roots();
     }
 
     /**
      * Retrieving registered network device topology starting from a specific device
-     * @param macAddress the String object containing user input (MAC Address) for processing
+     * @param macAddress the MAC Address parsed from user input
+     * @param depth number of levels to return below the device, all levels when null
      * @return the data transfer object
      */
     @Override
-    @Transactional(readOnly = true)
-    public TopologyNodeResponse getTopologyNodeByMac(String macAddress) {
-        var parent = deviceRepository.findByMacAddress(macAddress)
+    public TopologyNodeResponse getTopologyNodeByMac(MacAddress macAddress, Integer depth) {
+        int maxDepth = maxDepth(depth);
+        if (!macAddressFilter.mightContain(macAddress)) {
+            throw new InvalidRequestException(HttpStatus.NOT_FOUND, "Topology with device MAC "+ macAddress + NOT_FOUND);
+        }
+        if (topologyIndex.isReady()) {
+            return topologyIndex.getTopologyNode(macAddress, maxDepth)
+                    .orElseThrow(() -> new InvalidRequestException(HttpStatus.NOT_FOUND, "Topology with device MAC "+ macAddress + NOT_FOUND));
+        }
+        var topologyRows = deviceRepository.findTopologySubtree(macAddress.toLong(), maxDepth);
+        if (topologyRows.isEmpty()) {
+            throw new InvalidRequestException(HttpStatus.NOT_FOUND, "Topology with device MAC "+ macAddress + NOT_FOUND);
+        }
+        var assembler = TopologyAssembler.subtree(mapper, macAddress);
+        topologyRows.forEach(assembler::add);
+        return assembler.root()
                 .orElseThrow(() -> new InvalidRequestException(HttpStatus.NOT_FOUND, "Topology with device MAC "+ macAddress + NOT_FOUND));
-        return buildTopologyTreeResponse(parent);
     }
 
     /**
-     * Recursively builds the TopologyNodeResponse tree structure.
-     * @param parentEntity the data transfer object containing user input for processing
-     * @return the data transfer object
+     * Retrieving the devices registered or re-linked since a topology version, in change order.
+     * Only changes below the stable bound of the change sequence are read, so a change committed later
+     * always gets a version above the one returned.
+     * @param since topology version of the last change known to the client, 0 for none
+     * @return the changes with the version to continue from, or a resync signal when the client is too far behind
      */
-    private TopologyNodeResponse buildTopologyTreeResponse(DeviceEntity parentEntity) {
-        TopologyNodeResponse topologyNodeResponse = mapper.mapEntityToTopologyNodeResponse(parentEntity);
-        var children = parentEntity.getDownlinkDevices();
-        if (children != null && !children.isEmpty()) {
-            var childNodes = children.stream()
-                    .map(this::buildTopologyTreeResponse)
-                    .toList();
-            topologyNodeResponse.setChildren(childNodes);
-        }
-        return topologyNodeResponse;
+    @Override
+    @Transactional(readOnly = true)
+    public TopologyChangesResponse getTopologyChanges(long since) {
+        long bound = changeSequence.stableBound();
+        int maxChanges = changeSequence.maxChanges();
+        var changes = deviceRepository.findChangesSince(since, bound, Limit.of(maxChanges + 1)).stream()
+                .map(mapper::mapDeviceChangeRowToTopologyChange)
+                .toList();
+        return TopologyChanges.of(since, bound, maxChanges, changes);
+    }
+
+    private Optional<DeviceResponse> findDevice(MacAddress macAddress) {
+        if (!macAddressFilter.mightContain(macAddress)) {
+            return Optional.empty();
+        }
+        return topologyIndex.isReady()
+                ? topologyIndex.findDevice(macAddress)
+                : deviceRepository.findDeviceRowByMacAddress(macAddress).map(mapper::mapDeviceRowToDeviceResponse);
+    }
+
+    private List<DeviceResponse> findUplinkChain(MacAddress macAddress) {
+        if (!macAddressFilter.mightContain(macAddress)) {
+            return List.of();
+        }
+        return deviceRepository.findUplinkChain(macAddress.toLong()).stream()
+                .map(mapper::mapDeviceUplinkRowToDeviceResponse)
+                .toList();
+    }
+
+    private static BatchRegisterDeviceResult rejected(int item, MacAddress macAddress, BatchRegisterDeviceStatus status,
+                                                      String message) {
+        return new BatchRegisterDeviceResult()
+                .index(item)
+                .macAddress(macAddress.toString())
+                .status(status)
+                .message(message);
+    }
+
+    private static int maxDepth(Integer depth) {
+        return depth != null ? depth : Integer.MAX_VALUE;
+    }
+
+    private static MacAddress parseUplinkMacAddress(String uplinkMacAddress) {
+        return uplinkMacAddress != null && !uplinkMacAddress.isBlank() ? MacAddress.parse(uplinkMacAddress) : null;
     }
 }
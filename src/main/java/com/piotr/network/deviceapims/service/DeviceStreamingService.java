@@ -0,0 +1,11 @@
+package com.piotr.network.deviceapims.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+
+public interface DeviceStreamingService {
+
+    void writeDevices(OutputStream outputStream, boolean ndjson) throws IOException;
+    void writeTopology(OutputStream outputStream, boolean ndjson, Integer depth) throws IOException;
+}
@@ -0,0 +1,118 @@
+package com.piotr.network.deviceapims.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.repository.DeviceRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes device lists and the topology straight from a database cursor to the response,
+ * so memory stays flat regardless of the number of devices.
+ * Output is either one JSON array or newline delimited JSON, one value per line.
+ */
+@Service
+@Profile("!reactive")
+public class DeviceStreamingServiceImpl implements DeviceStreamingService {
+    private final DeviceRepository deviceRepository;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public DeviceStreamingServiceImpl(DeviceRepository deviceRepository, ObjectMapper objectMapper) {
+        this.deviceRepository = deviceRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writing all registered devices, sorted by device type
+     * @param outputStream the response body
+     * @param ndjson true to write one device per line instead of a JSON array
+     * @throws IOException when the client connection fails
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void writeDevices(OutputStream outputStream, boolean ndjson) throws IOException {
+        try (var generator = createGenerator(outputStream);
+             var rows = deviceRepository.streamDevices()) {
+            if (!ndjson) {
+                generator.writeStartArray();
+            }
+            var iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                var row = iterator.next();
+                generator.writeStartObject();
+                generator.writeStringField("deviceType", row.getDeviceType().getValue());
+                generator.writeStringField("macAddress", row.getMacAddress().toString());
+                generator.writeEndObject();
+                if (ndjson) {
+                    generator.writeRaw('\n');
+                }
+            }
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+        }
+    }
+
+    /**
+     * Writing all registered network device topology as tree structure.
+     * Rows arrive in depth-first pre-order, so a node is opened when its row is read
+     * and closed once a row at the same or a lower depth follows.
+     * @param outputStream the response body
+     * @param ndjson true to write one root tree per line instead of a JSON array
+     * @param depth number of levels to write below the roots, all levels when null
+     * @throws IOException when the client connection fails
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void writeTopology(OutputStream outputStream, boolean ndjson, Integer depth) throws IOException {
+        try (var generator = createGenerator(outputStream);
+             var rows = deviceRepository.streamTopologyForest(depth != null ? depth : Integer.MAX_VALUE)) {
+            if (!ndjson) {
+                generator.writeStartArray();
+            }
+            int openDepth = -1;
+            var iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                var row = iterator.next();
+                openDepth = closeNodes(generator, openDepth, row.getDepth(), ndjson);
+                generator.writeStartObject();
+                generator.writeStringField("macAddress", MacAddress.of(row.getMacAddress()).toString());
+                generator.writeArrayFieldStart("children");
+                openDepth = row.getDepth();
+            }
+            closeNodes(generator, openDepth, 0, ndjson);
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+        }
+    }
+
+    private JsonGenerator createGenerator(OutputStream outputStream) throws IOException {
+        var generator = objectMapper.getFactory().createGenerator(outputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+
+    /**
+     * Closes the open nodes down to the given depth
+     * @return the depth of the deepest node still open
+     */
+    private static int closeNodes(JsonGenerator generator, int openDepth, int depth, boolean ndjson) throws IOException {
+        for (; openDepth >= depth; openDepth--) {
+            generator.writeEndArray();
+            generator.writeEndObject();
+            if (ndjson && openDepth == 0) {
+                generator.writeRaw('\n');
+            }
+        }
+        return openDepth;
+    }
+}
@@ -0,0 +1,31 @@
+package com.piotr.network.deviceapims.service;
+
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.generated.model.BatchRegisterDeviceResponse;
+import com.piotr.network.deviceapims.generated.model.DevicePathResponse;
+import com.piotr.network.deviceapims.generated.model.DeviceResponse;
+import com.piotr.network.deviceapims.generated.model.RegisterDeviceRequest;
+import com.piotr.network.deviceapims.generated.model.RegisterDeviceResponse;
+import com.piotr.network.deviceapims.generated.model.TopologyChangesResponse;
+import com.piotr.network.deviceapims.generated.model.TopologyNodeResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link DeviceService}, used by the reactive stack
+ */
+public interface ReactiveDeviceService {
+
+    Mono<List<TopologyNodeResponse>> getTopologyNodes(Integer depth);
+    Mono<TopologyNodeResponse> getTopologyNodeByMac(MacAddress macAddress, Integer depth);
+    Mono<TopologyChangesResponse> getTopologyChanges(long since);
+    Flux<DeviceResponse> getDevices();
+    Mono<DevicePage> getDevicesPage(Integer limit, String cursor);
+    Mono<RegisterDeviceResponse> registerDevice(RegisterDeviceRequest registerDeviceRequest);
+    Mono<BatchRegisterDeviceResponse> registerDevices(List<RegisterDeviceRequest> registerDeviceRequests);
+    Mono<DeviceResponse> getDeviceByMac(MacAddress macAddress);
+    Mono<DevicePathResponse> getDevicePath(MacAddress macAddress);
+    Mono<DevicePathResponse> getPathBetweenDevices(MacAddress from, MacAddress to);
+}
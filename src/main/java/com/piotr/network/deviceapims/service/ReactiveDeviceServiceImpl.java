@@ -0,0 +1,361 @@
+package com.piotr.network.deviceapims.service;
+
+import com.piotr.network.deviceapims.entity.DeviceRecord;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.exception.DuplicateDeviceException;
+import com.piotr.network.deviceapims.exception.InvalidRequestException;
+import com.piotr.network.deviceapims.generated.model.*;
+import com.piotr.network.deviceapims.mapper.DeviceMapper;
+import com.piotr.network.deviceapims.repository.ReactiveDeviceRepository;
+import com.piotr.network.deviceapims.snapshot.ReactiveChangeSequence;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+@Profile("reactive")
+public class ReactiveDeviceServiceImpl implements ReactiveDeviceService {
+    private final ReactiveDeviceRepository deviceRepository;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final DeviceMapper mapper;
+    private final ReactiveChangeSequence changeSequence;
+    private final TransactionalOperator transactionalOperator;
+
+    public ReactiveDeviceServiceImpl(ReactiveDeviceRepository deviceRepository, R2dbcEntityTemplate entityTemplate,
+                                     DeviceMapper mapper, ReactiveChangeSequence changeSequence,
+                                     TransactionalOperator transactionalOperator) {
+        this.deviceRepository = deviceRepository;
+        this.entityTemplate = entityTemplate;
+        this.mapper = mapper;
+        this.changeSequence = changeSequence;
+        this.transactionalOperator = transactionalOperator;
+    }
+
+    private static final String NOT_FOUND = " not found";
+    private static final int NO_ITEM = -1;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    /**
+     * Registering a device to a network deployment
+     * @param dto the data transfer object containing user input for processing
+     * @return the data transfer object
+     */
+    @Override
+    public Mono<RegisterDeviceResponse> registerDevice(RegisterDeviceRequest dto) {
+        var macAddress = MacAddress.parse(dto.getMacAddress());
+        var parentMac = parseUplinkMacAddress(dto.getUplinkMacAddress());
+        return deviceRepository.existsByMacAddress(macAddress.toLong())
+                .flatMap(exists -> {
+                    if (exists) {
+                        return Mono.<RegisterDeviceResponse>error(new DuplicateDeviceException(macAddress));
+                    }
+                    if (parentMac == null) {
+                        return insert(dto, null);
+                    }
+                    return deviceRepository.findByMacAddress(parentMac.toLong())
+                            .switchIfEmpty(Mono.error(() -> new InvalidRequestException(HttpStatus.BAD_REQUEST,
+                                    "Parent device with MAC "+ parentMac + NOT_FOUND)))
+                            .flatMap(parent -> insert(dto, parent));
+                });
+    }
+
+    /**
+     * Registering a list of devices to a network deployment.
+     * Already registered devices and uplinks are resolved with a single IN query and items are inserted breadth first
+     * from the items whose uplink is already known, so every uplink is inserted before its children.
+     * Unlike the blocking stack, each device is inserted in its own transaction.
+     * @param dtos the data transfer objects containing user input for processing
+     * @return the per-item results, in request order
+     */
+    @Override
+    public Mono<BatchRegisterDeviceResponse> registerDevices(List<RegisterDeviceRequest> dtos) {
+        int count = dtos.size();
+        var macAddresses = new MacAddress[count];
+        var parentMacs = new MacAddress[count];
+        Set<Long> lookupMacs = new HashSet<>();
+        for (int item = 0; item < count; item++) {
+            macAddresses[item] = MacAddress.parse(dtos.get(item).getMacAddress());
+            parentMacs[item] = parseUplinkMacAddress(dtos.get(item).getUplinkMacAddress());
+            lookupMacs.add(macAddresses[item].toLong());
+            if (parentMacs[item] != null) {
+                lookupMacs.add(parentMacs[item].toLong());
+            }
+        }
+        var lookup = lookupMacs.isEmpty() ? Flux.<DeviceRecord>empty() : deviceRepository.findByMacAddressIn(lookupMacs);
+        return lookup.collectMap(DeviceRecord::macAddress)
+                .flatMap(registered -> registerInOrder(dtos, macAddresses, parentMacs, registered));
+    }
+
+    /**
+     * Retrieving all registered devices, sorted by device type
+     * @return the Flux of data transfer objects
+     */
+    @Override
+    public Flux<DeviceResponse> getDevices() {
+        return deviceRepository.findDevicesSorted()
+                .map(mapper::mapDeviceRecordToDeviceResponse)
+                .switchIfEmpty(Mono.error(() -> new InvalidRequestException(HttpStatus.NOT_FOUND, "No device(s) found")));
+    }
+
+    /**
+     * Retrieving a page of registered devices, sorted by device type, then MAC address, with keyset pagination
+     * @param limit the page size, defaults to 100
+     * @param cursor the cursor returned with the previous page, null for the first page
+     * @return the page of data transfer objects
+     */
+    @Override
+    public Mono<DevicePage> getDevicesPage(Integer limit, String cursor) {
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        var position = cursor != null ? DeviceCursor.decode(cursor) : null;
+        var rows = position != null
+                ? deviceRepository.findDevicesSortedAfter(position.typeRank(), position.macAddress().toLong(), pageSize + 1)
+                : deviceRepository.findDevicesSorted(pageSize + 1);
+        return rows.collectList().map(records -> {
+            if (records.isEmpty() && position == null) {
+                throw new InvalidRequestException(HttpStatus.NOT_FOUND, "No device(s) found");
+            }
+            var page = records.size() > pageSize ? records.subList(0, pageSize) : records;
+            String nextCursor = null;
+            if (records.size() > pageSize) {
+                var last = page.get(pageSize - 1);
+                nextCursor = DeviceCursor.after(last.deviceType(), MacAddress.of(last.macAddress())).encode();
+            }
+            var devices = page.stream()
+                    .map(mapper::mapDeviceRecordToDeviceResponse)
+                    .toList();
+            return new DevicePage(devices, nextCursor);
+        });
+    }
+
+    /**
+     * Retrieving network deployment device by MAC address
+     * @param macAddress the MAC Address parsed from user input
+     * @return the data transfer object
+     */
+    @Override
+    public Mono<DeviceResponse> getDeviceByMac(MacAddress macAddress) {
+        return deviceRepository.findByMacAddress(macAddress.toLong())
+                .map(mapper::mapDeviceRecordToDeviceResponse)
+                .switchIfEmpty(Mono.error(() -> new InvalidRequestException(HttpStatus.NOT_FOUND, "Device with MAC "+ macAddress + NOT_FOUND)));
+    }
+
+    /**
+     * Retrieving a device and its uplinks up to the root of its topology tree, with one recursive query
+     * @param macAddress the MAC Address parsed from user input
+     * @return the data transfer object
+     */
+    @Override
+    public Mono<DevicePathResponse> getDevicePath(MacAddress macAddress) {
+        return findUplinkChain(macAddress)
+                .filter(chain -> !chain.isEmpty())
+                .map(DevicePaths::uplinkPath)
+                .switchIfEmpty(Mono.error(() -> new InvalidRequestException(HttpStatus.NOT_FOUND, "Device with MAC "+ macAddress + NOT_FOUND)));
+    }
+
+    /**
+     * Retrieving the devices on the path between two devices through their nearest common uplink,
+     * with one recursive query per device
+     * @param from the MAC Address of the first device parsed from user input
+     * @param to the MAC Address of the second device parsed from user input
+     * @return the data transfer object
+     */
+    @Override
+    public Mono<DevicePathResponse> getPathBetweenDevices(MacAddress from, MacAddress to) {
+        return Mono.zip(findUplinkChain(from), findUplinkChain(to))
+                .flatMap(chains -> Mono.justOrEmpty(DevicePaths.between(chains.getT1(), chains.getT2()))
+                        .switchIfEmpty(Mono.error(() -> DevicePaths.notFound(from, to,
+                                !chains.getT1().isEmpty(), !chains.getT2().isEmpty()))));
+    }
+
+    /**
+     * Retrieving all registered network device topology as tree structure, assembled while the rows arrive
+     * @param depth number of levels to return below the roots, all levels when null
+     * @return the List of data transfer object
+     */
+    @Override
+    public Mono<List<TopologyNodeResponse>> getTopologyNodes(Integer depth) {
+        return deviceRepository.findTopologyForest(maxDepth(depth))
+                .collect(() -> TopologyAssembler.forest(mapper), TopologyAssembler::add)
+                .map(TopologyAssembler::roots)
+                .filter(roots -> !roots.isEmpty())
+                .switchIfEmpty(Mono.error(() -> new InvalidRequestException(HttpStatus.NOT_FOUND, "No device(s) found in network topology")));
+    }
+
+    /**
+     * Retrieving registered network device topology starting from a specific device, assembled while the rows arrive
+     * @param macAddress the MAC Address parsed from user input
+     * @param depth number of levels to return below the device, all levels when null
+     * @return the data transfer object
+     */
+    @Override
+    public Mono<TopologyNodeResponse> getTopologyNodeByMac(MacAddress macAddress, Integer depth) {
+        return deviceRepository.findTopologySubtree(macAddress.toLong(), maxDepth(depth))
+                .collect(() -> TopologyAssembler.subtree(mapper, macAddress), TopologyAssembler::add)
+                .flatMap(assembler -> Mono.justOrEmpty(assembler.root()))
+                .switchIfEmpty(Mono.error(() -> new InvalidRequestException(HttpStatus.NOT_FOUND, "Topology with device MAC "+ macAddress + NOT_FOUND)));
+    }
+
+    /**
+     * Retrieving the devices registered or re-linked since a topology version, in change order
+     * @param since topology version of the last change known to the client, 0 for none
+     * @return the changes with the version to continue from, or a resync signal when the client is too far behind
+     */
+    @Override
+    public Mono<TopologyChangesResponse> getTopologyChanges(long since) {
+        int maxChanges = changeSequence.maxChanges();
+        return changeSequence.stableBound()
+                .flatMap(bound -> deviceRepository.findChangesSince(since, bound, maxChanges + 1)
+                        .map(mapper::mapDeviceChangeRecordToTopologyChange)
+                        .collectList()
+                        .map(changes -> TopologyChanges.of(since, bound, maxChanges, changes)));
+    }
+
+    /**
+     * Inserts a device with the next change sequence, taken in the transaction of the insert
+     * @param dto the device to register
+     * @param uplink the uplink device, null for a root device
+     * @return the data transfer object
+     */
+    private Mono<RegisterDeviceResponse> insert(RegisterDeviceRequest dto, DeviceRecord uplink) {
+        return insertRecord(dto, uplink)
+                .map(record -> mapper.mapDeviceRecordToRegisterDeviceResponse(record, uplink));
+    }
+
+    private Mono<DeviceRecord> insertRecord(RegisterDeviceRequest dto, DeviceRecord uplink) {
+        return changeSequence.next()
+                .flatMap(changeSeq -> entityTemplate.insert(mapper.mapDeviceDtoToDeviceRecord(dto, uplink).withChangeSeq(changeSeq)))
+                .as(transactionalOperator::transactional);
+    }
+
+    /**
+     * Rejects the duplicates of a batch, then inserts the other items breadth first from the items whose uplink
+     * is already registered; items whose uplink is neither registered nor inserted are reported as not found
+     * @param dtos all items of the batch
+     * @param macAddresses MAC address of each item
+     * @param parentMacs uplink MAC address of each item, null for a root device
+     * @param registered already registered devices of the batch, by packed MAC address
+     * @return the per-item results, in request order
+     */
+    private Mono<BatchRegisterDeviceResponse> registerInOrder(List<RegisterDeviceRequest> dtos, MacAddress[] macAddresses,
+                                                              MacAddress[] parentMacs, Map<Long, DeviceRecord> registered) {
+        int count = dtos.size();
+        var results = new BatchRegisterDeviceResult[count];
+        Map<MacAddress, Integer> itemByMac = new HashMap<>();
+        for (int item = 0; item < count; item++) {
+            var macAddress = macAddresses[item];
+            if (registered.containsKey(macAddress.toLong()) || itemByMac.putIfAbsent(macAddress, item) != null) {
+                results[item] = duplicate(item, macAddress);
+            }
+        }
+
+        int[] parentItems = new int[count];
+        int[] firstChildren = new int[count];
+        int[] nextSiblings = new int[count];
+        Arrays.fill(parentItems, NO_ITEM);
+        Arrays.fill(firstChildren, NO_ITEM);
+        int[] queue = new int[count];
+        int tail = 0;
+        for (int item = 0; item < count; item++) {
+            if (results[item] != null) {
+                continue;
+            }
+            var parentMac = parentMacs[item];
+            var parentItem = parentMac != null ? itemByMac.get(parentMac) : null;
+            if (parentMac == null || registered.containsKey(parentMac.toLong())) {
+                queue[tail++] = item;
+            } else if (parentItem != null) {
+                parentItems[item] = parentItem;
+                nextSiblings[item] = firstChildren[parentItem];
+                firstChildren[parentItem] = item;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            for (int child = firstChildren[queue[head]]; child != NO_ITEM; child = nextSiblings[child]) {
+                queue[tail++] = child;
+            }
+        }
+
+        var inserted = new DeviceRecord[count];
+        return Flux.range(0, tail)
+                .concatMap(head -> {
+                    int item = queue[head];
+                    var parentMac = parentMacs[item];
+                    var uplink = parentItems[item] != NO_ITEM ? inserted[parentItems[item]]
+                            : parentMac != null ? registered.get(parentMac.toLong()) : null;
+                    if (parentMac != null && uplink == null) {
+                        //the uplink of the batch was rejected
+                        return Mono.just(parentNotFound(item, macAddresses[item], parentMac));
+                    }
+                    return insertRecord(dtos.get(item), uplink)
+                            .doOnNext(record -> inserted[item] = record)
+                            .map(record -> new BatchRegisterDeviceResult()
+                                    .index(item)
+                                    .macAddress(macAddresses[item].toString())
+                                    .status(BatchRegisterDeviceStatus.REGISTERED)
+                                    .id(record.id()))
+                            //registered concurrently by another request since the lookup
+                            .onErrorResume(DataIntegrityViolationException.class,
+                                    exception -> Mono.just(duplicate(item, macAddresses[item])));
+                })
+                .doOnNext(result -> results[result.getIndex()] = result)
+                .then(Mono.fromSupplier(() -> {
+                    int registeredCount = 0;
+                    for (int item = 0; item < count; item++) {
+                        if (results[item] == null) {
+                            results[item] = parentNotFound(item, macAddresses[item], parentMacs[item]);
+                        } else if (results[item].getStatus() == BatchRegisterDeviceStatus.REGISTERED) {
+                            registeredCount++;
+                        }
+                    }
+                    return new BatchRegisterDeviceResponse()
+                            .registered(registeredCount)
+                            .rejected(count - registeredCount)
+                            .results(Arrays.asList(results));
+                }));
+    }
+
+    private Mono<List<DeviceResponse>> findUplinkChain(MacAddress macAddress) {
+        return deviceRepository.findUplinkChain(macAddress.toLong())
+                .map(mapper::mapDeviceUplinkRowToDeviceResponse)
+                .collectList();
+    }
+
+    private static BatchRegisterDeviceResult duplicate(int item, MacAddress macAddress) {
+        return rejected(item, macAddress, BatchRegisterDeviceStatus.DUPLICATE,
+                "Device with MAC " + macAddress + " already registered");
+    }
+
+    private static BatchRegisterDeviceResult parentNotFound(int item, MacAddress macAddress, MacAddress parentMac) {
+        return rejected(item, macAddress, BatchRegisterDeviceStatus.PARENT_NOT_FOUND,
+                "Parent device with MAC " + parentMac + NOT_FOUND);
+    }
+
+    private static BatchRegisterDeviceResult rejected(int item, MacAddress macAddress, BatchRegisterDeviceStatus status,
+                                                      String message) {
+        return new BatchRegisterDeviceResult()
+                .index(item)
+                .macAddress(macAddress.toString())
+                .status(status)
+                .message(message);
+    }
+
+    private static int maxDepth(Integer depth) {
+        return depth != null ? depth : Integer.MAX_VALUE;
+    }
+
+    private static MacAddress parseUplinkMacAddress(String uplinkMacAddress) {
+        return uplinkMacAddress != null && !uplinkMacAddress.isBlank() ? MacAddress.parse(uplinkMacAddress) : null;
+    }
+}
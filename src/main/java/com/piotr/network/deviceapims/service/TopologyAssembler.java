@@ -0,0 +1,87 @@
+package com.piotr.network.deviceapims.service;
+
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.generated.model.TopologyNodeResponse;
+import com.piotr.network.deviceapims.mapper.DeviceMapper;
+import com.piotr.network.deviceapims.repository.DeviceTopologyRow;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Builds TopologyNodeResponse trees one row at a time from rows ordered by depth.
+ * A parent row always precedes its children, so each child is attached to an already built node as soon as it
+ * arrives; rows can be added while a query is still producing them, without collecting them first.
+ * Not thread safe, rows must be added sequentially.
+ */
+final class TopologyAssembler {
+
+    private final DeviceMapper mapper;
+    //MAC address of the subtree root, null when assembling the whole forest
+    private final Long rootMacAddress;
+    private final Map<Long, TopologyNodeResponse> nodesByMacAddress = new HashMap<>();
+    private final List<TopologyNodeResponse> roots = new ArrayList<>();
+
+    private TopologyAssembler(DeviceMapper mapper, Long rootMacAddress) {
+        this.mapper = mapper;
+        this.rootMacAddress = rootMacAddress;
+    }
+
+    /**
+     * Assembler of the whole topology: rows without a known parent become roots
+     * @param mapper the row mapper
+     * @return TopologyAssembler
+     */
+    static TopologyAssembler forest(DeviceMapper mapper) {
+        return new TopologyAssembler(mapper, null);
+    }
+
+    /**
+     * Assembler of the subtree of one device: only rows connected to the subtree root through already built
+     * nodes are attached, any other row is left out
+     * @param mapper the row mapper
+     * @param macAddress MAC address of the subtree root
+     * @return TopologyAssembler
+     */
+    static TopologyAssembler subtree(DeviceMapper mapper, MacAddress macAddress) {
+        return new TopologyAssembler(mapper, macAddress.toLong());
+    }
+
+    /**
+     * Attaches the next row
+     * @param row the topology row, not shallower than any row added before
+     */
+    void add(DeviceTopologyRow row) {
+        var parentNode = row.getUplinkMacAddress() != null ? nodesByMacAddress.get(row.getUplinkMacAddress()) : null;
+        if (parentNode == null && rootMacAddress != null
+                && (!roots.isEmpty() || row.getMacAddress().longValue() != rootMacAddress)) {
+            return;
+        }
+        var node = mapper.mapTopologyRowToTopologyNodeResponse(row);
+        nodesByMacAddress.put(row.getMacAddress(), node);
+        if (parentNode != null) {
+            parentNode.getChildren().add(node);
+        } else {
+            roots.add(node);
+        }
+    }
+
+    /**
+     * The assembled roots
+     * @return the List of root data transfer objects, empty when no row was attached
+     */
+    List<TopologyNodeResponse> roots() {
+        return roots;
+    }
+
+    /**
+     * The assembled subtree
+     * @return the root data transfer object, empty when the subtree root was not among the rows
+     */
+    Optional<TopologyNodeResponse> root() {
+        return roots.stream().findFirst();
+    }
+}
@@ -0,0 +1,39 @@
+package com.piotr.network.deviceapims.service;
+
+import com.piotr.network.deviceapims.generated.model.TopologyChange;
+import com.piotr.network.deviceapims.generated.model.TopologyChangesResponse;
+
+import java.util.List;
+
+/**
+ * Builds the topology changes feed response from the changes read after a version.
+ * Changes are read one more than the maximum, so a client too far behind is told to resync without reading
+ * every change it missed.
+ */
+final class TopologyChanges {
+
+    private TopologyChanges() {
+    }
+
+    /**
+     * Builds the response
+     * @param since topology version requested by the client
+     * @param bound exclusive upper bound of the changes that were read
+     * @param maxChanges largest number of changes returned
+     * @param changes up to maxChanges + 1 changes following the requested version, in change order
+     * @return the changes, or a resync signal with the version to continue from after reloading the topology
+     */
+    static TopologyChangesResponse of(long since, long bound, int maxChanges, List<TopologyChange> changes) {
+        if (changes.size() > maxChanges) {
+            return new TopologyChangesResponse()
+                    .version(Math.max(since, bound - 1))
+                    .resyncRequired(true)
+                    .changes(List.of());
+        }
+        long version = changes.isEmpty() ? since : changes.get(changes.size() - 1).getTopologyVersion();
+        return new TopologyChangesResponse()
+                .version(version)
+                .resyncRequired(false)
+                .changes(changes);
+    }
+}
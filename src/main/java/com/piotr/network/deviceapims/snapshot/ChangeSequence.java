@@ -0,0 +1,67 @@
+package com.piotr.network.deviceapims.snapshot;
+
+import com.piotr.network.deviceapims.repository.ChangeCounterRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Monotonic change sequence recorded with every registered device, the version space of the topology changes feed.
+ * Values come from the change counter in the database, so they keep increasing across instances and restarts.
+ * A value is taken inside the transaction that writes the change and the counter row stays locked until it completes:
+ * writers take values one after the other, and a value only becomes visible in the counter together with its change.
+ * Readers only return changes below {@link #stableBound()}, which therefore never skips a change that is still
+ * to commit. The price is that registrations are serialized on the counter row from taking a value to commit.
+ */
+@Component
+@Profile("!reactive")
+public class ChangeSequence {
+
+    private final ChangeCounterRepository changeCounterRepository;
+    private final int maxChanges;
+
+    public ChangeSequence(ChangeCounterRepository changeCounterRepository,
+                          @Value("${device.topology-changes.max-changes:1000}") int maxChanges) {
+        this.changeCounterRepository = changeCounterRepository;
+        this.maxChanges = maxChanges;
+    }
+
+    /**
+     * Takes the next value, must be called inside the transaction that writes the change
+     * @return the change sequence value
+     */
+    public long next() {
+        return next(1);
+    }
+
+    /**
+     * Takes a block of consecutive values for a bulk write, inside the transaction that writes the changes
+     * @param count number of values, at least 1
+     * @return the first value of the block
+     */
+    public long next(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Invalid change sequence block size " + count);
+        }
+        return changeCounterRepository.advance(count) - count + 1;
+    }
+
+    /**
+     * Exclusive upper bound of the changes that are safe to return: every value below it is committed
+     * or was rolled back, and every value taken later is at least this bound
+     * @return the last committed value plus one
+     */
+    @Transactional(readOnly = true)
+    public long stableBound() {
+        return changeCounterRepository.findLastValue() + 1;
+    }
+
+    /**
+     * Largest number of changes returned by the changes feed; further behind, a full resync is cheaper
+     * @return the maximum number of changes
+     */
+    public int maxChanges() {
+        return maxChanges;
+    }
+}
@@ -0,0 +1,49 @@
+package com.piotr.network.deviceapims.snapshot;
+
+import com.piotr.network.deviceapims.repository.ReactiveDeviceRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Change sequence of the reactive stack, the counterpart of {@link ChangeSequence} over the same change counter
+ */
+@Component
+@Profile("reactive")
+public class ReactiveChangeSequence {
+
+    private final ReactiveDeviceRepository deviceRepository;
+    private final int maxChanges;
+
+    public ReactiveChangeSequence(ReactiveDeviceRepository deviceRepository,
+                                  @Value("${device.topology-changes.max-changes:1000}") int maxChanges) {
+        this.deviceRepository = deviceRepository;
+        this.maxChanges = maxChanges;
+    }
+
+    /**
+     * Takes the next value, must be subscribed inside the transaction that writes the change
+     * @return the Mono of the change sequence value
+     */
+    public Mono<Long> next() {
+        return deviceRepository.advanceChangeCounter(1)
+                .then(deviceRepository.findChangeCounter());
+    }
+
+    /**
+     * Exclusive upper bound of the changes that are safe to return, as {@link ChangeSequence#stableBound()}
+     * @return the Mono of the last committed value plus one
+     */
+    public Mono<Long> stableBound() {
+        return deviceRepository.findChangeCounter().map(lastValue -> lastValue + 1);
+    }
+
+    /**
+     * Largest number of changes returned by the changes feed
+     * @return the maximum number of changes
+     */
+    public int maxChanges() {
+        return maxChanges;
+    }
+}
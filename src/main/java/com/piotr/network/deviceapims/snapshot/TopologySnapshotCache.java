@@ -0,0 +1,64 @@
+package com.piotr.network.deviceapims.snapshot;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Serialized topology responses of the current topology version, keyed by request.
+ * Storing a body for a newer version drops every body of the older one; the number of bodies per version is bounded.
+ */
+@Component
+public class TopologySnapshotCache {
+
+    static final int MAX_SNAPSHOTS = 1024;
+
+    private final AtomicReference<Generation> generation = new AtomicReference<>(new Generation(-1));
+
+    /**
+     * Looks up a serialized response
+     * @param version the topology version the response must belong to
+     * @param key the request key
+     * @return the snapshot, null when not cached for this version
+     */
+    public Snapshot get(long version, String key) {
+        var current = generation.get();
+        return current.version == version ? current.snapshots.get(key) : null;
+    }
+
+    /**
+     * Stores a serialized response, unless a newer version has been cached meanwhile
+     * @param version the topology version the response was computed for
+     * @param key the request key
+     * @param snapshot the serialized response
+     */
+    public void put(long version, String key, Snapshot snapshot) {
+        var current = generation.get();
+        if (current.version < version) {
+            generation.compareAndSet(current, new Generation(version));
+            current = generation.get();
+        }
+        if (current.version == version && current.snapshots.size() < MAX_SNAPSHOTS) {
+            current.snapshots.putIfAbsent(key, snapshot);
+        }
+    }
+
+    /**
+     * Serialized response body
+     * @param body the response bytes
+     * @param contentType the response content type
+     */
+    public record Snapshot(byte[] body, String contentType) {
+    }
+
+    private static final class Generation {
+        private final long version;
+        private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+        private Generation(long version) {
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.piotr.network.deviceapims.snapshot;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+
+/**
+ * Conditional GET for the topology operations.
+ * Responses carry a strong ETag of the current {@link TopologyVersion}; a matching If-None-Match is answered with 304
+ * and a repeated request for the same version is answered with cached bytes, both without reaching the controller.
+ * Streaming requests, the topology event stream and the topology changes feed are left alone.
+ * Responses vary by Accept header (JSON, CBOR, Smile, Protobuf), so the header is part of both the tag and the cache key.
+ * {@code If-None-Match: *} is only answered with 304 once the topology is known to exist, from the cache or from the
+ * controller answering 200.
+ * The version only moves with the registrations of this process, so the filter is meant for a single instance;
+ * behind a load balancer another instance's registrations would leave the cached bytes and 304 answers stale.
+ */
+@Component
+public class TopologySnapshotFilter extends OncePerRequestFilter {
+
+    private static final String TOPOLOGY_PATH = "/devices/topology";
+    private static final String TOPOLOGY_EVENTS_PATH = TOPOLOGY_PATH + "/events";
+    private static final String TOPOLOGY_CHANGES_PATH = TOPOLOGY_PATH + "/changes";
+
+    private final TopologyVersion topologyVersion;
+    private final TopologySnapshotCache snapshotCache;
+    private final boolean enabled;
+
+    public TopologySnapshotFilter(TopologyVersion topologyVersion, TopologySnapshotCache snapshotCache,
+                                  @Value("${device.topology-snapshot.enabled:false}") boolean enabled) {
+        this.topologyVersion = topologyVersion;
+        this.snapshotCache = snapshotCache;
+        this.enabled = enabled;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || !HttpMethod.GET.matches(request.getMethod()) || request.getParameter("stream") != null) {
+            return true;
+        }
+        var accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE)) {
+            return true;
+        }
+        var path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.equals(TOPOLOGY_PATH) && !path.startsWith(TOPOLOGY_PATH + "/")
+                || path.equals(TOPOLOGY_EVENTS_PATH) || path.equals(TOPOLOGY_CHANGES_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long version = topologyVersion.current();
+        var accept = request.getHeader(HttpHeaders.ACCEPT);
+        var etag = topologyVersion.etag(version, variant(accept));
+        var ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (matches(ifNoneMatch, etag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            setValidators(response, etag);
+            return;
+        }
+        var uri = request.getQueryString() != null
+                ? request.getRequestURI() + "?" + request.getQueryString()
+                : request.getRequestURI();
+        var key = accept != null ? uri + " " + accept : uri;
+        boolean anyTag = matchesAny(ifNoneMatch);
+        var snapshot = snapshotCache.get(version, key);
+        if (snapshot != null && anyTag) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            setValidators(response, etag);
+            return;
+        }
+        if (snapshot != null) {
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType(snapshot.contentType());
+            response.setContentLength(snapshot.body().length);
+            setValidators(response, etag);
+            response.getOutputStream().write(snapshot.body());
+            return;
+        }
+        var responseWrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, responseWrapper);
+        if (responseWrapper.getStatus() == HttpStatus.OK.value()) {
+            snapshotCache.put(version, key, new TopologySnapshotCache.Snapshot(
+                    responseWrapper.getContentAsByteArray(), responseWrapper.getContentType()));
+            setValidators(responseWrapper, etag);
+            if (anyTag) {
+                response.setStatus(HttpStatus.NOT_MODIFIED.value());
+                return;
+            }
+        }
+        responseWrapper.copyBodyToResponse();
+    }
+
+    private static void setValidators(HttpServletResponse response, String etag) {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    }
+
+    /**
+     * Short tag of an Accept header, null when absent
+     */
+    private static String variant(String accept) {
+        return accept != null ? Integer.toString(accept.hashCode() & Integer.MAX_VALUE, Character.MAX_RADIX) : null;
+    }
+
+    /**
+     * If-None-Match uses the weak comparison, so a W/ prefix is ignored; * is left to {@link #matchesAny(String)}
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (var candidate : ifNoneMatch.split(",")) {
+            var tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * If-None-Match: * matches any current representation, but only one that exists
+     */
+    private static boolean matchesAny(String ifNoneMatch) {
+        return ifNoneMatch != null && ifNoneMatch.trim().equals("*");
+    }
+}
@@ -0,0 +1,65 @@
+package com.piotr.network.deviceapims.snapshot;
+
+import com.piotr.network.deviceapims.event.DeviceRegisteredEvent;
+import com.piotr.network.deviceapims.event.DevicesImportedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the network topology, incremented after every committed registration.
+ * Tags combine the version with the start time of this process, so a tag issued before a restart never matches.
+ */
+@Component
+public class TopologyVersion {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Current topology version
+     * @return the version
+     */
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Strong entity tag of a topology version
+     * @param version the topology version
+     * @return the quoted entity tag
+     */
+    public String etag(long version) {
+        return "\"" + epoch + "-" + version + "\"";
+    }
+
+    /**
+     * Strong entity tag of one representation of a topology version
+     * @param version the topology version
+     * @param variant the representation, null for the default one
+     * @return the quoted entity tag
+     */
+    public String etag(long version, String variant) {
+        return variant != null ? "\"" + epoch + "-" + version + "-" + variant + "\"" : etag(version);
+    }
+
+    /**
+     * Moves to the next version once a registration is committed
+     * @param event the registered device
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDeviceRegistered(DeviceRegisteredEvent event) {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Moves to the next version once an import is committed
+     * @param event the imported devices
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDevicesImported(DevicesImportedEvent event) {
+        version.incrementAndGet();
+    }
+}
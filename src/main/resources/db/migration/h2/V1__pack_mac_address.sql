@@ -0,0 +1,12 @@
+-- MAC addresses stored as entered become the 48-bit value in a BIGINT, same as db/migration/postgresql
+CREATE ALIAS parse_hex FOR 'java.lang.Long.parseLong(java.lang.String, int)';
+ALTER TABLE device_entity ADD COLUMN mac_address_packed BIGINT;
+
+UPDATE device_entity
+SET mac_address_packed = parse_hex(REPLACE(REPLACE(mac_address, ':', ''), '-', ''), 16);
+
+DROP ALIAS parse_hex;
+ALTER TABLE device_entity DROP COLUMN mac_address;
+ALTER TABLE device_entity ALTER COLUMN mac_address_packed RENAME TO mac_address;
+ALTER TABLE device_entity ALTER COLUMN mac_address SET NOT NULL;
+ALTER TABLE device_entity ADD CONSTRAINT uk_device_entity_mac_address UNIQUE (mac_address);
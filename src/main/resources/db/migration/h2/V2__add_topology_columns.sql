@@ -0,0 +1,39 @@
+-- Columns of the sorted listings, subtree queries and topology changes feed, same as db/migration/postgresql
+CREATE ALIAS to_hex FOR 'java.lang.Long.toHexString(long)';
+ALTER TABLE device_entity ADD COLUMN type_rank INTEGER;
+ALTER TABLE device_entity ADD COLUMN path VARCHAR(2400);
+ALTER TABLE device_entity ADD COLUMN depth INTEGER;
+ALTER TABLE device_entity ADD COLUMN change_seq BIGINT;
+
+UPDATE device_entity
+SET type_rank = CASE device_type WHEN 'GATEWAY' THEN 1 WHEN 'SWITCH' THEN 2 WHEN 'ACCESS_POINT' THEN 3 ELSE 0 END;
+
+MERGE INTO device_entity d
+USING (
+    WITH RECURSIVE topology (id, depth, path) AS (
+        SELECT r.id, 0, CAST(LPAD(UPPER(to_hex(r.mac_address)), 12, '0') AS VARCHAR)
+        FROM device_entity r
+        WHERE r.uplink_id IS NULL
+        UNION ALL
+        SELECT c.id, t.depth + 1,
+               CAST(CASE WHEN t.depth + 1 < 200 THEN t.path || LPAD(UPPER(to_hex(c.mac_address)), 12, '0')
+                         ELSE t.path END AS VARCHAR)
+        FROM device_entity c
+        JOIN topology t ON c.uplink_id = t.id
+    )
+    SELECT id, depth, path FROM topology
+) t ON d.id = t.id
+WHEN MATCHED THEN UPDATE SET depth = t.depth, path = t.path;
+
+MERGE INTO device_entity d
+USING (SELECT id, ROW_NUMBER() OVER (ORDER BY depth, mac_address) AS seq FROM device_entity) n ON d.id = n.id
+WHEN MATCHED THEN UPDATE SET change_seq = n.seq;
+
+DROP ALIAS to_hex;
+ALTER TABLE device_entity ALTER COLUMN type_rank SET NOT NULL;
+ALTER TABLE device_entity ALTER COLUMN path SET NOT NULL;
+ALTER TABLE device_entity ALTER COLUMN depth SET NOT NULL;
+
+CREATE INDEX idx_device_entity_type_rank_mac_address ON device_entity (type_rank, mac_address);
+CREATE INDEX idx_device_entity_path ON device_entity (path);
+CREATE INDEX idx_device_entity_change_seq ON device_entity (change_seq);
@@ -0,0 +1,2 @@
+-- children of a device, same as db/migration/postgresql
+CREATE INDEX IF NOT EXISTS idx_device_entity_uplink_id ON device_entity (uplink_id);
@@ -0,0 +1,9 @@
+-- Last value of the change sequence taken by a committed transaction, same as db/migration/postgresql
+CREATE TABLE change_counter (
+    id INTEGER NOT NULL,
+    last_value BIGINT NOT NULL,
+    CONSTRAINT pk_change_counter PRIMARY KEY (id)
+);
+
+INSERT INTO change_counter (id, last_value)
+SELECT 1, COALESCE(MAX(change_seq), 0) FROM device_entity;
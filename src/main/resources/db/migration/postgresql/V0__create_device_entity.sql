@@ -0,0 +1,11 @@
+-- Device table as created by Hibernate with ddl-auto for DeviceEntity before the schema was migrated:
+-- MAC addresses stored as entered. Databases created that way are baselined at this version.
+CREATE TABLE device_entity (
+    id UUID NOT NULL,
+    device_type VARCHAR(255) CHECK (device_type IN ('GATEWAY', 'SWITCH', 'ACCESS_POINT')),
+    mac_address VARCHAR(255),
+    uplink_id UUID,
+    CONSTRAINT pk_device_entity PRIMARY KEY (id),
+    CONSTRAINT uk_device_entity_mac_address UNIQUE (mac_address),
+    CONSTRAINT fk_device_entity_uplink_id FOREIGN KEY (uplink_id) REFERENCES device_entity (id)
+);
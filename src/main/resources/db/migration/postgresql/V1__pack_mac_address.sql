@@ -0,0 +1,13 @@
+-- MAC addresses were stored as entered, e.g. 00:1a:2b:3c:4d:5e or 00-1A-2B-3C-4D-5E; they become the 48-bit value
+-- in a BIGINT, 0x001A2B3C4D5E. Addresses that only differed in case or separator now collide and fail the unique
+-- constraint; such duplicates have to be removed before migrating.
+ALTER TABLE device_entity ADD COLUMN mac_address_packed BIGINT;
+
+UPDATE device_entity
+SET mac_address_packed = ('x' || lpad(translate(mac_address, ':-', ''), 16, '0'))::bit(64)::bigint;
+
+-- drops the unique constraint of the text column, whatever name Hibernate gave it
+ALTER TABLE device_entity DROP COLUMN mac_address;
+ALTER TABLE device_entity RENAME COLUMN mac_address_packed TO mac_address;
+ALTER TABLE device_entity ALTER COLUMN mac_address SET NOT NULL;
+ALTER TABLE device_entity ADD CONSTRAINT uk_device_entity_mac_address UNIQUE (mac_address);
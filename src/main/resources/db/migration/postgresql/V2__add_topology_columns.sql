@@ -0,0 +1,46 @@
+-- Columns of the sorted listings, subtree queries and topology changes feed, filled in for existing devices
+ALTER TABLE device_entity
+    ADD COLUMN type_rank INTEGER,
+    ADD COLUMN path VARCHAR(2400),
+    ADD COLUMN depth INTEGER,
+    ADD COLUMN change_seq BIGINT;
+
+-- DeviceEntity.typeRankOf
+UPDATE device_entity
+SET type_rank = CASE device_type WHEN 'GATEWAY' THEN 1 WHEN 'SWITCH' THEN 2 WHEN 'ACCESS_POINT' THEN 3 ELSE 0 END;
+
+-- depth below the root and path of 12 hexadecimal digits per level from the root,
+-- truncated below DeviceEntity.MAX_PATH_LEVELS (200) levels
+WITH RECURSIVE topology (id, depth, path) AS (
+    SELECT r.id, 0, CAST(lpad(upper(to_hex(r.mac_address)), 12, '0') AS VARCHAR)
+    FROM device_entity r
+    WHERE r.uplink_id IS NULL
+    UNION ALL
+    SELECT c.id, t.depth + 1,
+           CAST(CASE WHEN t.depth + 1 < 200 THEN t.path || lpad(upper(to_hex(c.mac_address)), 12, '0')
+                     ELSE t.path END AS VARCHAR)
+    FROM device_entity c
+    JOIN topology t ON c.uplink_id = t.id
+)
+UPDATE device_entity d
+SET depth = t.depth, path = t.path
+FROM topology t
+WHERE d.id = t.id;
+
+-- existing devices are the first changes of the topology changes feed, uplinks first
+UPDATE device_entity d
+SET change_seq = n.seq
+FROM (SELECT id, ROW_NUMBER() OVER (ORDER BY depth, mac_address) AS seq FROM device_entity) n
+WHERE d.id = n.id;
+
+ALTER TABLE device_entity
+    ALTER COLUMN type_rank SET NOT NULL,
+    ALTER COLUMN path SET NOT NULL,
+    ALTER COLUMN depth SET NOT NULL;
+
+-- listings sorted by device type, then MAC address, and their keyset pages
+CREATE INDEX idx_device_entity_type_rank_mac_address ON device_entity (type_rank, mac_address);
+-- subtree range scans by materialized path
+CREATE INDEX idx_device_entity_path ON device_entity (path);
+-- topology changes feed
+CREATE INDEX idx_device_entity_change_seq ON device_entity (change_seq);
@@ -0,0 +1,3 @@
+-- children of a device: recursive topology queries, uplink resolution and the foreign key check on delete.
+-- Built without blocking registrations on existing tables; Flyway runs this migration outside a transaction.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_device_entity_uplink_id ON device_entity (uplink_id);
@@ -0,0 +1,10 @@
+-- Last value of the change sequence taken by a committed transaction, see ChangeSequence.
+-- Continues after the values already recorded on the device table.
+CREATE TABLE change_counter (
+    id INTEGER NOT NULL,
+    last_value BIGINT NOT NULL,
+    CONSTRAINT pk_change_counter PRIMARY KEY (id)
+);
+
+INSERT INTO change_counter (id, last_value)
+SELECT 1, COALESCE(MAX(change_seq), 0) FROM device_entity;
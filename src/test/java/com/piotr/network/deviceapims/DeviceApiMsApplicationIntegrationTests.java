@@ -1,24 +1,50 @@
 package com.piotr.network.deviceapims;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
 import com.piotr.network.deviceapims.entity.DeviceEntity;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.event.TopologyEventBroadcaster;
 import com.piotr.network.deviceapims.generated.model.*;
+import com.piotr.network.deviceapims.mapper.DeviceProtobufHttpMessageConverter;
 import com.piotr.network.deviceapims.repository.DeviceRepository;
+import com.piotr.network.deviceapims.repository.DeviceTopologyRow;
+import com.piotr.network.deviceapims.service.DeviceImportRejection;
+import com.piotr.network.deviceapims.service.DeviceImportResult;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.hibernate.SessionFactory;
 import org.instancio.Instancio;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Iterator;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.instancio.Select.field;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 
 /**
  * Integration test for API controller
@@ -31,6 +57,12 @@ class DeviceApiMsApplicationIntegrationTests {
     private TestRestTemplate restTemplate;
     @Autowired
     private DeviceRepository deviceRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private Flyway flyway;
+    @Autowired
+    private TopologyEventBroadcaster topologyEventBroadcaster;
 
     @BeforeEach
     void setup() {
@@ -38,6 +70,64 @@ class DeviceApiMsApplicationIntegrationTests {
         deviceRepository.deleteAll();
     }
 
+    @Test
+    void testSchema_isCreatedByMigrations() {
+        //assertion
+        var current = flyway.info().current();
+        assertNotNull(current);
+        assertThat(current.getVersion().getVersion()).isEqualTo("4");
+        assertThat(flyway.info().pending()).isEmpty();
+    }
+
+    @Test
+    void testMigrations_convertDevicesOfOriginalSchema() throws Exception {
+        var gateway = UUID.randomUUID();
+        var accessPoint = UUID.randomUUID();
+        var legacy = Flyway.configure()
+                .dataSource("jdbc:h2:mem:legacy;DB_CLOSE_DELAY=-1", "sa", "")
+                .locations("classpath:db/migration/h2");
+        legacy.target("0").load().migrate();
+        try (var connection = legacy.getDataSource().getConnection();
+             var insert = connection.prepareStatement("INSERT INTO device_entity VALUES (?, ?, ?, ?)")) {
+            insert.setObject(1, gateway);
+            insert.setString(2, "GATEWAY");
+            insert.setString(3, "00:1a:2b:3c:4d:5e");
+            insert.setObject(4, null);
+            insert.executeUpdate();
+            insert.setObject(1, accessPoint);
+            insert.setString(2, "ACCESS_POINT");
+            insert.setString(3, "00-1A-2B-3C-4D-5F");
+            insert.setObject(4, gateway);
+            insert.executeUpdate();
+
+            //call method
+            legacy.target("latest").load().migrate();
+
+            //assertion
+            try (var rows = connection.createStatement().executeQuery(
+                    "SELECT mac_address, type_rank, path, depth, change_seq FROM device_entity ORDER BY depth")) {
+                assertThat(rows.next()).isTrue();
+                assertEquals(0x001A2B3C4D5EL, rows.getLong(1));
+                assertEquals(1, rows.getInt(2));
+                assertEquals("001A2B3C4D5E", rows.getString(3));
+                assertEquals(0, rows.getInt(4));
+                assertEquals(1L, rows.getLong(5));
+                assertThat(rows.next()).isTrue();
+                assertEquals(0x001A2B3C4D5FL, rows.getLong(1));
+                assertEquals(3, rows.getInt(2));
+                assertEquals("001A2B3C4D5E001A2B3C4D5F", rows.getString(3));
+                assertEquals(1, rows.getInt(4));
+                assertEquals(2L, rows.getLong(5));
+                assertThat(rows.next()).isFalse();
+            }
+            try (var counter = connection.createStatement().executeQuery("SELECT last_value FROM change_counter")) {
+                assertThat(counter.next()).isTrue();
+                assertEquals(2L, counter.getLong(1));
+            }
+            connection.createStatement().execute("DROP ALL OBJECTS");
+        }
+    }
+
     @Test
     void testRegisterDevice_returns201() {
         var request = Instancio.of(RegisterDeviceRequest.class)
@@ -81,11 +171,168 @@ class DeviceApiMsApplicationIntegrationTests {
         assertThat(body.getMessage()).contains("uplinkMacAddress: must match");
     }
 
+    @Test
+    void testRegisterDevice_sameMacInOtherNotation_returns400() {
+        final String macAddress = "20:1A:2B:3C:4D:5E";
+        var entity = Instancio.of(DeviceEntity.class)
+                .set(field(DeviceEntity::getMacAddress), MacAddress.parse(macAddress))
+                .set(field(DeviceEntity::getDeviceType), DeviceType.GATEWAY)
+                .setBlank(field(DeviceEntity::getUplinkDevice))
+                .setBlank(field(DeviceEntity::getId))
+                .create();
+        deviceRepository.save(entity);
+        var request = new RegisterDeviceRequest(DeviceType.GATEWAY, "20-1a-2b-3c-4d-5e");
+        var headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        //call the API endpoint
+        ResponseEntity<ErrorResponse> response = restTemplate.exchange("/devices",
+                HttpMethod.POST, new HttpEntity<>(request, headers), ErrorResponse.class);
+        //assertion
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertNotNull(response.getBody());
+        assertThat(response.getBody().getMessage()).isEqualTo("Device with MAC 20:1A:2B:3C:4D:5E already registered");
+        assertThat(deviceRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void testRegisterDevices_returns200() {
+        var requests = List.of(
+                new RegisterDeviceRequest(DeviceType.ACCESS_POINT, "20:1A:2B:3C:4D:5E").uplinkMacAddress("10:1A:2B:3C:4D:5E"),
+                new RegisterDeviceRequest(DeviceType.SWITCH, "10:1A:2B:3C:4D:5E").uplinkMacAddress("00:1A:2B:3C:4D:5E"),
+                new RegisterDeviceRequest(DeviceType.GATEWAY, "00:1A:2B:3C:4D:5E"),
+                new RegisterDeviceRequest(DeviceType.GATEWAY, "00-1a-2b-3c-4d-5e"));
+        var headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        //call the API endpoint
+        ResponseEntity<BatchRegisterDeviceResponse> response = restTemplate.exchange("/devices/batch",
+                HttpMethod.POST, new HttpEntity<>(requests, headers), BatchRegisterDeviceResponse.class);
+        //assertion
+        var body = response.getBody();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertNotNull(body);
+        assertThat(body.getRegistered()).isEqualTo(3);
+        assertThat(body.getRejected()).isEqualTo(1);
+        assertThat(body.getResults()).extracting(BatchRegisterDeviceResult::getStatus).containsExactly(
+                BatchRegisterDeviceStatus.REGISTERED, BatchRegisterDeviceStatus.REGISTERED,
+                BatchRegisterDeviceStatus.REGISTERED, BatchRegisterDeviceStatus.DUPLICATE);
+        var topology = deviceRepository.findTopologySubtree(MacAddress.parse("00:1A:2B:3C:4D:5E").toLong(), Integer.MAX_VALUE);
+        assertThat(topology).extracting(DeviceTopologyRow::getDepth).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    void testStreamTopologyAndDevices_returns200() {
+        var gateway = new DeviceEntity();
+        gateway.setMacAddress(MacAddress.parse("00:1A:2B:3C:4D:5E"));
+        gateway.setDeviceType(DeviceType.GATEWAY);
+        deviceRepository.save(gateway);
+        var accessPoint = new DeviceEntity();
+        accessPoint.setMacAddress(MacAddress.parse("20:1A:2B:3C:4D:5E"));
+        accessPoint.setDeviceType(DeviceType.ACCESS_POINT);
+        accessPoint.setUplinkDevice(gateway);
+        deviceRepository.save(accessPoint);
+        var headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_NDJSON));
+        //call the API endpoint
+        ResponseEntity<String> topology = restTemplate.getForEntity("/devices/topology?stream=true", String.class);
+        ResponseEntity<String> devices = restTemplate.exchange("/devices",
+                HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        //assertion
+        assertThat(topology.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(topology.getBody()).isEqualTo("[{\"macAddress\":\"00:1A:2B:3C:4D:5E\",\"children\":["
+                + "{\"macAddress\":\"20:1A:2B:3C:4D:5E\",\"children\":[]}]}]");
+        assertThat(devices.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(devices.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON);
+        assertThat(devices.getBody()).isEqualTo("{\"deviceType\":\"gateway\",\"macAddress\":\"00:1A:2B:3C:4D:5E\"}\n"
+                + "{\"deviceType\":\"accessPoint\",\"macAddress\":\"20:1A:2B:3C:4D:5E\"}\n");
+    }
+
+    @Test
+    void testGetAllDevicesPaged_returns200() {
+        for (var device : List.of(
+                new Object[]{"00:1A:2B:3C:4D:5E", DeviceType.ACCESS_POINT},
+                new Object[]{"10:1A:2B:3C:4D:5E", DeviceType.GATEWAY},
+                new Object[]{"20:1A:2B:3C:4D:5E", DeviceType.SWITCH})) {
+            var entity = new DeviceEntity();
+            entity.setMacAddress(MacAddress.parse((String) device[0]));
+            entity.setDeviceType((DeviceType) device[1]);
+            deviceRepository.save(entity);
+        }
+        //call the API endpoint
+        ResponseEntity<List<DeviceResponse>> firstPage = restTemplate.exchange("/devices?limit=2",
+                HttpMethod.GET, null, new ParameterizedTypeReference<>() {});
+        var nextCursor = firstPage.getHeaders().getFirst("X-Next-Cursor");
+        ResponseEntity<List<DeviceResponse>> lastPage = restTemplate.exchange("/devices?limit=2&cursor=" + nextCursor,
+                HttpMethod.GET, null, new ParameterizedTypeReference<>() {});
+        //assertion
+        assertThat(firstPage.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(firstPage.getBody()).extracting(DeviceResponse::getDeviceType)
+                .containsExactly(DeviceType.GATEWAY, DeviceType.SWITCH);
+        assertNotNull(nextCursor);
+        assertThat(lastPage.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(lastPage.getBody()).extracting(DeviceResponse::getMacAddress)
+                .containsExactly("00:1A:2B:3C:4D:5E");
+        assertThat(lastPage.getHeaders().containsKey("X-Next-Cursor")).isFalse();
+    }
+
+    @Test
+    void testGetTopologyByMac_ofInnerDevice_returnsItsSubtreeOnly() {
+        var gateway = save("00:1A:2B:3C:4D:5E", DeviceType.GATEWAY, null);
+        var firstSwitch = save("10:1A:2B:3C:4D:5E", DeviceType.SWITCH, gateway);
+        var secondSwitch = save("11:1A:2B:3C:4D:5E", DeviceType.SWITCH, gateway);
+        save("20:1A:2B:3C:4D:5E", DeviceType.ACCESS_POINT, firstSwitch);
+        save("21:1A:2B:3C:4D:5E", DeviceType.ACCESS_POINT, secondSwitch);
+        //call the API endpoint
+        ResponseEntity<TopologyNodeResponse> response = restTemplate.getForEntity("/devices/topology/10:1A:2B:3C:4D:5E",
+                TopologyNodeResponse.class);
+        //assertion
+        var body = response.getBody();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertNotNull(body);
+        assertThat(body.getMacAddress()).isEqualTo("10:1A:2B:3C:4D:5E");
+        assertThat(body.getChildren()).extracting(TopologyNodeResponse::getMacAddress)
+                .containsExactly("20:1A:2B:3C:4D:5E");
+    }
+
+    @Test
+    void testGetPaths_returnUplinksAndPathThroughCommonUplink() {
+        var gateway = save("00:1A:2B:3C:4D:5E", DeviceType.GATEWAY, null);
+        var firstSwitch = save("10:1A:2B:3C:4D:5E", DeviceType.SWITCH, gateway);
+        var secondSwitch = save("11:1A:2B:3C:4D:5E", DeviceType.SWITCH, gateway);
+        save("20:1A:2B:3C:4D:5E", DeviceType.ACCESS_POINT, firstSwitch);
+        save("21:1A:2B:3C:4D:5E", DeviceType.ACCESS_POINT, secondSwitch);
+        save("F0:1A:2B:3C:4D:5E", DeviceType.GATEWAY, null);
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        //call the API endpoint
+        ResponseEntity<DevicePathResponse> uplinks = restTemplate.getForEntity("/devices/mac/20:1A:2B:3C:4D:5E/path",
+                DevicePathResponse.class);
+        long statements = statistics.getPrepareStatementCount();
+        ResponseEntity<DevicePathResponse> path = restTemplate.getForEntity(
+                "/devices/path?from=20:1A:2B:3C:4D:5E&to=21-1a-2b-3c-4d-5e", DevicePathResponse.class);
+        long pathStatements = statistics.getPrepareStatementCount() - statements;
+        ResponseEntity<ErrorResponse> notConnected = restTemplate.getForEntity(
+                "/devices/path?from=20:1A:2B:3C:4D:5E&to=F0:1A:2B:3C:4D:5E", ErrorResponse.class);
+        //assertion
+        assertThat(uplinks.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertNotNull(uplinks.getBody());
+        assertThat(uplinks.getBody().getDevices()).extracting(DeviceResponse::getMacAddress)
+                .containsExactly("20:1A:2B:3C:4D:5E", "10:1A:2B:3C:4D:5E", "00:1A:2B:3C:4D:5E");
+        assertThat(uplinks.getBody().getHops()).isEqualTo(2);
+        assertThat(path.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertNotNull(path.getBody());
+        assertThat(path.getBody().getDevices()).extracting(DeviceResponse::getMacAddress)
+                .containsExactly("20:1A:2B:3C:4D:5E", "10:1A:2B:3C:4D:5E", "00:1A:2B:3C:4D:5E",
+                        "11:1A:2B:3C:4D:5E", "21:1A:2B:3C:4D:5E");
+        assertThat(path.getBody().getCommonUplinkMacAddress()).isEqualTo("00:1A:2B:3C:4D:5E");
+        //one uplink chain query per device, whatever the depth
+        assertThat(pathStatements).isEqualTo(2);
+        assertThat(notConnected.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
     @Test
     void testGetDeviceByMac_returns200() {
         final String macAddress = "10:1A:2B:3C:4D:5E";
         var entity = Instancio.of(DeviceEntity.class)
-                .set(field(DeviceEntity::getMacAddress), macAddress)
+                .set(field(DeviceEntity::getMacAddress), MacAddress.parse(macAddress))
                 .set(field(DeviceEntity::getDeviceType), DeviceType.GATEWAY)
                 .setBlank(field(DeviceEntity::getUplinkDevice))
                 .setBlank(field(DeviceEntity::getId))
@@ -102,6 +349,27 @@ class DeviceApiMsApplicationIntegrationTests {
         assertThat(body.getMacAddress()).isEqualTo(macAddress);
     }
 
+    @Test
+    void testGetDeviceByMac_readsRowWithoutLoadingEntity() {
+        final String macAddress = "30:1A:2B:3C:4D:5E";
+        save(macAddress, DeviceType.SWITCH, null);
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long statements = statistics.getPrepareStatementCount();
+        long entityLoads = statistics.getEntityLoadCount();
+        long naturalIdLoads = statistics.getNaturalIdCacheHitCount() + statistics.getNaturalIdQueryExecutionCount();
+        //call the API endpoint
+        ResponseEntity<DeviceResponse> response = restTemplate.getForEntity("/devices/mac/" + macAddress,
+                DeviceResponse.class);
+        //assertion
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertNotNull(response.getBody());
+        assertThat(response.getBody().getDeviceType()).isEqualTo(DeviceType.SWITCH);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements + 1);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(entityLoads);
+        assertThat(statistics.getNaturalIdCacheHitCount() + statistics.getNaturalIdQueryExecutionCount())
+                .isEqualTo(naturalIdLoads);
+    }
+
     @Test
     void testGetDeviceByMac_returns400() {
         //call the API endpoint
@@ -115,11 +383,39 @@ class DeviceApiMsApplicationIntegrationTests {
         assertThat(body.getMessage()).contains("macAddress: must match");
     }
 
+    @Test
+    void testGetDeviceByMac_mixedSeparators_returns400() {
+        //call the API endpoint
+        ResponseEntity<ErrorResponse> response = restTemplate.exchange("/devices/mac/00:1A-2B:3C:4D:5E",
+                HttpMethod.GET, HttpEntity.EMPTY, ErrorResponse.class);
+        //assertion
+        var body =  response.getBody();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertNotNull(body);
+        assertThat(body.getMessage()).contains("macAddress: must match");
+    }
+
+    @Test
+    void testRegisterDevice_mixedSeparators_returns400() {
+        var request = new RegisterDeviceRequest(DeviceType.GATEWAY, "00:1A-2B:3C:4D:5E");
+        var headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        //call the API endpoint
+        ResponseEntity<ErrorResponse> response = restTemplate.exchange("/devices",
+                HttpMethod.POST, new HttpEntity<>(request, headers), ErrorResponse.class);
+        //assertion
+        var body =  response.getBody();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertNotNull(body);
+        assertThat(body.getMessage()).contains("macAddress: must match");
+        assertThat(deviceRepository.count()).isZero();
+    }
+
     @Test
     void testGetAllDevices_returns200() {
         final String macAddress = "70:1A:2B:3C:4D:5E";
         var entity = Instancio.of(DeviceEntity.class)
-                .set(field(DeviceEntity::getMacAddress), macAddress)
+                .set(field(DeviceEntity::getMacAddress), MacAddress.parse(macAddress))
                 .set(field(DeviceEntity::getDeviceType), DeviceType.GATEWAY)
                 .setBlank(field(DeviceEntity::getUplinkDevice))
                 .setBlank(field(DeviceEntity::getId))
@@ -157,7 +453,7 @@ class DeviceApiMsApplicationIntegrationTests {
     void testDevicesTopologyMacAddressGet_returns200() {
         final String macAddress = "90:1A:2B:3C:4D:5E";
         var entity = Instancio.of(DeviceEntity.class)
-                .set(field(DeviceEntity::getMacAddress), macAddress)
+                .set(field(DeviceEntity::getMacAddress), MacAddress.parse(macAddress))
                 .set(field(DeviceEntity::getDeviceType), DeviceType.GATEWAY)
                 .setBlank(field(DeviceEntity::getUplinkDevice))
                 .setBlank(field(DeviceEntity::getId))
@@ -194,14 +490,14 @@ class DeviceApiMsApplicationIntegrationTests {
         final String childMacAddress = "80:1A:2B:3C:4D:5F";
         //create parent and child devices
         var parentEntity = Instancio.of(DeviceEntity.class)
-                .set(field(DeviceEntity::getMacAddress), parentMacAddress)
+                .set(field(DeviceEntity::getMacAddress), MacAddress.parse(parentMacAddress))
                 .set(field(DeviceEntity::getDeviceType), DeviceType.GATEWAY)
                 .setBlank(field(DeviceEntity::getUplinkDevice))
                 .setBlank(field(DeviceEntity::getId))
                 .create();
         var savedParent = deviceRepository.save(parentEntity);
         var childEntity = Instancio.of(DeviceEntity.class)
-                .set(field(DeviceEntity::getMacAddress), childMacAddress)
+                .set(field(DeviceEntity::getMacAddress), MacAddress.parse(childMacAddress))
                 .set(field(DeviceEntity::getDeviceType), DeviceType.SWITCH)
                 .set(field(DeviceEntity::getUplinkDevice), savedParent)
                 .setBlank(field(DeviceEntity::getId))
@@ -234,4 +530,187 @@ class DeviceApiMsApplicationIntegrationTests {
         assertThat(body.getCode()).isEqualTo(HttpStatus.NOT_FOUND.toString());
         assertThat(body.getMessage()).contains("No device(s) found");
     }
+
+    @Test
+    void testDevicesTopologyGetAll_acceptCbor_returnsCbor() throws Exception {
+        var gateway = save("00:1A:2B:3C:4D:5E", DeviceType.GATEWAY, null);
+        save("10:1A:2B:3C:4D:5E", DeviceType.SWITCH, gateway);
+        var headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.parseMediaType("application/cbor")));
+        //call the API endpoint
+        ResponseEntity<byte[]> response = restTemplate.exchange("/devices/topology", HttpMethod.GET,
+                new HttpEntity<>(headers), byte[].class);
+        //assertion
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).hasToString("application/cbor");
+        List<TopologyNodeResponse> body = new CBORMapper().readValue(response.getBody(), new TypeReference<>() {});
+        assertThat(body).extracting(TopologyNodeResponse::getMacAddress).containsExactly("00:1A:2B:3C:4D:5E");
+        assertThat(body.get(0).getChildren()).extracting(TopologyNodeResponse::getMacAddress)
+                .containsExactly("10:1A:2B:3C:4D:5E");
+    }
+
+    @Test
+    void testGetDeviceByMac_acceptProtobuf_returnsDeviceMessage() throws Exception {
+        save("10:1A:2B:3C:4D:5E", DeviceType.SWITCH, null);
+        var headers = new HttpHeaders();
+        headers.setAccept(List.of(DeviceProtobufHttpMessageConverter.APPLICATION_PROTOBUF));
+        //call the API endpoint
+        ResponseEntity<byte[]> response = restTemplate.exchange("/devices/mac/10:1A:2B:3C:4D:5E", HttpMethod.GET,
+                new HttpEntity<>(headers), byte[].class);
+        //assertion
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(DeviceProtobufHttpMessageConverter.APPLICATION_PROTOBUF);
+        var input = CodedInputStream.newInstance(response.getBody());
+        assertEquals(1, WireFormat.getTagFieldNumber(input.readTag()));
+        assertEquals(2, input.readEnum());
+        assertEquals(2, WireFormat.getTagFieldNumber(input.readTag()));
+        assertEquals(0x101A2B3C4D5EL, input.readUInt64());
+        assertThat(input.isAtEnd()).isTrue();
+    }
+
+    private DeviceEntity save(String macAddress, DeviceType deviceType, DeviceEntity uplinkDevice) {
+        var entity = new DeviceEntity();
+        entity.setMacAddress(MacAddress.parse(macAddress));
+        entity.setDeviceType(deviceType);
+        entity.setUplinkDevice(uplinkDevice);
+        return deviceRepository.save(entity);
+    }
+
+    @Test
+    void testTopologyChanges_returnsChangesSinceVersion() {
+        var start = restTemplate.getForEntity("/devices/topology/changes?since=0", TopologyChangesResponse.class);
+        assertThat(start.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertNotNull(start.getBody());
+        long since = start.getBody().getVersion();
+        restTemplate.postForEntity("/devices", new RegisterDeviceRequest(DeviceType.GATEWAY, "00:1A:2B:3C:4D:5E"),
+                RegisterDeviceResponse.class);
+        restTemplate.postForEntity("/devices", new RegisterDeviceRequest(DeviceType.SWITCH, "10:1A:2B:3C:4D:5E")
+                .uplinkMacAddress("00:1A:2B:3C:4D:5E"), RegisterDeviceResponse.class);
+        //call the API endpoint
+        var response = restTemplate.getForEntity("/devices/topology/changes?since=" + since, TopologyChangesResponse.class);
+        //assertion
+        var body = response.getBody();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertNotNull(body);
+        assertThat(body.getResyncRequired()).isFalse();
+        assertThat(body.getChanges()).extracting(TopologyChange::getMacAddress)
+                .containsExactly("00:1A:2B:3C:4D:5E", "10:1A:2B:3C:4D:5E");
+        assertThat(body.getChanges().get(1).getUplinkMacAddress()).isEqualTo("00:1A:2B:3C:4D:5E");
+        assertThat(body.getVersion()).isEqualTo(body.getChanges().get(1).getTopologyVersion()).isGreaterThan(since);
+        var next = restTemplate.getForEntity("/devices/topology/changes?since=" + body.getVersion(), TopologyChangesResponse.class);
+        assertNotNull(next.getBody());
+        assertThat(next.getBody().getChanges()).isEmpty();
+        assertThat(next.getBody().getVersion()).isEqualTo(body.getVersion());
+    }
+
+    @Test
+    void testTopologyChanges_negativeVersion_returns400() {
+        //call the API endpoint
+        var response = restTemplate.getForEntity("/devices/topology/changes?since=-1", ErrorResponse.class);
+        //assertion
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void testImportDevices_csv_resolvesUplinksListedLater() {
+        restTemplate.postForEntity("/devices", new RegisterDeviceRequest(DeviceType.GATEWAY, "00:1A:2B:3C:4D:5E"),
+                RegisterDeviceResponse.class);
+        var csv = """
+                deviceType,macAddress,uplinkMacAddress
+                accessPoint,20:1A:2B:3C:4D:5E,10:1A:2B:3C:4D:5E
+                switch,10:1A:2B:3C:4D:5E,00:1A:2B:3C:4D:5E
+                switch,00:1A:2B:3C:4D:5E,
+                accessPoint,30:1A:2B:3C:4D:5E,F0:1A:2B:3C:4D:5E
+                router,40:1A:2B:3C:4D:5E,
+                """;
+        var headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+        //call the API endpoint
+        var response = restTemplate.postForEntity("/devices/import", new HttpEntity<>(csv, headers), DeviceImportResult.class);
+        //assertion
+        var body = response.getBody();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertNotNull(body);
+        assertThat(body.imported()).isEqualTo(2);
+        assertThat(body.rejected()).isEqualTo(3);
+        assertThat(body.rejections()).extracting(DeviceImportRejection::line).containsExactly(4L, 5L, 6L);
+        assertThat(body.rejections()).extracting(DeviceImportRejection::reason).containsExactly(
+                DeviceImportRejection.Reason.DUPLICATE, DeviceImportRejection.Reason.PARENT_NOT_FOUND,
+                DeviceImportRejection.Reason.INVALID);
+        ResponseEntity<TopologyNodeResponse> topology = restTemplate.getForEntity(
+                "/devices/topology/00:1A:2B:3C:4D:5E", TopologyNodeResponse.class);
+        assertNotNull(topology.getBody());
+        var switchNode = topology.getBody().getChildren().get(0);
+        assertThat(switchNode.getMacAddress()).isEqualTo("10:1A:2B:3C:4D:5E");
+        assertThat(switchNode.getChildren()).extracting(TopologyNodeResponse::getMacAddress)
+                .containsExactly("20:1A:2B:3C:4D:5E");
+        var device = restTemplate.getForEntity("/devices/mac/20:1A:2B:3C:4D:5E", DeviceResponse.class);
+        assertThat(device.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void testTopologyEvents_pushesCommittedRegistration() {
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            try (var lines = subscribeTopologyEvents()) {
+                var events = lines.iterator();
+                //the subscribed event arrives with the response headers, before any change
+                assertThat(nextLineAfter(events, "event:subscribed")).startsWith("data:");
+                //call the API endpoint
+                restTemplate.postForEntity("/devices", new RegisterDeviceRequest(DeviceType.GATEWAY, "00:1A:2B:3C:4D:5E"),
+                        RegisterDeviceResponse.class);
+                //assertion
+                assertThat(nextLineAfter(events, "event:deviceRegistered"))
+                        .contains("\"macAddress\":\"00:1A:2B:3C:4D:5E\"")
+                        .contains("\"deviceType\":\"gateway\"")
+                        .contains("\"topologyVersion\":");
+            }
+        });
+    }
+
+    @Test
+    void testTopologyEvents_sendsHeartbeatWhileIdle() {
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            try (var lines = subscribeTopologyEvents()) {
+                //assertion
+                assertThat(lines.anyMatch(line -> line.equals(":heartbeat"))).isTrue();
+            }
+        });
+    }
+
+    @Test
+    @ExtendWith(OutputCaptureExtension.class)
+    void testTopologyEvents_subscriberClosedMidStream_isDroppedQuietly(CapturedOutput output) {
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            try (var lines = subscribeTopologyEvents()) {
+                assertThat(nextLineAfter(lines.iterator(), "event:subscribed")).startsWith("data:");
+            }
+            //the next heartbeat fails on the closed connection and drops the subscriber
+            while (topologyEventBroadcaster.subscriberCount() > 0) {
+                Thread.sleep(100);
+            }
+            //the error dispatch of the closed stream runs after the subscriber is dropped
+            Thread.sleep(1000);
+        });
+        //assertion
+        assertThat(output).doesNotContain("AsyncRequestNotUsableException").doesNotContain("Unhandled exception");
+    }
+
+    private Stream<String> subscribeTopologyEvents() throws Exception {
+        var request = HttpRequest.newBuilder(URI.create(restTemplate.getRootUri() + "/devices/topology/events"))
+                .header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE)
+                .build();
+        var response = HttpClient.newHttpClient().sendAsync(request, HttpResponse.BodyHandlers.ofLines())
+                .get(5, TimeUnit.SECONDS);
+        assertThat(response.statusCode()).isEqualTo(200);
+        return response.body();
+    }
+
+    private static String nextLineAfter(Iterator<String> lines, String line) {
+        while (lines.hasNext()) {
+            if (lines.next().equals(line)) {
+                return lines.next();
+            }
+        }
+        throw new AssertionError("Stream ended before " + line);
+    }
 }
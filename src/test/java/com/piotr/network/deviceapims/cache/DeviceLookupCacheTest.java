@@ -0,0 +1,96 @@
+package com.piotr.network.deviceapims.cache;
+
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.event.DeviceRegisteredEvent;
+import com.piotr.network.deviceapims.event.DevicesImportedEvent;
+import com.piotr.network.deviceapims.generated.model.DeviceResponse;
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeviceLookupCacheTest {
+
+    private final MacAddress macAddress = MacAddress.parse("00:1A:2B:3C:4D:5E");
+    private final DeviceResponse device = new DeviceResponse().deviceType(DeviceType.SWITCH).macAddress(macAddress.toString());
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void whenLookedUpTwice_thenLoadedOnce() {
+        var cache = cache(true, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        //call method
+        cache.get(macAddress, loader(Optional.of(device)));
+        var result = cache.get(macAddress, loader(Optional.of(device)));
+        //assertion
+        assertEquals(device, result.orElseThrow());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void whenDevicesImported_thenEveryEntryIsDropped() {
+        var cache = cache(true, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        cache.get(macAddress, loader(Optional.empty()));
+        //call method
+        cache.onDevicesImported(new DevicesImportedEvent(Map.of(DeviceType.SWITCH, 1), 1, 1));
+        //assertion
+        assertEquals(device, cache.get(macAddress, loader(Optional.of(device))).orElseThrow());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void whenUnknownDeviceRegistered_thenNotFoundEntryIsDropped() {
+        var cache = cache(true, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        var notFound = cache.get(macAddress, loader(Optional.empty()));
+        var stillNotFound = cache.get(macAddress, loader(Optional.of(device)));
+        //call method
+        cache.onDeviceRegistered(new DeviceRegisteredEvent(UUID.randomUUID(), DeviceType.SWITCH, macAddress, null, 1));
+        //assertion
+        assertTrue(notFound.isEmpty());
+        assertTrue(stillNotFound.isEmpty());
+        assertEquals(device, cache.get(macAddress, loader(Optional.of(device))).orElseThrow());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void whenNegativeTtlIsShorter_thenNotFoundExpiresFirst() {
+        var cache = cache(true, Duration.ofMinutes(1), Duration.ZERO);
+        var otherMacAddress = MacAddress.parse("00:1A:2B:3C:4D:5F");
+        //call method
+        cache.get(otherMacAddress, loader(Optional.empty()));
+        cache.get(otherMacAddress, loader(Optional.empty()));
+        cache.get(macAddress, loader(Optional.of(device)));
+        cache.get(macAddress, loader(Optional.of(device)));
+        //assertion
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void whenDisabled_thenEveryLookupIsLoaded() {
+        var cache = cache(false, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        //call method
+        cache.get(macAddress, loader(Optional.of(device)));
+        cache.get(macAddress, loader(Optional.of(device)));
+        //assertion
+        assertEquals(2, loads.get());
+    }
+
+    private static DeviceLookupCache cache(boolean enabled, Duration ttl, Duration negativeTtl) {
+        return new DeviceLookupCache(enabled, 100, ttl, negativeTtl, new SimpleMeterRegistry());
+    }
+
+    private Function<MacAddress, Optional<DeviceResponse>> loader(Optional<DeviceResponse> result) {
+        return key -> {
+            loads.incrementAndGet();
+            return result;
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package com.piotr.network.deviceapims.config;
+
+import com.piotr.network.deviceapims.generated.model.DeviceResponse;
+import com.piotr.network.deviceapims.generated.model.TopologyChange;
+import com.piotr.network.deviceapims.generated.model.TopologyNodeResponse;
+import com.piotr.network.deviceapims.repository.DeviceRowRecord;
+import com.piotr.network.deviceapims.service.DeviceImportRejection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuntimeHintsConfigurationTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @BeforeEach
+    void setup() {
+        new RuntimeHintsConfiguration.DeviceApiRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void whenHintsRegistered_thenEveryGeneratedModelIsBound() {
+        //call method
+        var models = RuntimeHintsConfiguration.DeviceApiRuntimeHints.generatedModels(getClass().getClassLoader());
+        //assertion
+        assertTrue(models.containsAll(List.of(DeviceResponse.class, TopologyNodeResponse.class, TopologyChange.class)));
+        assertTrue(models.stream().allMatch(model -> RuntimeHintsPredicates.reflection().onType(model).test(hints)));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(TopologyChange.class, "getMacAddress").test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(DeviceImportRejection.class).test(hints));
+    }
+
+    @Test
+    void whenHintsRegistered_thenConstructorExpressionsAndMigrationsAreReachable() {
+        //assertion
+        assertTrue(RuntimeHintsPredicates.reflection().onType(DeviceRowRecord.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.resource().forResource("db/migration/postgresql/V0__create_device_entity.sql").test(hints));
+        assertTrue(RuntimeHintsPredicates.resource().forResource("application.conf").test(hints));
+    }
+}
@@ -0,0 +1,41 @@
+package com.piotr.network.deviceapims.contract.reactive;
+
+import io.restassured.module.webtestclient.RestAssuredWebTestClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest(properties = {
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive-contract-testdb?options=DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password=",
+        //the H2 migrations create the schema over JDBC, on the same in-memory database
+        "spring.flyway.url=jdbc:h2:mem:reactive-contract-testdb;DB_CLOSE_DELAY=-1",
+        "spring.flyway.user=sa",
+        "spring.flyway.password="
+})
+@AutoConfigureWebTestClient
+@Import(ReactiveContractTestDataSetup.class)
+@ActiveProfiles({"test", "reactive"})
+class ReactiveContractTest {
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setup() {
+        RestAssuredWebTestClient.webTestClient(webTestClient);
+    }
+
+    @Test
+    void test() {
+        assertNotNull(webTestClient);
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.piotr.network.deviceapims.contract.reactive;
+
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+import com.piotr.network.deviceapims.generated.model.RegisterDeviceRequest;
+import com.piotr.network.deviceapims.service.ReactiveDeviceService;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.boot.test.context.TestConfiguration;
+
+@TestConfiguration
+@DependsOnDatabaseInitialization
+public class ReactiveContractTestDataSetup {
+
+    @Autowired
+    private ReactiveDeviceService deviceService;
+
+    @PostConstruct
+    public void init() {
+        var gateway = new RegisterDeviceRequest(DeviceType.GATEWAY, "70:1A:2B:3C:4D:5E");
+        var accessPoint = new RegisterDeviceRequest(DeviceType.ACCESS_POINT, "AA:BB:CC:DD:EE:FF")
+                .uplinkMacAddress("70:1A:2B:3C:4D:5E");
+        deviceService.registerDevice(gateway)
+                .then(deviceService.registerDevice(accessPoint))
+                .block();
+    }
+}
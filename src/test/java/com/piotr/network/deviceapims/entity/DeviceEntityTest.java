@@ -0,0 +1,43 @@
+package com.piotr.network.deviceapims.entity;
+
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeviceEntityTest {
+
+    @Test
+    void whenPersist_thenTypeRankAndPathAreDerived() {
+        var gateway = device(0x001A2B3C4D5EL, DeviceType.GATEWAY, null);
+        var accessPoint = device(0x101A2B3C4D5EL, DeviceType.ACCESS_POINT, gateway);
+
+        assertEquals(1, gateway.getTypeRank());
+        assertEquals("001A2B3C4D5E", gateway.getPath());
+        assertEquals(0, gateway.getDepth());
+        assertEquals(3, accessPoint.getTypeRank());
+        assertEquals("001A2B3C4D5E101A2B3C4D5E", accessPoint.getPath());
+        assertEquals(1, accessPoint.getDepth());
+    }
+
+    @Test
+    void whenPersistBelowMaxPathLevels_thenPathOfLastEncodedAncestorIsKept() {
+        var device = device(0, DeviceType.GATEWAY, null);
+        for (int level = 1; level <= DeviceEntity.MAX_PATH_LEVELS; level++) {
+            device = device(level, DeviceType.SWITCH, device);
+        }
+
+        assertEquals(DeviceEntity.MAX_PATH_LEVELS, device.getDepth());
+        assertEquals(DeviceEntity.MAX_PATH_LEVELS * MacAddress.HEX_LENGTH, device.getPath().length());
+        assertEquals(device.getUplinkDevice().getPath(), device.getPath());
+    }
+
+    private static DeviceEntity device(long macAddress, DeviceType deviceType, DeviceEntity uplinkDevice) {
+        var device = new DeviceEntity();
+        device.setMacAddress(MacAddress.of(macAddress));
+        device.setDeviceType(deviceType);
+        device.setUplinkDevice(uplinkDevice);
+        device.onPersist();
+        return device;
+    }
+}
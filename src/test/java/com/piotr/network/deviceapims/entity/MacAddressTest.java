@@ -0,0 +1,50 @@
+package com.piotr.network.deviceapims.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MacAddressTest {
+
+    @Test
+    void whenParse_thenSeparatorsAndCaseAreCanonical() {
+        var colon = MacAddress.parse("00:1A:2B:3C:4D:5E");
+        var dash = MacAddress.parse("00-1a-2b-3c-4d-5e");
+
+        assertEquals(colon, dash);
+        assertEquals(colon.hashCode(), dash.hashCode());
+        assertEquals(0x001A2B3C4D5EL, dash.toLong());
+        assertEquals("00:1A:2B:3C:4D:5E", dash.toString());
+    }
+
+    @Test
+    void whenOf_thenRoundTripsThroughText() {
+        var macAddress = MacAddress.of(MacAddress.MAX_VALUE);
+
+        assertEquals("FF:FF:FF:FF:FF:FF", macAddress.toString());
+        assertEquals(macAddress, MacAddress.parse(macAddress.toString()));
+        assertTrue(MacAddress.of(0).compareTo(macAddress) < 0);
+    }
+
+    @Test
+    void whenToHex_thenFixedWidthPreservesOrder() {
+        assertEquals("001A2B3C4D5E", MacAddress.parse("00:1a:2b:3c:4d:5e").toHex());
+        assertEquals("000000000001", MacAddress.of(1).toHex());
+        assertTrue(MacAddress.of(0xF).toHex().compareTo(MacAddress.of(0x10).toHex()) < 0);
+    }
+
+    @Test
+    void whenParseInvalidText_thenThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> MacAddress.parse(null));
+        assertThrows(IllegalArgumentException.class, () -> MacAddress.parse("00:1A:2B:3C:4D"));
+        assertThrows(IllegalArgumentException.class, () -> MacAddress.parse("00:1A-2B:3C:4D:5E"));
+        assertThrows(IllegalArgumentException.class, () -> MacAddress.parse("00:1A:2B:3C:4D:5G"));
+        assertThrows(IllegalArgumentException.class, () -> MacAddress.parse("00.1A.2B.3C.4D.5E"));
+    }
+
+    @Test
+    void whenOfOutOfRange_thenThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> MacAddress.of(-1));
+        assertThrows(IllegalArgumentException.class, () -> MacAddress.of(MacAddress.MAX_VALUE + 1));
+    }
+}
@@ -1,20 +1,35 @@
 package com.piotr.network.deviceapims.exception;
 
 import com.fasterxml.jackson.databind.JsonMappingException;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.generated.model.BatchRegisterDeviceStatus;
+import com.piotr.network.deviceapims.metrics.DeviceMetrics;
 import jakarta.validation.ConstraintViolationException;
 import org.instancio.Instancio;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 @ExtendWith(MockitoExtension.class)
 class GlobalExceptionHandlerTest {
+    @Mock
+    private DeviceMetrics deviceMetrics;
     @InjectMocks
     private GlobalExceptionHandler globalExceptionHandler;
 
@@ -28,6 +43,39 @@ class GlobalExceptionHandlerTest {
         assertNotNull(testedObject.getBody());
         assertEquals(errorMessage, testedObject.getBody().getMessage());
         assertEquals(HttpStatus.BAD_REQUEST.toString(), testedObject.getBody().getCode());
+        verifyNoInteractions(deviceMetrics);
+    }
+
+    @Test
+    void whenHandleBadRequestNotFound_thenNotFoundIsCounted() {
+        //run tested method
+        var testedObject = globalExceptionHandler.handleBadRequest(new InvalidRequestException(HttpStatus.NOT_FOUND, "No device(s) found"));
+        //assertion
+        assertEquals(HttpStatus.NOT_FOUND, testedObject.getStatusCode());
+        verify(deviceMetrics).recordNotFound();
+    }
+
+    @Test
+    void whenHandleBadRequestDuplicateDevice_thenDuplicateIsCounted() {
+        //run tested method
+        var testedObject = globalExceptionHandler.handleBadRequest(new DuplicateDeviceException(MacAddress.of(1)));
+        //assertion
+        assertEquals(HttpStatus.BAD_REQUEST, testedObject.getStatusCode());
+        assertNotNull(testedObject.getBody());
+        assertEquals("Device with MAC 00:00:00:00:00:01 already registered", testedObject.getBody().getMessage());
+        verify(deviceMetrics).recordRejectedRegistration(BatchRegisterDeviceStatus.DUPLICATE);
+    }
+
+    @Test
+    void whenHandleBadRequestQueueFull_thenRetryAfterIsSent() {
+        //run tested method
+        var testedObject = globalExceptionHandler.handleBadRequest(new RegistrationQueueFullException(Duration.ofSeconds(2)));
+        //assertion
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, testedObject.getStatusCode());
+        assertEquals("2", testedObject.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertNotNull(testedObject.getBody());
+        assertEquals("Registration queue is full, retry later", testedObject.getBody().getMessage());
+        verifyNoInteractions(deviceMetrics);
     }
 
     @Test
@@ -110,7 +158,18 @@ class GlobalExceptionHandlerTest {
         assertEquals("400", testedObject.getBody().getCode());
     }
 
-
+    @Test
+    void whenHandleDataIntegrityViolationExceptionOfUniqueConstraint_thenDuplicateIsCounted() {
+        var cause = new org.hibernate.exception.ConstraintViolationException("Unique index violation",
+                new SQLException("duplicate"), "insert", org.hibernate.exception.ConstraintViolationException.ConstraintKind.UNIQUE,
+                "uk_device_entity_mac_address");
+        final var exception = new DataIntegrityViolationException("could not execute statement", cause);
+        //run tested method
+        var testedObject = globalExceptionHandler.handleDataIntegrityViolationException(exception);
+        //assertion
+        assertEquals(HttpStatus.BAD_REQUEST, testedObject.getStatusCode());
+        verify(deviceMetrics).recordRejectedRegistration(BatchRegisterDeviceStatus.DUPLICATE);
+    }
 
     @Test
     void whenHandleGenericException_thenReturnErrorResponseGenericException() {
@@ -123,4 +182,32 @@ class GlobalExceptionHandlerTest {
         assertEquals(errorMessage, testedObject.getBody().getMessage());
         assertEquals("400", testedObject.getBody().getCode());
     }
+
+    @Test
+    void whenHandleGenericException_withFrameworkErrorResponse_thenReturnItsStatus() {
+        //run tested method
+        var testedObject = globalExceptionHandler.handleGenericException(
+                new HttpRequestMethodNotSupportedException("DELETE"));
+        //assertion
+        assertEquals(HttpStatus.METHOD_NOT_ALLOWED, testedObject.getStatusCode());
+        assertNotNull(testedObject.getBody());
+        assertEquals(HttpStatus.METHOD_NOT_ALLOWED.toString(), testedObject.getBody().getCode());
+    }
+
+    @Test
+    void whenHandleAsyncRequestNotUsableException_thenReturnNoResponse() {
+        //run tested method
+        var testedObject = globalExceptionHandler.handleAsyncRequestNotUsableException(
+                new AsyncRequestNotUsableException("Response not usable after response errors."));
+        //assertion
+        assertNull(testedObject);
+    }
+
+    @Test
+    void whenHandleGenericException_withClientDisconnected_thenReturnNoResponse() {
+        //run tested method
+        var testedObject = globalExceptionHandler.handleGenericException(new IOException("Broken pipe"));
+        //assertion
+        assertNull(testedObject);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.piotr.network.deviceapims.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntHashMapTest {
+
+    @Test
+    void whenPutBeyondInitialCapacity_thenAllKeysAreFound() {
+        var map = new LongIntHashMap(4);
+        for (int value = 0; value < 10_000; value++) {
+            map.put(value * 0x1_0000L, value);
+        }
+
+        assertEquals(10_000, map.size());
+        for (int value = 0; value < 10_000; value++) {
+            assertEquals(value, map.get(value * 0x1_0000L));
+        }
+        assertFalse(map.containsKey(7L));
+        assertEquals(LongIntHashMap.NO_VALUE, map.get(7L));
+    }
+
+    @Test
+    void whenPutExistingKey_thenValueIsReplaced() {
+        var map = new LongIntHashMap(16);
+        map.put(42L, 1);
+        map.put(42L, 2);
+
+        assertEquals(1, map.size());
+        assertEquals(2, map.get(42L));
+    }
+
+    @Test
+    void whenClear_thenMapIsEmpty() {
+        var map = new LongIntHashMap(16);
+        map.put(42L, 1);
+        map.clear();
+
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey(42L));
+    }
+}
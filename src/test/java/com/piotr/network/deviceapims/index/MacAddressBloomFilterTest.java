@@ -0,0 +1,48 @@
+package com.piotr.network.deviceapims.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MacAddressBloomFilterTest {
+
+    @Test
+    void whenAdded_thenAlwaysMightContain() {
+        var filter = MacAddressBloomFilter.create(10_000, 0.01);
+        //call method
+        for (long macAddress = 0; macAddress < 10_000; macAddress++) {
+            filter.add(macAddress * 7919);
+        }
+        //assertion
+        for (long macAddress = 0; macAddress < 10_000; macAddress++) {
+            assertTrue(filter.mightContain(macAddress * 7919));
+        }
+    }
+
+    @Test
+    void whenFilledToExpectedSize_thenFalsePositiveRateIsKept() {
+        var filter = MacAddressBloomFilter.create(10_000, 0.01);
+        for (long macAddress = 0; macAddress < 10_000; macAddress++) {
+            filter.add(macAddress);
+        }
+        //call method
+        int falsePositives = 0;
+        for (long macAddress = 1_000_000; macAddress < 1_100_000; macAddress++) {
+            if (filter.mightContain(macAddress)) {
+                falsePositives++;
+            }
+        }
+        //assertion
+        assertTrue(falsePositives < 2_000, "False positives: " + falsePositives);
+    }
+
+    @Test
+    void whenCreated_thenSizedForRate() {
+        var filter = MacAddressBloomFilter.create(1_000_000, 0.01);
+        //assertion
+        assertEquals(9_585_088, filter.bitCount(), 64);
+        assertEquals(7, filter.hashCount());
+        assertFalse(filter.mightContain(42));
+        assertThrows(IllegalArgumentException.class, () -> MacAddressBloomFilter.create(10, 1));
+    }
+}
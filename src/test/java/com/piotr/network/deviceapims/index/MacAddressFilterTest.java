@@ -0,0 +1,85 @@
+package com.piotr.network.deviceapims.index;
+
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.event.DeviceRegisteredEvent;
+import com.piotr.network.deviceapims.event.DevicesImportedEvent;
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+import com.piotr.network.deviceapims.repository.DeviceRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MacAddressFilterTest {
+
+    @Mock
+    DeviceRepository deviceRepository;
+
+    private final MacAddress registeredMacAddress = MacAddress.parse("00:1A:2B:3C:4D:5E");
+    private final MacAddress savedMacAddress = MacAddress.parse("10:1A:2B:3C:4D:5E");
+    private final MacAddress unknownMacAddress = MacAddress.parse("20:1A:2B:3C:4D:5E");
+
+    @Test
+    void whenLoaded_thenUnknownMacAddressIsRuledOut() {
+        var macAddressFilter = new MacAddressFilter(deviceRepository, true, 1_000, 0.0001);
+        when(deviceRepository.streamMacAddresses()).thenReturn(Stream.of(registeredMacAddress));
+        //call method
+        macAddressFilter.load();
+        //assertion
+        assertTrue(macAddressFilter.mightContain(registeredMacAddress));
+        assertFalse(macAddressFilter.mightContain(unknownMacAddress));
+    }
+
+    @Test
+    void whenSavedDuringLoad_thenMightContain() {
+        var macAddressFilter = new MacAddressFilter(deviceRepository, true, 1_000, 0.0001);
+        when(deviceRepository.streamMacAddresses()).thenReturn(Stream.of(registeredMacAddress));
+        //call method
+        macAddressFilter.onDeviceRegistered(new DeviceRegisteredEvent(UUID.randomUUID(), DeviceType.SWITCH,
+                savedMacAddress, null, 1));
+        macAddressFilter.load();
+        //assertion
+        assertTrue(macAddressFilter.mightContain(savedMacAddress));
+    }
+
+    @Test
+    void whenDevicesImported_thenImportedMacAddressesMightBeRegistered() {
+        var macAddressFilter = new MacAddressFilter(deviceRepository, true, 1_000, 0.0001);
+        when(deviceRepository.streamMacAddresses()).thenReturn(Stream.of(registeredMacAddress));
+        when(deviceRepository.streamMacAddressesByChangeSeq(10, 11)).thenReturn(Stream.of(savedMacAddress));
+        macAddressFilter.load();
+        //call method
+        macAddressFilter.onDevicesImported(new DevicesImportedEvent(Map.of(DeviceType.SWITCH, 2), 10, 11));
+        //assertion
+        assertTrue(macAddressFilter.mightContain(savedMacAddress));
+        assertFalse(macAddressFilter.mightContain(unknownMacAddress));
+    }
+
+    @Test
+    void whenNotLoaded_thenEveryMacAddressMightBeRegistered() {
+        var macAddressFilter = new MacAddressFilter(deviceRepository, true, 1_000, 0.0001);
+        //assertion
+        assertTrue(macAddressFilter.mightContain(unknownMacAddress));
+    }
+
+    @Test
+    void whenDisabled_thenNothingIsLoaded() {
+        var macAddressFilter = new MacAddressFilter(deviceRepository, false, 1_000, 0.0001);
+        //call method
+        macAddressFilter.load();
+        macAddressFilter.onDeviceRegistered(new DeviceRegisteredEvent(UUID.randomUUID(), DeviceType.SWITCH,
+                savedMacAddress, null, 1));
+        //assertion
+        assertTrue(macAddressFilter.mightContain(unknownMacAddress));
+        verifyNoInteractions(deviceRepository);
+    }
+}
@@ -0,0 +1,240 @@
+package com.piotr.network.deviceapims.index;
+
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.event.DeviceRegisteredEvent;
+import com.piotr.network.deviceapims.event.DevicesImportedEvent;
+import com.piotr.network.deviceapims.generated.model.DeviceResponse;
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+import com.piotr.network.deviceapims.generated.model.TopologyNodeResponse;
+import com.piotr.network.deviceapims.repository.DeviceIndexRow;
+import com.piotr.network.deviceapims.repository.DeviceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TopologyIndexTest {
+
+    @Mock
+    DeviceRepository deviceRepository;
+
+    private TopologyIndex topologyIndex;
+
+    private final MacAddress gatewayMacAddress = MacAddress.parse("00:1A:2B:3C:4D:5E");
+    private final MacAddress switchMacAddress = MacAddress.parse("10:1A:2B:3C:4D:5E");
+    private final MacAddress accessPointMacAddress = MacAddress.parse("20-1a-2b-3c-4d-5e");
+
+    @BeforeEach
+    void setup() {
+        topologyIndex = new TopologyIndex(deviceRepository, true);
+    }
+
+    @Test
+    void whenLoad_thenTopologyIsAnsweredFromMemory() {
+        when(deviceRepository.findAllIndexRows()).thenReturn(List.of(
+                new IndexRow(gatewayMacAddress, DeviceType.GATEWAY, null),
+                new IndexRow(switchMacAddress, DeviceType.SWITCH, gatewayMacAddress),
+                new IndexRow(accessPointMacAddress, DeviceType.ACCESS_POINT, switchMacAddress)));
+        //call method
+        topologyIndex.load();
+        //assertion
+        assertTrue(topologyIndex.isReady());
+        var roots = topologyIndex.getTopologyNodes(Integer.MAX_VALUE);
+        assertEquals(1, roots.size());
+        assertEquals(gatewayMacAddress.toString(), roots.get(0).getMacAddress());
+        assertEquals(switchMacAddress.toString(), roots.get(0).getChildren().get(0).getMacAddress());
+        assertEquals(accessPointMacAddress.toString(), roots.get(0).getChildren().get(0).getChildren().get(0).getMacAddress());
+        var subtree = topologyIndex.getTopologyNode(switchMacAddress, Integer.MAX_VALUE).orElseThrow();
+        assertEquals(accessPointMacAddress.toString(), subtree.getChildren().get(0).getMacAddress());
+    }
+
+    @Test
+    void whenDepthRequested_thenDeeperLevelsAreLeftOut() {
+        when(deviceRepository.findAllIndexRows()).thenReturn(List.of(
+                new IndexRow(gatewayMacAddress, DeviceType.GATEWAY, null),
+                new IndexRow(switchMacAddress, DeviceType.SWITCH, gatewayMacAddress),
+                new IndexRow(accessPointMacAddress, DeviceType.ACCESS_POINT, switchMacAddress)));
+        topologyIndex.load();
+        //call method
+        var roots = topologyIndex.getTopologyNodes(1);
+        var subtree = topologyIndex.getTopologyNode(gatewayMacAddress, 0).orElseThrow();
+        //assertion
+        assertEquals(1, roots.get(0).getChildren().size());
+        assertTrue(roots.get(0).getChildren().get(0).getChildren().isEmpty());
+        assertTrue(subtree.getChildren().isEmpty());
+    }
+
+    @Test
+    void whenDeviceRegistered_thenIndexIsUpdated() {
+        when(deviceRepository.findAllIndexRows()).thenReturn(List.of(
+                new IndexRow(gatewayMacAddress, DeviceType.GATEWAY, null)));
+        topologyIndex.load();
+        //call method
+        topologyIndex.onDeviceRegistered(new DeviceRegisteredEvent(UUID.randomUUID(), DeviceType.ACCESS_POINT,
+                accessPointMacAddress, gatewayMacAddress, 1));
+        topologyIndex.onDeviceRegistered(new DeviceRegisteredEvent(UUID.randomUUID(), DeviceType.SWITCH,
+                switchMacAddress, gatewayMacAddress, 2));
+        //assertion
+        var children = topologyIndex.getTopologyNodes(Integer.MAX_VALUE).get(0).getChildren();
+        assertEquals(2, children.size());
+        assertEquals(switchMacAddress.toString(), children.get(0).getMacAddress());
+        assertEquals(accessPointMacAddress.toString(), children.get(1).getMacAddress());
+        var devices = topologyIndex.getDevices();
+        assertEquals(DeviceType.GATEWAY, devices.get(0).getDeviceType());
+        assertEquals(DeviceType.SWITCH, devices.get(1).getDeviceType());
+        assertEquals(DeviceType.ACCESS_POINT, devices.get(2).getDeviceType());
+        assertEquals(DeviceType.ACCESS_POINT, topologyIndex.findDevice(accessPointMacAddress).orElseThrow().getDeviceType());
+    }
+
+    @Test
+    void whenDevicesRegisteredOutOfMacOrder_thenListingsStayInMacOrder() {
+        when(deviceRepository.findAllIndexRows()).thenReturn(List.of(
+                new IndexRow(gatewayMacAddress, DeviceType.GATEWAY, null),
+                new IndexRow(switchMacAddress, DeviceType.SWITCH, gatewayMacAddress)));
+        topologyIndex.load();
+        var lastSwitchMacAddress = MacAddress.parse("F0:1A:2B:3C:4D:5E");
+        var firstSwitchMacAddress = MacAddress.parse("01:1A:2B:3C:4D:5E");
+        var secondGatewayMacAddress = MacAddress.parse("05:1A:2B:3C:4D:5E");
+        //call method
+        topologyIndex.onDeviceRegistered(new DeviceRegisteredEvent(UUID.randomUUID(), DeviceType.SWITCH,
+                lastSwitchMacAddress, gatewayMacAddress, 1));
+        topologyIndex.onDeviceRegistered(new DeviceRegisteredEvent(UUID.randomUUID(), DeviceType.GATEWAY,
+                secondGatewayMacAddress, null, 2));
+        topologyIndex.onDeviceRegistered(new DeviceRegisteredEvent(UUID.randomUUID(), DeviceType.SWITCH,
+                firstSwitchMacAddress, secondGatewayMacAddress, 3));
+        //assertion
+        assertEquals(List.of(gatewayMacAddress.toString(), secondGatewayMacAddress.toString(),
+                        firstSwitchMacAddress.toString(), switchMacAddress.toString(), lastSwitchMacAddress.toString()),
+                topologyIndex.getDevices().stream().map(DeviceResponse::getMacAddress).toList());
+        assertEquals(List.of(gatewayMacAddress.toString(), secondGatewayMacAddress.toString()),
+                topologyIndex.getTopologyNodes(0).stream().map(TopologyNodeResponse::getMacAddress).toList());
+    }
+
+    @Test
+    void whenDevicesImported_thenIndexIsReloaded() {
+        when(deviceRepository.findAllIndexRows()).thenReturn(
+                List.of(new IndexRow(gatewayMacAddress, DeviceType.GATEWAY, null)),
+                List.of(new IndexRow(gatewayMacAddress, DeviceType.GATEWAY, null),
+                        new IndexRow(switchMacAddress, DeviceType.SWITCH, gatewayMacAddress)));
+        topologyIndex.load();
+        //call method
+        topologyIndex.onDevicesImported(new DevicesImportedEvent(Map.of(DeviceType.SWITCH, 1), 1, 1));
+        //assertion
+        var children = topologyIndex.getTopologyNodes(Integer.MAX_VALUE).get(0).getChildren();
+        assertEquals(1, children.size());
+        assertEquals(switchMacAddress.toString(), children.get(0).getMacAddress());
+        assertEquals(2, topologyIndex.getDevices().size());
+    }
+
+    @Test
+    void whenLoad_thenPathsAreAnsweredFromMemory() {
+        var secondAccessPointMacAddress = MacAddress.parse("30:1A:2B:3C:4D:5E");
+        var secondGatewayMacAddress = MacAddress.parse("40:1A:2B:3C:4D:5E");
+        when(deviceRepository.findAllIndexRows()).thenReturn(List.of(
+                new IndexRow(gatewayMacAddress, DeviceType.GATEWAY, null),
+                new IndexRow(switchMacAddress, DeviceType.SWITCH, gatewayMacAddress),
+                new IndexRow(accessPointMacAddress, DeviceType.ACCESS_POINT, switchMacAddress),
+                new IndexRow(secondAccessPointMacAddress, DeviceType.ACCESS_POINT, switchMacAddress),
+                new IndexRow(secondGatewayMacAddress, DeviceType.GATEWAY, null)));
+        topologyIndex.load();
+        //call method
+        var uplinkPath = topologyIndex.getUplinkPath(accessPointMacAddress).orElseThrow();
+        var siblingPath = topologyIndex.getPath(accessPointMacAddress, secondAccessPointMacAddress).orElseThrow();
+        var downPath = topologyIndex.getPath(gatewayMacAddress, accessPointMacAddress).orElseThrow();
+        //assertion
+        assertEquals(List.of(accessPointMacAddress.toString(), switchMacAddress.toString(), gatewayMacAddress.toString()),
+                uplinkPath.getDevices().stream().map(DeviceResponse::getMacAddress).toList());
+        assertEquals(2, uplinkPath.getHops());
+        assertEquals(DeviceType.GATEWAY, uplinkPath.getDevices().get(2).getDeviceType());
+        assertEquals(List.of(accessPointMacAddress.toString(), switchMacAddress.toString(), secondAccessPointMacAddress.toString()),
+                siblingPath.getDevices().stream().map(DeviceResponse::getMacAddress).toList());
+        assertEquals(switchMacAddress.toString(), siblingPath.getCommonUplinkMacAddress());
+        assertEquals(List.of(gatewayMacAddress.toString(), switchMacAddress.toString(), accessPointMacAddress.toString()),
+                downPath.getDevices().stream().map(DeviceResponse::getMacAddress).toList());
+        assertEquals(gatewayMacAddress.toString(), downPath.getCommonUplinkMacAddress());
+        assertEquals(0, topologyIndex.getPath(switchMacAddress, switchMacAddress).orElseThrow().getHops());
+        assertTrue(topologyIndex.getPath(accessPointMacAddress, secondGatewayMacAddress).isEmpty());
+        assertTrue(topologyIndex.getUplinkPath(MacAddress.parse("50:1A:2B:3C:4D:5E")).isEmpty());
+    }
+
+    @Test
+    void whenDeepChainLoaded_thenCommonUplinkIsFound() {
+        //chain of 300 devices, listed deepest first, with a leaf below the 151st and below the last one
+        var rows = new ArrayList<DeviceIndexRow>();
+        rows.add(new IndexRow(MacAddress.of(10_000), DeviceType.ACCESS_POINT, MacAddress.of(151)));
+        rows.add(new IndexRow(MacAddress.of(10_001), DeviceType.ACCESS_POINT, MacAddress.of(300)));
+        for (long mac = 300; mac > 1; mac--) {
+            rows.add(new IndexRow(MacAddress.of(mac), DeviceType.SWITCH, MacAddress.of(mac - 1)));
+        }
+        rows.add(new IndexRow(MacAddress.of(1), DeviceType.GATEWAY, null));
+        when(deviceRepository.findAllIndexRows()).thenReturn(rows);
+        topologyIndex.load();
+        //call method
+        var path = topologyIndex.getPath(MacAddress.of(10_000), MacAddress.of(10_001)).orElseThrow();
+        //assertion
+        assertEquals(MacAddress.of(151).toString(), path.getCommonUplinkMacAddress());
+        assertEquals(151, path.getHops());
+        assertEquals(MacAddress.of(300).toString(), path.getDevices().get(150).getMacAddress());
+        assertEquals(301, topologyIndex.getUplinkPath(MacAddress.of(10_001)).orElseThrow().getDevices().size());
+    }
+
+    @Test
+    void whenDevicesRegistered_thenTheirAncestorsAreIndexed() {
+        when(deviceRepository.findAllIndexRows()).thenReturn(List.of(
+                new IndexRow(MacAddress.of(1), DeviceType.GATEWAY, null)));
+        topologyIndex.load();
+        //call method
+        for (long mac = 2; mac <= 100; mac++) {
+            topologyIndex.onDeviceRegistered(new DeviceRegisteredEvent(UUID.randomUUID(), DeviceType.SWITCH,
+                    MacAddress.of(mac), MacAddress.of(mac - 1), mac));
+        }
+        topologyIndex.onDeviceRegistered(new DeviceRegisteredEvent(UUID.randomUUID(), DeviceType.ACCESS_POINT,
+                MacAddress.of(1_000), MacAddress.of(37), 101));
+        //assertion
+        var path = topologyIndex.getPath(MacAddress.of(100), MacAddress.of(1_000)).orElseThrow();
+        assertEquals(MacAddress.of(37).toString(), path.getCommonUplinkMacAddress());
+        assertEquals(64, path.getHops());
+        assertEquals(MacAddress.of(1_000).toString(), path.getDevices().get(64).getMacAddress());
+    }
+
+    @Test
+    void whenDisabled_thenIndexIsNeverReady() {
+        var disabledIndex = new TopologyIndex(deviceRepository, false);
+        //call method
+        disabledIndex.load();
+        disabledIndex.onDeviceRegistered(new DeviceRegisteredEvent(UUID.randomUUID(), DeviceType.GATEWAY,
+                gatewayMacAddress, null, 1));
+        //assertion
+        assertFalse(disabledIndex.isReady());
+        assertTrue(disabledIndex.findDevice(gatewayMacAddress).isEmpty());
+        verifyNoInteractions(deviceRepository);
+    }
+
+    private record IndexRow(MacAddress macAddress, DeviceType deviceType, MacAddress uplinkMacAddress) implements DeviceIndexRow {
+        @Override
+        public MacAddress getMacAddress() {
+            return macAddress;
+        }
+
+        @Override
+        public DeviceType getDeviceType() {
+            return deviceType;
+        }
+
+        @Override
+        public MacAddress getUplinkMacAddress() {
+            return uplinkMacAddress;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.piotr.network.deviceapims.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+import com.piotr.network.deviceapims.generated.model.RegisterDeviceRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives a mix of register, lookup and topology calls against the application on H2 and reports throughput and
+ * latency percentiles. Subclasses pick the Tomcat threading mode; the scenario is read from system properties,
+ * see {@link LoadScenario}. Excluded from the default build, run with {@code ./mvnw -Ploadtest test}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@Tag("load")
+abstract class DeviceApiLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(DeviceApiLoadTest.class);
+    private static final long SEED_MAC_ADDRESS = 0x10_0000_0000L;
+    private static final long REGISTERED_MAC_ADDRESS = 0x20_0000_0000L;
+    private static final int SEED_BATCH_SIZE = 10_000;
+    private static final int DEVICES_PER_GATEWAY = 100;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final LoadScenario scenario = LoadScenario.fromSystemProperties();
+    private final AtomicLong registeredDevices = new AtomicLong();
+    private final ExecutorService clients = Executors.newFixedThreadPool(scenario.concurrency());
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+    private int gateways;
+
+    /**
+     * Name of the threading mode, used in the report and its file name
+     * @return mode name
+     */
+    protected abstract String mode();
+
+    @AfterEach
+    void shutdown() {
+        clients.shutdownNow();
+    }
+
+    @Test
+    void runScenario() throws Exception {
+        seed();
+        run(scenario.warmup());
+        var result = run(scenario.duration());
+        var report = result.report(mode(), scenario);
+        log.info("Load test report\n{}", report);
+        Files.writeString(Files.createDirectories(Path.of("target")).resolve("load-test-" + mode() + ".txt"), report);
+        //assertion
+        assertEquals(0, result.errors(), "Failed calls during the load test");
+        assertTrue(result.requests() > 0);
+    }
+
+    private void seed() throws IOException, InterruptedException {
+        gateways = Math.max(1, scenario.seedDevices() / DEVICES_PER_GATEWAY);
+        for (int from = 0; from < scenario.seedDevices(); from += SEED_BATCH_SIZE) {
+            List<RegisterDeviceRequest> batch = new ArrayList<>();
+            for (int device = from; device < Math.min(from + SEED_BATCH_SIZE, scenario.seedDevices()); device++) {
+                batch.add(device < gateways
+                        ? new RegisterDeviceRequest().deviceType(DeviceType.GATEWAY).macAddress(seedMacAddress(device))
+                        : new RegisterDeviceRequest().deviceType(DeviceType.SWITCH).macAddress(seedMacAddress(device))
+                                .uplinkMacAddress(seedMacAddress(device % gateways)));
+            }
+            var response = httpClient.send(post("/devices/batch", batch), HttpResponse.BodyHandlers.discarding());
+            assertEquals(200, response.statusCode(), "Seeding failed");
+        }
+    }
+
+    private LoadResult run(Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<Map<LoadOperation, LatencyRecorder>>> futures = new ArrayList<>();
+        AtomicLong errors = new AtomicLong();
+        long start = System.nanoTime();
+        for (int client = 0; client < scenario.concurrency(); client++) {
+            var random = new Random(client);
+            futures.add(clients.submit(() -> runClient(random, deadline, errors)));
+        }
+        Map<LoadOperation, List<LatencyRecorder>> recorders = new EnumMap<>(LoadOperation.class);
+        for (var future : futures) {
+            future.get().forEach((operation, recorder) ->
+                    recorders.computeIfAbsent(operation, key -> new ArrayList<>()).add(recorder));
+        }
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+        Map<LoadOperation, long[]> latencies = new EnumMap<>(LoadOperation.class);
+        recorders.forEach((operation, list) -> latencies.put(operation, LatencyRecorder.merge(list)));
+        return new LoadResult(latencies, errors.get(), elapsed);
+    }
+
+    private Map<LoadOperation, LatencyRecorder> runClient(Random random, long deadline, AtomicLong errors) {
+        Map<LoadOperation, LatencyRecorder> recorders = new EnumMap<>(LoadOperation.class);
+        while (System.nanoTime() < deadline) {
+            var operation = scenario.pick(random.nextInt(scenario.totalWeight()));
+            long start = System.nanoTime();
+            try {
+                var response = httpClient.send(request(operation, random), HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() != expectedStatus(operation)) {
+                    errors.incrementAndGet();
+                    continue;
+                }
+            } catch (IOException e) {
+                errors.incrementAndGet();
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            recorders.computeIfAbsent(operation, key -> new LatencyRecorder()).record(System.nanoTime() - start);
+        }
+        return recorders;
+    }
+
+    private HttpRequest request(LoadOperation operation, Random random) throws IOException {
+        return switch (operation) {
+            case REGISTER -> post("/devices", new RegisterDeviceRequest()
+                    .deviceType(DeviceType.ACCESS_POINT)
+                    .macAddress(MacAddress.of(REGISTERED_MAC_ADDRESS + registeredDevices.incrementAndGet()).toString())
+                    .uplinkMacAddress(seedMacAddress(random.nextInt(scenario.seedDevices()))));
+            case LOOKUP -> get("/devices/mac/" + seedMacAddress(random.nextInt(scenario.seedDevices())));
+            case TOPOLOGY -> get("/devices/topology/" + seedMacAddress(random.nextInt(gateways)));
+        };
+    }
+
+    private static int expectedStatus(LoadOperation operation) {
+        return operation == LoadOperation.REGISTER ? 201 : 200;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    private HttpRequest post(String path, Object body) throws IOException {
+        return HttpRequest.newBuilder(uri(path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static String seedMacAddress(int device) {
+        return MacAddress.of(SEED_MAC_ADDRESS + device).toString();
+    }
+}
@@ -0,0 +1,57 @@
+package com.piotr.network.deviceapims.load;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of latencies owned by a single client; recorders are merged once the run is over
+ */
+final class LatencyRecorder {
+
+    private long[] latencies = new long[1024];
+    private int size;
+
+    void record(long nanos) {
+        if (size == latencies.length) {
+            latencies = Arrays.copyOf(latencies, size * 2);
+        }
+        latencies[size++] = nanos;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Merges recorders and sorts the latencies
+     * @param recorders the recorders to merge
+     * @return sorted latencies in nanoseconds
+     */
+    static long[] merge(Iterable<LatencyRecorder> recorders) {
+        int total = 0;
+        for (var recorder : recorders) {
+            total += recorder.size;
+        }
+        long[] merged = new long[total];
+        int offset = 0;
+        for (var recorder : recorders) {
+            System.arraycopy(recorder.latencies, 0, merged, offset, recorder.size);
+            offset += recorder.size;
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    /**
+     * Nearest-rank percentile
+     * @param sorted sorted latencies
+     * @param percentile percentile between 0 and 100
+     * @return the latency, 0 when nothing was recorded
+     */
+    static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+}
@@ -0,0 +1,13 @@
+package com.piotr.network.deviceapims.load;
+
+/**
+ * Calls made by the load test clients
+ */
+enum LoadOperation {
+    /** POST /devices of a new access point */
+    REGISTER,
+    /** GET /devices/mac/{macAddress} of a seeded device */
+    LOOKUP,
+    /** GET /devices/topology/{macAddress} of a seeded gateway */
+    TOPOLOGY
+}
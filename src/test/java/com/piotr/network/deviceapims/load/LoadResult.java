@@ -0,0 +1,41 @@
+package com.piotr.network.deviceapims.load;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Outcome of a measured run
+ * @param latencies sorted latencies in nanoseconds of the successful calls, per operation
+ * @param errors number of calls that failed or did not return the expected status
+ * @param elapsed measured time
+ */
+record LoadResult(Map<LoadOperation, long[]> latencies, long errors, Duration elapsed) {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    long requests() {
+        return latencies.values().stream().mapToLong(sorted -> sorted.length).sum();
+    }
+
+    /**
+     * Text report with throughput and p50/p99/p999 latency per operation
+     * @param mode name of the server threading mode
+     * @param scenario the scenario that was run
+     * @return the report
+     */
+    String report(String mode, LoadScenario scenario) {
+        double seconds = elapsed.toNanos() / 1e9;
+        var report = new StringBuilder()
+                .append(String.format("mode=%s concurrency=%d duration=%s seedDevices=%d mix=%s errors=%d%n",
+                        mode, scenario.concurrency(), elapsed, scenario.seedDevices(), scenario.mix(), errors))
+                .append(String.format("%-10s %10s %12s %10s %10s %10s%n",
+                        "operation", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms"));
+        latencies.forEach((operation, sorted) -> report.append(String.format("%-10s %10d %12.1f %10.2f %10.2f %10.2f%n",
+                operation, sorted.length, sorted.length / seconds,
+                LatencyRecorder.percentile(sorted, 50) / NANOS_PER_MILLI,
+                LatencyRecorder.percentile(sorted, 99) / NANOS_PER_MILLI,
+                LatencyRecorder.percentile(sorted, 99.9) / NANOS_PER_MILLI)));
+        return report.append(String.format("%-10s %10d %12.1f%n", "total", requests(), requests() / seconds))
+                .toString();
+    }
+}
@@ -0,0 +1,69 @@
+package com.piotr.network.deviceapims.load;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Load test settings, read from system properties so a run can be tuned from the command line,
+ * e.g. {@code ./mvnw -Ploadtest test -Dload.concurrency=256 -Dload.mix=register:50,lookup:50}
+ * @param concurrency number of clients sending requests back to back
+ * @param warmup time spent sending requests before latencies are recorded
+ * @param duration time spent recording latencies
+ * @param seedDevices number of devices registered before the run
+ * @param mix relative weight of every operation
+ */
+record LoadScenario(int concurrency, Duration warmup, Duration duration, int seedDevices,
+                    Map<LoadOperation, Integer> mix) {
+
+    static LoadScenario fromSystemProperties() {
+        return new LoadScenario(
+                Integer.getInteger("load.concurrency", 64),
+                Duration.parse(System.getProperty("load.warmup", "PT10S")),
+                Duration.parse(System.getProperty("load.duration", "PT30S")),
+                Integer.getInteger("load.seed-devices", 1_000),
+                parseMix(System.getProperty("load.mix", "register:10,lookup:70,topology:20")));
+    }
+
+    /**
+     * Parses a mix such as {@code register:10,lookup:70,topology:20}
+     * @param text comma separated operation:weight pairs
+     * @return the weight of every operation, operations left out weigh 0
+     */
+    static Map<LoadOperation, Integer> parseMix(String text) {
+        Map<LoadOperation, Integer> mix = new EnumMap<>(LoadOperation.class);
+        for (var operation : LoadOperation.values()) {
+            mix.put(operation, 0);
+        }
+        for (var entry : text.split(",")) {
+            var pair = entry.trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid load mix entry " + entry);
+            }
+            mix.put(LoadOperation.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("Invalid load mix " + text);
+        }
+        return mix;
+    }
+
+    /**
+     * Picks an operation with the probability of its weight
+     * @param random value in [0, total weight)
+     * @return LoadOperation
+     */
+    LoadOperation pick(int random) {
+        for (var entry : mix.entrySet()) {
+            random -= entry.getValue();
+            if (random < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Random value out of range");
+    }
+
+    int totalWeight() {
+        return mix.values().stream().mapToInt(Integer::intValue).sum();
+    }
+}
@@ -0,0 +1,18 @@
+package com.piotr.network.deviceapims.load;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Load test with Tomcat serving requests from its platform thread pool
+ */
+@TestPropertySource(properties = {
+        "spring.threads.virtual.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:load-platform;DB_CLOSE_DELAY=-1"
+})
+class PlatformThreadsLoadTest extends DeviceApiLoadTest {
+
+    @Override
+    protected String mode() {
+        return "platform-threads";
+    }
+}
@@ -0,0 +1,24 @@
+package com.piotr.network.deviceapims.load;
+
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Load test with Tomcat serving every request on a new virtual thread.
+ * Spring Boot only switches to virtual threads on Java 21 or later, so the test is skipped on older runtimes.
+ * The build targets Java 17; to run it, fork the test JVM from a Java 21 installation with Surefire's {@code jvm}
+ * property, e.g. {@code ./mvnw -Ploadtest test -Djvm=$JAVA_21_HOME/bin/java}.
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+@TestPropertySource(properties = {
+        "spring.threads.virtual.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:load-virtual;DB_CLOSE_DELAY=-1"
+})
+class VirtualThreadsLoadTest extends DeviceApiLoadTest {
+
+    @Override
+    protected String mode() {
+        return "virtual-threads";
+    }
+}
@@ -1,8 +1,14 @@
 package com.piotr.network.deviceapims.mapper;
 
 import com.piotr.network.deviceapims.entity.DeviceEntity;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.event.DeviceRegisteredEvent;
 import com.piotr.network.deviceapims.generated.model.DeviceType;
 import com.piotr.network.deviceapims.generated.model.RegisterDeviceRequest;
+import com.piotr.network.deviceapims.repository.DeviceChangeRecord;
+import com.piotr.network.deviceapims.repository.DeviceChangeRow;
+import com.piotr.network.deviceapims.repository.DeviceRow;
+import com.piotr.network.deviceapims.repository.DeviceTopologyRow;
 import org.instancio.Instancio;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,6 +19,8 @@ import java.util.UUID;
 
 import static org.instancio.Select.field;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class DeviceMapperTest {
@@ -33,7 +41,18 @@ class DeviceMapperTest {
         var resultDeviceEntity = deviceMapper.mapDeviceDtoToDeviceEntity(registrationDeviceRequest);
         assertNotNull(resultDeviceEntity);
         assertEquals(DeviceType.GATEWAY, resultDeviceEntity.getDeviceType());
-        assertEquals(parentMacAddress, resultDeviceEntity.getMacAddress());
+        assertEquals(MacAddress.parse(parentMacAddress), resultDeviceEntity.getMacAddress());
+    }
+
+    @Test
+    void whenMapDeviceDtoToDeviceEntity_thenMacAddressIsCanonical() {
+        var registrationDeviceRequest = Instancio.of(RegisterDeviceRequest.class)
+                .set(field(RegisterDeviceRequest::getMacAddress), "60-7a-8b-9c-4d-5e")
+                .create();
+
+        var resultDeviceEntity = deviceMapper.mapDeviceDtoToDeviceEntity(registrationDeviceRequest);
+        assertEquals(MacAddress.parse(parentMacAddress), resultDeviceEntity.getMacAddress());
+        assertEquals(parentMacAddress, resultDeviceEntity.getMacAddress().toString());
     }
 
     @Test
@@ -49,9 +68,9 @@ class DeviceMapperTest {
         final UUID id = UUID.randomUUID();
         var childDeviceEntity = Instancio.of(DeviceEntity.class)
                 .set(field(DeviceEntity::getDeviceType), DeviceType.SWITCH)
-                .set(field(DeviceEntity::getMacAddress), childMacAddress)
+                .set(field(DeviceEntity::getMacAddress), MacAddress.parse(childMacAddress))
                 .set(field(DeviceEntity::getUplinkDevice), Instancio.of(DeviceEntity.class)
-                        .set(field(DeviceEntity::getMacAddress), parentMacAddress)
+                        .set(field(DeviceEntity::getMacAddress), MacAddress.parse(parentMacAddress))
                         .create())
                 .set(field(DeviceEntity::getId), id)
                 .create();
@@ -81,9 +100,9 @@ class DeviceMapperTest {
         final UUID id = UUID.randomUUID();
         var childDeviceEntity = Instancio.of(DeviceEntity.class)
                 .set(field(DeviceEntity::getDeviceType), DeviceType.SWITCH)
-                .set(field(DeviceEntity::getMacAddress), childMacAddress)
+                .set(field(DeviceEntity::getMacAddress), MacAddress.parse(childMacAddress))
                 .set(field(DeviceEntity::getUplinkDevice), Instancio.of(DeviceEntity.class)
-                        .set(field(DeviceEntity::getMacAddress), parentMacAddress)
+                        .set(field(DeviceEntity::getMacAddress), MacAddress.parse(parentMacAddress))
                         .create())
                 .set(field(DeviceEntity::getId), id)
                 .create();
@@ -104,10 +123,32 @@ class DeviceMapperTest {
         assertNull(resultRegisterDeviceResponse.getMacAddress());
     }
 
+    @Test
+    void whenMapDeviceRowToDeviceResponse_thenReturnDeviceResponse() {
+        var row = mock(DeviceRow.class);
+        when(row.getDeviceType()).thenReturn(DeviceType.SWITCH);
+        when(row.getMacAddress()).thenReturn(MacAddress.parse(childMacAddress));
+
+        var resultDeviceResponse = deviceMapper.mapDeviceRowToDeviceResponse(row);
+
+        assertNotNull(resultDeviceResponse);
+        assertEquals(DeviceType.SWITCH, resultDeviceResponse.getDeviceType());
+        assertEquals(childMacAddress, resultDeviceResponse.getMacAddress());
+    }
+
+    @Test
+    void whenMapDeviceRowToDeviceResponse_thenReturnEmptyDeviceResponse() {
+        var resultDeviceResponse = deviceMapper.mapDeviceRowToDeviceResponse(null);
+
+        assertNotNull(resultDeviceResponse);
+        assertNull(resultDeviceResponse.getDeviceType());
+        assertNull(resultDeviceResponse.getMacAddress());
+    }
+
     @Test
     void whenMapEntityToTopologyNodeResponse_thenReturnTopologyNodeResponse() {
         var parentDeviceEntity = Instancio.of(DeviceEntity.class)
-                .set(field(DeviceEntity::getMacAddress), parentMacAddress)
+                .set(field(DeviceEntity::getMacAddress), MacAddress.parse(parentMacAddress))
                 .create();
 
         var resultTopologyNodeResponse = deviceMapper.mapEntityToTopologyNodeResponse(parentDeviceEntity);
@@ -124,4 +165,94 @@ class DeviceMapperTest {
         assertNotNull(resultTopologyNodeResponse);
         assertNull(resultTopologyNodeResponse.getMacAddress());
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenMapTopologyRowToTopologyNodeResponse_thenReturnTopologyNodeResponse() {
+        var topologyRow = mock(DeviceTopologyRow.class);
+        when(topologyRow.getMacAddress()).thenReturn(MacAddress.parse(parentMacAddress).toLong());
+
+        var resultTopologyNodeResponse = deviceMapper.mapTopologyRowToTopologyNodeResponse(topologyRow);
+
+        assertNotNull(resultTopologyNodeResponse);
+        assertEquals(parentMacAddress, resultTopologyNodeResponse.getMacAddress());
+        assertEquals(0, resultTopologyNodeResponse.getChildren().size());
+    }
+
+    @Test
+    void whenMapTopologyRowToTopologyNodeResponse_thenReturnEmptyTopologyNodeResponse() {
+        var resultTopologyNodeResponse = deviceMapper.mapTopologyRowToTopologyNodeResponse(null);
+
+        assertNotNull(resultTopologyNodeResponse);
+        assertNull(resultTopologyNodeResponse.getMacAddress());
+    }
+
+    @Test
+    void whenMapDeviceDtoToDeviceRecord_thenPathAndDepthAreDerivedFromUplink() {
+        var uplink = deviceMapper.mapDeviceDtoToDeviceRecord(new RegisterDeviceRequest(DeviceType.GATEWAY, parentMacAddress), null);
+
+        var resultDeviceRecord = deviceMapper.mapDeviceDtoToDeviceRecord(
+                new RegisterDeviceRequest(DeviceType.ACCESS_POINT, "00-1a-2b-3c-4d-5e"), uplink);
+
+        assertNotNull(resultDeviceRecord.id());
+        assertEquals(MacAddress.parse(childMacAddress).toLong(), resultDeviceRecord.macAddress());
+        assertEquals(3, resultDeviceRecord.typeRank());
+        assertEquals(1, resultDeviceRecord.depth());
+        assertEquals("607A8B9C4D5E001A2B3C4D5E", resultDeviceRecord.path());
+        assertEquals(uplink.id(), resultDeviceRecord.uplinkId());
+        assertEquals(0, uplink.depth());
+        assertNull(uplink.uplinkId());
+    }
+
+    @Test
+    void whenMapDeviceRecordToRegisterDeviceResponse_thenReturnRegisterDeviceResponse() {
+        var uplink = deviceMapper.mapDeviceDtoToDeviceRecord(new RegisterDeviceRequest(DeviceType.GATEWAY, parentMacAddress), null);
+        var record = deviceMapper.mapDeviceDtoToDeviceRecord(new RegisterDeviceRequest(DeviceType.SWITCH, childMacAddress), uplink);
+
+        var resultRegisterDeviceResponse = deviceMapper.mapDeviceRecordToRegisterDeviceResponse(record, uplink);
+
+        assertEquals(record.id(), resultRegisterDeviceResponse.getId());
+        assertEquals(DeviceType.SWITCH, resultRegisterDeviceResponse.getDeviceType());
+        assertEquals(childMacAddress, resultRegisterDeviceResponse.getMacAddress());
+        assertEquals(parentMacAddress, resultRegisterDeviceResponse.getUplinkMacAddress());
+        assertEquals(childMacAddress, deviceMapper.mapDeviceRecordToDeviceResponse(record).getMacAddress());
+    }
+
+    @Test
+    void whenMapDeviceChangeRowToTopologyChange_thenReturnTopologyChange() {
+        var row = mock(DeviceChangeRow.class);
+        when(row.getDeviceType()).thenReturn(DeviceType.SWITCH);
+        when(row.getMacAddress()).thenReturn(MacAddress.parse(childMacAddress));
+        when(row.getUplinkMacAddress()).thenReturn(MacAddress.parse(parentMacAddress));
+        when(row.getChangeSeq()).thenReturn(42L);
+
+        var resultTopologyChange = deviceMapper.mapDeviceChangeRowToTopologyChange(row);
+
+        assertEquals(childMacAddress, resultTopologyChange.getMacAddress());
+        assertEquals(DeviceType.SWITCH, resultTopologyChange.getDeviceType());
+        assertEquals(parentMacAddress, resultTopologyChange.getUplinkMacAddress());
+        assertEquals(42L, resultTopologyChange.getTopologyVersion());
+    }
+
+    @Test
+    void whenMapDeviceChangeRecordToTopologyChange_andRootDevice_thenUplinkIsNull() {
+        var record = new DeviceChangeRecord(MacAddress.parse(parentMacAddress).toLong(), DeviceType.GATEWAY, null, 7L);
+
+        var resultTopologyChange = deviceMapper.mapDeviceChangeRecordToTopologyChange(record);
+
+        assertEquals(parentMacAddress, resultTopologyChange.getMacAddress());
+        assertNull(resultTopologyChange.getUplinkMacAddress());
+        assertEquals(7L, resultTopologyChange.getTopologyVersion());
+    }
+
+    @Test
+    void whenMapDeviceRegisteredEventToTopologyChange_thenVersionIsChangeSeq() {
+        var event = new DeviceRegisteredEvent(UUID.randomUUID(), DeviceType.ACCESS_POINT, MacAddress.parse(childMacAddress),
+                MacAddress.parse(parentMacAddress), 9);
+
+        var resultTopologyChange = deviceMapper.mapDeviceRegisteredEventToTopologyChange(event);
+
+        assertEquals(childMacAddress, resultTopologyChange.getMacAddress());
+        assertEquals(parentMacAddress, resultTopologyChange.getUplinkMacAddress());
+        assertEquals(9L, resultTopologyChange.getTopologyVersion());
+    }
+}
@@ -0,0 +1,181 @@
+package com.piotr.network.deviceapims.mapper;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.generated.model.DeviceResponse;
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+import com.piotr.network.deviceapims.generated.model.ErrorResponse;
+import com.piotr.network.deviceapims.generated.model.TopologyNodeResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeviceProtobufWriterTest {
+
+    private final String gatewayMacAddress = "00:1A:2B:3C:4D:5E";
+    private final String switchMacAddress = "10:1A:2B:3C:4D:5E";
+    private final String accessPointMacAddress = "20:1A:2B:3C:4D:5E";
+
+    @Test
+    void whenWriteTopology_thenNodesAreFlatAndLinkedByParentIndex() throws IOException {
+        var gateway = node(gatewayMacAddress, node(switchMacAddress, node(accessPointMacAddress)));
+        var otherRoot = node("30:1A:2B:3C:4D:5E");
+        var out = new ByteArrayOutputStream();
+        //call method
+        DeviceProtobufWriter.writeTopology(List.of(gateway, otherRoot), out);
+        //assertion
+        var roots = readTree(out.toByteArray());
+        assertEquals(List.of(gateway, otherRoot), roots);
+    }
+
+    @Test
+    void whenWriteTopologyNode_thenRootIsTheFirstNode() throws IOException {
+        var gateway = node(gatewayMacAddress, node(switchMacAddress), node(accessPointMacAddress));
+        var out = new ByteArrayOutputStream();
+        //call method
+        DeviceProtobufWriter.writeTopologyNode(gateway, out);
+        //assertion
+        assertEquals(List.of(gateway), readTree(out.toByteArray()));
+    }
+
+    @Test
+    void whenWriteTopology_thenMacAddressesAreSmallerThanJson() throws IOException {
+        var out = new ByteArrayOutputStream();
+        //call method
+        DeviceProtobufWriter.writeTopologyNode(node(gatewayMacAddress), out);
+        //assertion
+        var input = CodedInputStream.newInstance(out.toByteArray());
+        assertEquals(tag(DeviceProtobufWriter.NODE_LIST_NODES, WireFormat.WIRETYPE_LENGTH_DELIMITED), input.readTag());
+        input.readRawVarint32();
+        assertEquals(tag(DeviceProtobufWriter.NODE_MAC_ADDRESS, WireFormat.WIRETYPE_VARINT), input.readTag());
+        assertEquals(MacAddress.parse(gatewayMacAddress).toLong(), input.readUInt64());
+        assertTrue(input.isAtEnd());
+        assertTrue(out.size() <= 10);
+    }
+
+    @Test
+    void whenWriteDeepChain_thenNodesDoNotNest() throws IOException {
+        var root = node(MacAddress.of(1).toString());
+        var last = root;
+        for (int depth = 2; depth <= 100_000; depth++) {
+            var child = node(MacAddress.of(depth).toString());
+            last.getChildren().add(child);
+            last = child;
+        }
+        var out = new ByteArrayOutputStream();
+        //call method
+        DeviceProtobufWriter.writeTopology(List.of(root), out);
+        //assertion
+        var nodes = readNodes(out.toByteArray());
+        assertEquals(100_000, nodes.size());
+        for (int position = 0; position < nodes.size(); position++) {
+            assertEquals(position + 1, nodes.get(position).macAddress());
+            assertEquals(position - 1, nodes.get(position).parentIndex());
+        }
+    }
+
+    @Test
+    void whenWriteDevices_thenEveryDeviceIsADeviceMessage() throws IOException {
+        var devices = List.of(
+                new DeviceResponse().deviceType(DeviceType.GATEWAY).macAddress(gatewayMacAddress),
+                new DeviceResponse().deviceType(DeviceType.ACCESS_POINT).macAddress(accessPointMacAddress));
+        var out = new ByteArrayOutputStream();
+        //call method
+        DeviceProtobufWriter.writeDevices(devices, out);
+        //assertion
+        var input = CodedInputStream.newInstance(out.toByteArray());
+        List<DeviceResponse> result = new ArrayList<>();
+        while (!input.isAtEnd()) {
+            assertEquals(tag(DeviceProtobufWriter.DEVICE_LIST_DEVICES, WireFormat.WIRETYPE_LENGTH_DELIMITED),
+                    input.readTag());
+            int limit = input.pushLimit(input.readRawVarint32());
+            result.add(readDevice(input));
+            input.popLimit(limit);
+        }
+        assertEquals(devices, result);
+    }
+
+    @Test
+    void whenWriteError_thenCodeAndMessageAreStrings() throws IOException {
+        var out = new ByteArrayOutputStream();
+        //call method
+        DeviceProtobufWriter.writeError(new ErrorResponse("404 NOT_FOUND", "Device not found"), out);
+        //assertion
+        var input = CodedInputStream.newInstance(out.toByteArray());
+        input.readTag();
+        assertEquals("404 NOT_FOUND", input.readString());
+        input.readTag();
+        assertEquals("Device not found", input.readString());
+        assertTrue(input.isAtEnd());
+    }
+
+    private static TopologyNodeResponse node(String macAddress, TopologyNodeResponse... children) {
+        return new TopologyNodeResponse(macAddress).children(new ArrayList<>(List.of(children)));
+    }
+
+    private static List<TopologyNodeResponse> readTree(byte[] bytes) throws IOException {
+        List<TopologyNodeResponse> roots = new ArrayList<>();
+        List<TopologyNodeResponse> positions = new ArrayList<>();
+        for (var flatNode : readNodes(bytes)) {
+            var node = node(MacAddress.of(flatNode.macAddress()).toString());
+            if (flatNode.parentIndex() < 0) {
+                roots.add(node);
+            } else {
+                positions.get(flatNode.parentIndex()).getChildren().add(node);
+            }
+            positions.add(node);
+        }
+        return roots;
+    }
+
+    private static List<FlatNode> readNodes(byte[] bytes) throws IOException {
+        var input = CodedInputStream.newInstance(bytes);
+        List<FlatNode> nodes = new ArrayList<>();
+        while (!input.isAtEnd()) {
+            assertEquals(tag(DeviceProtobufWriter.NODE_LIST_NODES, WireFormat.WIRETYPE_LENGTH_DELIMITED),
+                    input.readTag());
+            int limit = input.pushLimit(input.readRawVarint32());
+            long macAddress = 0;
+            int parentIndex = -1;
+            int tag;
+            while ((tag = input.readTag()) != 0) {
+                if (WireFormat.getTagFieldNumber(tag) == DeviceProtobufWriter.NODE_MAC_ADDRESS) {
+                    macAddress = input.readUInt64();
+                } else {
+                    assertEquals(DeviceProtobufWriter.NODE_PARENT_INDEX, WireFormat.getTagFieldNumber(tag));
+                    parentIndex = input.readUInt32();
+                    assertTrue(parentIndex < nodes.size());
+                }
+            }
+            input.popLimit(limit);
+            nodes.add(new FlatNode(macAddress, parentIndex));
+        }
+        return nodes;
+    }
+
+    private static int tag(int fieldNumber, int wireType) {
+        return (fieldNumber << 3) | wireType;
+    }
+
+    private record FlatNode(long macAddress, int parentIndex) {
+    }
+
+    private static DeviceResponse readDevice(CodedInputStream input) throws IOException {
+        var device = new DeviceResponse();
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            if (WireFormat.getTagFieldNumber(tag) == DeviceProtobufWriter.DEVICE_TYPE) {
+                device.setDeviceType(DeviceType.values()[input.readEnum() - 1]);
+            } else {
+                device.setMacAddress(MacAddress.of(input.readUInt64()).toString());
+            }
+        }
+        return device;
+    }
+}
@@ -0,0 +1,62 @@
+package com.piotr.network.deviceapims.mapper;
+
+import com.fasterxml.jackson.core.StreamWriteConstraints;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.generated.model.TopologyNodeResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopologyNodeResponseSerializerTest {
+
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setup() {
+        objectMapper = new ObjectMapper().registerModule(new SimpleModule()
+                .addSerializer(TopologyNodeResponse.class, new TopologyNodeResponseSerializer()));
+        objectMapper.getFactory().setStreamWriteConstraints(
+                StreamWriteConstraints.builder().maxNestingDepth(100_000).build());
+    }
+
+    @Test
+    void whenSerialize_thenWriteNestedChildren() throws Exception {
+        var root = node("00:1A:2B:3C:4D:5E");
+        root.getChildren().add(node("10:1A:2B:3C:4D:5E"));
+        root.getChildren().add(node("20:1A:2B:3C:4D:5E"));
+        root.getChildren().get(0).getChildren().add(node("30:1A:2B:3C:4D:5E"));
+
+        var json = objectMapper.writeValueAsString(List.of(root));
+
+        assertEquals("[{\"macAddress\":\"00:1A:2B:3C:4D:5E\",\"children\":["
+                + "{\"macAddress\":\"10:1A:2B:3C:4D:5E\",\"children\":["
+                + "{\"macAddress\":\"30:1A:2B:3C:4D:5E\",\"children\":[]}]},"
+                + "{\"macAddress\":\"20:1A:2B:3C:4D:5E\",\"children\":[]}]}]", json);
+    }
+
+    @Test
+    void whenSerializeLongChain_thenDoNotOverflowTheStack() throws Exception {
+        var root = node(MacAddress.of(0).toString());
+        var last = root;
+        for (int i = 1; i < 20_000; i++) {
+            var child = node(MacAddress.of(i).toString());
+            last.getChildren().add(child);
+            last = child;
+        }
+
+        var json = objectMapper.writeValueAsString(root);
+
+        assertTrue(json.startsWith("{\"macAddress\":\"00:00:00:00:00:00\",\"children\":[{"));
+        assertTrue(json.contains("\"macAddress\":\"00:00:00:00:4E:1F\",\"children\":[]"));
+    }
+
+    private static TopologyNodeResponse node(String macAddress) {
+        return new TopologyNodeResponse(macAddress).children(new ArrayList<>());
+    }
+}
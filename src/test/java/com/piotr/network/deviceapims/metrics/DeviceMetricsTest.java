@@ -0,0 +1,83 @@
+package com.piotr.network.deviceapims.metrics;
+
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.event.DeviceRegisteredEvent;
+import com.piotr.network.deviceapims.generated.model.BatchRegisterDeviceResponse;
+import com.piotr.network.deviceapims.generated.model.BatchRegisterDeviceResult;
+import com.piotr.network.deviceapims.generated.model.BatchRegisterDeviceStatus;
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+import com.piotr.network.deviceapims.generated.model.TopologyNodeResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DeviceMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private DeviceMetrics deviceMetrics;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        deviceMetrics = new DeviceMetrics(meterRegistry);
+    }
+
+    @Test
+    void whenDeviceRegistered_thenRegistrationIsCountedByType() {
+        //call method
+        deviceMetrics.onDeviceRegistered(new DeviceRegisteredEvent(UUID.randomUUID(), DeviceType.SWITCH,
+                MacAddress.of(1), null, 1));
+        deviceMetrics.onDeviceRegistered(new DeviceRegisteredEvent(UUID.randomUUID(), DeviceType.SWITCH,
+                MacAddress.of(2), null, 2));
+        //assertion
+        assertEquals(2, meterRegistry.get(DeviceMetrics.REGISTRATIONS).tag("type", "switch").counter().count());
+    }
+
+    @Test
+    void whenBatchHasRejectedItems_thenRejectionsAreCountedByReason() {
+        var response = new BatchRegisterDeviceResponse().registered(1).rejected(2).results(List.of(
+                new BatchRegisterDeviceResult().index(0).status(BatchRegisterDeviceStatus.REGISTERED),
+                new BatchRegisterDeviceResult().index(1).status(BatchRegisterDeviceStatus.DUPLICATE),
+                new BatchRegisterDeviceResult().index(2).status(BatchRegisterDeviceStatus.PARENT_NOT_FOUND)));
+        //call method
+        deviceMetrics.recordRejectedRegistrations(response);
+        deviceMetrics.recordRejectedRegistration(BatchRegisterDeviceStatus.DUPLICATE);
+        //assertion
+        assertEquals(2, meterRegistry.get(DeviceMetrics.REJECTED_REGISTRATIONS).tag("reason", "duplicate").counter().count());
+        assertEquals(1, meterRegistry.get(DeviceMetrics.REJECTED_REGISTRATIONS).tag("reason", "parentNotFound").counter().count());
+    }
+
+    @Test
+    void whenNotFound_thenCounted() {
+        //call method
+        deviceMetrics.recordNotFound();
+        //assertion
+        assertEquals(1, meterRegistry.get(DeviceMetrics.NOT_FOUND).counter().count());
+    }
+
+    @Test
+    void whenTopologyRecorded_thenNodeCountAndDepthAreRecorded() {
+        var leaf = node("00:00:00:00:00:03");
+        var inner = node("00:00:00:00:00:02");
+        inner.getChildren().add(leaf);
+        var root = node("00:00:00:00:00:01");
+        root.getChildren().add(inner);
+        //call method
+        deviceMetrics.recordTopology("devicesTopologyGet", List.of(root, node("00:00:00:00:00:04")));
+        //assertion
+        var nodes = meterRegistry.get(DeviceMetrics.TOPOLOGY_NODES).tag("operation", "devicesTopologyGet").summary();
+        var depth = meterRegistry.get(DeviceMetrics.TOPOLOGY_DEPTH).tag("operation", "devicesTopologyGet").summary();
+        assertEquals(4, nodes.totalAmount());
+        assertEquals(2, depth.totalAmount());
+    }
+
+    private static TopologyNodeResponse node(String macAddress) {
+        return new TopologyNodeResponse(macAddress).children(new ArrayList<>());
+    }
+}
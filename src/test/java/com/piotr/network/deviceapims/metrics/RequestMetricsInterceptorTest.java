@@ -0,0 +1,76 @@
+package com.piotr.network.deviceapims.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RequestMetricsInterceptorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RequestMetricsInterceptor interceptor;
+    private HandlerMethod handler;
+
+    @BeforeEach
+    void setup() throws NoSuchMethodException {
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new RequestMetricsInterceptor(meterRegistry);
+        handler = new HandlerMethod(new Handler(), Handler.class.getMethod("getAllDevices"));
+    }
+
+    @Test
+    void whenRequestCompletes_thenOperationIsTimedAndStatementsAreCounted() {
+        var request = new MockHttpServletRequest("GET", "/devices");
+        var response = new MockHttpServletResponse();
+        var inspector = new QueryCountInspector();
+        //call method
+        interceptor.preHandle(request, response, handler);
+        inspector.inspect("select 1");
+        inspector.inspect("select 2");
+        response.setStatus(404);
+        interceptor.afterCompletion(request, response, handler, null);
+        //assertion
+        var timer = meterRegistry.get(RequestMetricsInterceptor.REQUESTS)
+                .tag("operation", "getAllDevices").tag("status", "404").timer();
+        var queries = meterRegistry.get(RequestMetricsInterceptor.QUERIES).tag("operation", "getAllDevices").summary();
+        assertEquals(1, timer.count());
+        assertEquals(2, queries.totalAmount());
+    }
+
+    @Test
+    void whenAsyncDispatchCompletes_thenOnlyTheOperationIsTimed() {
+        var request = new MockHttpServletRequest("GET", "/devices");
+        var response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, handler);
+        request.setDispatcherType(DispatcherType.ASYNC);
+        //call method
+        interceptor.preHandle(request, response, handler);
+        interceptor.afterCompletion(request, response, handler, null);
+        //assertion
+        assertEquals(1, meterRegistry.get(RequestMetricsInterceptor.REQUESTS).timer().count());
+        assertNull(meterRegistry.find(RequestMetricsInterceptor.QUERIES).summary());
+    }
+
+    @Test
+    void whenHandlerIsNotAMethod_thenNothingIsRecorded() {
+        var request = new MockHttpServletRequest("GET", "/devices/unknown.css");
+        var response = new MockHttpServletResponse();
+        //call method
+        interceptor.preHandle(request, response, new Object());
+        interceptor.afterCompletion(request, response, new Object(), null);
+        //assertion
+        assertNull(meterRegistry.find(RequestMetricsInterceptor.REQUESTS).timer());
+    }
+
+    static class Handler {
+        public void getAllDevices() {
+            //handler stub
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.piotr.network.deviceapims.registration;
+
+import com.piotr.network.deviceapims.exception.RegistrationQueueFullException;
+import com.piotr.network.deviceapims.generated.model.BatchRegisterDeviceResponse;
+import com.piotr.network.deviceapims.generated.model.BatchRegisterDeviceResult;
+import com.piotr.network.deviceapims.generated.model.BatchRegisterDeviceStatus;
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+import com.piotr.network.deviceapims.generated.model.RegisterDeviceRequest;
+import com.piotr.network.deviceapims.generated.model.RegistrationStatus;
+import com.piotr.network.deviceapims.metrics.DeviceMetrics;
+import com.piotr.network.deviceapims.service.DeviceService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RegistrationQueueTest {
+
+    @Mock
+    DeviceService deviceService;
+    @Mock
+    DeviceMetrics deviceMetrics;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RegistrationQueue registrationQueue;
+
+    private final RegisterDeviceRequest gateway = new RegisterDeviceRequest(DeviceType.GATEWAY, "00:1A:2B:3C:4D:5E");
+    private final RegisterDeviceRequest accessPoint = new RegisterDeviceRequest(DeviceType.ACCESS_POINT, "10:1a:2b:3c:4d:5e")
+            .uplinkMacAddress("00:1A:2B:3C:4D:5E");
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        registrationQueue = new RegistrationQueue(true, 2, 10, Duration.ofMinutes(1), Duration.ofSeconds(3),
+                deviceService, deviceMetrics, meterRegistry);
+    }
+
+    @Test
+    void whenSubmitted_thenQueuedUntilWritten() {
+        //call method
+        var trackingId = registrationQueue.submit(accessPoint);
+        //assertion
+        var status = registrationQueue.getStatus(trackingId).orElseThrow();
+        assertEquals(RegistrationStatus.QUEUED, status.getStatus());
+        assertEquals("10:1A:2B:3C:4D:5E", status.getMacAddress());
+        assertEquals(1, meterRegistry.get(RegistrationQueue.QUEUED).gauge().value());
+        verify(deviceService, never()).registerDevices(anyList());
+    }
+
+    @Test
+    void whenQueueFull_thenRefusedWithRetryAfter() {
+        registrationQueue.submit(gateway);
+        registrationQueue.submit(accessPoint);
+        //call method
+        var exception = assertThrows(RegistrationQueueFullException.class,
+                () -> registrationQueue.submit(new RegisterDeviceRequest(DeviceType.SWITCH, "20:1A:2B:3C:4D:5E")));
+        //assertion
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getStatus());
+        assertEquals(Duration.ofSeconds(3), exception.getRetryAfter());
+        assertEquals(1, meterRegistry.get(RegistrationQueue.THROTTLED).counter().count());
+    }
+
+    @Test
+    void whenInvalidMacAddress_thenNotQueued() {
+        var request = new RegisterDeviceRequest(DeviceType.SWITCH, "20:1A:2B:3C:4D:5E").uplinkMacAddress("invalid");
+        //call method
+        assertThrows(IllegalArgumentException.class, () -> registrationQueue.submit(request));
+        //assertion
+        assertEquals(0, registrationQueue.writeQueued());
+    }
+
+    @Test
+    void whenWritten_thenQueuedRegistrationsShareOneBatch() {
+        var deviceId = UUID.randomUUID();
+        when(deviceService.registerDevices(List.of(gateway, accessPoint))).thenReturn(new BatchRegisterDeviceResponse()
+                .registered(1).rejected(1).results(List.of(
+                        new BatchRegisterDeviceResult().index(0).macAddress("00:1A:2B:3C:4D:5E")
+                                .status(BatchRegisterDeviceStatus.REGISTERED).id(deviceId),
+                        new BatchRegisterDeviceResult().index(1).macAddress("10:1A:2B:3C:4D:5E")
+                                .status(BatchRegisterDeviceStatus.PARENT_NOT_FOUND).message("Parent device with MAC 00:1A:2B:3C:4D:5E not found"))));
+        var gatewayTrackingId = registrationQueue.submit(gateway);
+        var accessPointTrackingId = registrationQueue.submit(accessPoint);
+        //call method
+        var written = registrationQueue.writeQueued();
+        //assertion
+        assertEquals(2, written);
+        var gatewayStatus = registrationQueue.getStatus(gatewayTrackingId).orElseThrow();
+        assertEquals(RegistrationStatus.REGISTERED, gatewayStatus.getStatus());
+        assertEquals(deviceId, gatewayStatus.getId());
+        var accessPointStatus = registrationQueue.getStatus(accessPointTrackingId).orElseThrow();
+        assertEquals(RegistrationStatus.PARENT_NOT_FOUND, accessPointStatus.getStatus());
+        assertEquals("Parent device with MAC 00:1A:2B:3C:4D:5E not found", accessPointStatus.getMessage());
+        assertEquals(2, meterRegistry.get(RegistrationQueue.BATCH_SIZE).summary().max());
+        verify(deviceMetrics).recordRejectedRegistrations(any(BatchRegisterDeviceResponse.class));
+    }
+
+    @Test
+    void whenBatchFails_thenItemsAreWrittenOneByOne() {
+        var batches = new ArrayList<List<RegisterDeviceRequest>>();
+        when(deviceService.registerDevices(anyList())).thenAnswer(invocation -> {
+            List<RegisterDeviceRequest> requests = invocation.getArgument(0);
+            batches.add(requests);
+            if (requests.size() > 1 || requests.get(0) == gateway) {
+                throw new DataIntegrityViolationException("duplicate key");
+            }
+            return new BatchRegisterDeviceResponse().registered(1).rejected(0).results(List.of(
+                    new BatchRegisterDeviceResult().index(0).macAddress("10:1A:2B:3C:4D:5E")
+                            .status(BatchRegisterDeviceStatus.REGISTERED).id(UUID.randomUUID())));
+        });
+        var gatewayTrackingId = registrationQueue.submit(gateway);
+        var accessPointTrackingId = registrationQueue.submit(accessPoint);
+        //call method
+        registrationQueue.writeQueued();
+        //assertion
+        assertEquals(List.of(List.of(gateway, accessPoint), List.of(gateway), List.of(accessPoint)), batches);
+        var gatewayStatus = registrationQueue.getStatus(gatewayTrackingId).orElseThrow();
+        assertEquals(RegistrationStatus.FAILED, gatewayStatus.getStatus());
+        assertEquals(RegistrationQueue.WRITE_FAILED, gatewayStatus.getMessage());
+        assertEquals(RegistrationStatus.REGISTERED, registrationQueue.getStatus(accessPointTrackingId).orElseThrow().getStatus());
+    }
+
+    @Test
+    void whenStatusRetentionElapsed_thenOnlyQueuedStatusesAreKept() {
+        registrationQueue = new RegistrationQueue(true, 2, 10, Duration.ZERO, Duration.ofSeconds(3),
+                deviceService, deviceMetrics, meterRegistry);
+        when(deviceService.registerDevices(List.of(gateway))).thenReturn(new BatchRegisterDeviceResponse()
+                .registered(1).rejected(0).results(List.of(
+                        new BatchRegisterDeviceResult().index(0).macAddress("00:1A:2B:3C:4D:5E")
+                                .status(BatchRegisterDeviceStatus.REGISTERED).id(UUID.randomUUID()))));
+        //call method
+        var trackingId = registrationQueue.submit(gateway);
+        //assertion
+        assertEquals(RegistrationStatus.QUEUED, registrationQueue.getStatus(trackingId).orElseThrow().getStatus());
+        //when
+        registrationQueue.writeQueued();
+        //assertion
+        assertTrue(registrationQueue.getStatus(trackingId).isEmpty());
+    }
+
+    @Test
+    void whenUnknownTrackingId_thenNoStatus() {
+        //call method
+        var status = registrationQueue.getStatus(UUID.randomUUID());
+        //assertion
+        assertTrue(status.isEmpty());
+    }
+}
@@ -0,0 +1,62 @@
+package com.piotr.network.deviceapims.repository;
+
+import com.piotr.network.deviceapims.entity.DeviceEntity;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.SimpleNaturalIdLoadAccess;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DeviceNaturalIdRepositoryImplTest {
+
+    @Mock
+    EntityManager entityManager;
+    @Mock
+    Session session;
+    @Mock
+    SimpleNaturalIdLoadAccess<DeviceEntity> naturalIdLoadAccess;
+    DeviceNaturalIdRepositoryImpl repository;
+
+    private final MacAddress macAddress = MacAddress.parse("00:1A:2B:3C:4D:5E");
+
+    @BeforeEach
+    void setUp() {
+        //the Session mock is an EntityManager too, so the constructor argument is passed explicitly
+        repository = new DeviceNaturalIdRepositoryImpl(entityManager);
+    }
+
+    @Test
+    void whenFindByMacAddress_thenDeviceIsLoadedByNaturalId() {
+        var device = new DeviceEntity();
+        device.setMacAddress(macAddress);
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        when(session.bySimpleNaturalId(DeviceEntity.class)).thenReturn(naturalIdLoadAccess);
+        when(naturalIdLoadAccess.loadOptional(macAddress)).thenReturn(Optional.of(device));
+        //call method
+        var result = repository.findByMacAddress(macAddress);
+        //assertion
+        assertEquals(device, result.orElseThrow());
+    }
+
+    @Test
+    void whenFindByUnknownMacAddress_thenEmpty() {
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        when(session.bySimpleNaturalId(DeviceEntity.class)).thenReturn(naturalIdLoadAccess);
+        when(naturalIdLoadAccess.loadOptional(macAddress)).thenReturn(Optional.empty());
+        //call method
+        var result = repository.findByMacAddress(macAddress);
+        //assertion
+        assertTrue(result.isEmpty());
+    }
+}
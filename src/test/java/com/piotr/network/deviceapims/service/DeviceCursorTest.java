@@ -0,0 +1,31 @@
+package com.piotr.network.deviceapims.service;
+
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.exception.InvalidRequestException;
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeviceCursorTest {
+
+    @Test
+    void whenEncode_thenDecodeReturnsSamePosition() {
+        var cursor = DeviceCursor.after(DeviceType.ACCESS_POINT, MacAddress.parse("FF:FF:FF:FF:FF:FF"));
+
+        var token = cursor.encode();
+
+        assertEquals(cursor, DeviceCursor.decode(token));
+        assertTrue(token.chars().allMatch(c -> Character.isLetterOrDigit(c) || c == '-' || c == '_'));
+    }
+
+    @Test
+    void whenDecodeInvalidToken_thenThrowInvalidRequestException() {
+        InvalidRequestException exception = assertThrows(
+                InvalidRequestException.class, () -> DeviceCursor.decode("AAAA"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        assertThrows(InvalidRequestException.class, () -> DeviceCursor.decode("%%%"));
+    }
+}
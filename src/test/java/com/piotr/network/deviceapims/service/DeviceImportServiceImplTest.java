@@ -0,0 +1,172 @@
+package com.piotr.network.deviceapims.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.event.DevicesImportedEvent;
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+import com.piotr.network.deviceapims.repository.DeviceImportRepository;
+import com.piotr.network.deviceapims.repository.DeviceImportRow;
+import com.piotr.network.deviceapims.snapshot.ChangeSequence;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DeviceImportServiceImplTest {
+
+    @Mock
+    DeviceImportRepository deviceImportRepository;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+    @Mock
+    ChangeSequence changeSequence;
+
+    private final List<DeviceImportRow> staged = new ArrayList<>();
+    private DeviceImportServiceImpl service;
+
+    private final MacAddress gatewayMac = MacAddress.parse("00:1A:2B:3C:4D:5E");
+    private final MacAddress switchMac = MacAddress.parse("10:1A:2B:3C:4D:5E");
+
+    @BeforeEach
+    void setup() {
+        service = new DeviceImportServiceImpl(deviceImportRepository, changeSequence, eventPublisher, new ObjectMapper(), 10);
+        when(deviceImportRepository.stage(any())).thenAnswer(invocation -> {
+            Iterator<DeviceImportRow> rows = invocation.getArgument(0);
+            rows.forEachRemaining(staged::add);
+            return staged.size();
+        });
+    }
+
+    @Test
+    void whenImportCsv_thenValidLinesAreStagedAndInvalidLinesRejected() {
+        var csv = """
+                deviceType,macAddress,uplinkMacAddress
+                switch,10:1A:2B:3C:4D:5E,00:1A:2B:3C:4D:5E
+
+                GATEWAY,"00-1a-2b-3c-4d-5e",
+                router,20:1A:2B:3C:4D:5E,
+                accessPoint,not-a-mac
+                accessPoint,30:1A:2B:3C:4D:5E,30:1A:2B:3C:4D:5E
+                """;
+        when(changeSequence.next(2)).thenReturn(1000L);
+        when(deviceImportRepository.insertResolved(1000)).thenReturn(2);
+        when(deviceImportRepository.countInsertedByType()).thenReturn(Map.of(DeviceType.GATEWAY, 1, DeviceType.SWITCH, 1));
+        //call method
+        var result = service.importDevices(stream(csv), DeviceImportFormat.CSV);
+        //assertion
+        assertEquals(List.of(2L, 4L), staged.stream().map(DeviceImportRow::line).toList());
+        assertEquals(DeviceType.SWITCH, staged.get(0).deviceType());
+        assertEquals(switchMac, staged.get(0).macAddress());
+        assertEquals(gatewayMac, staged.get(0).uplinkMacAddress());
+        assertEquals(gatewayMac, staged.get(1).macAddress());
+        assertNull(staged.get(1).uplinkMacAddress());
+        assertEquals(2, result.imported());
+        assertEquals(3, result.rejected());
+        assertEquals(List.of(5L, 6L, 7L), result.rejections().stream().map(DeviceImportRejection::line).toList());
+        assertTrue(result.rejections().stream().allMatch(rejection -> rejection.reason() == DeviceImportRejection.Reason.INVALID));
+        assertEquals("Invalid device type router", result.rejections().get(0).message());
+        verify(eventPublisher).publishEvent(new DevicesImportedEvent(
+                Map.of(DeviceType.GATEWAY, 1, DeviceType.SWITCH, 1), 1000, 1001));
+    }
+
+    @Test
+    void whenImportNdjson_thenObjectsAreStaged() {
+        var ndjson = """
+                {"deviceType":"gateway","macAddress":"00:1A:2B:3C:4D:5E","uplinkMacAddress":null}
+                {"deviceType":"switch","macAddress":"10:1A:2B:3C:4D:5E","uplinkMacAddress":"00:1A:2B:3C:4D:5E"}
+                {"deviceType":"switch"
+                ["switch","20:1A:2B:3C:4D:5E"]
+                """;
+        when(deviceImportRepository.insertResolved(anyLong())).thenReturn(2);
+        //call method
+        var result = service.importDevices(stream(ndjson), DeviceImportFormat.NDJSON);
+        //assertion
+        assertEquals(List.of(gatewayMac, switchMac), staged.stream().map(DeviceImportRow::macAddress).toList());
+        assertEquals(gatewayMac, staged.get(1).uplinkMacAddress());
+        assertEquals(2, result.rejected());
+        assertTrue(result.rejections().get(0).message().startsWith("Malformed JSON"));
+        assertEquals("Expected a JSON object", result.rejections().get(1).message());
+    }
+
+    @Test
+    void whenDuplicatesAndMissingParents_thenRejectedAndRestImported() {
+        var csv = """
+                gateway,00:1A:2B:3C:4D:5E
+                switch,10:1A:2B:3C:4D:5E,00:1A:2B:3C:4D:5E
+                switch,20:1A:2B:3C:4D:5E,F0:1A:2B:3C:4D:5E
+                gateway,00:1A:2B:3C:4D:5E
+                """;
+        when(deviceImportRepository.findDuplicates(10)).thenReturn(List.of(row(4, gatewayMac, null)));
+        when(deviceImportRepository.deleteDuplicates()).thenReturn(1);
+        when(changeSequence.next(3)).thenReturn(1000L);
+        when(deviceImportRepository.insertResolved(1000)).thenReturn(2);
+        when(deviceImportRepository.findNotInserted(10))
+                .thenReturn(List.of(row(3, MacAddress.parse("20:1A:2B:3C:4D:5E"), MacAddress.parse("F0:1A:2B:3C:4D:5E"))));
+        when(deviceImportRepository.countInsertedByType()).thenReturn(Map.of(DeviceType.GATEWAY, 1, DeviceType.SWITCH, 1));
+        //call method
+        var result = service.importDevices(stream(csv), DeviceImportFormat.CSV);
+        //assertion
+        assertEquals(2, result.imported());
+        assertEquals(2, result.rejected());
+        assertEquals(DeviceImportRejection.Reason.PARENT_NOT_FOUND, result.rejections().get(0).reason());
+        assertEquals("Parent device with MAC F0:1A:2B:3C:4D:5E not found", result.rejections().get(0).message());
+        assertEquals(DeviceImportRejection.Reason.DUPLICATE, result.rejections().get(1).reason());
+        assertEquals(4, result.rejections().get(1).line());
+        //a block was taken for the three resolvable rows
+        verify(changeSequence).next(3);
+        verify(eventPublisher).publishEvent(new DevicesImportedEvent(
+                Map.of(DeviceType.GATEWAY, 1, DeviceType.SWITCH, 1), 1000, 1001));
+    }
+
+    @Test
+    void whenNothingValid_thenNothingIsInserted() {
+        //call method
+        var result = service.importDevices(stream("deviceType,macAddress\n\n"), DeviceImportFormat.CSV);
+        //assertion
+        assertEquals(new DeviceImportResult(0, 0, List.of()), result);
+        verify(deviceImportRepository, never()).findDuplicates(anyInt());
+        verify(deviceImportRepository, never()).insertResolved(anyLong());
+        verify(eventPublisher, never()).publishEvent(any(DevicesImportedEvent.class));
+    }
+
+    @Test
+    void whenMoreRejectionsThanReported_thenAllAreCounted() {
+        var csv = new StringBuilder();
+        for (int line = 0; line < 25; line++) {
+            csv.append("gateway,invalid\n");
+        }
+        //call method
+        var result = service.importDevices(stream(csv.toString()), DeviceImportFormat.CSV);
+        //assertion
+        assertEquals(25, result.rejected());
+        assertEquals(10, result.rejections().size());
+        assertEquals(1, result.rejections().get(0).line());
+    }
+
+    private static DeviceImportRow row(long line, MacAddress macAddress, MacAddress uplinkMacAddress) {
+        return new DeviceImportRow(UUID.randomUUID(), line, DeviceType.SWITCH, macAddress, uplinkMacAddress);
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
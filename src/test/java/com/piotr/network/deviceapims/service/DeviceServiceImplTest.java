@@ -1,26 +1,55 @@
 package com.piotr.network.deviceapims.service;
 
+import com.piotr.network.deviceapims.cache.DeviceLookupCache;
 import com.piotr.network.deviceapims.entity.DeviceEntity;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.event.DeviceRegisteredEvent;
+import com.piotr.network.deviceapims.exception.DuplicateDeviceException;
 import com.piotr.network.deviceapims.exception.InvalidRequestException;
 import com.piotr.network.deviceapims.generated.model.*;
+import com.piotr.network.deviceapims.index.MacAddressFilter;
+import com.piotr.network.deviceapims.index.TopologyIndex;
 import com.piotr.network.deviceapims.mapper.DeviceMapper;
+import com.piotr.network.deviceapims.repository.DeviceChangeRow;
 import com.piotr.network.deviceapims.repository.DeviceRepository;
+import com.piotr.network.deviceapims.repository.DeviceRow;
+import com.piotr.network.deviceapims.repository.DeviceTopologyRow;
+import com.piotr.network.deviceapims.repository.DeviceUplinkRecord;
+import com.piotr.network.deviceapims.repository.DeviceUplinkRow;
+import com.piotr.network.deviceapims.snapshot.ChangeSequence;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.instancio.Instancio;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.instancio.Select.field;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,11 +59,23 @@ class DeviceServiceImplTest {
     DeviceRepository deviceRepository;
     @Mock
     DeviceMapper deviceMapper;
+    @Mock
+    TopologyIndex topologyIndex;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+    @Spy
+    DeviceLookupCache lookupCache = new DeviceLookupCache(true, 100, Duration.ofMinutes(1), Duration.ofMinutes(1),
+            new SimpleMeterRegistry());
+    @Spy
+    MacAddressFilter macAddressFilter = new MacAddressFilter(null, false, 0, 0.01);
+    @Mock
+    ChangeSequence changeSequence;
     @InjectMocks
     DeviceServiceImpl service;
 
     private final String childMacAddress =  "00:1A:2B:3C:4D:5E";
     private final String parentMacAddress = "60:7A:8B:9C:4D:5E";
+    private final MacAddress parentMac = MacAddress.parse(parentMacAddress);
 
     @Test
     void whenRegisterDevice_thenReturnRegisterDeviceResponse() {
@@ -48,13 +89,13 @@ class DeviceServiceImplTest {
                 .create();
         var parentEntity = Instancio.of(DeviceEntity.class)
                 .set(field(DeviceEntity::getDeviceType), parent.getDeviceType())
-                .set(field(DeviceEntity::getMacAddress), parent.getMacAddress())
+                .set(field(DeviceEntity::getMacAddress), MacAddress.parse(parent.getMacAddress()))
                 .setBlank(field(DeviceEntity::getUplinkDevice))
                 .set(field(DeviceEntity::getId), UUID.randomUUID())
                 .create();
         var childEntity = Instancio.of(DeviceEntity.class)
                 .set(field(DeviceEntity::getDeviceType), parent.getDeviceType())
-                .set(field(DeviceEntity::getMacAddress), parent.getMacAddress())
+                .set(field(DeviceEntity::getMacAddress), MacAddress.parse(parent.getMacAddress()))
                 .set(field(DeviceEntity::getUplinkDevice), parentEntity)
                 .set(field(DeviceEntity::getId), UUID.randomUUID())
                 .create();
@@ -67,7 +108,7 @@ class DeviceServiceImplTest {
         //when
         when(deviceMapper.mapDeviceDtoToDeviceEntity(any(RegisterDeviceRequest.class)))
                 .thenReturn(childEntity);
-        when(deviceRepository.findByMacAddress(anyString()))
+        when(deviceRepository.findByMacAddress(parentMac))
                 .thenReturn(Optional.ofNullable(parentEntity));
         when(deviceRepository.save(any(DeviceEntity.class)))
                 .thenReturn(childEntity);
@@ -80,6 +121,7 @@ class DeviceServiceImplTest {
         assertEquals(response.getDeviceType(), result.getDeviceType());
         assertEquals(response.getMacAddress(), result.getMacAddress());
         assertEquals(response.getUplinkMacAddress() , result.getUplinkMacAddress());
+        verify(eventPublisher).publishEvent(any(DeviceRegisteredEvent.class));
     }
 
     @Test
@@ -90,7 +132,7 @@ class DeviceServiceImplTest {
                 .create();
 
         var childEntity = Instancio.of(DeviceEntity.class)
-                .set(field(DeviceEntity::getMacAddress), childMacAddress)
+                .set(field(DeviceEntity::getMacAddress), MacAddress.parse(childMacAddress))
                 .create();
         //when
         when(deviceMapper.mapDeviceDtoToDeviceEntity(any(RegisterDeviceRequest.class)))
@@ -105,33 +147,66 @@ class DeviceServiceImplTest {
 
     @Test
     void whenGetDevices_thanReturnListOfDevicesSortedByDeviceType() {//Device order: gateway -> switch -> access point
-        AtomicInteger counter = new AtomicInteger(0);
-        var allDevicesEntities = Instancio.ofList(DeviceEntity.class)
-                .size(5)
-                .supply(field(DeviceEntity::getDeviceType), () -> switch (counter.getAndIncrement() % 5) {
-                    case 1, 3 -> DeviceType.GATEWAY;
-                    case 2, 4 -> DeviceType.SWITCH;
-                    default -> DeviceType.ACCESS_POINT;
-                })
-                .create();
+        var rows = List.<DeviceRow>of(
+                new Row(parentMacAddress, DeviceType.GATEWAY),
+                new Row(childMacAddress, DeviceType.SWITCH),
+                new Row("AA:1A:2B:3C:4D:5E", DeviceType.ACCESS_POINT));
         //when
-        when(deviceRepository.findAll())
-                .thenReturn(allDevicesEntities);
-        when(deviceMapper.mapDeviceEntityToDeviceResponse(any(DeviceEntity.class)))
-                .thenAnswer(invocation -> {
-                    DeviceEntity deviceEntity = invocation.getArgument(0);
-                    return Instancio.of(DeviceResponse.class)
-                            .set(field(DeviceResponse::getDeviceType),  deviceEntity.getDeviceType())
-                            .create();
-                        });
+        when(deviceRepository.findDevicesSorted(Limit.unlimited()))
+                .thenReturn(rows);
+        when(deviceMapper.mapDeviceRowToDeviceResponse(any(DeviceRow.class)))
+                .thenAnswer(invocation -> new DeviceMapper().mapDeviceRowToDeviceResponse(invocation.getArgument(0)));
 
         //call method
         var result = service.getDevices();
         assertNotNull(result);
-        assertEquals(5, result.size());
+        assertEquals(3, result.size());
         assertEquals(DeviceType.GATEWAY, result.get(0).getDeviceType());
-        assertEquals(DeviceType.SWITCH, result.get(2).getDeviceType());
-        assertEquals(DeviceType.ACCESS_POINT, result.get(4).getDeviceType());
+        assertEquals(DeviceType.SWITCH, result.get(1).getDeviceType());
+        assertEquals(DeviceType.ACCESS_POINT, result.get(2).getDeviceType());
+    }
+
+    @Test
+    void whenGetDevicesPage_andMoreDevices_thanReturnPageWithNextCursor() {
+        var rows = List.<DeviceRow>of(
+                new Row(parentMacAddress, DeviceType.GATEWAY),
+                new Row(childMacAddress, DeviceType.SWITCH),
+                new Row("AA:1A:2B:3C:4D:5E", DeviceType.ACCESS_POINT));
+        //when
+        when(deviceRepository.findDevicesSorted(Limit.of(3))).thenReturn(rows);
+        when(deviceMapper.mapDeviceRowToDeviceResponse(any(DeviceRow.class)))
+                .thenAnswer(invocation -> new DeviceMapper().mapDeviceRowToDeviceResponse(invocation.getArgument(0)));
+        //call method
+        var result = service.getDevicesPage(2, null);
+        assertEquals(2, result.devices().size());
+        assertEquals(childMacAddress, result.devices().get(1).getMacAddress());
+        var nextCursor = DeviceCursor.decode(result.nextCursor());
+        assertEquals(DeviceEntity.typeRankOf(DeviceType.SWITCH), nextCursor.typeRank());
+        assertEquals(MacAddress.parse(childMacAddress), nextCursor.macAddress());
+    }
+
+    @Test
+    void whenGetDevicesPage_andCursor_thanReturnLastPageWithoutNextCursor() {
+        var cursor = DeviceCursor.after(DeviceType.SWITCH, MacAddress.parse(childMacAddress));
+        //when
+        when(deviceRepository.findDevicesSortedAfter(cursor.typeRank(), cursor.macAddress(), Limit.of(101)))
+                .thenReturn(List.of(new Row("AA:1A:2B:3C:4D:5E", DeviceType.ACCESS_POINT)));
+        when(deviceMapper.mapDeviceRowToDeviceResponse(any(DeviceRow.class)))
+                .thenAnswer(invocation -> new DeviceMapper().mapDeviceRowToDeviceResponse(invocation.getArgument(0)));
+        //call method
+        var result = service.getDevicesPage(null, cursor.encode());
+        assertEquals(1, result.devices().size());
+        assertNull(result.nextCursor());
+    }
+
+    @Test
+    void whenGetDevicesPage_andInvalidCursor_thanReturnInvalidRequestException() {
+        //call method
+        InvalidRequestException exception = assertThrows(
+                InvalidRequestException.class, () -> service.getDevicesPage(10, "not-a-cursor"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verifyNoInteractions(deviceRepository);
     }
 
     @Test
@@ -146,73 +221,146 @@ class DeviceServiceImplTest {
 
     @Test
     void whenGetDeviceByMac_thanReturnDeviceResponse() {
-        var parentEntity = Instancio.of(DeviceEntity.class)
-                .set(field(DeviceEntity::getMacAddress), parentMacAddress)
-                .setBlank(field(DeviceEntity::getUplinkDevice))
-                .set(field(DeviceEntity::getId), UUID.randomUUID())
-                .create();
+        var row = new Row(parentMacAddress, DeviceType.SWITCH);
         //when
-        when(deviceRepository.findByMacAddress(anyString()))
-                .thenReturn(Optional.ofNullable(parentEntity));
-        when(deviceMapper.mapDeviceEntityToDeviceResponse(any(DeviceEntity.class)))
+        when(deviceRepository.findDeviceRowByMacAddress(parentMac))
+                .thenReturn(Optional.of(row));
+        when(deviceMapper.mapDeviceRowToDeviceResponse(any(DeviceRow.class)))
                 .thenAnswer(invocation -> {
-                    DeviceEntity deviceEntity = invocation.getArgument(0);
-                    return Instancio.of(DeviceResponse.class)
-                            .set(field(DeviceResponse::getDeviceType),  deviceEntity.getDeviceType())
-                            .set(field(DeviceResponse::getMacAddress), deviceEntity.getMacAddress())
-                            .create();
+                    DeviceRow deviceRow = invocation.getArgument(0);
+                    return new DeviceResponse()
+                            .deviceType(deviceRow.getDeviceType())
+                            .macAddress(deviceRow.getMacAddress().toString());
                 });
         //call method
-        var result = service.getDeviceByMac(parentMacAddress);
+        var result = service.getDeviceByMac(parentMac);
         assertNotNull(result);
-        assertNotNull(parentEntity);
-        assertEquals(parentEntity.getDeviceType(), result.getDeviceType());
-        assertEquals(parentEntity.getMacAddress(), result.getMacAddress());
+        assertEquals(DeviceType.SWITCH, result.getDeviceType());
+        assertEquals(parentMacAddress, result.getMacAddress());
+        verify(deviceRepository, never()).findByMacAddress(any());
     }
 
     @Test
     void whenGetDeviceByMac_thanReturnInvalidRequestException_DeviceNotFound() {
         //call method
         InvalidRequestException exception = assertThrows(
-                InvalidRequestException.class, () -> service.getDeviceByMac(parentMacAddress));
+                InvalidRequestException.class, () -> service.getDeviceByMac(parentMac));
 
         assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
         assertEquals("Device with MAC "+parentMacAddress + " not found", exception.getMessage());
     }
 
+    @Test
+    void whenGetDeviceByMac_andFilterRulesMacOut_thanReturnNotFoundWithoutQuery() {
+        //when
+        doReturn(false).when(macAddressFilter).mightContain(parentMac);
+        //call method
+        InvalidRequestException exception = assertThrows(
+                InvalidRequestException.class, () -> service.getDeviceByMac(parentMac));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+        verifyNoInteractions(deviceRepository, topologyIndex);
+    }
+
+    @Test
+    void whenRegisterDevice_andFilterRulesParentOut_thanParentIsStillReadFromDatabase() {
+        var request = new RegisterDeviceRequest(DeviceType.SWITCH, childMacAddress).uplinkMacAddress(parentMacAddress);
+        var entity = new DeviceEntity();
+        entity.setMacAddress(MacAddress.parse(childMacAddress));
+        var parentEntity = new DeviceEntity();
+        parentEntity.setMacAddress(parentMac);
+        //when
+        lenient().doReturn(false).when(macAddressFilter).mightContain(parentMac);
+        when(deviceMapper.mapDeviceDtoToDeviceEntity(request)).thenReturn(entity);
+        when(deviceRepository.findByMacAddress(parentMac)).thenReturn(Optional.of(parentEntity));
+        when(deviceRepository.save(entity)).thenReturn(entity);
+        //call method
+        service.registerDevice(request);
+        //assertion
+        assertEquals(parentEntity, entity.getUplinkDevice());
+        verify(deviceRepository).save(entity);
+    }
+
+    @Test
+    void whenRegisterDevice_andMacAlreadyRegistered_thanReturnDuplicateDeviceException() {
+        var request = new RegisterDeviceRequest(DeviceType.GATEWAY, parentMacAddress);
+        var entity = new DeviceEntity();
+        entity.setMacAddress(parentMac);
+        //when
+        var violation = new org.hibernate.exception.ConstraintViolationException("Unique index violation",
+                new SQLException("duplicate"), "insert", org.hibernate.exception.ConstraintViolationException.ConstraintKind.UNIQUE,
+                "uk_device_entity_mac_address");
+        when(deviceMapper.mapDeviceDtoToDeviceEntity(request)).thenReturn(entity);
+        when(deviceRepository.save(entity)).thenReturn(entity);
+        doThrow(new DataIntegrityViolationException("could not execute statement", violation))
+                .when(deviceRepository).flush();
+        //call method
+        DuplicateDeviceException exception = assertThrows(
+                DuplicateDeviceException.class, () -> service.registerDevice(request));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        assertEquals("Device with MAC " + parentMacAddress + " already registered", exception.getMessage());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void whenRegisterDevice_thanOnlyTheInsertIsExecuted() {
+        var request = new RegisterDeviceRequest(DeviceType.GATEWAY, parentMacAddress);
+        var entity = new DeviceEntity();
+        entity.setMacAddress(parentMac);
+        //when
+        when(deviceMapper.mapDeviceDtoToDeviceEntity(request)).thenReturn(entity);
+        when(deviceRepository.save(entity)).thenReturn(entity);
+        //call method
+        service.registerDevice(request);
+        //assertion
+        verify(deviceRepository).save(entity);
+        verify(deviceRepository).flush();
+        verifyNoMoreInteractions(deviceRepository);
+    }
+
+    @Test
+    void whenGetDeviceByMacRepeated_thanDeviceIsLoadedOnce() {
+        //when
+        when(deviceRepository.findDeviceRowByMacAddress(parentMac)).thenReturn(Optional.empty());
+        //call method
+        assertThrows(InvalidRequestException.class, () -> service.getDeviceByMac(parentMac));
+        assertThrows(InvalidRequestException.class, () -> service.getDeviceByMac(parentMac));
+        //assertion
+        verify(deviceRepository, times(1)).findDeviceRowByMacAddress(parentMac);
+    }
+
     @Test
     void whenGetTopologyNodes_thanReturnListOfDevicesAsTreeStructure() {
-        var allRootDevicesEntities = Instancio.ofList(DeviceEntity.class)
-                .size(3)
-                .set(field(DeviceEntity::getDownlinkDevices), Instancio.ofList(DeviceEntity.class)
-                        .size(1)
-                        .set(field(DeviceEntity::getDownlinkDevices), Instancio.ofList(DeviceEntity.class)
-                                .size(1)
-                                .create())
-                        .create())
-                .create();
+        var topologyRows = List.<DeviceTopologyRow>of(
+                new TopologyRow(parentMacAddress, null, 0),
+                new TopologyRow("61:7A:8B:9C:4D:5E", null, 0),
+                new TopologyRow("62:7A:8B:9C:4D:5E", null, 0),
+                new TopologyRow(childMacAddress, parentMacAddress, 1),
+                new TopologyRow("80:7A:6B:5C:4D:5E", childMacAddress, 2));
         //when
-        when(deviceRepository.findByUplinkDeviceIsNull())
-                .thenReturn(allRootDevicesEntities);
-        when(deviceMapper.mapEntityToTopologyNodeResponse(any(DeviceEntity.class)))
+        when(deviceRepository.findTopologyForest(Integer.MAX_VALUE))
+                .thenReturn(topologyRows);
+        when(deviceMapper.mapTopologyRowToTopologyNodeResponse(any(DeviceTopologyRow.class)))
                 .thenAnswer(invocationOnMock -> {
-                    DeviceEntity deviceEntity = invocationOnMock.getArgument(0);
-                    return Instancio.of(TopologyNodeResponse.class)
-                            .set(field(TopologyNodeResponse::getMacAddress), deviceEntity.getMacAddress())
-                            .set(field(TopologyNodeResponse::getChildren), deviceEntity.getDownlinkDevices())
-                            .create();
+                    DeviceTopologyRow row = invocationOnMock.getArgument(0);
+                    return new TopologyNodeResponse(MacAddress.of(row.getMacAddress()).toString()).children(new ArrayList<>());
                 });
         //call method
-        var result = service.getTopologyNodes();
+        var result = service.getTopologyNodes(null);
         assertNotNull(result);
         assertEquals(3, result.size());
+        assertEquals(parentMacAddress, result.get(0).getMacAddress());
+        assertEquals(childMacAddress, result.get(0).getChildren().get(0).getMacAddress());
+        assertEquals("80:7A:6B:5C:4D:5E", result.get(0).getChildren().get(0).getChildren().get(0).getMacAddress());
+        assertTrue(result.get(1).getChildren().isEmpty());
     }
 
     @Test
     void whenGetTopologyNodes_thanReturnInvalidRequestException_NoDevicesFound() {
         //call method
         InvalidRequestException exception = assertThrows(
-                InvalidRequestException.class, () -> service.getTopologyNodes());
+                InvalidRequestException.class, () -> service.getTopologyNodes(null));
 
         assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
         assertEquals("No device(s) found in network topology", exception.getMessage());
@@ -221,28 +369,20 @@ class DeviceServiceImplTest {
     @Test
     void whenGetTopologyNodeByMac_thanReturnTopologyNodeResponse() {
         final String grandChild = "80:7A:6B:5C:4D:5E";
-        var parentDeviceEntity = Instancio.of(DeviceEntity.class)
-                .set(field(DeviceEntity::getMacAddress), parentMacAddress)
-                .set(field(DeviceEntity::getDownlinkDevices), Instancio.ofList(DeviceEntity.class)
-                        .set(field(DeviceEntity::getMacAddress), childMacAddress)
-                        .set(field(DeviceEntity::getDownlinkDevices), Instancio.ofList(DeviceEntity.class)
-                                .set(field(DeviceEntity::getMacAddress), grandChild)
-                                .create())
-                        .create())
-                .create();
+        var topologyRows = List.<DeviceTopologyRow>of(
+                new TopologyRow(parentMacAddress, "40:7A:8B:9C:4D:5E", 0),
+                new TopologyRow(childMacAddress, parentMacAddress, 1),
+                new TopologyRow(grandChild, childMacAddress, 2));
         //when
-        when(deviceRepository.findByMacAddress(anyString()))
-                .thenReturn(Optional.ofNullable(parentDeviceEntity));
-        when(deviceMapper.mapEntityToTopologyNodeResponse(any(DeviceEntity.class)))
+        when(deviceRepository.findTopologySubtree(anyLong(), anyInt()))
+                .thenReturn(topologyRows);
+        when(deviceMapper.mapTopologyRowToTopologyNodeResponse(any(DeviceTopologyRow.class)))
                 .thenAnswer(invocationOnMock -> {
-                    DeviceEntity deviceEntity = invocationOnMock.getArgument(0);
-                    return Instancio.of(TopologyNodeResponse.class)
-                            .set(field(TopologyNodeResponse::getMacAddress), deviceEntity.getMacAddress())
-                            .set(field(TopologyNodeResponse::getChildren), deviceEntity.getDownlinkDevices())
-                            .create();
+                    DeviceTopologyRow row = invocationOnMock.getArgument(0);
+                    return new TopologyNodeResponse(MacAddress.of(row.getMacAddress()).toString()).children(new ArrayList<>());
                 });
         //call method
-        var result = service.getTopologyNodeByMac(parentMacAddress);
+        var result = service.getTopologyNodeByMac(parentMac, null);
         assertNotNull(result);
         assertEquals(parentMacAddress, result.getMacAddress());
         assertEquals(childMacAddress, result.getChildren().get(0).getMacAddress());
@@ -254,9 +394,349 @@ class DeviceServiceImplTest {
 
         //call method
         InvalidRequestException exception = assertThrows(
-                InvalidRequestException.class, () -> service.getTopologyNodeByMac(parentMacAddress));
+                InvalidRequestException.class, () -> service.getTopologyNodeByMac(parentMac, null));
 
         assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
         assertEquals("Topology with device MAC "+parentMacAddress + " not found", exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenGetTopologyNodeByMac_andDepth_thanLoadRequestedLevelsOnly() {
+        var topologyRows = List.<DeviceTopologyRow>of(
+                new TopologyRow(parentMacAddress, null, 0),
+                new TopologyRow(childMacAddress, parentMacAddress, 1));
+        //when
+        when(deviceRepository.findTopologySubtree(parentMac.toLong(), 1))
+                .thenReturn(topologyRows);
+        when(deviceMapper.mapTopologyRowToTopologyNodeResponse(any(DeviceTopologyRow.class)))
+                .thenAnswer(invocation -> new DeviceMapper().mapTopologyRowToTopologyNodeResponse(invocation.getArgument(0)));
+        //call method
+        var result = service.getTopologyNodeByMac(parentMac, 1);
+        assertEquals(parentMacAddress, result.getMacAddress());
+        assertEquals(1, result.getChildren().size());
+        assertEquals(0, result.getChildren().get(0).getChildren().size());
+    }
+
+    @Test
+    void whenGetTopologyNodeByMac_andRangeContainsOtherSubtrees_thanReturnConnectedRowsOnly() {
+        var topologyRows = List.<DeviceTopologyRow>of(
+                new TopologyRow("50:7A:8B:9C:4D:5E", "40:7A:8B:9C:4D:5E", 0),
+                new TopologyRow(parentMacAddress, "40:7A:8B:9C:4D:5E", 0),
+                new TopologyRow("51:7A:8B:9C:4D:5E", "50:7A:8B:9C:4D:5E", 1),
+                new TopologyRow(childMacAddress, parentMacAddress, 1));
+        //when
+        when(deviceRepository.findTopologySubtree(parentMac.toLong(), Integer.MAX_VALUE))
+                .thenReturn(topologyRows);
+        when(deviceMapper.mapTopologyRowToTopologyNodeResponse(any(DeviceTopologyRow.class)))
+                .thenAnswer(invocation -> new DeviceMapper().mapTopologyRowToTopologyNodeResponse(invocation.getArgument(0)));
+        //call method
+        var result = service.getTopologyNodeByMac(parentMac, null);
+        assertEquals(parentMacAddress, result.getMacAddress());
+        assertEquals(1, result.getChildren().size());
+        assertEquals(childMacAddress, result.getChildren().get(0).getMacAddress());
+    }
+
+    @Test
+    void whenGetDeviceByMac_andTopologyIndexReady_thanReturnDeviceResponseFromIndex() {
+        var device = new DeviceResponse().deviceType(DeviceType.SWITCH).macAddress(parentMacAddress);
+        //when
+        when(topologyIndex.isReady()).thenReturn(true);
+        when(topologyIndex.findDevice(parentMac)).thenReturn(Optional.of(device));
+        //call method
+        var result = service.getDeviceByMac(parentMac);
+        assertEquals(device, result);
+        verifyNoInteractions(deviceRepository);
+    }
+
+    @Test
+    void whenGetTopologyNodes_andTopologyIndexReady_thanReturnTopologyFromIndex() {
+        var root = new TopologyNodeResponse(parentMacAddress).children(new ArrayList<>());
+        //when
+        when(topologyIndex.isReady()).thenReturn(true);
+        when(topologyIndex.getTopologyNodes(Integer.MAX_VALUE)).thenReturn(List.of(root));
+        //call method
+        var result = service.getTopologyNodes(null);
+        assertEquals(List.of(root), result);
+        verifyNoInteractions(deviceRepository);
+    }
+
+    @Test
+    void whenGetTopologyNodeByMac_andTopologyIndexReady_thanReturnInvalidRequestException_TopologyNotFound() {
+        //when
+        when(topologyIndex.isReady()).thenReturn(true);
+        when(topologyIndex.getTopologyNode(parentMac, Integer.MAX_VALUE)).thenReturn(Optional.empty());
+        //call method
+        InvalidRequestException exception = assertThrows(
+                InvalidRequestException.class, () -> service.getTopologyNodeByMac(parentMac, null));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+        verifyNoInteractions(deviceRepository);
+    }
+
+    @Test
+    void whenRegisterDevices_andUplinkInSameBatch_thenUplinkIsInsertedFirst() {
+        var child = new RegisterDeviceRequest(DeviceType.SWITCH, childMacAddress).uplinkMacAddress(parentMacAddress);
+        var parent = new RegisterDeviceRequest(DeviceType.GATEWAY, parentMacAddress);
+        List<DeviceEntity> inserts = new ArrayList<>();
+        //when
+        when(deviceMapper.mapDeviceDtoToDeviceEntity(any()))
+                .thenAnswer(invocation -> new DeviceMapper().mapDeviceDtoToDeviceEntity(invocation.getArgument(0)));
+        when(deviceRepository.findByMacAddressIn(any())).thenReturn(List.of());
+        when(changeSequence.next(2)).thenReturn(1000L);
+        when(deviceRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<DeviceEntity> entities = invocation.getArgument(0);
+            entities.forEach(entity -> entity.setId(UUID.randomUUID()));
+            inserts.addAll(entities);
+            return entities;
+        });
+        //call method
+        var result = service.registerDevices(List.of(child, parent));
+        //assertion
+        assertEquals(2, result.getRegistered());
+        assertEquals(0, result.getRejected());
+        assertEquals(parentMac, inserts.get(0).getMacAddress());
+        assertEquals(inserts.get(0), inserts.get(1).getUplinkDevice());
+        assertEquals(0, result.getResults().get(0).getIndex());
+        assertEquals(childMacAddress, result.getResults().get(0).getMacAddress());
+        assertEquals(BatchRegisterDeviceStatus.REGISTERED, result.getResults().get(0).getStatus());
+        assertEquals(inserts.get(1).getId(), result.getResults().get(0).getId());
+        verify(deviceRepository).flush();
+        assertEquals(1000, inserts.get(0).getChangeSeq());
+        assertEquals(1001, inserts.get(1).getChangeSeq());
+        verify(eventPublisher).publishEvent(new DeviceRegisteredEvent(inserts.get(1).getId(), DeviceType.SWITCH,
+                MacAddress.parse(childMacAddress), parentMac, 1001));
+    }
+
+    @Test
+    void whenRegisterDevices_andItemsCannotBeRegistered_thenReportEachItem() {
+        final String orphanMacAddress = "10:1A:2B:3C:4D:5E";
+        final String unknownMacAddress = "FF:1A:2B:3C:4D:5E";
+        var existing = new RegisterDeviceRequest(DeviceType.GATEWAY, parentMacAddress);
+        var orphan = new RegisterDeviceRequest(DeviceType.SWITCH, orphanMacAddress).uplinkMacAddress(unknownMacAddress);
+        var orphanChild = new RegisterDeviceRequest(DeviceType.ACCESS_POINT, childMacAddress).uplinkMacAddress(orphanMacAddress);
+        var existingEntity = new DeviceEntity();
+        existingEntity.setMacAddress(parentMac);
+        //when
+        when(deviceMapper.mapDeviceDtoToDeviceEntity(any()))
+                .thenAnswer(invocation -> new DeviceMapper().mapDeviceDtoToDeviceEntity(invocation.getArgument(0)));
+        when(deviceRepository.findByMacAddressIn(any())).thenReturn(List.of(existingEntity));
+        //call method
+        var result = service.registerDevices(List.of(existing, orphan, orphanChild));
+        //assertion
+        assertEquals(0, result.getRegistered());
+        assertEquals(3, result.getRejected());
+        assertEquals(BatchRegisterDeviceStatus.DUPLICATE, result.getResults().get(0).getStatus());
+        assertEquals(BatchRegisterDeviceStatus.PARENT_NOT_FOUND, result.getResults().get(1).getStatus());
+        assertEquals("Parent device with MAC " + unknownMacAddress + " not found", result.getResults().get(1).getMessage());
+        assertEquals(BatchRegisterDeviceStatus.PARENT_NOT_FOUND, result.getResults().get(2).getStatus());
+        assertNull(result.getResults().get(2).getId());
+        verify(deviceRepository).saveAll(List.of());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void whenGetTopologyChanges_thanReturnChangesWithLastVersion() {
+        var rows = List.<DeviceChangeRow>of(
+                new ChangeRow(parentMacAddress, DeviceType.GATEWAY, null, 998L),
+                new ChangeRow(childMacAddress, DeviceType.SWITCH, parentMacAddress, 999L));
+        //when
+        stubChangeSequence(1000);
+        when(deviceRepository.findChangesSince(500, 1000, Limit.of(3))).thenReturn(rows);
+        when(deviceMapper.mapDeviceChangeRowToTopologyChange(any(DeviceChangeRow.class)))
+                .thenAnswer(invocation -> new DeviceMapper().mapDeviceChangeRowToTopologyChange(invocation.getArgument(0)));
+        //call method
+        var result = service.getTopologyChanges(500);
+        //assertion
+        assertEquals(999, result.getVersion());
+        assertFalse(result.getResyncRequired());
+        assertEquals(2, result.getChanges().size());
+        assertEquals(parentMacAddress, result.getChanges().get(1).getUplinkMacAddress());
+        assertEquals(998, result.getChanges().get(0).getTopologyVersion());
+    }
+
+    @Test
+    void whenGetTopologyChanges_andNoChanges_thanReturnRequestedVersion() {
+        //when
+        stubChangeSequence(1000);
+        when(deviceRepository.findChangesSince(999, 1000, Limit.of(3))).thenReturn(List.of());
+        //call method
+        var result = service.getTopologyChanges(999);
+        //assertion
+        assertEquals(999, result.getVersion());
+        assertFalse(result.getResyncRequired());
+        assertTrue(result.getChanges().isEmpty());
+    }
+
+    @Test
+    void whenGetTopologyChanges_andTooManyChanges_thanReturnResyncRequired() {
+        var rows = List.<DeviceChangeRow>of(
+                new ChangeRow(parentMacAddress, DeviceType.GATEWAY, null, 10L),
+                new ChangeRow(childMacAddress, DeviceType.SWITCH, parentMacAddress, 11L),
+                new ChangeRow("80:7A:6B:5C:4D:5E", DeviceType.ACCESS_POINT, childMacAddress, 12L));
+        //when
+        stubChangeSequence(1000);
+        when(deviceRepository.findChangesSince(0, 1000, Limit.of(3))).thenReturn(rows);
+        //call method
+        var result = service.getTopologyChanges(0);
+        //assertion
+        assertTrue(result.getResyncRequired());
+        assertEquals(999, result.getVersion());
+        assertTrue(result.getChanges().isEmpty());
+    }
+
+    @Test
+    void whenGetTopologyChanges_thanOnlyChangesBelowStableBoundAreRead() {
+        //when
+        stubChangeSequence(1500);
+        when(deviceRepository.findChangesSince(0, 1500, Limit.of(3))).thenReturn(List.of());
+        //call method
+        var result = service.getTopologyChanges(0);
+        //assertion
+        assertEquals(0, result.getVersion());
+        verify(deviceRepository).findChangesSince(0, 1500, Limit.of(3));
+    }
+
+    @Test
+    void whenGetDevicePath_thanReturnDeviceAndItsUplinks() {
+        var child = MacAddress.parse(childMacAddress);
+        //when
+        mapUplinkRows();
+        when(deviceRepository.findUplinkChain(child.toLong())).thenReturn(List.of(
+                new DeviceUplinkRecord(child.toLong(), DeviceType.ACCESS_POINT),
+                new DeviceUplinkRecord(parentMac.toLong(), DeviceType.GATEWAY)));
+        //call method
+        var result = service.getDevicePath(child);
+        assertEquals(1, result.getHops());
+        assertEquals(List.of(childMacAddress, parentMacAddress),
+                result.getDevices().stream().map(DeviceResponse::getMacAddress).toList());
+        assertEquals(DeviceType.GATEWAY, result.getDevices().get(1).getDeviceType());
+    }
+
+    @Test
+    void whenGetDevicePath_thanReturnInvalidRequestException_DeviceNotFound() {
+        //when
+        when(deviceRepository.findUplinkChain(parentMac.toLong())).thenReturn(List.of());
+        //call method
+        InvalidRequestException exception = assertThrows(
+                InvalidRequestException.class, () -> service.getDevicePath(parentMac));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+    }
+
+    @Test
+    void whenGetPathBetweenDevices_thanReturnPathThroughCommonUplink() {
+        var first = MacAddress.parse(childMacAddress);
+        var second = MacAddress.parse("10:1A:2B:3C:4D:5E");
+        //when
+        mapUplinkRows();
+        when(deviceRepository.findUplinkChain(first.toLong())).thenReturn(List.of(
+                new DeviceUplinkRecord(first.toLong(), DeviceType.ACCESS_POINT),
+                new DeviceUplinkRecord(parentMac.toLong(), DeviceType.SWITCH)));
+        when(deviceRepository.findUplinkChain(second.toLong())).thenReturn(List.of(
+                new DeviceUplinkRecord(second.toLong(), DeviceType.ACCESS_POINT),
+                new DeviceUplinkRecord(parentMac.toLong(), DeviceType.SWITCH)));
+        //call method
+        var result = service.getPathBetweenDevices(first, second);
+        assertEquals(2, result.getHops());
+        assertEquals(List.of(childMacAddress, parentMacAddress, second.toString()),
+                result.getDevices().stream().map(DeviceResponse::getMacAddress).toList());
+        assertEquals(parentMacAddress, result.getCommonUplinkMacAddress());
+    }
+
+    @Test
+    void whenGetPathBetweenDevices_andDevicesNotConnected_thanReturnInvalidRequestException() {
+        var first = MacAddress.parse(childMacAddress);
+        //when
+        mapUplinkRows();
+        when(deviceRepository.findUplinkChain(first.toLong())).thenReturn(List.of(
+                new DeviceUplinkRecord(first.toLong(), DeviceType.GATEWAY)));
+        when(deviceRepository.findUplinkChain(parentMac.toLong())).thenReturn(List.of(
+                new DeviceUplinkRecord(parentMac.toLong(), DeviceType.GATEWAY)));
+        //call method
+        InvalidRequestException exception = assertThrows(
+                InvalidRequestException.class, () -> service.getPathBetweenDevices(first, parentMac));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+        assertEquals("Devices with MAC " + childMacAddress + " and " + parentMacAddress + " are not connected",
+                exception.getMessage());
+    }
+
+    @Test
+    void whenGetPathBetweenDevices_andTopologyIndexReady_thanReturnPathFromIndex() {
+        var first = MacAddress.parse(childMacAddress);
+        var path = new DevicePathResponse(List.of(new DeviceResponse().deviceType(DeviceType.SWITCH).macAddress(childMacAddress),
+                new DeviceResponse().deviceType(DeviceType.GATEWAY).macAddress(parentMacAddress)), 1)
+                .commonUplinkMacAddress(parentMacAddress);
+        //when
+        when(topologyIndex.isReady()).thenReturn(true);
+        when(topologyIndex.getPath(first, parentMac)).thenReturn(Optional.of(path));
+        //call method
+        var result = service.getPathBetweenDevices(first, parentMac);
+        assertEquals(path, result);
+        verifyNoInteractions(deviceRepository);
+    }
+
+    private void stubChangeSequence(long stableBound) {
+        when(changeSequence.stableBound()).thenReturn(stableBound);
+        when(changeSequence.maxChanges()).thenReturn(2);
+    }
+
+    private void mapUplinkRows() {
+        when(deviceMapper.mapDeviceUplinkRowToDeviceResponse(any(DeviceUplinkRow.class))).thenAnswer(invocation -> {
+            DeviceUplinkRow row = invocation.getArgument(0);
+            return new DeviceResponse().deviceType(row.getDeviceType()).macAddress(MacAddress.of(row.getMacAddress()).toString());
+        });
+    }
+
+    private record Row(String macAddress, DeviceType deviceType) implements DeviceRow {
+        @Override
+        public MacAddress getMacAddress() {
+            return MacAddress.parse(macAddress);
+        }
+
+        @Override
+        public DeviceType getDeviceType() {
+            return deviceType;
+        }
+    }
+
+    private record ChangeRow(String macAddress, DeviceType deviceType, String uplinkMacAddress, Long changeSeq)
+            implements DeviceChangeRow {
+        @Override
+        public MacAddress getMacAddress() {
+            return MacAddress.parse(macAddress);
+        }
+
+        @Override
+        public DeviceType getDeviceType() {
+            return deviceType;
+        }
+
+        @Override
+        public MacAddress getUplinkMacAddress() {
+            return uplinkMacAddress != null ? MacAddress.parse(uplinkMacAddress) : null;
+        }
+
+        @Override
+        public Long getChangeSeq() {
+            return changeSeq;
+        }
+    }
+
+    private record TopologyRow(String macAddress, String uplinkMacAddress, Integer depth) implements DeviceTopologyRow {
+        @Override
+        public Long getMacAddress() {
+            return MacAddress.parse(macAddress).toLong();
+        }
+
+        @Override
+        public Long getUplinkMacAddress() {
+            return uplinkMacAddress != null ? MacAddress.parse(uplinkMacAddress).toLong() : null;
+        }
+
+        @Override
+        public Integer getDepth() {
+            return depth;
+        }
+    }
+}
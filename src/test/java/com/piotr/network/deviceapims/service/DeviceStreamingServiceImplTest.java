@@ -0,0 +1,146 @@
+package com.piotr.network.deviceapims.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+import com.piotr.network.deviceapims.repository.DeviceRepository;
+import com.piotr.network.deviceapims.repository.DeviceRow;
+import com.piotr.network.deviceapims.repository.DeviceTopologyRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DeviceStreamingServiceImplTest {
+
+    @Mock
+    DeviceRepository deviceRepository;
+
+    private DeviceStreamingServiceImpl service;
+
+    private final String gatewayMacAddress = "00:1A:2B:3C:4D:5E";
+    private final String switchMacAddress = "10:1A:2B:3C:4D:5E";
+    private final String accessPointMacAddress = "20:1A:2B:3C:4D:5E";
+    private final String otherGatewayMacAddress = "30:1A:2B:3C:4D:5E";
+
+    @BeforeEach
+    void setup() {
+        service = new DeviceStreamingServiceImpl(deviceRepository, new ObjectMapper());
+    }
+
+    @Test
+    void whenWriteDevices_thenWriteJsonArray() throws Exception {
+        var outputStream = new ByteArrayOutputStream();
+        //when
+        when(deviceRepository.streamDevices()).thenReturn(Stream.of(
+                new Row(gatewayMacAddress, DeviceType.GATEWAY),
+                new Row(accessPointMacAddress, DeviceType.ACCESS_POINT)));
+        //call method
+        service.writeDevices(outputStream, false);
+        //assertion
+        assertEquals("[{\"deviceType\":\"gateway\",\"macAddress\":\"00:1A:2B:3C:4D:5E\"},"
+                        + "{\"deviceType\":\"accessPoint\",\"macAddress\":\"20:1A:2B:3C:4D:5E\"}]",
+                outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void whenWriteDevices_andNdjson_thenWriteOneDevicePerLine() throws Exception {
+        var outputStream = new ByteArrayOutputStream();
+        //when
+        when(deviceRepository.streamDevices()).thenReturn(Stream.of(
+                new Row(gatewayMacAddress, DeviceType.GATEWAY),
+                new Row(switchMacAddress, DeviceType.SWITCH)));
+        //call method
+        service.writeDevices(outputStream, true);
+        //assertion
+        assertEquals("{\"deviceType\":\"gateway\",\"macAddress\":\"00:1A:2B:3C:4D:5E\"}\n"
+                        + "{\"deviceType\":\"switch\",\"macAddress\":\"10:1A:2B:3C:4D:5E\"}\n",
+                outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void whenWriteTopology_thenWriteNestedTrees() throws Exception {
+        var outputStream = new ByteArrayOutputStream();
+        //when
+        when(deviceRepository.streamTopologyForest(Integer.MAX_VALUE)).thenReturn(preOrderRows());
+        //call method
+        service.writeTopology(outputStream, false, null);
+        //assertion
+        assertEquals("[{\"macAddress\":\"00:1A:2B:3C:4D:5E\",\"children\":["
+                        + "{\"macAddress\":\"10:1A:2B:3C:4D:5E\",\"children\":["
+                        + "{\"macAddress\":\"20:1A:2B:3C:4D:5E\",\"children\":[]}]}]},"
+                        + "{\"macAddress\":\"30:1A:2B:3C:4D:5E\",\"children\":[]}]",
+                outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void whenWriteTopology_andNdjson_thenWriteOneRootTreePerLine() throws Exception {
+        var outputStream = new ByteArrayOutputStream();
+        //when
+        when(deviceRepository.streamTopologyForest(Integer.MAX_VALUE)).thenReturn(preOrderRows());
+        //call method
+        service.writeTopology(outputStream, true, null);
+        //assertion
+        var lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].endsWith("\"children\":[]}]}]}"));
+        assertEquals("{\"macAddress\":\"30:1A:2B:3C:4D:5E\",\"children\":[]}", lines[1]);
+    }
+
+    @Test
+    void whenWriteTopology_andNoDevices_thenWriteEmptyArray() throws Exception {
+        var outputStream = new ByteArrayOutputStream();
+        //when
+        when(deviceRepository.streamTopologyForest(Integer.MAX_VALUE)).thenReturn(Stream.empty());
+        //call method
+        service.writeTopology(outputStream, false, null);
+        //assertion
+        assertEquals("[]", outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    private Stream<DeviceTopologyRow> preOrderRows() {
+        return Stream.of(
+                new TopologyRow(gatewayMacAddress, 0),
+                new TopologyRow(switchMacAddress, 1),
+                new TopologyRow(accessPointMacAddress, 2),
+                new TopologyRow(otherGatewayMacAddress, 0));
+    }
+
+    private record Row(String macAddress, DeviceType deviceType) implements DeviceRow {
+        @Override
+        public MacAddress getMacAddress() {
+            return MacAddress.parse(macAddress);
+        }
+
+        @Override
+        public DeviceType getDeviceType() {
+            return deviceType;
+        }
+    }
+
+    private record TopologyRow(String macAddress, Integer depth) implements DeviceTopologyRow {
+        @Override
+        public Long getMacAddress() {
+            return MacAddress.parse(macAddress).toLong();
+        }
+
+        @Override
+        public Long getUplinkMacAddress() {
+            return null;
+        }
+
+        @Override
+        public Integer getDepth() {
+            return depth;
+        }
+    }
+}
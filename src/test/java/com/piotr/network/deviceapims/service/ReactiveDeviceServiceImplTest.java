@@ -0,0 +1,249 @@
+package com.piotr.network.deviceapims.service;
+
+import com.piotr.network.deviceapims.entity.DeviceRecord;
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.exception.DuplicateDeviceException;
+import com.piotr.network.deviceapims.exception.InvalidRequestException;
+import com.piotr.network.deviceapims.generated.model.*;
+import com.piotr.network.deviceapims.mapper.DeviceMapper;
+import com.piotr.network.deviceapims.repository.DeviceChangeRecord;
+import com.piotr.network.deviceapims.repository.DeviceTopologyRecord;
+import com.piotr.network.deviceapims.repository.ReactiveDeviceRepository;
+import com.piotr.network.deviceapims.snapshot.ReactiveChangeSequence;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveDeviceServiceImplTest {
+
+    @Mock
+    ReactiveDeviceRepository deviceRepository;
+    @Mock
+    R2dbcEntityTemplate entityTemplate;
+    @Spy
+    DeviceMapper deviceMapper;
+    @Mock
+    ReactiveChangeSequence changeSequence;
+    @Mock
+    TransactionalOperator transactionalOperator;
+    @InjectMocks
+    ReactiveDeviceServiceImpl service;
+
+    private final String childMacAddress = "00:1A:2B:3C:4D:5E";
+    private final String parentMacAddress = "60:7A:8B:9C:4D:5E";
+    private final MacAddress childMac = MacAddress.parse(childMacAddress);
+    private final MacAddress parentMac = MacAddress.parse(parentMacAddress);
+
+    @Test
+    void whenRegisterDevice_thenPathIsDerivedFromUplink() {
+        var parent = new DeviceRecord(UUID.randomUUID(), DeviceType.GATEWAY, 1, parentMac.toLong(), parentMac.toHex(), 0, null, null);
+        var request = new RegisterDeviceRequest(DeviceType.ACCESS_POINT, childMacAddress).uplinkMacAddress(parentMacAddress);
+        when(deviceRepository.existsByMacAddress(childMac.toLong())).thenReturn(Mono.just(false));
+        when(deviceRepository.findByMacAddress(parentMac.toLong())).thenReturn(Mono.just(parent));
+        when(entityTemplate.insert(any(DeviceRecord.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        stubTransactionalInsert();
+        //call method
+        StepVerifier.create(service.registerDevice(request))
+                //assertion
+                .assertNext(response -> {
+                    assertEquals(childMacAddress, response.getMacAddress());
+                    assertEquals(parentMacAddress, response.getUplinkMacAddress());
+                    assertEquals(DeviceType.ACCESS_POINT, response.getDeviceType());
+                    assertNotNull(response.getId());
+                })
+                .verifyComplete();
+        verify(entityTemplate).insert(argThat((DeviceRecord record) -> record.typeRank() == 3 && record.depth() == 1
+                && record.path().equals(parentMac.toHex() + childMac.toHex()) && parent.id().equals(record.uplinkId())
+                && record.changeSeq() == 1000));
+        verify(transactionalOperator).transactional(any(Mono.class));
+    }
+
+    @Test
+    void whenRegisterDevice_andAlreadyRegistered_thenDuplicateDeviceException() {
+        var request = new RegisterDeviceRequest(DeviceType.GATEWAY, childMacAddress);
+        when(deviceRepository.existsByMacAddress(childMac.toLong())).thenReturn(Mono.just(true));
+        //call method
+        StepVerifier.create(service.registerDevice(request))
+                //assertion
+                .expectError(DuplicateDeviceException.class)
+                .verify();
+        verify(entityTemplate, never()).insert(any(DeviceRecord.class));
+    }
+
+    @Test
+    void whenRegisterDevice_andParentMissing_thenInvalidRequestException() {
+        var request = new RegisterDeviceRequest(DeviceType.SWITCH, childMacAddress).uplinkMacAddress(parentMacAddress);
+        when(deviceRepository.existsByMacAddress(childMac.toLong())).thenReturn(Mono.just(false));
+        when(deviceRepository.findByMacAddress(parentMac.toLong())).thenReturn(Mono.empty());
+        //call method
+        StepVerifier.create(service.registerDevice(request))
+                //assertion
+                .expectErrorSatisfies(exception -> {
+                    assertInstanceOf(InvalidRequestException.class, exception);
+                    assertEquals("Parent device with MAC " + parentMacAddress + " not found", exception.getMessage());
+                })
+                .verify();
+    }
+
+    @Test
+    void whenRegisterDevices_andChildPrecedesUplink_thenUplinkIsInsertedFirst() {
+        var child = new RegisterDeviceRequest(DeviceType.SWITCH, childMacAddress).uplinkMacAddress(parentMacAddress);
+        var parent = new RegisterDeviceRequest(DeviceType.GATEWAY, parentMacAddress);
+        when(deviceRepository.findByMacAddressIn(Set.of(childMac.toLong(), parentMac.toLong()))).thenReturn(Flux.empty());
+        List<DeviceRecord> inserts = new ArrayList<>();
+        when(entityTemplate.insert(any(DeviceRecord.class))).thenAnswer(invocation -> {
+            inserts.add(invocation.getArgument(0));
+            return Mono.just(invocation.getArgument(0));
+        });
+        stubTransactionalInsert();
+        //call method
+        StepVerifier.create(service.registerDevices(List.of(child, parent)))
+                //assertion
+                .assertNext(response -> {
+                    assertEquals(2, response.getRegistered());
+                    assertEquals(0, response.getRejected());
+                    assertEquals(BatchRegisterDeviceStatus.REGISTERED, response.getResults().get(0).getStatus());
+                    assertEquals(childMacAddress, response.getResults().get(0).getMacAddress());
+                    assertEquals(BatchRegisterDeviceStatus.REGISTERED, response.getResults().get(1).getStatus());
+                })
+                .verifyComplete();
+        assertEquals(List.of(parentMac.toLong(), childMac.toLong()), inserts.stream().map(DeviceRecord::macAddress).toList());
+        assertEquals(inserts.get(0).id(), inserts.get(1).uplinkId());
+        assertEquals(1, inserts.get(1).depth());
+        verify(deviceRepository, never()).findByMacAddress(any());
+    }
+
+    @Test
+    void whenRegisterDevices_andParentNeverRegistered_thenParentNotFound() {
+        var child = new RegisterDeviceRequest(DeviceType.SWITCH, childMacAddress).uplinkMacAddress(parentMacAddress);
+        var duplicate = new RegisterDeviceRequest(DeviceType.GATEWAY, "70:7A:8B:9C:4D:5E");
+        var duplicateRecord = deviceMapper.mapDeviceDtoToDeviceRecord(duplicate, null);
+        when(deviceRepository.findByMacAddressIn(any())).thenReturn(Flux.just(duplicateRecord));
+        //call method
+        StepVerifier.create(service.registerDevices(List.of(child, duplicate)))
+                //assertion
+                .assertNext(response -> {
+                    assertEquals(0, response.getRegistered());
+                    assertEquals(2, response.getRejected());
+                    assertEquals(BatchRegisterDeviceStatus.PARENT_NOT_FOUND, response.getResults().get(0).getStatus());
+                    assertEquals(BatchRegisterDeviceStatus.DUPLICATE, response.getResults().get(1).getStatus());
+                })
+                .verifyComplete();
+        verify(entityTemplate, never()).insert(any(DeviceRecord.class));
+    }
+
+    @Test
+    void whenGetDevicesPage_andMoreDevices_thenReturnNextCursor() {
+        var gateway = new DeviceRecord(UUID.randomUUID(), DeviceType.GATEWAY, 1, parentMac.toLong(), parentMac.toHex(), 0, null, null);
+        var accessPoint = new DeviceRecord(UUID.randomUUID(), DeviceType.ACCESS_POINT, 3, childMac.toLong(),
+                parentMac.toHex() + childMac.toHex(), 1, gateway.id(), null);
+        when(deviceRepository.findDevicesSorted(2)).thenReturn(Flux.just(gateway, accessPoint));
+        //call method
+        StepVerifier.create(service.getDevicesPage(1, null))
+                //assertion
+                .assertNext(page -> {
+                    assertEquals(1, page.devices().size());
+                    assertEquals(parentMacAddress, page.devices().get(0).getMacAddress());
+                    assertEquals(DeviceCursor.after(DeviceType.GATEWAY, parentMac), DeviceCursor.decode(page.nextCursor()));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void whenGetDevices_andNoDevices_thenInvalidRequestException() {
+        when(deviceRepository.findDevicesSorted()).thenReturn(Flux.empty());
+        //call method
+        StepVerifier.create(service.getDevices())
+                //assertion
+                .expectErrorSatisfies(exception -> assertEquals(HttpStatus.NOT_FOUND,
+                        ((InvalidRequestException) exception).getStatus()))
+                .verify();
+    }
+
+    @Test
+    void whenGetDeviceByMac_andNotRegistered_thenInvalidRequestException() {
+        when(deviceRepository.findByMacAddress(childMac.toLong())).thenReturn(Mono.empty());
+        //call method
+        StepVerifier.create(service.getDeviceByMac(childMac))
+                //assertion
+                .expectErrorSatisfies(exception -> assertEquals("Device with MAC " + childMacAddress + " not found",
+                        exception.getMessage()))
+                .verify();
+    }
+
+    @Test
+    void whenGetTopologyChanges_thenReturnChangesBelowStableBound() {
+        when(changeSequence.stableBound()).thenReturn(Mono.just(1000L));
+        when(changeSequence.maxChanges()).thenReturn(2);
+        when(deviceRepository.findChangesSince(0, 1000, 3)).thenReturn(Flux.just(
+                new DeviceChangeRecord(parentMac.toLong(), DeviceType.GATEWAY, null, 998L),
+                new DeviceChangeRecord(childMac.toLong(), DeviceType.SWITCH, parentMac.toLong(), 999L)));
+        //call method
+        StepVerifier.create(service.getTopologyChanges(0))
+                //assertion
+                .assertNext(response -> {
+                    assertEquals(999, response.getVersion());
+                    assertFalse(response.getResyncRequired());
+                    assertEquals(2, response.getChanges().size());
+                    assertNull(response.getChanges().get(0).getUplinkMacAddress());
+                    assertEquals(parentMacAddress, response.getChanges().get(1).getUplinkMacAddress());
+                    assertEquals(DeviceType.SWITCH, response.getChanges().get(1).getDeviceType());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void whenGetTopologyNodes_thenReturnTreeStructure() {
+        when(deviceRepository.findTopologyForest(Integer.MAX_VALUE)).thenReturn(Flux.just(
+                new DeviceTopologyRecord(parentMac.toLong(), null, 0),
+                new DeviceTopologyRecord(childMac.toLong(), parentMac.toLong(), 1)));
+        //call method
+        StepVerifier.create(service.getTopologyNodes(null))
+                //assertion
+                .assertNext(roots -> {
+                    assertEquals(1, roots.size());
+                    assertEquals(parentMacAddress, roots.get(0).getMacAddress());
+                    assertEquals(childMacAddress, roots.get(0).getChildren().get(0).getMacAddress());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void whenGetTopologyNodeByMac_andNotRegistered_thenInvalidRequestException() {
+        when(deviceRepository.findTopologySubtree(parentMac.toLong(), 2)).thenReturn(Flux.empty());
+        //call method
+        StepVerifier.create(service.getTopologyNodeByMac(parentMac, 2))
+                //assertion
+                .expectErrorSatisfies(exception -> assertEquals("Topology with device MAC " + parentMacAddress + " not found",
+                        exception.getMessage()))
+                .verify();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubTransactionalInsert() {
+        when(changeSequence.next()).thenReturn(Mono.just(1000L));
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+}
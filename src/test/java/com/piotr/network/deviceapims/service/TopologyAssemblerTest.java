@@ -0,0 +1,57 @@
+package com.piotr.network.deviceapims.service;
+
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.mapper.DeviceMapper;
+import com.piotr.network.deviceapims.repository.DeviceTopologyRecord;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopologyAssemblerTest {
+
+    private final DeviceMapper mapper = new DeviceMapper();
+
+    private final MacAddress gatewayMacAddress = MacAddress.parse("00:1A:2B:3C:4D:5E");
+    private final MacAddress switchMacAddress = MacAddress.parse("10:1A:2B:3C:4D:5E");
+    private final MacAddress accessPointMacAddress = MacAddress.parse("20:1A:2B:3C:4D:5E");
+
+    @Test
+    void whenForestRowsAdded_thenChildrenAreAttachedToTheirUplinks() {
+        var assembler = TopologyAssembler.forest(mapper);
+        //call method
+        assembler.add(new DeviceTopologyRecord(gatewayMacAddress.toLong(), null, 0));
+        assembler.add(new DeviceTopologyRecord(accessPointMacAddress.toLong(), null, 0));
+        assembler.add(new DeviceTopologyRecord(switchMacAddress.toLong(), gatewayMacAddress.toLong(), 1));
+        //assertion
+        var roots = assembler.roots();
+        assertEquals(2, roots.size());
+        assertEquals(gatewayMacAddress.toString(), roots.get(0).getMacAddress());
+        assertEquals(switchMacAddress.toString(), roots.get(0).getChildren().get(0).getMacAddress());
+        assertTrue(roots.get(1).getChildren().isEmpty());
+    }
+
+    @Test
+    void whenSubtreeRowsAdded_thenRowsOutsideTheSubtreeAreLeftOut() {
+        var assembler = TopologyAssembler.subtree(mapper, switchMacAddress);
+        //call method
+        assembler.add(new DeviceTopologyRecord(gatewayMacAddress.toLong(), 0x401A2B3C4D5EL, 0));
+        assembler.add(new DeviceTopologyRecord(switchMacAddress.toLong(), 0x401A2B3C4D5EL, 0));
+        assembler.add(new DeviceTopologyRecord(0x301A2B3C4D5EL, gatewayMacAddress.toLong(), 1));
+        assembler.add(new DeviceTopologyRecord(accessPointMacAddress.toLong(), switchMacAddress.toLong(), 1));
+        //assertion
+        var root = assembler.root().orElseThrow();
+        assertEquals(switchMacAddress.toString(), root.getMacAddress());
+        assertEquals(1, root.getChildren().size());
+        assertEquals(accessPointMacAddress.toString(), root.getChildren().get(0).getMacAddress());
+    }
+
+    @Test
+    void whenSubtreeRootMissing_thenRootIsEmpty() {
+        var assembler = TopologyAssembler.subtree(mapper, switchMacAddress);
+        //call method
+        assembler.add(new DeviceTopologyRecord(gatewayMacAddress.toLong(), null, 0));
+        //assertion
+        assertTrue(assembler.root().isEmpty());
+    }
+}
@@ -0,0 +1,66 @@
+package com.piotr.network.deviceapims.snapshot;
+
+import com.piotr.network.deviceapims.repository.ChangeCounterRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ChangeSequenceTest {
+
+    @Mock
+    private ChangeCounterRepository changeCounterRepository;
+
+    @Test
+    void whenNext_thenCounterIsAdvancedByOne() {
+        when(changeCounterRepository.advance(1)).thenReturn(1001L);
+        var changeSequence = new ChangeSequence(changeCounterRepository, 10);
+
+        //call method
+        long seq = changeSequence.next();
+
+        //assertion
+        assertEquals(1001, seq);
+    }
+
+    @Test
+    void whenBlockTaken_thenFirstValueOfBlockIsReturned() {
+        when(changeCounterRepository.advance(100)).thenReturn(1100L);
+        var changeSequence = new ChangeSequence(changeCounterRepository, 10);
+
+        //call method
+        long first = changeSequence.next(100);
+
+        //assertion
+        assertEquals(1001, first);
+    }
+
+    @Test
+    void whenBlockSizeInvalid_thenCounterIsNotAdvanced() {
+        var changeSequence = new ChangeSequence(changeCounterRepository, 10);
+
+        //assertion
+        assertThrows(IllegalArgumentException.class, () -> changeSequence.next(0));
+        verify(changeCounterRepository, never()).advance(anyInt());
+    }
+
+    @Test
+    void whenStableBound_thenFollowsCommittedCounter() {
+        when(changeCounterRepository.findLastValue()).thenReturn(1000L);
+        var changeSequence = new ChangeSequence(changeCounterRepository, 10);
+
+        //call method
+        long bound = changeSequence.stableBound();
+
+        //assertion
+        assertEquals(1001, bound);
+        assertEquals(10, changeSequence.maxChanges());
+    }
+}
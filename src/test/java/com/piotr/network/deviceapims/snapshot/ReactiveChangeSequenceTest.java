@@ -0,0 +1,48 @@
+package com.piotr.network.deviceapims.snapshot;
+
+import com.piotr.network.deviceapims.repository.ReactiveDeviceRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveChangeSequenceTest {
+
+    @Mock
+    private ReactiveDeviceRepository deviceRepository;
+
+    @Test
+    void whenNext_thenCounterIsAdvancedBeforeItIsRead() {
+        when(deviceRepository.advanceChangeCounter(1)).thenReturn(Mono.just(1));
+        when(deviceRepository.findChangeCounter()).thenReturn(Mono.just(1001L));
+        var changeSequence = new ReactiveChangeSequence(deviceRepository, 10);
+
+        //call method
+        StepVerifier.create(changeSequence.next())
+                //assertion
+                .expectNext(1001L)
+                .verifyComplete();
+        InOrder order = inOrder(deviceRepository);
+        order.verify(deviceRepository).advanceChangeCounter(1);
+        order.verify(deviceRepository).findChangeCounter();
+    }
+
+    @Test
+    void whenStableBound_thenFollowsCommittedCounter() {
+        when(deviceRepository.findChangeCounter()).thenReturn(Mono.just(1000L));
+        var changeSequence = new ReactiveChangeSequence(deviceRepository, 10);
+
+        //call method
+        StepVerifier.create(changeSequence.stableBound())
+                //assertion
+                .expectNext(1001L)
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,41 @@
+package com.piotr.network.deviceapims.snapshot;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopologySnapshotCacheTest {
+
+    private final TopologySnapshotCache cache = new TopologySnapshotCache();
+    private final TopologySnapshotCache.Snapshot snapshot =
+            new TopologySnapshotCache.Snapshot(new byte[]{'[', ']'}, "application/json");
+
+    @Test
+    void whenNewerVersionStored_thenOlderVersionIsDropped() {
+        cache.put(1, "/devices/topology", snapshot);
+        cache.put(2, "/devices/topology/00:1A:2B:3C:4D:5E", snapshot);
+
+        assertNull(cache.get(1, "/devices/topology"));
+        assertSame(snapshot, cache.get(2, "/devices/topology/00:1A:2B:3C:4D:5E"));
+    }
+
+    @Test
+    void whenOlderVersionStored_thenItIsIgnored() {
+        cache.put(2, "/devices/topology", snapshot);
+        cache.put(1, "/devices/topology/00:1A:2B:3C:4D:5E", snapshot);
+
+        assertNull(cache.get(1, "/devices/topology/00:1A:2B:3C:4D:5E"));
+        assertSame(snapshot, cache.get(2, "/devices/topology"));
+    }
+
+    @Test
+    void whenVersionIsFull_thenFurtherSnapshotsAreNotStored() {
+        for (int i = 0; i < TopologySnapshotCache.MAX_SNAPSHOTS; i++) {
+            cache.put(1, "/devices/topology/" + i, snapshot);
+        }
+        cache.put(1, "/devices/topology/overflow", snapshot);
+
+        assertNull(cache.get(1, "/devices/topology/overflow"));
+        assertSame(snapshot, cache.get(1, "/devices/topology/0"));
+    }
+}
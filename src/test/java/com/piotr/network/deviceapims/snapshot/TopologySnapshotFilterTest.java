@@ -0,0 +1,166 @@
+package com.piotr.network.deviceapims.snapshot;
+
+import com.piotr.network.deviceapims.entity.MacAddress;
+import com.piotr.network.deviceapims.event.DeviceRegisteredEvent;
+import com.piotr.network.deviceapims.generated.model.DeviceType;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopologySnapshotFilterTest {
+
+    private final AtomicInteger controllerCalls = new AtomicInteger();
+    private TopologyVersion topologyVersion;
+    private TopologySnapshotFilter filter;
+
+    @BeforeEach
+    void setup() {
+        topologyVersion = new TopologyVersion();
+        filter = new TopologySnapshotFilter(topologyVersion, new TopologySnapshotCache(), true);
+    }
+
+    @Test
+    void whenSameVersionRequestedTwice_thenSecondResponseIsServedFromCache() throws Exception {
+        var first = perform(new MockHttpServletRequest("GET", "/devices/topology"));
+        var second = perform(new MockHttpServletRequest("GET", "/devices/topology"));
+
+        assertEquals(1, controllerCalls.get());
+        assertEquals(200, second.getStatus());
+        assertEquals("[{\"macAddress\":\"00:1A:2B:3C:4D:5E\",\"children\":[]}]", second.getContentAsString());
+        assertTrue(second.getContentType().startsWith(MediaType.APPLICATION_JSON_VALUE));
+        assertEquals(first.getHeader(HttpHeaders.ETAG), second.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void whenIfNoneMatchIsCurrent_thenReturn304() throws Exception {
+        var first = perform(new MockHttpServletRequest("GET", "/devices/topology/00:1A:2B:3C:4D:5E"));
+        var request = new MockHttpServletRequest("GET", "/devices/topology/00:1A:2B:3C:4D:5E");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + first.getHeader(HttpHeaders.ETAG));
+
+        var response = perform(request);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentLength());
+        assertEquals(1, controllerCalls.get());
+    }
+
+    @Test
+    void whenDeviceRegistered_thenETagChangesAndBodyIsRecomputed() throws Exception {
+        var first = perform(new MockHttpServletRequest("GET", "/devices/topology"));
+        topologyVersion.onDeviceRegistered(new DeviceRegisteredEvent(UUID.randomUUID(), DeviceType.GATEWAY,
+                MacAddress.parse("10:1A:2B:3C:4D:5E"), null, 1));
+        var request = new MockHttpServletRequest("GET", "/devices/topology");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, first.getHeader(HttpHeaders.ETAG));
+
+        var response = perform(request);
+
+        assertEquals(200, response.getStatus());
+        assertNotEquals(first.getHeader(HttpHeaders.ETAG), response.getHeader(HttpHeaders.ETAG));
+        assertEquals(2, controllerCalls.get());
+    }
+
+    @Test
+    void whenAcceptDiffers_thenETagAndCachedBodyAreSeparate() throws Exception {
+        var json = perform(new MockHttpServletRequest("GET", "/devices/topology"));
+        var cborRequest = new MockHttpServletRequest("GET", "/devices/topology");
+        cborRequest.addHeader(HttpHeaders.ACCEPT, "application/cbor");
+        cborRequest.addHeader(HttpHeaders.IF_NONE_MATCH, json.getHeader(HttpHeaders.ETAG));
+
+        var cbor = perform(cborRequest);
+
+        assertEquals(200, cbor.getStatus());
+        assertEquals(2, controllerCalls.get());
+        assertNotEquals(json.getHeader(HttpHeaders.ETAG), cbor.getHeader(HttpHeaders.ETAG));
+        assertEquals(HttpHeaders.ACCEPT, cbor.getHeader(HttpHeaders.VARY));
+    }
+
+    @Test
+    void whenStreamingOrOtherPath_thenRequestIsNotFiltered() throws Exception {
+        var stream = new MockHttpServletRequest("GET", "/devices/topology");
+        stream.setParameter("stream", "true");
+        var ndjson = new MockHttpServletRequest("GET", "/devices/topology");
+        ndjson.addHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_NDJSON_VALUE);
+
+        assertTrue(filter.shouldNotFilter(stream));
+        assertTrue(filter.shouldNotFilter(ndjson));
+        assertTrue(filter.shouldNotFilter(new MockHttpServletRequest("GET", "/devices")));
+        assertTrue(filter.shouldNotFilter(new MockHttpServletRequest("POST", "/devices/topology")));
+        assertTrue(filter.shouldNotFilter(new MockHttpServletRequest("GET", "/devices/topology/events")));
+        assertTrue(filter.shouldNotFilter(new MockHttpServletRequest("GET", "/devices/topology/changes")));
+        assertFalse(filter.shouldNotFilter(new MockHttpServletRequest("GET", "/devices/topology/00:1A:2B:3C:4D:5E")));
+    }
+
+    @Test
+    void whenControllerReturnsError_thenResponseIsNotCached() throws Exception {
+        var errorChain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                controllerCalls.incrementAndGet();
+                response.sendError(404);
+            }
+        });
+        filter.doFilter(new MockHttpServletRequest("GET", "/devices/topology"), new MockHttpServletResponse(), errorChain);
+
+        var response = perform(new MockHttpServletRequest("GET", "/devices/topology"));
+
+        assertEquals(200, response.getStatus());
+        assertEquals(2, controllerCalls.get());
+    }
+
+    @Test
+    void whenIfNoneMatchIsAnyAndTopologyMissing_thenControllerAnswers() throws Exception {
+        var request = new MockHttpServletRequest("GET", "/devices/topology/F0:1A:2B:3C:4D:5E");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "*");
+        var response = new MockHttpServletResponse();
+        //call method
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                controllerCalls.incrementAndGet();
+                response.sendError(404);
+            }
+        }));
+        //assertion
+        assertEquals(404, response.getStatus());
+        assertEquals(1, controllerCalls.get());
+    }
+
+    @Test
+    void whenIfNoneMatchIsAnyAndTopologyExists_thenReturn304() throws Exception {
+        var request = new MockHttpServletRequest("GET", "/devices/topology");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "*");
+        //call method
+        var response = perform(request);
+        //assertion
+        assertEquals(304, response.getStatus());
+        assertEquals("", response.getContentAsString());
+        assertNotNull(response.getHeader(HttpHeaders.ETAG));
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+        var response = new MockHttpServletResponse();
+        var chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                controllerCalls.incrementAndGet();
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.getWriter().write("[{\"macAddress\":\"00:1A:2B:3C:4D:5E\",\"children\":[]}]");
+            }
+        });
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}